@@ -1,36 +1,165 @@
 package GameFiles;
 
+import nnue.Accumulator;
 import pieces.*;
 import utils.Constants;
+import utils.PieceCode;
+import utils.Rays;
 import utils.Utils;
+import utils.Zobrist;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import static utils.Constants.NUM_ROWS;
 import static utils.Constants.NUM_COLS;
 import static utils.Constants.Color;
-import static utils.ErrorMessages.NO_PLAYER;
+import static utils.ErrorMessages.INVALID_FEN;
 import static utils.Utils.*;
 
+/**
+ * The position is kept in a single byte array. Squares 0-63 hold the code of the piece standing on them (see
+ * utils.PieceCode) in the low four bits and the index of the piece in its piece list in the high four bits.
+ * The piece lists of white and black follow, 16 entries each, holding the squares of the pieces with the king first.
+ * Adding and removing pieces is O(1) since every square knows where its piece sits in the list.
+ * Piece objects are only created when they are asked for and then follow the moves made on the board
+ */
 public class Board {
-    private Piece gameboard[][];
-    private HashMap<Color, Integer> kingPosition;
-    private int lastStartingPosition;
-    private Piece lastCapturedPiece;
-    private Piece lastPieceMoved;
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+    private static final String PIECE_LETTERS = "pnbrqk";
+    public static final int FIFTY_MOVE_PLIES = 100;
+    public static final int MAX_MOVES = 256;
+    // Most pieces a player can have, there is no promotion
+    public static final int MAX_PIECES = 16;
+    private static final int NUM_SQUARES = NUM_ROWS * NUM_COLS;
+    private static final int WHITE_LIST = NUM_SQUARES;
+    private static final int BLACK_LIST = NUM_SQUARES + MAX_PIECES;
+    private static final int KING_INDEX = Constants.PieceType.KING.ordinal();
+
+    // Layout of a move on the undo stack
+    private static final int TO_SHIFT = 6;
+    private static final int CAPTURED_SHIFT = 12;
+    private static final int MOVED_BIT = 1 << 16;
+    private static final int CAPTURED_MOVED_BIT = 1 << 17;
+    private static final int CLOCK_SHIFT = 18;
+    private static final int MAX_CLOCK = (1 << (32 - CLOCK_SHIFT)) - 1;
+
+    private byte[] mailbox;
+    private byte numWhitePieces;
+    private byte numBlackPieces;
+    // Bit set for every square whose piece has moved before, pawns know it from their row
+    private long movedPieces;
+    private Color sideToMove;
+    private long key;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    // Moves that can be undone and keys of all earlier positions, allocated with the first move
+    private int[] undoStack;
+    private int numUndo;
+    private long[] keys;
+    private int numKeys;
+    // Created when they are first asked for
+    private Player playerWhite;
+    private Player playerBlack;
+    private Piece[] pieces;
+    // Neural network accumulators following the moves, only set for network evaluation
+    private Accumulator accumulator;
+    // Legal moves of the current position for validating moves of players, created when first asked for
+    private LegalMoveCache legalMoves;
+    // Told about the moves of the game, copies of the board don't inherit it
+    private MoveListener moveListener;
 
     /**
      * Constructs a new board that has all the pieces set up
      */
     public Board() {
-        gameboard = new Piece[NUM_ROWS][NUM_COLS];
-        kingPosition = new HashMap<>();
-        lastStartingPosition = -1;
-        lastCapturedPiece = null;
-        lastPieceMoved = null;
+        initialize();
         setupGame();
     }
 
+    /**
+     * Constructs a new board with the position described in Forsyth-Edwards Notation
+     * Castling and en passant fields are ignored since they aren't part of the rules
+     * Pawns standing on their starting row are allowed to make their two step first move
+     * @param fen - Position in Forsyth-Edwards Notation
+     * @throws IllegalArgumentException - If the text isn't a valid position
+     */
+    public Board(String fen) {
+        initialize();
+        setupPosition(fen);
+    }
+
+    /**
+     * Constructs an empty board, the pieces are placed with placePiece()
+     * @param sideToMove - Color of the player who is to move next
+     * @param halfmoveClock - Number of half moves since the last capture or pawn move
+     * @param fullmoveNumber - Number of the current move
+     */
+    Board(Color sideToMove, int halfmoveClock, int fullmoveNumber) {
+        initialize();
+        if(sideToMove == Color.BLACK) {
+            switchSideToMove();
+        }
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Constructs a board with the position of a snapshot
+     * @param snapshot - Position the board starts from
+     */
+    Board(PositionSnapshot snapshot) {
+        mailbox = snapshot.getMailbox();
+        numWhitePieces = (byte) snapshot.getNumPieces(Color.WHITE);
+        numBlackPieces = (byte) snapshot.getNumPieces(Color.BLACK);
+        movedPieces = snapshot.getMovedPieces();
+        sideToMove = snapshot.getSideToMove();
+        key = snapshot.getKey();
+        halfmoveClock = snapshot.getHalfmoveClock();
+        fullmoveNumber = snapshot.getFullmoveNumber();
+        long[] keyHistory = snapshot.getKeyHistory();
+        if(keyHistory.length > 0) {
+            keys = keyHistory;
+            numKeys = keyHistory.length;
+        }
+    }
+
+    /**
+     * Copies the position, the moves that can be undone and the keys of the earlier positions
+     * Pieces and players of the copy are separate from the ones of this board
+     * @return - Board that can be changed independently of this board
+     */
+    public Board copy() {
+        Board board = new Board(snapshot());
+        if(numUndo > 0) {
+            board.undoStack = Arrays.copyOf(undoStack, numUndo);
+            board.numUndo = numUndo;
+            board.keys = Arrays.copyOf(keys, numKeys);
+            board.numKeys = numKeys;
+        }
+        return board;
+    }
+
+    /**
+     * Takes an immutable copy of the position that can be shared between threads
+     * Only the keys needed to detect repetitions are kept, the moves can't be undone on boards made from it
+     * @return - Snapshot of the current position
+     */
+    public PositionSnapshot snapshot() {
+        return new PositionSnapshot(mailbox, numWhitePieces, numBlackPieces, movedPieces, sideToMove, key, halfmoveClock,
+                fullmoveNumber, getKeyHistory());
+    }
+
+    private void initialize() {
+        mailbox = new byte[NUM_SQUARES + 2 * MAX_PIECES];
+        numWhitePieces = 0;
+        numBlackPieces = 0;
+        movedPieces = 0;
+        sideToMove = Color.WHITE;
+        key = 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+    }
+
     /**
      * Sets up the game by initializing all requirements
      */
@@ -42,58 +171,319 @@ public class Board {
      * Adds pieces to the board in their correct initial position
      */
     private void populatePieces() {
+        Constants.PieceType[] backRow = {Constants.PieceType.ROOK, Constants.PieceType.KNIGHT, Constants.PieceType.BISHOP,
+                Constants.PieceType.QUEEN, Constants.PieceType.KING, Constants.PieceType.BISHOP, Constants.PieceType.KNIGHT,
+                Constants.PieceType.ROOK};
 
         for(int col = 0; col < NUM_COLS; col++) {
-            Piece blackPiece = null;
-            Piece whitePiece = null;
             // Populate 1'st row with Black Pawns and (N-1)th row with White Pawns
-            gameboard[1][col] = new Pawn(Color.BLACK, convertToPosition(1, col));
-            gameboard[NUM_ROWS - 2][col] = new Pawn(Constants.Color.WHITE, convertToPosition(NUM_ROWS - 2, col));
+            addPiece(Color.BLACK, Constants.PieceType.PAWN, convertToPosition(1, col));
+            addPiece(Color.WHITE, Constants.PieceType.PAWN, convertToPosition(NUM_ROWS - 2, col));
 
+            // Rooks, knights, bishops, queen and king behind them
+            addPiece(Color.BLACK, backRow[col], convertToPosition(0, col));
+            addPiece(Color.WHITE, backRow[col], convertToPosition(NUM_ROWS - 1, col));
+        }
+    }
 
-            int blackPosition = convertToPosition(0, col);
-            int whitePosition = convertToPosition(NUM_ROWS - 1, col);
-
-            // Add Rooks
-            if(col == 0 || col == Constants.NUM_COLS - 1) {
-                blackPiece = new Rook(Color.BLACK, blackPosition);
-                whitePiece = new Rook(Color.WHITE, whitePosition);
+    /**
+     * Places the pieces described by a position in Forsyth-Edwards Notation
+     * @param fen - Position in Forsyth-Edwards Notation
+     */
+    private void setupPosition(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if(rows.length != NUM_ROWS) {
+            throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+        }
+        boolean whiteKing = false;
+        boolean blackKing = false;
+        for(int row = 0; row < NUM_ROWS; row++) {
+            int col = 0;
+            for(char c : rows[row].toCharArray()) {
+                if(Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+                if(type == -1 || col >= NUM_COLS) {
+                    throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+                }
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                if(getNumPieces(color) == MAX_PIECES) {
+                    throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+                }
+                Constants.PieceType pieceType = Constants.PieceType.values()[type];
+                whiteKing |= pieceType == Constants.PieceType.KING && color == Color.WHITE;
+                blackKing |= pieceType == Constants.PieceType.KING && color == Color.BLACK;
+                addPiece(color, pieceType, convertToPosition(row, col));
+                col++;
             }
-
-            // Add Knights
-            if(col == 1 || col == Constants.NUM_COLS - 2) {
-                blackPiece = new Knight(Constants.Color.BLACK, blackPosition);
-                whitePiece = new Knight(Constants.Color.WHITE, whitePosition);
+            if(col != NUM_COLS) {
+                throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
             }
-
-            // Add Bishop
-            if(col == 2 || col == Constants.NUM_COLS - 3) {
-                blackPiece = new Bishop(Constants.Color.BLACK, blackPosition);
-                whitePiece = new Bishop(Constants.Color.WHITE, whitePosition);
+        }
+        if(!whiteKing || !blackKing) {
+            throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+        }
+        if(fields.length > 1 && fields[1].equals("b")) {
+            switchSideToMove();
+        }
+        try {
+            if(fields.length > 4) {
+                halfmoveClock = Integer.parseInt(fields[4]);
             }
-
-            // Add Queens
-            if(col == Constants.NUM_COLS/2 - 1) {
-                blackPiece = new Queen(Constants.Color.BLACK, blackPosition);
-                whitePiece = new Queen(Constants.Color.WHITE, whitePosition);
+            if(fields.length > 5) {
+                fullmoveNumber = Integer.parseInt(fields[5]);
             }
+        }
+        catch(NumberFormatException e) {
+            throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+        }
+        if(halfmoveClock < 0 || fullmoveNumber < 1) {
+            throw new IllegalArgumentException(INVALID_FEN + ": " + fen);
+        }
+    }
+
+    /**
+     * Creates a new piece of the given type
+     * @param type - Type of the piece
+     * @param color - Color of the piece
+     * @param position - Position the piece should be placed at
+     * @return - New piece
+     */
+    private static Piece createPiece(Constants.PieceType type, Color color, int position) {
+        switch(type) {
+            case PAWN:
+                return new Pawn(color, position);
+            case KNIGHT:
+                return new Knight(color, position);
+            case BISHOP:
+                return new Bishop(color, position);
+            case ROOK:
+                return new Rook(color, position);
+            case QUEEN:
+                return new Queen(color, position);
+            default:
+                return new King(color, position);
+        }
+    }
 
-            // Add Kings
-            if(col == Constants.NUM_COLS/2) {
-                blackPiece = new King(Constants.Color.BLACK, blackPosition);
-                whitePiece = new King(Constants.Color.WHITE, whitePosition);
-                kingPosition.put(Color.BLACK, blackPosition);
-                kingPosition.put(Color.WHITE, whitePosition);
+    /**
+     * Describes the current position in Forsyth-Edwards Notation
+     * @return - Position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for(int row = 0; row < NUM_ROWS; row++) {
+            int empty = 0;
+            for(int col = 0; col < NUM_COLS; col++) {
+                int code = getPieceCode(row * NUM_COLS + col);
+                if(code == PieceCode.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if(empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(PieceCode.getTypeIndex(code));
+                fen.append(PieceCode.getColor(code) == Color.WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if(empty > 0) {
+                fen.append(empty);
             }
+            if(row < NUM_ROWS - 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(sideToMove == Color.WHITE ? " w" : " b").append(" - - ").append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
 
-            gameboard[0][col] = blackPiece;
-            gameboard[Constants.NUM_ROWS - 1][col] = whitePiece;
+    /**
+     * Places a new piece on the board and adds it to the piece list of its color
+     * Kings always take the first entry of the list
+     * @param color - Color of the piece
+     * @param type - Type of the piece
+     * @param position - Position the piece should be placed at
+     */
+    private void addPiece(Color color, Constants.PieceType type, int position) {
+        int code = PieceCode.encode(color, type);
+        int index = getNumPieces(color);
+        if(type == Constants.PieceType.KING && index > 0) {
+            // Move the piece in the first entry to the end of the list
+            int square = getPieceSquare(color, 0);
+            setSquare(square, getPieceCode(square), index, color);
+            index = 0;
+        }
+        setSquare(position, code, index, color);
+        setNumPieces(color, getNumPieces(color) + 1);
+        key ^= Zobrist.getPieceKey(color, type, position);
+    }
 
-            // Populate every empty space with null
-            for(int row = 2; row < Constants.NUM_ROWS - 2; row++) {
-                gameboard[row][col] = null;
+    /**
+     * Places a new piece on an empty square of a board under construction
+     * Does the same as addPiece() on piece codes, so that decoding packed positions stays cheap
+     * @param code - Code of the piece, see utils.PieceCode
+     * @param position - Position the piece should be placed at
+     */
+    void placePiece(int code, int position) {
+        Color color = PieceCode.getColor(code);
+        int index = color == Color.WHITE ? numWhitePieces : numBlackPieces;
+        if(PieceCode.getTypeIndex(code) == KING_INDEX && index > 0) {
+            int square = mailbox[getListStart(color)];
+            setSquare(square, getPieceCode(square), index, color);
+            index = 0;
+        }
+        setSquare(position, code, index, color);
+        if(color == Color.WHITE) {
+            numWhitePieces++;
+        }
+        else {
+            numBlackPieces++;
+        }
+        key ^= Zobrist.getPieceKey(code, position);
+    }
+
+    /**
+     * Puts a piece on a square and the square into the piece list
+     */
+    private void setSquare(int position, int code, int index, Color color) {
+        mailbox[position] = (byte) (code | index << 4);
+        mailbox[getListStart(color) + index] = (byte) position;
+    }
+
+    /**
+     * Takes the piece on a square off the board. The last piece of the list takes the place of the removed piece
+     */
+    private void removeFromList(int position) {
+        int code = getPieceCode(position);
+        Color color = PieceCode.getColor(code);
+        int index = (mailbox[position] & 0xFF) >>> 4;
+        int last = getNumPieces(color) - 1;
+        int lastSquare = getPieceSquare(color, last);
+        setSquare(lastSquare, getPieceCode(lastSquare), index, color);
+        mailbox[position] = 0;
+        setNumPieces(color, last);
+    }
+
+    private static int getListStart(Color color) {
+        return color == Color.WHITE ? WHITE_LIST : BLACK_LIST;
+    }
+
+    private void setNumPieces(Color color, int numPieces) {
+        if(color == Color.WHITE) {
+            numWhitePieces = (byte) numPieces;
+        }
+        else {
+            numBlackPieces = (byte) numPieces;
+        }
+    }
+
+    /**
+     * @param color - Color of the pieces
+     * @return - Number of pieces of the color on the board, including the king
+     */
+    public int getNumPieces(Color color) {
+        return color == Color.WHITE ? numWhitePieces : numBlackPieces;
+    }
+
+    /**
+     * @param color - Color of the piece
+     * @param index - Index in the piece list of the color, 0 is the king
+     * @return - Position of the piece
+     */
+    public int getPieceSquare(Color color, int index) {
+        return mailbox[getListStart(color) + index];
+    }
+
+    /**
+     * @param position - Position on the board
+     * @return - Code of the piece on the position, see utils.PieceCode, or PieceCode.EMPTY
+     */
+    public int getPieceCode(int position) {
+        return mailbox[position] & PieceCode.MASK;
+    }
+
+    /**
+     * Get the player object given the color
+     * Every board has its own pair of players so that boards can be used independently of each other
+     * @param color - Color of the player we want returned
+     * @return - Player object of input color
+     */
+    public Player getPlayer(Color color) {
+        if(color == Color.WHITE) {
+            if(playerWhite == null) {
+                playerWhite = new Player(Color.WHITE, this);
             }
+            return playerWhite;
+        }
+        if(playerBlack == null) {
+            playerBlack = new Player(Color.BLACK, this);
+        }
+        return playerBlack;
+    }
+
+    /**
+     * @return - Color of the player who is to move next
+     */
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Attaches network accumulators that follow every move played and undone on this board
+     * Copies and snapshots of the board don't take the accumulators along
+     * @param accumulator - Accumulators to keep up to date, refreshed for the current position, or null to detach them
+     */
+    public void setAccumulator(Accumulator accumulator) {
+        this.accumulator = accumulator;
+        if(accumulator != null) {
+            accumulator.refresh(this);
+        }
+    }
+
+    /**
+     * @return - Attached network accumulators or null
+     */
+    public Accumulator getAccumulator() {
+        return accumulator;
+    }
+
+    /**
+     * @param moveListener - Receives the moves played with movePiece(), null to remove it
+     */
+    public void setMoveListener(MoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    /**
+     * Legal moves of the side to move, generated once per position and kept until a move is made
+     * @return - Cache of the legal moves of this board
+     */
+    public LegalMoveCache getLegalMoves() {
+        if(legalMoves == null) {
+            legalMoves = new LegalMoveCache();
         }
+        return legalMoves;
+    }
+
+    /**
+     * Key identifying the current position (pieces on the board and side to move)
+     * The key is updated incrementally whenever a piece is moved
+     * @return - Zobrist key of the position
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Hand the turn over to the other player
+     */
+    private void switchSideToMove() {
+        sideToMove = getOpposingColor(sideToMove);
+        key ^= Zobrist.getSideKey();
     }
 
     /**
@@ -101,11 +491,20 @@ public class Board {
      * @return - Piece at the given position or null if no piece is found
      */
     public Piece getPiece(int position) {
-        if(assertPosition(position)) {
-            int[] coordinates = convertToCoordinates(position);
-            return gameboard[coordinates[0]][coordinates[1]];
+        if(!hasPiece(position)) {
+            return null;
+        }
+        if(pieces == null) {
+            pieces = new Piece[NUM_SQUARES];
         }
-        return null;
+        Piece piece = pieces[position];
+        if(piece == null) {
+            int code = getPieceCode(position);
+            piece = createPiece(PieceCode.getType(code), PieceCode.getColor(code), position);
+            piece.setFirstMove(isFirstMove(position));
+            pieces[position] = piece;
+        }
+        return piece;
     }
 
     /**
@@ -117,6 +516,19 @@ public class Board {
         return getPiece(Utils.convertToPosition(row, col));
     }
 
+    /**
+     * Checks whether the piece on the position hasn't moved yet
+     * Pawns can only stand on their starting row before their first move
+     */
+    private boolean isFirstMove(int position) {
+        int code = getPieceCode(position);
+        if(PieceCode.getType(code) == Constants.PieceType.PAWN) {
+            int startRow = PieceCode.getColor(code) == Color.WHITE ? NUM_ROWS - 2 : 1;
+            return position / NUM_COLS == startRow;
+        }
+        return (movedPieces & (1L << position)) == 0;
+    }
+
     /**
      * Checks if the position the player is trying to move the piece to is valid
      * Performs the following sub tasks
@@ -128,14 +540,9 @@ public class Board {
      */
     public boolean isValidPosition(Piece currentPiece, int position) {
         if(assertPosition(position)) {
-            // If the move lies within the board
-            //TODO: Remove below line. Assert handles it
-            if(0 <= position && position < Constants.NUM_ROWS * Constants.NUM_COLS) {
-                // Position is valid only if the piece at the new position is of a different color or there is no piece at that position
-                if((!hasPiece(position)) || (hasPiece(position) && getPiece(position).getColor() != currentPiece.getColor())) {
-                    return true;
-                }
-            }
+            // Position is valid only if the piece at the new position is of a different color or there is no piece at that position
+            int code = getPieceCode(position);
+            return code == PieceCode.EMPTY || PieceCode.getColor(code) != currentPiece.getColor();
         }
         return false;
     }
@@ -146,14 +553,7 @@ public class Board {
      * @return - True if there's a piece else False
      */
     public boolean hasPiece(int position) {
-        if(assertPosition(position)) {
-            Piece piece = getPiece(position);
-            if(piece == null) {
-                return false;
-            }
-            return true;
-        }
-        return false;
+        return assertPosition(position) && getPieceCode(position) != PieceCode.EMPTY;
     }
 
     /**
@@ -172,16 +572,7 @@ public class Board {
      * @return - Position of the king of the given color
      */
     public int getKingPosition(Color color) {
-        return kingPosition.get(color);
-    }
-
-    /**
-     * Change the position value of the king (of the given color) on the board
-     * @param color - Color of the king whose position we're trying to change
-     * @param newPosition - Position to which we're moving the king to
-     */
-    private void setKingPosition(Color color, int newPosition) {
-        kingPosition.replace(color, newPosition);
+        return getPieceSquare(color, 0);
     }
 
     /**
@@ -192,73 +583,417 @@ public class Board {
      * @return - Opponents piece if captured else null
      */
     public Piece movePiece(Piece piece, int newPosition) {
-        // Remove piece from old position
-        int oldPosition = piece.getPosition();
-        lastStartingPosition = oldPosition;
-        lastPieceMoved = piece;
-        
-        removePiece(oldPosition);
         Piece capturedPiece = getPiece(newPosition);
-        lastCapturedPiece = capturedPiece;
-        // Remove piece from opponents list
-        try {
-            Game.getPlayer(getOpposingColor(piece.getColor())).removePiece(capturedPiece);
+        int oldPosition = piece.getPosition();
+        int captured = makeMove(oldPosition, newPosition);
+        piece.updatePosition(newPosition);
+        piece.setFirstMove(false);
+        if(moveListener != null) {
+            moveListener.moveMade(this, oldPosition, newPosition, captured);
+        }
+        return capturedPiece;
+    }
+
+    /**
+     * Moves the piece standing on the old position to the new position, capturing whatever stands there
+     * The move isn't checked for validity
+     * @param oldPosition - Position of the piece to move
+     * @param newPosition - Position to which the piece is moved
+     * @return - Code of the captured piece or PieceCode.EMPTY
+     */
+    public int makeMove(int oldPosition, int newPosition) {
+        int moving = mailbox[oldPosition] & 0xFF;
+        int code = moving & PieceCode.MASK;
+        int captured = getPieceCode(newPosition);
+        Color color = PieceCode.getColor(code);
+
+        if(undoStack == null) {
+            undoStack = new int[MAX_MOVES];
         }
-        catch(NullPointerException npe) {
-            System.err.println(NO_PLAYER);
+        else if(numUndo == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, Math.max(MAX_MOVES, numUndo * 2));
         }
-        updateBoardPosition(newPosition, piece);
+        long oldBit = 1L << oldPosition;
+        long newBit = 1L << newPosition;
+        undoStack[numUndo++] = oldPosition | newPosition << TO_SHIFT | captured << CAPTURED_SHIFT
+                | ((movedPieces & oldBit) != 0 ? MOVED_BIT : 0) | ((movedPieces & newBit) != 0 ? CAPTURED_MOVED_BIT : 0)
+                | Math.min(halfmoveClock, MAX_CLOCK) << CLOCK_SHIFT;
+        pushKey();
 
-        if(piece.toString().equals("KING")) {
-            setKingPosition(piece.getColor(), newPosition);
+        if(captured != PieceCode.EMPTY) {
+            removeFromList(newPosition);
+            key ^= Zobrist.getPieceKey(PieceCode.getColor(captured), PieceCode.getType(captured), newPosition);
         }
+        mailbox[newPosition] = (byte) moving;
+        mailbox[oldPosition] = 0;
+        mailbox[getListStart(color) + (moving >>> 4)] = (byte) newPosition;
+        Constants.PieceType type = PieceCode.getType(code);
+        key ^= Zobrist.getPieceKey(color, type, oldPosition) ^ Zobrist.getPieceKey(color, type, newPosition);
+        movedPieces = (movedPieces & ~oldBit) | newBit;
 
-        return capturedPiece;
+        // Captures and pawn moves can't be undone in a game, so no earlier position can come back
+        if(captured != PieceCode.EMPTY || type == Constants.PieceType.PAWN) {
+            halfmoveClock = 0;
+        }
+        else {
+            halfmoveClock++;
+        }
+        if(color == Color.BLACK) {
+            fullmoveNumber++;
+        }
+        switchSideToMove();
+        if(accumulator != null) {
+            accumulator.push(code, oldPosition, newPosition, captured);
+        }
+
+        if(pieces != null) {
+            Piece piece = pieces[oldPosition];
+            pieces[oldPosition] = null;
+            pieces[newPosition] = piece;
+            if(piece != null) {
+                piece.updatePosition(newPosition);
+                piece.setFirstMove(false);
+            }
+        }
+        return captured;
     }
 
     /**
-     * Removes piece from board at specified position
-     * @param position - Position from which we want to remove the piece
+     * Moves the piece standing on the old position of the encoded move, see makeMove(int, int)
+     * @param move - Encoded move
+     * @return - Code of the captured piece or PieceCode.EMPTY
      */
-    private void removePiece(int position) {
-        updateBoardPosition(position, null);
+    public int makeMove(int move) {
+        return makeMove(utils.Move.getOldPosition(move), utils.Move.getNewPosition(move));
+    }
+
+    private void pushKey() {
+        if(keys == null) {
+            keys = new long[MAX_MOVES];
+        }
+        else if(numKeys == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(MAX_MOVES, numKeys * 2));
+        }
+        keys[numKeys++] = key;
     }
 
+    /**
+     * Takes back the most recent move that hasn't been undone yet
+     * Moves can be undone one after the other all the way back to the initial position
+     */
     public void undoLastMove() {
-        if(lastPieceMoved == null)
+        if(numUndo == 0)
             return;
-        updateBoardPosition(lastPieceMoved.getPosition(), lastCapturedPiece);
-        try {
-            Game.getPlayer(getOpposingColor(lastPieceMoved.getColor())).addPiece(lastCapturedPiece);
-            Game.getPlayer(lastPieceMoved.getColor()).removePiece(lastCapturedPiece);
+        int record = undoStack[--numUndo];
+        int oldPosition = record & 0x3F;
+        int newPosition = (record >>> TO_SHIFT) & 0x3F;
+        int captured = (record >>> CAPTURED_SHIFT) & PieceCode.MASK;
+
+        int moving = mailbox[newPosition] & 0xFF;
+        int code = moving & PieceCode.MASK;
+        Color color = PieceCode.getColor(code);
+        Constants.PieceType type = PieceCode.getType(code);
+        mailbox[oldPosition] = (byte) moving;
+        mailbox[newPosition] = 0;
+        mailbox[getListStart(color) + (moving >>> 4)] = (byte) oldPosition;
+        key ^= Zobrist.getPieceKey(color, type, newPosition) ^ Zobrist.getPieceKey(color, type, oldPosition);
+        if(captured != PieceCode.EMPTY) {
+            Color capturedColor = PieceCode.getColor(captured);
+            int index = getNumPieces(capturedColor);
+            setSquare(newPosition, captured, index, capturedColor);
+            setNumPieces(capturedColor, index + 1);
+            key ^= Zobrist.getPieceKey(capturedColor, PieceCode.getType(captured), newPosition);
         }
-        catch(NullPointerException npe) {
-            System.err.println(NO_PLAYER);
+        movedPieces &= ~((1L << oldPosition) | (1L << newPosition));
+        movedPieces |= ((record & MOVED_BIT) != 0 ? 1L << oldPosition : 0) | ((record & CAPTURED_MOVED_BIT) != 0 ? 1L << newPosition : 0);
+
+        switchSideToMove();
+        numKeys--;
+        halfmoveClock = record >>> CLOCK_SHIFT;
+        if(color == Color.BLACK) {
+            fullmoveNumber--;
+        }
+
+        if(pieces != null) {
+            // The captured piece gets a new object when it is asked for again
+            Piece piece = pieces[newPosition];
+            pieces[newPosition] = null;
+            pieces[oldPosition] = piece;
+            if(piece != null) {
+                piece.updatePosition(oldPosition);
+                piece.setFirstMove(isFirstMove(oldPosition));
+            }
+        }
+        if(accumulator != null && !accumulator.pop()) {
+            accumulator.refresh(this);
+        }
+    }
+
+    /**
+     * Generates the moves of the side to move without checking whether they leave the own king in check
+     * Kings are never captured since a legal position can't allow it
+     * @param moves - Array that receives the encoded moves, at least MAX_MOVES long
+     * @param capturesOnly - True to generate captures only
+     * @return - Number of moves
+     */
+    public int generatePseudoLegalMoves(int[] moves, boolean capturesOnly) {
+        Color color = sideToMove;
+        int listStart = getListStart(color);
+        int numPieces = getNumPieces(color);
+        int count = 0;
+        for(int i = 0; i < numPieces; i++) {
+            int from = mailbox[listStart + i];
+            int type = PieceCode.getTypeIndex(getPieceCode(from));
+            if(type == Constants.PieceType.PAWN.ordinal()) {
+                count = generatePawnMoves(moves, count, from, color, capturesOnly);
+                continue;
+            }
+            for(int[] ray : Rays.RAYS[type][from]) {
+                for(int to : ray) {
+                    int target = getPieceCode(to);
+                    if(target == PieceCode.EMPTY) {
+                        if(!capturesOnly) {
+                            moves[count++] = from << 6 | to;
+                        }
+                        continue;
+                    }
+                    if(PieceCode.getColor(target) != color && PieceCode.getType(target) != Constants.PieceType.KING) {
+                        moves[count++] = from << 6 | to;
+                    }
+                    break;
+                }
+            }
         }
-        updateBoardPosition(lastStartingPosition, lastPieceMoved);
+        return count;
+    }
 
-        if(lastPieceMoved.toString().equals("KING")) {
-            setKingPosition(lastPieceMoved.getColor(), lastStartingPosition);
+    private int generatePawnMoves(int[] moves, int count, int from, Color color, boolean capturesOnly) {
+        if(!capturesOnly) {
+            int direction = color == Color.WHITE ? -NUM_COLS : NUM_COLS;
+            int to = from + direction;
+            // Pawns on the last row stay there since there is no promotion
+            if(assertPosition(to) && getPieceCode(to) == PieceCode.EMPTY) {
+                moves[count++] = from << 6 | to;
+                int startRow = color == Color.WHITE ? NUM_ROWS - 2 : 1;
+                if(from / NUM_COLS == startRow && getPieceCode(to + direction) == PieceCode.EMPTY) {
+                    moves[count++] = from << 6 | (to + direction);
+                }
+            }
+        }
+        for(int to : Rays.PAWN_ATTACKS[color.ordinal()][from]) {
+            int target = getPieceCode(to);
+            if(target != PieceCode.EMPTY && PieceCode.getColor(target) != color && PieceCode.getType(target) != Constants.PieceType.KING) {
+                moves[count++] = from << 6 | to;
+            }
         }
+        return count;
+    }
 
-        lastStartingPosition = -1;
-        lastCapturedPiece = null;
-        lastPieceMoved = null;
+    /**
+     * Checks if a position is attacked by any piece of the given color
+     * @param position - Position on the board
+     * @param color - Color of the attacking pieces
+     * @return - True if a piece of the color could capture on the position else False
+     */
+    public boolean isAttacked(int position, Color color) {
+        // A pawn attacks the position if a pawn of the other color on the position would attack the pawn
+        int pawn = PieceCode.encode(color, Constants.PieceType.PAWN);
+        for(int from : Rays.PAWN_ATTACKS[getOpposingColor(color).ordinal()][position]) {
+            if(getPieceCode(from) == pawn) {
+                return true;
+            }
+        }
+        if(isAttackedAlong(position, Constants.PieceType.KNIGHT, PieceCode.encode(color, Constants.PieceType.KNIGHT), -1)
+                || isAttackedAlong(position, Constants.PieceType.KING, PieceCode.encode(color, Constants.PieceType.KING), -1)) {
+            return true;
+        }
+        int queen = PieceCode.encode(color, Constants.PieceType.QUEEN);
+        return isAttackedAlong(position, Constants.PieceType.ROOK, PieceCode.encode(color, Constants.PieceType.ROOK), queen)
+                || isAttackedAlong(position, Constants.PieceType.BISHOP, PieceCode.encode(color, Constants.PieceType.BISHOP), queen);
     }
 
     /**
-     * Update the position of the piece on the board
-     * @param position - New position the piece is being moved to
-     * @param piece - Piece that's being moved
-     * @return - True if the position was updated else false
+     * Looks along the rays of a piece type from the position for the first piece in every direction
      */
-    private void updateBoardPosition(int position, Piece piece) {
-        if(assertPosition(position)) {
-            int coordinates[] = convertToCoordinates(position);
-            gameboard[coordinates[0]][coordinates[1]] = piece;
-            if(piece != null)
-                piece.updatePosition(position);
+    private boolean isAttackedAlong(int position, Constants.PieceType type, int attacker, int otherAttacker) {
+        for(int[] ray : Rays.RAYS[type.ordinal()][position]) {
+            for(int square : ray) {
+                int code = getPieceCode(square);
+                if(code != PieceCode.EMPTY) {
+                    if(code == attacker || code == otherAttacker) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the king of the given color is attacked by any of the opponents pieces
+     * @param color - Color of the king
+     * @return - True if the king is in check else False
+     */
+    public boolean isInCheck(Color color) {
+        return isAttacked(getKingPosition(color), getOpposingColor(color));
+    }
+
+    /**
+     * Finds out in a single pass over the moves of the side to move whether the game goes on
+     * The state only depends on the pieces and the side to move, so it is cached by the position key
+     * @return - State of the game for the side to move
+     */
+    public Game.GameState getGameState() {
+        Game.GameState state = GameStateCache.get(key);
+        if(state == null) {
+            boolean inCheck = isInCheck(sideToMove);
+            if(hasLegalMove()) {
+                state = inCheck ? Game.GameState.CHECK : Game.GameState.ONGOING;
+            }
+            else {
+                state = inCheck ? Game.GameState.CHECKMATE : Game.GameState.STALEMATE;
+            }
+            GameStateCache.put(key, state);
+        }
+        return state == Game.GameState.CHECKMATE || state == Game.GameState.STALEMATE ? state : getDrawState(state);
+    }
+
+    /**
+     * Tries the moves of the side to move until one doesn't leave the own king in check
+     * @return - True if the side to move has a legal move else False
+     */
+    private boolean hasLegalMove() {
+        Color color = sideToMove;
+        int[] moves = new int[MAX_MOVES];
+        int count = generatePseudoLegalMoves(moves, false);
+        for(int i = 0; i < count; i++) {
+            makeMove(moves[i]);
+            boolean legal = !isInCheck(color);
+            undoLastMove();
+            if(legal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Draws depend on the moves played, so they are checked on top of the cached state
+     * @param state - ONGOING or CHECK
+     * @return - Reason for the draw or the given state if the game isn't drawn
+     */
+    private Game.GameState getDrawState(Game.GameState state) {
+        if(hasInsufficientMaterial()) {
+            return Game.GameState.INSUFFICIENT_MATERIAL;
+        }
+        if(halfmoveClock >= FIFTY_MOVE_PLIES) {
+            return Game.GameState.FIFTY_MOVES;
+        }
+        if(getRepetitionCount() >= 2) {
+            return Game.GameState.REPETITION;
+        }
+        return state;
+    }
+
+    /**
+     * @return - Number of half moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return - Number of the current move, starting at 1 and incremented after black's move
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Counts how often the current position occurred before. Only positions since the last capture or pawn move are
+     * compared, and only those with the same side to move
+     * @return - Number of earlier occurrences of the current position
+     */
+    public int getRepetitionCount() {
+        int count = 0;
+        int limit = Math.min(halfmoveClock, numKeys);
+        for(int i = 4; i <= limit; i += 2) {
+            if(keys[numKeys - i] == key) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return - True if the current position occurred at least once before
+     */
+    public boolean isRepetition() {
+        int limit = Math.min(halfmoveClock, numKeys);
+        for(int i = 4; i <= limit; i += 2) {
+            if(keys[numKeys - i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether neither player has enough pieces left to checkmate
+     * That is king against king, king and bishop or knight against king and kings with bishops on the same color
+     * @return - True if no checkmate is possible else False
+     */
+    public boolean hasInsufficientMaterial() {
+        int numPieces = numWhitePieces + numBlackPieces;
+        if(numPieces > 4) {
+            return false;
         }
+        int minors = 0;
+        int bishops = 0;
+        int bishopSquareColors = 0;
+        for(int i = 0; i < numPieces; i++) {
+            int position = i < numWhitePieces ? getPieceSquare(Color.WHITE, i) : getPieceSquare(Color.BLACK, i - numWhitePieces);
+            switch(PieceCode.getType(getPieceCode(position))) {
+                case KING:
+                    break;
+                case KNIGHT:
+                    minors++;
+                    break;
+                case BISHOP:
+                    minors++;
+                    bishops++;
+                    bishopSquareColors |= 1 << ((position / NUM_COLS + position % NUM_COLS) % 2);
+                    break;
+                default:
+                    return false;
+            }
+        }
+        if(minors <= 1) {
+            return true;
+        }
+        // One bishop for each side, both on squares of the same color
+        return bishops == 2 && numWhitePieces == 2 && bishopSquareColors != 3;
+    }
+
+    /**
+     * @return - Keys of the positions since the last capture or pawn move, oldest first
+     */
+    public long[] getKeyHistory() {
+        int count = Math.min(halfmoveClock, numKeys);
+        if(count == 0) {
+            return new long[0];
+        }
+        return Arrays.copyOfRange(keys, numKeys - count, numKeys);
+    }
+
+    /**
+     * Sets the keys of the positions before the current one, e.g. for a board set up from the position of a game
+     * @param previousKeys - Keys of the earlier positions, oldest first
+     */
+    public void setKeyHistory(long[] previousKeys) {
+        keys = Arrays.copyOf(previousKeys, Math.max(MAX_MOVES, previousKeys.length * 2));
+        numKeys = previousKeys.length;
     }
 
     /**
@@ -1,38 +1,42 @@
 package GameFiles;
-import utils.Constants;
+
+import profiling.GameStateEvent;
 
 import static utils.Constants.Color;
 
 public class Game {
 
-    private static Player playerWhite = null;
-    private static Player playerBlack = null;
-    private static Board board = null;
-    private static Player currentPlayer = null;
-    private static int turn;
+    private Player playerWhite;
+    private Player playerBlack;
+    private Board board;
+    private Player currentPlayer;
+    private int turn;
 
 
-    private enum GameState {
-        ONGOING, STALEMATE, CHECKMATE
+    public enum GameState {
+        ONGOING, CHECK, STALEMATE, CHECKMATE, REPETITION, FIFTY_MOVES, INSUFFICIENT_MATERIAL
     }
 
-    public static void main(String[] args) {
-
+    /**
+     * Creates a new game in the starting position with white to move
+     */
+    public Game() {
         board = setupNewGame();
-
+        setPlayer(board.getPlayer(Color.WHITE), Color.WHITE);
+        setPlayer(board.getPlayer(Color.BLACK), Color.BLACK);
+        currentPlayer = playerWhite;
         turn = 0;
+    }
+
+    public static void main(String[] args) {
+
+        Game game = new Game();
 
-        while(getGameState(board, currentPlayer) == GameState.ONGOING) {
+        while(game.isOngoing()) {
             //current player makes move
             //Keep trying move until it returns true
 
-            turn++;
-            turn %= 2;
-            if(turn == 0)
-                currentPlayer = playerWhite;
-            else
-                currentPlayer = playerBlack;
-
+            game.nextTurn();
         }
     }
 
@@ -41,7 +45,7 @@ public class Game {
      * @param color - Color of the player we want returned
      * @return - Player object of input color
      */
-    public static Player getPlayer(Color color) {
+    public Player getPlayer(Color color) {
         if(color == Color.WHITE) {
             return playerWhite;
         }
@@ -50,7 +54,7 @@ public class Game {
         }
     }
 
-    private static void setPlayer(Player player, Color color) {
+    private void setPlayer(Player player, Color color) {
         if(color == Color.WHITE) {
             playerWhite = player;
         }
@@ -59,30 +63,75 @@ public class Game {
         }
     }
 
+    /**
+     * @return - The player whose turn it is
+     */
+    public Player getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    /**
+     * @return - Color of the player whose turn it is
+     */
+    public Color getCurrentColor() {
+        return turn == 0 ? Color.WHITE : Color.BLACK;
+    }
+
+    /**
+     * Lets the current player move a piece and passes the turn on if the move is valid
+     * @param oldPosition - Position from which the player wants to move the piece
+     * @param newPosition - Position to which the player wants to move the piece
+     * @return - True if the move was successful else False
+     */
+    public boolean makeMove(int oldPosition, int newPosition) {
+        if(!currentPlayer.movePiece(board, oldPosition, newPosition)) {
+            return false;
+        }
+        nextTurn();
+        return true;
+    }
+
+    private void nextTurn() {
+        turn++;
+        turn %= 2;
+        if(turn == 0)
+            currentPlayer = playerWhite;
+        else
+            currentPlayer = playerBlack;
+    }
+
     /**
      * Checks and returns the current state of the game
-     * @param board - The board on which the current game is being played
-     * @param currentPlayer - The player whose turn it is
      * @return - State of the game condition
      */
-    private static GameState getGameState(Board board, Player currentPlayer) {
-        if(currentPlayer.isCheckmate(board)) {
-            return GameState.CHECKMATE;
+    public GameState getGameState() {
+        GameStateEvent event = new GameStateEvent();
+        event.begin();
+        GameState state = currentPlayer.getGameState(board);
+        event.end();
+        if(event.shouldCommit()) {
+            event.set(board.getSideToMove().toString(), state.toString());
+            event.commit();
         }
-        else if(currentPlayer.isStalemate(board)) {
-            return GameState.STALEMATE;
-        }
-        return GameState.ONGOING;
+        return state;
+    }
+
+    /**
+     * @return - True if the player whose turn it is can still move
+     */
+    public boolean isOngoing() {
+        GameState state = getGameState();
+        return state == GameState.ONGOING || state == GameState.CHECK;
     }
 
-    public static Board getGameBoard() {
+    public Board getGameBoard() {
         return board;
     }
 
+    /**
+     * @return - New board in the starting position with its own players
+     */
     public static Board setupNewGame() {
-        Game.setPlayer(new Player(Constants.Color.WHITE), Constants.Color.WHITE);
-        Game.setPlayer(new Player(Constants.Color.BLACK), Constants.Color.BLACK);
-        currentPlayer = playerWhite;
         return new Board();
     }
 }
@@ -0,0 +1,34 @@
+package GameFiles;
+
+/**
+ * Shared cache of game states by position key
+ * Each entry is a single long holding the upper bits of the key and the state, so reads and writes are atomic and
+ * the cache needs no locks even when many games ask at the same time. A lost write only costs a recomputation
+ */
+class GameStateCache {
+    private static final int SIZE = 1 << 16;
+    private static final long STATE_MASK = 0x7;
+    private static final Game.GameState[] STATES = Game.GameState.values();
+
+    private static final long[] entries = new long[SIZE];
+
+    /**
+     * @param key - Zobrist key of the position
+     * @return - Cached state or null if the position isn't in the cache
+     */
+    static Game.GameState get(long key) {
+        long entry = entries[(int) key & (SIZE - 1)];
+        if(entry == 0 || (entry & ~STATE_MASK) != (key & ~STATE_MASK)) {
+            return null;
+        }
+        return STATES[(int) (entry & STATE_MASK) - 1];
+    }
+
+    /**
+     * @param key - Zobrist key of the position
+     * @param state - State of the game in the position
+     */
+    static void put(long key, Game.GameState state) {
+        entries[(int) key & (SIZE - 1)] = (key & ~STATE_MASK) | (state.ordinal() + 1);
+    }
+}
@@ -0,0 +1,95 @@
+package GameFiles;
+
+import utils.Constants;
+import utils.Move;
+
+import java.util.Arrays;
+
+/**
+ * Legal moves of the position of a board, kept as a bit set of target squares per origin square
+ * The moves are generated the first time a move of a position is asked for and then answer every further question
+ * about that position with a single lookup. A move changes the key of the board, which invalidates the set
+ * Moves only depend on the pieces and the side to move, so the key identifies them
+ */
+public class LegalMoveCache {
+    private static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+
+    private final long[] targets = new long[NUM_SQUARES];
+    private final int[] moves = new int[Board.MAX_MOVES];
+    private long key;
+    private boolean valid;
+    private int count;
+    private long generations;
+
+    /**
+     * @param board - Board whose position is asked about
+     * @param oldPosition - Position of the piece to move
+     * @param newPosition - Position the piece moves to
+     * @return - True if the side to move may play the move else False
+     */
+    public boolean isLegal(Board board, int oldPosition, int newPosition) {
+        if(oldPosition < 0 || oldPosition >= NUM_SQUARES || newPosition < 0 || newPosition >= NUM_SQUARES) {
+            return false;
+        }
+        update(board);
+        return (targets[oldPosition] & (1L << newPosition)) != 0;
+    }
+
+    /**
+     * @param board - Board whose position is asked about
+     * @param position - Position of a piece of the side to move
+     * @return - Mask with a bit set for every position the piece may move to
+     */
+    public long getTargets(Board board, int position) {
+        update(board);
+        return targets[position];
+    }
+
+    /**
+     * @param board - Board whose position is asked about
+     * @return - Number of legal moves of the side to move
+     */
+    public int getCount(Board board) {
+        update(board);
+        return count;
+    }
+
+    /**
+     * @return - Number of times the moves were generated
+     */
+    public long getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Forgets the moves, the next question generates them again
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Generates the moves unless they belong to the current position already
+     */
+    private void update(Board board) {
+        if(valid && key == board.getKey()) {
+            return;
+        }
+        Arrays.fill(targets, 0);
+        Constants.Color color = board.getSideToMove();
+        int pseudoLegal = board.generatePseudoLegalMoves(moves, false);
+        count = 0;
+        for(int i = 0; i < pseudoLegal; i++) {
+            board.makeMove(moves[i]);
+            boolean legal = !board.isInCheck(color);
+            board.undoLastMove();
+            if(legal) {
+                targets[Move.getOldPosition(moves[i])] |= 1L << Move.getNewPosition(moves[i]);
+                count++;
+            }
+        }
+        key = board.getKey();
+        valid = true;
+        generations++;
+    }
+}
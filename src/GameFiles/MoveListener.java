@@ -0,0 +1,17 @@
+package GameFiles;
+
+/**
+ * Receives the moves played on a board with Board.movePiece(), the moves of the game itself
+ * Moves made with Board.makeMove() by searches and move validation aren't reported
+ */
+public interface MoveListener {
+
+    /**
+     * Called after the move has been made, on the thread that made it
+     * @param board - Board the move was played on, already in the position after the move
+     * @param oldPosition - Position the piece moved from
+     * @param newPosition - Position the piece moved to
+     * @param captured - Code of the captured piece or PieceCode.EMPTY
+     */
+    void moveMade(Board board, int oldPosition, int newPosition, int captured);
+}
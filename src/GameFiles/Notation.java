@@ -0,0 +1,90 @@
+package GameFiles;
+
+import pieces.Piece;
+import utils.Constants;
+import utils.Move;
+import utils.Utils;
+
+import java.util.ArrayList;
+
+public class Notation {
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    /**
+     * Plays a move written in standard algebraic notation (e.g. Nf3, exd5, R1e2) for the side to move
+     * Castling and promotion aren't part of the rules of this board, so those moves are never played
+     * @param board - The board on which the move should be played
+     * @param san - Move in standard algebraic notation
+     * @return - The encoded move that was played or Move.NONE if the move couldn't be played
+     */
+    public static int playSan(Board board, String san) {
+        String text = stripAnnotations(san);
+        if(text.length() < 2 || text.startsWith("O-O") || text.startsWith("0-0") || text.indexOf('=') != -1) {
+            return Move.NONE;
+        }
+
+        Constants.PieceType type = Constants.PieceType.PAWN;
+        int letter = PIECE_LETTERS.indexOf(text.charAt(0));
+        if(letter > 0) {
+            type = Constants.PieceType.values()[letter];
+            text = text.substring(1);
+        }
+        if(text.length() < 2) {
+            return Move.NONE;
+        }
+
+        int newPosition = Utils.convertFromSquareName(text.substring(text.length() - 2));
+        if(newPosition == -1) {
+            return Move.NONE;
+        }
+
+        // Whatever is left in front of the square is an optional capture sign and the file and/or rank of the moving piece
+        int fromRow = -1;
+        int fromCol = -1;
+        for(char c : text.substring(0, text.length() - 2).toCharArray()) {
+            if('a' <= c && c <= 'h') {
+                fromCol = c - 'a';
+            }
+            else if('1' <= c && c <= '8') {
+                fromRow = Constants.NUM_ROWS - (c - '0');
+            }
+            else if(c != 'x' && c != ':') {
+                return Move.NONE;
+            }
+        }
+
+        // Copy the candidates since moving a piece changes the lists of pieces
+        ArrayList<Piece> candidates = new ArrayList<>();
+        for(Piece piece : board.getPlayer(board.getSideToMove()).getPieces()) {
+            int[] coordinates = Utils.convertToCoordinates(piece.getPosition());
+            if(piece.getType() == type
+                    && (fromRow == -1 || coordinates[Constants.ROW] == fromRow)
+                    && (fromCol == -1 || coordinates[Constants.COLUMN] == fromCol)) {
+                candidates.add(piece);
+            }
+        }
+
+        // Piece.movePiece() rejects both unreachable positions and moves that leave the king in check
+        // so at most one candidate can succeed for a well formed move
+        for(Piece piece : candidates) {
+            int oldPosition = piece.getPosition();
+            if(piece.movePiece(board, newPosition)) {
+                return Move.encode(oldPosition, newPosition);
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Removes check, mate and quality annotations from the end of a move
+     * @param san - Move in standard algebraic notation
+     * @return - Move without annotations
+     */
+    private static String stripAnnotations(String san) {
+        int end = san.length();
+        while(end > 0 && "+#!?".indexOf(san.charAt(end - 1)) != -1) {
+            end--;
+        }
+        return san.substring(0, end);
+    }
+}
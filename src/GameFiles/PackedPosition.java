@@ -0,0 +1,228 @@
+package GameFiles;
+
+import utils.Constants;
+import utils.PieceCode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static utils.ErrorMessages.INVALID_PACKED_POSITION;
+
+/**
+ * Position encoded in 32 bytes, small enough to be used as key and value of caches and to be sent between processes
+ * The encoding is made of four longs: the occupied squares as a 64 bit mask, the piece codes of the occupied squares
+ * in square order as 4 bit nibbles (see utils.PieceCode) in two longs, lowest nibble first, and a state word
+ * The state word holds the side to move in bit 24 (set for white), the halfmove clock in bits 32-39 and the fullmove
+ * number in bits 48-63. Bits 0-23 are a label, free for data stored along with the position, and 0 for a board
+ * Like a position in Forsyth-Edwards Notation the encoding doesn't keep the moves played before
+ */
+public final class PackedPosition {
+    public static final int BYTES = 32;
+    public static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    public static final int LABEL_BITS = 24;
+    private static final long LABEL_MASK = (1L << LABEL_BITS) - 1;
+    private static final long WHITE_TO_MOVE = 1L << 24;
+    // Bits of the state word that belong to the position, the clocks and the label don't
+    private static final long POSITION_MASK = WHITE_TO_MOVE;
+    private static final int CLOCK_SHIFT = 32;
+    private static final int MAX_CLOCK = 0xFF;
+    private static final int FULLMOVE_SHIFT = 48;
+    private static final int MAX_FULLMOVE = 0xFFFF;
+    private static final int NIBBLES_PER_LONG = 16;
+    private static final int KING = Constants.PieceType.KING.ordinal();
+
+    private final long occupancy;
+    private final long lowPieces;
+    private final long highPieces;
+    private final long state;
+
+    private PackedPosition(long occupancy, long lowPieces, long highPieces, long state) {
+        this.occupancy = occupancy;
+        this.lowPieces = lowPieces;
+        this.highPieces = highPieces;
+        this.state = state;
+    }
+
+    /**
+     * @param board - Board with the position
+     * @return - Encoding of the position, with label 0
+     */
+    public static PackedPosition encode(Board board) {
+        long occupancy = 0;
+        for(Constants.Color color : Constants.Color.values()) {
+            for(int i = 0; i < board.getNumPieces(color); i++) {
+                occupancy |= 1L << board.getPieceSquare(color, i);
+            }
+        }
+        long lowPieces = 0;
+        long highPieces = 0;
+        int count = 0;
+        for(long squares = occupancy; squares != 0; squares &= squares - 1) {
+            long code = board.getPieceCode(Long.numberOfTrailingZeros(squares));
+            if(count < NIBBLES_PER_LONG) {
+                lowPieces |= code << (4 * count);
+            }
+            else {
+                highPieces |= code << (4 * (count - NIBBLES_PER_LONG));
+            }
+            count++;
+        }
+        long state = (board.getSideToMove() == Constants.Color.WHITE ? WHITE_TO_MOVE : 0)
+                | (long) Math.min(board.getHalfmoveClock(), MAX_CLOCK) << CLOCK_SHIFT
+                | (long) Math.min(board.getFullmoveNumber(), MAX_FULLMOVE) << FULLMOVE_SHIFT;
+        return new PackedPosition(occupancy, lowPieces, highPieces, state);
+    }
+
+    /**
+     * Reads a position at the current position of the buffer
+     * @param buffer - Holds at least BYTES bytes, must use ORDER
+     * @return - The position
+     */
+    public static PackedPosition read(ByteBuffer buffer) {
+        return new PackedPosition(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * @param bytes - BYTES bytes written by toBytes()
+     * @return - The position
+     */
+    public static PackedPosition fromBytes(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes).order(ORDER));
+    }
+
+    /**
+     * Writes the position at the current position of the buffer
+     * @param buffer - Receives BYTES bytes, must use ORDER
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putLong(occupancy).putLong(lowPieces).putLong(highPieces).putLong(state);
+    }
+
+    /**
+     * @return - The BYTES bytes of the position
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES).order(ORDER);
+        write(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Constructs a board with the position without going through Forsyth-Edwards Notation
+     * @return - New board with the position
+     * @throws IllegalArgumentException - If the encoding doesn't describe a position with a king of each color
+     */
+    public Board toBoard() {
+        if(Long.bitCount(occupancy) > 2 * Board.MAX_PIECES) {
+            throw new IllegalArgumentException(INVALID_PACKED_POSITION);
+        }
+        Board board = new Board(getSideToMove(), getHalfmoveClock(), getFullmoveNumber());
+        int count = 0;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for(long squares = occupancy; squares != 0; squares &= squares - 1) {
+            int code = getCode(count++);
+            int type = PieceCode.getTypeIndex(code);
+            if(type < 0 || type > KING) {
+                throw new IllegalArgumentException(INVALID_PACKED_POSITION);
+            }
+            Constants.Color color = PieceCode.getColor(code);
+            if(board.getNumPieces(color) == Board.MAX_PIECES) {
+                throw new IllegalArgumentException(INVALID_PACKED_POSITION);
+            }
+            if(type == KING) {
+                if(color == Constants.Color.WHITE) {
+                    whiteKings++;
+                }
+                else {
+                    blackKings++;
+                }
+            }
+            board.placePiece(code, Long.numberOfTrailingZeros(squares));
+        }
+        if(whiteKings != 1 || blackKings != 1) {
+            throw new IllegalArgumentException(INVALID_PACKED_POSITION);
+        }
+        return board;
+    }
+
+    /**
+     * @param position - Position on the board
+     * @return - Code of the piece on the position or PieceCode.EMPTY
+     */
+    public int getPieceCode(int position) {
+        long bit = 1L << position;
+        if((occupancy & bit) == 0) {
+            return PieceCode.EMPTY;
+        }
+        return getCode(Long.bitCount(occupancy & (bit - 1)));
+    }
+
+    private int getCode(int index) {
+        long pieces = index < NIBBLES_PER_LONG ? lowPieces : highPieces;
+        return (int) (pieces >>> (4 * (index % NIBBLES_PER_LONG))) & PieceCode.MASK;
+    }
+
+    /**
+     * @return - Mask with a bit set for every occupied position
+     */
+    public long getOccupancy() {
+        return occupancy;
+    }
+
+    public Constants.Color getSideToMove() {
+        return (state & WHITE_TO_MOVE) != 0 ? Constants.Color.WHITE : Constants.Color.BLACK;
+    }
+
+    /**
+     * @return - Number of half moves since the last capture or pawn move, at most 255
+     */
+    public int getHalfmoveClock() {
+        return (int) (state >>> CLOCK_SHIFT) & MAX_CLOCK;
+    }
+
+    public int getFullmoveNumber() {
+        return (int) (state >>> FULLMOVE_SHIFT) & MAX_FULLMOVE;
+    }
+
+    /**
+     * @return - The label, LABEL_BITS bits of data stored along with the position
+     */
+    public int getLabel() {
+        return (int) (state & LABEL_MASK);
+    }
+
+    /**
+     * @param label - Data stored along with the position, only the low LABEL_BITS bits are kept
+     * @return - The same position with the label
+     */
+    public PackedPosition withLabel(int label) {
+        return new PackedPosition(occupancy, lowPieces, highPieces, (state & ~LABEL_MASK) | (label & LABEL_MASK));
+    }
+
+    /**
+     * Encodings are equal if they describe the same position: the same pieces on the same squares and the same side
+     * to move. The clocks and the label aren't compared, so the encoding can be used as key of position caches
+     */
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof PackedPosition)) {
+            return false;
+        }
+        PackedPosition position = (PackedPosition) other;
+        return occupancy == position.occupancy && lowPieces == position.lowPieces && highPieces == position.highPieces
+                && (state & POSITION_MASK) == (position.state & POSITION_MASK);
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = occupancy * 0x9E3779B97F4A7C15L ^ lowPieces * 0xC2B2AE3D27D4EB4FL ^ highPieces * 0x165667B19E3779F9L
+                ^ (state & POSITION_MASK);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toBoard().toFen();
+    }
+}
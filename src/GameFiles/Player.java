@@ -1,12 +1,18 @@
 package GameFiles;
 
 import pieces.Piece;
+import profiling.MoveValidationEvent;
+import tablebase.TablebaseResult;
+import tablebase.Tablebases;
 import utils.Constants;
+import utils.Utils;
 import java.util.ArrayList;
 
 
 public class Player {
     private Constants.Color color;
+    // Board the player plays on, the pieces are then read from its piece lists
+    private Board board;
     private boolean checked;
     private ArrayList<Piece> pieces;
     private ArrayList<Piece> capturedPieces;
@@ -22,11 +28,28 @@ public class Player {
         capturedPieces = new ArrayList<>();
     }
 
+    /**
+     * Creates a new player of the specified color whose pieces are the ones of that color on the board
+     * @param color - Color of the player
+     * @param board - Board the player plays on
+     */
+    Player(Constants.Color color, Board board) {
+        this(color);
+        this.board = board;
+    }
+
     /**
      * @return - List of players pieces that are currently on the board
      */
     public ArrayList<Piece> getPieces() {
-        return pieces;
+        if(board == null) {
+            return pieces;
+        }
+        ArrayList<Piece> boardPieces = new ArrayList<>(board.getNumPieces(color));
+        for(int i = 0; i < board.getNumPieces(color); i++) {
+            boardPieces.add(board.getPiece(board.getPieceSquare(color, i)));
+        }
+        return boardPieces;
     }
 
     /**
@@ -38,6 +61,23 @@ public class Player {
      * @return - True if the move was successful else False
      */
     public boolean movePiece(Board board, int oldPosition, int newPosition) {
+        // On the players turn the legal moves of the board answer, so invalid moves cost a single lookup
+        if(board.getSideToMove() == color) {
+            MoveValidationEvent event = new MoveValidationEvent();
+            event.begin();
+            Piece moving = null;
+            if(board.getLegalMoves().isLegal(board, oldPosition, newPosition)) {
+                moving = board.getPiece(oldPosition);
+                moving.playLegalMove(board, newPosition);
+            }
+            event.end();
+            if(event.shouldCommit()) {
+                event.set(moving == null ? color.toString() : color + " " + moving.getType(), Utils.convertToSquareName(oldPosition),
+                        Utils.convertToSquareName(newPosition), moving != null);
+                event.commit();
+            }
+            return moving != null;
+        }
 
         Piece piece = board.getPiece(oldPosition);
 
@@ -51,20 +91,22 @@ public class Player {
 
     /**
      * Add piece to list of players pieces
+     * Players of a board follow the pieces on the board instead
      * @param piece - Piece to add
      */
     public void addPiece(Piece piece) {
-        if(piece != null) {
+        if(piece != null && board == null) {
             pieces.add(piece);
         }
     }
 
     /**
      * Remove piece from list of players pieces
+     * Players of a board follow the pieces on the board instead
      * @param piece - Piece to remove
      */
     public void removePiece(Piece piece) {
-        if(piece != null) {
+        if(piece != null && board == null) {
             pieces.remove(piece);
         }
     }
@@ -87,49 +129,41 @@ public class Player {
         this.checked = checked;
     }
 
+    /**
+     * Checks if the player is checkmated
+     * @param board - The board on which the current game is being played
+     * @return - True if it is this players turn, the king is in check and no move is possible else False
+     */
     public boolean isCheckmate(Board board) {
-        if(!checked)
-            // Move king and see if that prevents checkmate
-            return !isMovePossible(board);
-
-        return false;
+        return getGameState(board) == Game.GameState.CHECKMATE;
     }
 
     /**
      * Checks if any move is possible or not for the current player
      * @param board - The board on which the current game is being played
-     * @return - True if no move possible else False
+     * @return - True if it is this players turn, the king isn't in check and no move is possible else False
      */
     public boolean isStalemate(Board board) {
-        if(!checked)
-            return !isMovePossible(board);
-        return false;
-    }
-
-    private void undoMove(Board board) {
-        board.undoLastMove();
-        setChecked(true);
+        return getGameState(board) == Game.GameState.STALEMATE;
     }
 
     /**
-     * Checks if there is any move possible or not
+     * Finds out whether the player can still move, answered by the endgame tablebases where possible
      * @param board - The board on which the current game is being played
-     * @return - True if a move is possible else False
+     * @return - State of the game for this player, ONGOING or CHECK if it isn't this players turn
      */
-    private boolean isMovePossible(Board board) {
-        ArrayList<Integer> positionsChecked = new ArrayList<>();
-        for(Piece piece : getPieces()) {
-            for(Integer position : piece.getPossibleMoves(board)) {
-                // Don't need to check positions that have already been checked
-                if(!positionsChecked.contains(position)) {
-                    positionsChecked.add(position);
-                    if(piece.movePiece(board, position)) {
-                        undoMove(board);
-                        return true;
-                    }
-                }
-            }
+    public Game.GameState getGameState(Board board) {
+        if(board.getSideToMove() != color) {
+            return board.isInCheck(color) ? Game.GameState.CHECK : Game.GameState.ONGOING;
+        }
+        TablebaseResult result = Tablebases.probe(board);
+        if(result != null) {
+            if(result.isCheckmate())
+                return Game.GameState.CHECKMATE;
+            if(result.isStalemate())
+                return Game.GameState.STALEMATE;
         }
-        return false;
+        // Also adds the draws by repetition, fifty moves and insufficient material
+        return board.getGameState();
     }
 }
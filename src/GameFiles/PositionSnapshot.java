@@ -0,0 +1,95 @@
+package GameFiles;
+
+import utils.Constants;
+
+/**
+ * Immutable copy of a position taken with Board.snapshot()
+ * Snapshots can be shared freely between threads, every thread turns it into a board of its own with toBoard()
+ */
+public final class PositionSnapshot {
+    private final byte[] mailbox;
+    private final byte numWhitePieces;
+    private final byte numBlackPieces;
+    private final long movedPieces;
+    private final Constants.Color sideToMove;
+    private final long key;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long[] keyHistory;
+
+    PositionSnapshot(byte[] mailbox, byte numWhitePieces, byte numBlackPieces, long movedPieces, Constants.Color sideToMove,
+                     long key, int halfmoveClock, int fullmoveNumber, long[] keyHistory) {
+        this.mailbox = mailbox.clone();
+        this.numWhitePieces = numWhitePieces;
+        this.numBlackPieces = numBlackPieces;
+        this.movedPieces = movedPieces;
+        this.sideToMove = sideToMove;
+        this.key = key;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.keyHistory = keyHistory;
+    }
+
+    /**
+     * @return - New board with this position, changes to it don't affect the snapshot
+     */
+    public Board toBoard() {
+        return new Board(this);
+    }
+
+    /**
+     * @return - Zobrist key of the position
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * @return - Color of the player who is to move next
+     */
+    public Constants.Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * @return - Number of half moves since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return - Number of the move, starting at 1 and increased after every move of black
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @param color - Color of the pieces
+     * @return - Number of pieces of the color, including the king
+     */
+    public int getNumPieces(Constants.Color color) {
+        return color == Constants.Color.WHITE ? numWhitePieces : numBlackPieces;
+    }
+
+    /**
+     * @return - Keys of the positions since the last capture or pawn move, oldest first
+     */
+    public long[] getKeyHistory() {
+        return keyHistory.clone();
+    }
+
+    byte[] getMailbox() {
+        return mailbox.clone();
+    }
+
+    long getMovedPieces() {
+        return movedPieces;
+    }
+
+    @Override
+    public String toString() {
+        return toBoard().toFen();
+    }
+}
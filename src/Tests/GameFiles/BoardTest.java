@@ -0,0 +1,103 @@
+package GameFiles;
+
+import engine.MoveGenerator;
+import junit.framework.TestCase;
+import pieces.Piece;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+import utils.Utils;
+
+public class BoardTest extends TestCase {
+
+    /**
+     * Tests that the piece lists and the squares agree and that kings stay in the first entry
+     */
+    public void testPieceLists() {
+        Board board = new Board("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        assertEquals(16, board.getNumPieces(Constants.Color.WHITE));
+        assertEquals(16, board.getNumPieces(Constants.Color.BLACK));
+        assertEquals(Utils.convertFromSquareName("e1"), board.getKingPosition(Constants.Color.WHITE));
+        assertEquals(Utils.convertFromSquareName("e8"), board.getKingPosition(Constants.Color.BLACK));
+        assertPiecesMatch(board);
+
+        // Capture with the queen and take it back
+        board.makeMove(Move.parse("f3f6"));
+        assertEquals(15, board.getNumPieces(Constants.Color.BLACK));
+        assertEquals(PieceCode.encode(Constants.Color.WHITE, Constants.PieceType.QUEEN), board.getPieceCode(Utils.convertFromSquareName("f6")));
+        assertPiecesMatch(board);
+        board.undoLastMove();
+        assertEquals("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1", board.toFen());
+        assertPiecesMatch(board);
+    }
+
+    /**
+     * Tests that playing and undoing every move restores the position, its key and the pieces
+     */
+    public void testMakeUndo() {
+        Board board = new Board();
+        Piece pawn = board.getPiece(Utils.convertFromSquareName("e2"));
+        long key = board.getKey();
+        int[] moves = new int[Board.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        assertEquals(20, count);
+        for(int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            board.undoLastMove();
+            assertEquals(key, board.getKey());
+            assertEquals(Board.START_FEN, board.toFen());
+        }
+
+        // Pieces handed out earlier follow the moves made on the board
+        board.makeMove(Move.parse("e2e4"));
+        assertEquals(Utils.convertFromSquareName("e4"), pawn.getPosition());
+        assertFalse(pawn.isFirstMove());
+        board.undoLastMove();
+        assertEquals(Utils.convertFromSquareName("e2"), pawn.getPosition());
+        assertTrue(pawn.isFirstMove());
+    }
+
+    /**
+     * Tests that copies and boards made from snapshots are independent of the original board
+     */
+    public void testCopy() {
+        Game game = new Game();
+        String[] moves = {"g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1"};
+        for(String move : moves) {
+            game.makeMove(Move.getOldPosition(Move.parse(move)), Move.getNewPosition(Move.parse(move)));
+        }
+        Board board = game.getGameBoard();
+        Board copy = board.copy();
+        PositionSnapshot snapshot = board.snapshot();
+        assertEquals(board.toFen(), copy.toFen());
+        assertEquals(board.toFen(), snapshot.toString());
+
+        // Moves on the copy change neither the board nor the snapshot
+        copy.makeMove(Move.parse("f6g8"));
+        assertEquals(Game.GameState.REPETITION, copy.getGameState());
+        assertEquals(Constants.Color.BLACK, board.getSideToMove());
+        assertEquals(board.getKey(), snapshot.getKey());
+        copy.undoLastMove();
+        copy.undoLastMove();
+        assertEquals(Constants.Color.WHITE, copy.getSideToMove());
+        assertTrue(copy.hasPiece(Utils.convertFromSquareName("f3")));
+        assertTrue(board.hasPiece(Utils.convertFromSquareName("g1")));
+
+        // The snapshot keeps the earlier positions for repetitions
+        Board fromSnapshot = snapshot.toBoard();
+        fromSnapshot.makeMove(Move.parse("f6g8"));
+        assertEquals(Game.GameState.REPETITION, fromSnapshot.getGameState());
+        assertEquals(board.getKey(), snapshot.toBoard().getKey());
+    }
+
+    private void assertPiecesMatch(Board board) {
+        for(Constants.Color color : Constants.Color.values()) {
+            assertEquals(Constants.PieceType.KING, PieceCode.getType(board.getPieceCode(board.getKingPosition(color))));
+            for(int i = 0; i < board.getNumPieces(color); i++) {
+                int position = board.getPieceSquare(color, i);
+                assertEquals(color, PieceCode.getColor(board.getPieceCode(position)));
+                assertEquals(color, board.getPiece(position).getColor());
+            }
+        }
+    }
+}
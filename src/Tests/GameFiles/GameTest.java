@@ -0,0 +1,119 @@
+package GameFiles;
+
+import junit.framework.TestCase;
+import pieces.Piece;
+import utils.Constants;
+import utils.Move;
+
+public class GameTest extends TestCase {
+
+    /**
+     * Plays the fools mate and tests the state of the game after every move
+     */
+    public void testCheckmate() {
+        Game game = new Game();
+        String[] moves = {"f2f3", "e7e5", "g2g4", "d8h4"};
+        for(String move : moves) {
+            assertEquals(Game.GameState.ONGOING, game.getGameState());
+            assertTrue(game.makeMove(Move.getOldPosition(Move.parse(move)), Move.getNewPosition(Move.parse(move))));
+        }
+        assertEquals(Game.GameState.CHECKMATE, game.getGameState());
+        assertTrue(game.getPlayer(Constants.Color.WHITE).isCheckmate(game.getGameBoard()));
+        assertFalse(game.getPlayer(Constants.Color.BLACK).isCheckmate(game.getGameBoard()));
+        assertFalse(game.isOngoing());
+    }
+
+    /**
+     * Tests check, stalemate and whether the cached state of a position matches a fresh board
+     */
+    public void testStates() {
+        assertEquals(Game.GameState.CHECK, new Board("7k/8/6K1/8/8/8/8/7Q b - - 0 1").getGameState());
+        assertEquals(Game.GameState.STALEMATE, new Board("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1").getGameState());
+
+        // The bishop is pinned by the rook and every square next to the king is covered
+        Board board = new Board("8/8/8/8/1n6/2k5/8/KB5r w - - 0 1");
+        assertEquals(Game.GameState.STALEMATE, board.getGameState());
+        assertEquals(Game.GameState.STALEMATE, board.getGameState());
+        assertEquals(Game.GameState.ONGOING, new Board("8/8/8/8/1n6/2k5/8/KB5r b - - 0 1").getGameState());
+    }
+
+    /**
+     * Tests the draws by threefold repetition, fifty moves and insufficient material
+     */
+    public void testDraws() {
+        Game game = new Game();
+        String[] moves = {"g1f3", "g8f6", "f3g1", "f6g8", "g1f3", "g8f6", "f3g1", "f6g8"};
+        for(String move : moves) {
+            assertTrue(game.isOngoing());
+            game.makeMove(Move.getOldPosition(Move.parse(move)), Move.getNewPosition(Move.parse(move)));
+        }
+        Board board = game.getGameBoard();
+        assertEquals(2, board.getRepetitionCount());
+        assertEquals(Game.GameState.REPETITION, game.getGameState());
+        board.undoLastMove();
+        assertEquals(Game.GameState.ONGOING, board.getGameState());
+        assertEquals(7, board.getHalfmoveClock());
+
+        board = new Board("7k/8/6K1/8/8/8/8/6R1 w - - 99 80");
+        assertEquals(Game.GameState.ONGOING, board.getGameState());
+        board.movePiece(board.getPiece(Move.getOldPosition(Move.parse("g1a1"))), Move.getNewPosition(Move.parse("g1a1")));
+        assertEquals(Game.GameState.FIFTY_MOVES, board.getGameState());
+        assertEquals("7k/8/6K1/8/8/8/8/R7 b - - 100 80", board.toFen());
+
+        assertEquals(Game.GameState.INSUFFICIENT_MATERIAL, new Board("7k/8/6K1/8/8/8/8/6N1 w - - 0 1").getGameState());
+        assertEquals(Game.GameState.INSUFFICIENT_MATERIAL, new Board("7k/8/6K1/8/8/2b5/8/6B1 w - - 0 1").getGameState());
+        assertEquals(Game.GameState.ONGOING, new Board("7k/8/6K1/8/8/1b6/8/6B1 w - - 0 1").getGameState());
+        assertEquals(Game.GameState.ONGOING, new Board("7k/8/6K1/8/8/8/8/5NN1 w - - 0 1").getGameState());
+    }
+
+    /**
+     * Tests that moves are validated by the legal moves of the position, generated once per position
+     */
+    public void testLegalMoves() {
+        Game game = new Game();
+        Board board = game.getGameBoard();
+        LegalMoveCache legalMoves = board.getLegalMoves();
+        int e2 = Move.getOldPosition(Move.parse("e2e4"));
+        int e4 = Move.getNewPosition(Move.parse("e2e4"));
+        for(int i = 0; i < 1000; i++) {
+            assertFalse(game.makeMove(e2, e2 + 24));
+            assertFalse(game.makeMove(e4, e2));
+            assertFalse(game.makeMove(-1, 64));
+        }
+        assertEquals(1, legalMoves.getGenerations());
+        assertEquals(20, legalMoves.getCount(board));
+        assertTrue(game.makeMove(e2, e4));
+        assertEquals(Constants.Color.BLACK, game.getCurrentColor());
+        // White pieces can't move on blacks turn
+        assertFalse(game.makeMove(e4, e4 - 8));
+        assertEquals(2, legalMoves.getGenerations());
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1", board.toFen());
+    }
+
+    /**
+     * Tests that the legal moves agree with the moves the pieces accept, pins and checks included
+     */
+    public void testLegalMovesMatchPieces() {
+        String[] positions = {
+                Board.START_FEN,
+                "4k3/8/8/8/8/8/4r3/R3K2R w - - 0 1",
+                "4k3/4r3/8/8/8/8/4B3/4K3 w - - 0 1",
+                "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 b - - 0 8"
+        };
+        for(String fen : positions) {
+            Board board = new Board(fen);
+            for(int from = 0; from < 64; from++) {
+                for(int to = 0; to < 64; to++) {
+                    Piece piece = board.getPiece(from);
+                    boolean accepted = piece != null && piece.getColor() == board.getSideToMove() && piece.movePiece(board, to);
+                    if(accepted) {
+                        board.undoLastMove();
+                        piece.updatePosition(from);
+                    }
+                    assertEquals(fen + " " + from + " " + to, accepted, board.getLegalMoves().isLegal(board, from, to));
+                }
+            }
+            assertEquals(1, board.getLegalMoves().getGenerations());
+        }
+    }
+}
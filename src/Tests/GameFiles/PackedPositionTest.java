@@ -0,0 +1,84 @@
+package GameFiles;
+
+import junit.framework.TestCase;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+
+import java.nio.ByteBuffer;
+
+public class PackedPositionTest extends TestCase {
+    private static final String[] POSITIONS = {
+            Board.START_FEN,
+            "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 b - - 5 8",
+            "8/5pk1/6p1/3R4/7P/6P1/r4PK1/8 w - - 99 40",
+            "k7/8/8/8/8/8/8/7K b - - 0 300"
+    };
+
+    /**
+     * Tests that decoding gives back the position, its key and its piece lists
+     */
+    public void testRoundTrip() {
+        for(String fen : POSITIONS) {
+            Board board = new Board(fen);
+            PackedPosition packed = PackedPosition.encode(board);
+            assertEquals(PackedPosition.BYTES, packed.toBytes().length);
+            Board decoded = packed.toBoard();
+            assertEquals(fen, decoded.toFen());
+            assertEquals(board.getKey(), decoded.getKey());
+            for(Constants.Color color : Constants.Color.values()) {
+                assertEquals(board.getNumPieces(color), decoded.getNumPieces(color));
+                assertEquals(board.getKingPosition(color), decoded.getKingPosition(color));
+                assertEquals(board.getKingPosition(color), decoded.getPieceSquare(color, 0));
+            }
+            for(int square = 0; square < 64; square++) {
+                assertEquals(board.getPieceCode(square), packed.getPieceCode(square));
+            }
+            assertEquals(packed, PackedPosition.fromBytes(packed.toBytes()));
+            assertEquals(packed.hashCode(), PackedPosition.fromBytes(packed.toBytes()).hashCode());
+        }
+    }
+
+    /**
+     * Tests that equal positions have equal encodings and that moves change them, but not clocks or labels
+     */
+    public void testCanonical() {
+        Board board = new Board();
+        PackedPosition start = PackedPosition.encode(board);
+        assertEquals(start, PackedPosition.encode(new Board(Board.START_FEN)));
+        board.makeMove(Move.parse("e2e4"));
+        PackedPosition moved = PackedPosition.encode(board);
+        assertFalse(start.equals(moved));
+        assertEquals(Constants.Color.BLACK, moved.getSideToMove());
+        board.undoLastMove();
+        assertEquals(start, PackedPosition.encode(board));
+
+        // Clocks and labels don't make a different position
+        PackedPosition labeled = start.withLabel(0xABCDEF);
+        assertEquals(0xABCDEF, labeled.getLabel());
+        assertEquals(start, labeled);
+        assertEquals(start.hashCode(), labeled.hashCode());
+        assertEquals(start.toBoard().toFen(), labeled.toBoard().toFen());
+        PackedPosition later = PackedPosition.encode(new Board("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 12 40"));
+        assertEquals(start, later);
+        assertEquals(start.hashCode(), later.hashCode());
+        assertFalse(start.toBoard().toFen().equals(later.toBoard().toFen()));
+    }
+
+    /**
+     * Tests that encodings without a king of each color are rejected
+     */
+    public void testInvalid() {
+        ByteBuffer buffer = ByteBuffer.allocate(PackedPosition.BYTES).order(PackedPosition.ORDER);
+        buffer.putLong(3L).putLong(PieceCode.encode(Constants.Color.WHITE, Constants.PieceType.KING)
+                | (long) PieceCode.encode(Constants.Color.WHITE, Constants.PieceType.KING) << 4).putLong(0).putLong(1L << 48);
+        buffer.flip();
+        try {
+            PackedPosition.read(buffer).toBoard();
+            fail();
+        }
+        catch(IllegalArgumentException e) {
+            // Two white kings and no black one
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package analysis;
+
+import engine.SearchLimits;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+public class BatchAnalyzerTest extends TestCase {
+    private static final String SUITE = "# mate in one\n"
+            + "7k/8/6K1/8/8/8/8/5Q2 w - - bm Qf8+; id \"mate; 1\";\n"
+            + "\n"
+            + "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - id \"start\"; hmvc 3; fmvn 7;\n"
+            + "not a position\n"
+            + "8/8/8/8/1n6/2k5/8/KB5r b - - id \"stalemate\";\n";
+    private Path directory;
+
+    /**
+     * Tests the operations and the FEN read from the suite
+     */
+    public void testReader() throws IOException {
+        try(EpdReader reader = new EpdReader(new StringReader(SUITE))) {
+            EpdPosition position = reader.readPosition();
+            assertEquals(0, position.getIndex());
+            assertEquals("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1", position.getFen());
+            assertEquals("Qf8+", position.getOperation("bm"));
+            assertEquals("mate; 1", position.getId());
+            position = reader.readPosition();
+            assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 3 7", position.getFen());
+            assertEquals(2, reader.readPosition().getIndex());
+            assertEquals(3, reader.readPosition().getIndex());
+            assertNull(reader.readPosition());
+        }
+    }
+
+    /**
+     * Tests that an interrupted run is resumed without analysing any position twice
+     */
+    public void testResume() throws IOException, InterruptedException {
+        Path suite = directory.resolve("suite.epd");
+        Files.write(suite, SUITE.getBytes(StandardCharsets.UTF_8));
+        Path output = directory.resolve("results.csv");
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(2);
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(limits, 2, 1, true);
+        try(ResultWriter writer = new CsvResultWriter(output, false)) {
+            assertEquals(3, analyzer.run(suite, writer));
+        }
+        assertEquals(1, analyzer.getInvalid());
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(4, lines.size());
+        assertEquals(CsvResultWriter.HEADER, lines.get(0));
+        assertTrue(findLine(lines, "0,").startsWith("0,\"mate; 1\",7k/8/6K1/8/8/8/8/5Q2 w - - 0 1,f1f8,"));
+
+        // Keep the first result and half of the second, as if the run crashed while writing
+        String crashed = lines.get(0) + "\n" + lines.get(1) + "\n" + lines.get(2).substring(0, 10);
+        Files.write(output, crashed.getBytes(StandardCharsets.UTF_8));
+        analyzer = new BatchAnalyzer(limits, 2, 1, false);
+        try(ResultWriter writer = new CsvResultWriter(output, true)) {
+            assertEquals(2, analyzer.run(suite, writer));
+        }
+        assertEquals(1, analyzer.getSkipped());
+        lines = Files.readAllLines(output);
+        assertEquals(4, lines.size());
+        String[] indices = new String[3];
+        for(int i = 1; i < lines.size(); i++) {
+            indices[i - 1] = lines.get(i).substring(0, lines.get(i).indexOf(','));
+        }
+        Arrays.sort(indices);
+        assertEquals("[0, 1, 3]", Arrays.toString(indices));
+
+        // Binary results of a finished run leave nothing to do
+        Path binary = directory.resolve("results.bin");
+        try(ResultWriter writer = new BinaryResultWriter(binary, false)) {
+            analyzer.run(suite, writer);
+        }
+        assertEquals(3 * BinaryResultWriter.RECORD_SIZE, Files.size(binary));
+        try(ResultWriter writer = new BinaryResultWriter(binary, true)) {
+            assertEquals(3, writer.getCompleted().cardinality());
+            assertEquals(0, analyzer.run(suite, writer));
+        }
+    }
+
+    /**
+     * Tests that a writer failing with an unchecked exception ends the run with that exception instead of hanging it
+     */
+    public void testWriterFailure() throws IOException, InterruptedException {
+        Path suite = directory.resolve("suite.epd");
+        Files.write(suite, SUITE.getBytes(StandardCharsets.UTF_8));
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(1);
+        ResultWriter writer = new ResultWriter() {
+            @Override
+            public void write(AnalysisResult result) {
+                throw new IllegalStateException("full");
+            }
+
+            @Override
+            public BitSet getCompleted() {
+                return new BitSet();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try {
+            new BatchAnalyzer(limits, 2, 1, true).run(suite, writer);
+            fail();
+        }
+        catch(IllegalStateException e) {
+            assertEquals("full", e.getMessage());
+        }
+    }
+
+    private static String findLine(List<String> lines, String prefix) {
+        for(String line : lines) {
+            if(line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("epd-test");
+    }
+
+    public void tearDown() throws Exception {
+        for(Path file : Files.list(directory).toArray(Path[]::new)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+}
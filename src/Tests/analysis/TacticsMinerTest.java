@@ -0,0 +1,77 @@
+package analysis;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TacticsMinerTest extends TestCase {
+    private static final String GAME = "[Event \"Scholar\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6 4. Qxf7# 1-0\n\n";
+
+    /**
+     * Tests that the key set admits every key once, also when threads race for it
+     */
+    public void testKeySet() throws InterruptedException {
+        ConcurrentKeySet set = new ConcurrentKeySet(1 << 12);
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(42));
+        assertFalse(set.add(42));
+
+        ConcurrentKeySet shared = new ConcurrentKeySet(1 << 12);
+        AtomicInteger added = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for(int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for(long key = 1; key <= 1000; key++) {
+                    if(shared.add(key * 0x9E3779B97F4A7C15L)) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for(Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, added.get());
+    }
+
+    /**
+     * Tests that the mate of a game is found once although the game is in the archive twice
+     */
+    public void testMine() throws IOException, InterruptedException {
+        Path archive = Files.createTempFile("tactics", ".pgn");
+        try {
+            Files.write(archive, (GAME + GAME).getBytes(StandardCharsets.UTF_8));
+            TacticsMiner miner = new TacticsMiner(2, TacticsMiner.DEFAULT_MIN_SWING, 2, 2, 1024);
+            miner.setMinPly(0);
+            List<TacticCandidate> candidates = new ArrayList<>();
+            assertEquals(1, miner.run(List.of(archive), candidates::add));
+            assertEquals(2, miner.getGames());
+            assertEquals(14, miner.getPositions());
+            assertEquals(7, miner.getDuplicates());
+            assertTrue(miner.getPositionsPerSecond() > 0);
+
+            TacticCandidate candidate = candidates.get(0);
+            assertEquals(6, candidate.getPly());
+            assertEquals(1, candidate.getMateMoves());
+            EpdPosition position = EpdReader.parse(0, candidate.toEpd());
+            assertEquals(candidate.getFen(), position.getFen());
+            assertEquals("h5f7", position.getOperation("bm"));
+            assertEquals("1", position.getOperation("dm"));
+
+            // Positions of an earlier run are duplicates
+            assertEquals(0, miner.run(List.of(archive), candidates::add));
+            assertEquals(14, miner.getDuplicates());
+        }
+        finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package book;
+
+import GameFiles.Board;
+import GameFiles.Notation;
+import junit.framework.TestCase;
+import utils.Move;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+public class BookBuilderTest extends TestCase {
+
+    private static final String GAMES =
+            "[Event \"Test\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 Nc6 1-0\n\n" +
+            "[Event \"Test\"]\n[Result \"0-1\"]\n\n1. e4 c5 {Sicilian} (1... e5 2. Nf3) 2. Nf3 $1 d6 0-1\n\n" +
+            "[Event \"Test\"]\n[Result \"1/2-1/2\"]\n\n1. d4 d5 ; symmetrical\n1/2-1/2\n";
+
+    private Path directory;
+    private Path pgn;
+
+    /**
+     * Tests whether every move played from the starting position ends up in the book with the correct statistics
+     * A tiny memory limit forces every shard to spill to disk
+     */
+    public void testBuild() throws Exception {
+        Path output = directory.resolve("book.bin");
+        BookBuilder builder = new BookBuilder(1, 0.0, 10, 64, 4, directory);
+        builder.build(Collections.singletonList(pgn), output);
+        assertEquals(3, builder.getGamesRead());
+        assertEquals(10, builder.getPositionsAdded());
+
+        OpeningBook book = new OpeningBook(output);
+        Board board = new Board();
+        ArrayList<OpeningBook.BookEntry> entries = book.getEntries(board.getKey());
+        assertEquals(2, entries.size());
+        for(OpeningBook.BookEntry entry : entries) {
+            if(Move.toString(entry.getMove()).equals("e2e4")) {
+                assertEquals(2, entry.getGames());
+                assertEquals(0.5, entry.getScore(), 1e-9);
+            }
+            else {
+                assertEquals("d2d4", Move.toString(entry.getMove()));
+                assertEquals(1, entry.getGames());
+            }
+        }
+        assertEquals("e2e4", Move.toString(book.getBestMove(board)));
+
+        // Variation in the second game must not be added
+        Notation.playSan(board, "e4");
+        Notation.playSan(board, "e5");
+        entries = book.getEntries(board.getKey());
+        assertEquals(1, entries.size());
+        assertEquals("g1f3", Move.toString(entries.get(0).getMove()));
+        assertEquals(1.0, entries.get(0).getScore(), 1e-9);
+    }
+
+    /**
+     * Tests whether moves played in too few games or scoring too low are left out of the book
+     */
+    public void testPrune() throws Exception {
+        Path output = directory.resolve("book.bin");
+        new BookBuilder(2, 0.0, 10, 1000, 2, directory).build(Collections.singletonList(pgn), output);
+        OpeningBook book = new OpeningBook(output);
+        assertEquals(1, book.size());
+
+        new BookBuilder(1, 0.6, 10, 1000, 2, directory).build(Collections.singletonList(pgn), output);
+        book = new OpeningBook(output);
+        Board board = new Board();
+        assertTrue(book.getEntries(board.getKey()).isEmpty());
+    }
+
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("book-test");
+        pgn = directory.resolve("games.pgn");
+        Files.write(pgn, GAMES.getBytes());
+    }
+
+    public void tearDown() throws IOException {
+        try(Stream<Path> files = Files.list(directory)) {
+            for(Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,21 @@
+package engine;
+
+import junit.framework.TestCase;
+
+public class BenchTest extends TestCase {
+
+    // Node signature of depth 3, changes whenever the search or the evaluation change
+    private static final long SIGNATURE_DEPTH_3 = 95_774;
+
+    /**
+     * Tests that the node signature is the same on every run and matches the one of the current search
+     */
+    public void testSignature() {
+        Bench bench = new Bench();
+        long signature = bench.run(3, null);
+        assertEquals(SIGNATURE_DEPTH_3, signature);
+        assertEquals(signature, bench.getNodes());
+        assertEquals(signature, new Bench().run(3, null));
+        assertTrue(new Bench().run(4, null) > signature);
+    }
+}
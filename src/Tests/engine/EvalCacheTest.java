@@ -0,0 +1,45 @@
+package engine;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+
+public class EvalCacheTest extends TestCase {
+
+    /**
+     * Tests that cached scores, negative ones included, match the evaluator and are counted as hits
+     */
+    public void testEvaluate() {
+        EvalCache cache = new EvalCache(1 << 10);
+        Board board = new Board("7k/8/6K1/8/8/8/8/5Q2 b - - 0 1");
+        int score = Evaluator.evaluate(board);
+        assertTrue(score < 0);
+        assertEquals(score, cache.evaluate(board));
+        assertEquals(score, cache.evaluate(board));
+        assertEquals(2, cache.getProbes());
+        assertEquals(1, cache.getHits());
+
+        // A different position in the same slot replaces the entry
+        Board other = new Board();
+        assertEquals(Evaluator.evaluate(other), cache.evaluate(other));
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+        cache.resetCounters();
+        assertEquals(0, cache.getProbes());
+    }
+
+    /**
+     * Tests that a warm cache doesn't change the search, only answers more evaluations
+     */
+    public void testSearchUnchanged() {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(4);
+        TranspositionTable table = new TranspositionTable(1);
+        Search search = new Search(table);
+        long nodes = search.search(new Board(), limits, null).getNodes();
+        double hitRate = search.getStatistics().getEvalHitRate();
+        assertTrue(search.getStatistics().getEvalProbes() > 0);
+
+        table.clear();
+        assertEquals(nodes, search.search(new Board(), limits, null).getNodes());
+        assertTrue(search.getStatistics().getEvalHitRate() > hitRate);
+    }
+}
@@ -0,0 +1,95 @@
+package engine;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+import utils.Move;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class MateSolverTest extends TestCase {
+    private static final String[] POSITIONS = {
+            Board.START_FEN,
+            "r1b2rk1/pp1p1pp1/1b1p2B1/n1qQ2p1/8/5N2/P3RPPP/4R1K1 w - - 0 1",
+            "2q1nk1r/4Rp2/1ppp1P2/6Pp/3p1B2/3P3P/PPP1Q3/6K1 w - - 0 1",
+            "5r1k/6pp/8/6N1/8/1Q6/8/6K1 w - - 0 1",
+            "6k1/5N1p/8/8/8/1Q6/8/6K1 b - - 0 1",
+            "4k3/8/8/8/1b6/8/4N3/K3R2r w - - 0 1",
+            "4k3/8/8/8/8/8/1N6/K6r w - - 0 1",
+            "7k/8/6K1/8/8/8/8/7Q b - - 0 1"
+    };
+
+    /**
+     * Tests the checks and evasions against every legal move filtered by playing it
+     */
+    public void testGeneratorsMatchLegalMoves() {
+        for(String fen : POSITIONS) {
+            Board board = new Board(fen);
+            int[] legal = new int[MoveGenerator.MAX_MOVES];
+            int numLegal = MoveGenerator.generateMoves(board, legal);
+            int[] expected = new int[numLegal];
+            int numChecks = 0;
+            for(int i = 0; i < numLegal; i++) {
+                board.makeMove(legal[i]);
+                if(board.isInCheck(board.getSideToMove())) {
+                    expected[numChecks++] = legal[i];
+                }
+                board.undoLastMove();
+            }
+            int[] checks = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateChecks(board, checks);
+            assertEquals(fen, sorted(expected, numChecks), sorted(checks, count));
+
+            int[] evasions = new int[MoveGenerator.MAX_MOVES];
+            count = MoveGenerator.generateEvasions(board, evasions);
+            assertEquals(fen, sorted(legal, numLegal), sorted(evasions, count));
+        }
+        assertEquals(1, MoveGenerator.generateEvasions(new Board(POSITIONS[POSITIONS.length - 1]), new int[MoveGenerator.MAX_MOVES]));
+    }
+
+    /**
+     * Tests that the shortest mate is found along with its first move and line
+     */
+    public void testMates() {
+        MateSolver solver = new MateSolver(1);
+        Board board = new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1");
+        assertEquals(1, solver.solve(board, 5));
+        assertEquals("f1f8", Move.toString(solver.getBestMove()));
+
+        // Smothered mate, every move is a check
+        board = new Board("5r1k/6pp/8/6N1/8/1Q6/8/6K1 w - - 0 1");
+        assertEquals(4, solver.solve(board, 5));
+        assertEquals("g5f7", Move.toString(solver.getBestMove()));
+        List<Integer> pv = solver.getPv(board);
+        assertEquals(7, pv.size());
+        assertEquals("h6f7", Move.toString(pv.get(6)));
+        for(int move : pv) {
+            board.makeMove(move);
+        }
+        assertEquals(0, MoveGenerator.generateEvasions(board, new int[MoveGenerator.MAX_MOVES]));
+        assertTrue(board.isInCheck(board.getSideToMove()));
+
+        board = new Board("r1b2rk1/pp1p1pp1/1b1p2B1/n1qQ2p1/8/5N2/P3RPPP/4R1K1 w - - 0 1");
+        assertEquals(0, solver.solve(board, 3));
+        assertEquals(Move.NONE, solver.getBestMove());
+        assertEquals(4, solver.solve(board, 5));
+        assertEquals("d5f7", Move.toString(solver.getBestMove()));
+        // The board is left as it was
+        assertEquals(board.getKey(), new Board("r1b2rk1/pp1p1pp1/1b1p2B1/n1qQ2p1/8/5N2/P3RPPP/4R1K1 w - - 0 1").getKey());
+    }
+
+    /**
+     * Tests that a position without checking mate is disproved
+     */
+    public void testNoMate() {
+        MateSolver solver = new MateSolver(1);
+        assertEquals(0, solver.solve(new Board("7k/8/5K2/8/8/8/8/R7 w - - 0 1"), 5));
+        assertEquals(0, solver.solve(new Board(Board.START_FEN), 3));
+    }
+
+    private static String sorted(int[] moves, int count) {
+        int[] copy = Arrays.copyOf(moves, count);
+        Arrays.sort(copy);
+        return Arrays.toString(copy);
+    }
+}
@@ -0,0 +1,62 @@
+package engine;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+import utils.Move;
+
+public class MctsSearchTest extends TestCase {
+
+    /**
+     * Tests whether the playouts of several threads find a mate in one
+     */
+    public void testMateInOne() {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(20_000);
+        MctsSearch search = new MctsSearch();
+        search.setThreads(2);
+        SearchResult result = search.search(new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1"), limits, null);
+        assertEquals("f1f8", Move.toString(result.getBestMove()));
+        assertTrue(result.getScore() > 1000);
+        assertEquals(20_000, search.getRootVisits(), 2);
+    }
+
+    /**
+     * Tests that the tree of the last search is reused after the expected moves were played
+     */
+    public void testTreeReuse() {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(5_000);
+        MctsSearch search = new MctsSearch();
+        Board board = new Board();
+        SearchResult result = search.search(board, limits, null);
+        assertTrue(result.getPonderMove() != Move.NONE);
+
+        board.makeMove(result.getBestMove());
+        board.makeMove(result.getPonderMove());
+        search.search(board, limits, null);
+        assertTrue(search.getRootVisits() > 5_000);
+
+        // A position that isn't in the tree starts a new one
+        search.search(new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1"), limits, null);
+        assertEquals(5_000, search.getRootVisits(), 1);
+    }
+
+    /**
+     * Tests that the nodes dropped with the rest of the tree no longer count when a subtree is reused
+     */
+    public void testReusedNodeCount() {
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(5_000);
+        MctsSearch search = new MctsSearch();
+        Board board = new Board();
+        SearchResult result = search.search(board, limits, null);
+        long treeNodes = search.getNumNodes();
+
+        board.makeMove(result.getBestMove());
+        board.makeMove(result.getPonderMove());
+        limits.setNodes(1);
+        search.search(board, limits, null);
+        assertTrue(search.getNumNodes() > 0);
+        assertTrue(search.getNumNodes() < treeNodes / 2);
+    }
+}
@@ -0,0 +1,37 @@
+package engine;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+
+public class PerftTest extends TestCase {
+    private static final String MIDDLEGAME = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1";
+
+    /**
+     * Tests the serial count with and without the table of counts
+     */
+    public void testSerial() {
+        Board board = new Board();
+        assertEquals(20, Perft.count(board, 1, null));
+        assertEquals(8902, Perft.count(board, 3, null));
+        assertEquals(197281, Perft.count(board, 4, new PerftTable(1)));
+        assertEquals(Board.START_FEN, board.toFen());
+    }
+
+    /**
+     * Tests that the parallel count matches the serial count
+     */
+    public void testParallel() {
+        Board board = new Board(MIDDLEGAME);
+        long expected = Perft.count(board, 3, null);
+        Perft perft = new Perft(2, 0);
+        assertEquals(expected, perft.count(board, 3));
+        assertEquals(197281, perft.count(new Board(), 4));
+        perft.close();
+
+        perft = new Perft(2, 1);
+        assertEquals(expected, perft.count(board, 3));
+        assertEquals(expected, perft.count(board, 3));
+        perft.close();
+        assertEquals(MIDDLEGAME, board.toFen());
+    }
+}
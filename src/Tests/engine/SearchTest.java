@@ -0,0 +1,105 @@
+package engine;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+import tablebase.Tablebase;
+import utils.Move;
+
+public class SearchTest extends TestCase {
+
+    /**
+     * Tests the number of legal moves in the starting position and in a position where the king is in check
+     */
+    public void testGenerateMoves() {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        assertEquals(20, MoveGenerator.generateMoves(new Board(Board.START_FEN), moves));
+        // Only the king can move out of the check by the queen, g7 and h7 are covered
+        assertEquals(1, MoveGenerator.generateMoves(new Board("7k/8/6K1/8/8/8/8/7Q b - - 0 1"), moves));
+    }
+
+    /**
+     * Tests whether a mate in one is found and announced as a mate
+     */
+    public void testMateInOne() {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(3);
+        SearchResult result = new Search(new TranspositionTable(1)).search(new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1"), limits, null);
+        assertEquals("f1f8", Move.toString(result.getBestMove()));
+        assertTrue(Search.isMateScore(result.getScore()));
+        assertEquals(1, Search.getMateMoves(result.getScore()));
+    }
+
+    /**
+     * Tests whether a search stopped before it starts still returns a legal move
+     */
+    public void testStopBeforeStart() {
+        Search search = new Search(new TranspositionTable(1));
+        search.prepare();
+        search.stop();
+        SearchLimits limits = new SearchLimits();
+        limits.setInfinite(true);
+        Board board = new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1");
+        int move = search.search(board, limits, null).getBestMove();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        boolean legal = false;
+        for(int i = 0; i < count; i++) {
+            legal |= moves[i] == move;
+        }
+        assertTrue(legal);
+    }
+
+    /**
+     * Tests whether a tablebase mate found at the deepest ply still counts as a mate
+     */
+    public void testLongestMateScore() {
+        int score = Search.MATE - Search.MAX_PLY - Tablebase.MAX_PLIES;
+        assertTrue(Search.isMateScore(score));
+        assertTrue(Search.isMateScore(-score));
+        assertEquals((Search.MAX_MATE_PLY + 1) / 2, Search.getMateMoves(score));
+    }
+
+    /**
+     * Tests whether the limits stop the search and a legal move is returned with several threads
+     */
+    public void testLimits() {
+        Board board = new Board(Board.START_FEN);
+        Search search = new Search(new TranspositionTable(1));
+        search.setThreads(2);
+        SearchLimits limits = new SearchLimits();
+        limits.setNodes(2000);
+        SearchResult result = search.search(board, limits, null);
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        boolean legal = false;
+        for(int i = 0; i < count; i++) {
+            legal |= moves[i] == result.getBestMove();
+        }
+        assertTrue(legal);
+        assertEquals(Board.START_FEN, board.toFen());
+    }
+
+    /**
+     * Tests the counters of a search and their totals in the monitor
+     */
+    public void testStatistics() {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(4);
+        Search search = new Search(new TranspositionTable(1));
+        SearchResult result = search.search(new Board(), limits, null);
+        SearchStatistics statistics = search.getStatistics();
+        assertEquals(result.getNodes(), statistics.getNodes());
+        assertEquals(4, statistics.getDepth());
+        assertTrue(statistics.getQuiescenceNodes() > 0 && statistics.getQuiescenceNodes() < statistics.getNodes());
+        assertTrue(statistics.getFirstMoveCutoffs() <= statistics.getBetaCutoffs() && statistics.getBetaCutoffs() > 0);
+        assertTrue(statistics.getTableHits() <= statistics.getTableProbes() && statistics.getTableCutoffs() <= statistics.getTableHits());
+        assertTrue(statistics.getEffectiveBranchingFactor() > 1);
+
+        search.search(new Board(), limits, null);
+        assertEquals(2, search.getMonitor().getSearches());
+        assertEquals(result.getNodes() + search.getStatistics().getNodes(), search.getMonitor().getTotalNodes());
+        // The second search finds the positions of the first one in the table
+        assertTrue(search.getMonitor().getLastTableHitRate() > statistics.getTableHitRate());
+    }
+}
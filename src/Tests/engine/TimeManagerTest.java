@@ -0,0 +1,54 @@
+package engine;
+
+import junit.framework.TestCase;
+import utils.Constants;
+
+public class TimeManagerTest extends TestCase {
+
+    /**
+     * Tests whether the deadlines stay inside the clock of the side to move
+     */
+    public void testDeadlines() {
+        SearchLimits limits = new SearchLimits();
+        limits.setTime(Constants.Color.WHITE, 60_000);
+        limits.setTime(Constants.Color.BLACK, 1_000);
+        limits.setIncrement(Constants.Color.WHITE, 1_000);
+
+        TimeManager white = new TimeManager(limits, Constants.Color.WHITE, 50);
+        assertTrue(white.getSoftLimit() > 1_000);
+        assertTrue(white.getHardLimit() > white.getSoftLimit());
+        assertTrue(white.getHardLimit() < 60_000 / 2);
+
+        TimeManager black = new TimeManager(limits, Constants.Color.BLACK, 50);
+        assertTrue(black.getSoftLimit() <= black.getHardLimit());
+        assertTrue(black.getHardLimit() < 1_000 - 50);
+
+        limits.setMovesToGo(1);
+        assertEquals(950, new TimeManager(limits, Constants.Color.BLACK, 50).getHardLimit());
+
+        limits.setInfinite(true);
+        assertFalse(new TimeManager(limits, Constants.Color.WHITE, 50).isTimed());
+    }
+
+    /**
+     * Tests whether a changing best move and a dropping score give the search more time than a stable best move
+     */
+    public void testStability() throws Exception {
+        SearchLimits limits = new SearchLimits();
+        limits.setTime(Constants.Color.WHITE, 20_050);
+        limits.setMovesToGo(40);
+        TimeManager stable = new TimeManager(limits, Constants.Color.WHITE, 50);
+        TimeManager unstable = new TimeManager(limits, Constants.Color.WHITE, 50);
+        for(int i = 0; i < 5; i++) {
+            stable.iterationFinished(1, 20);
+            unstable.iterationFinished(i + 1, 20 - i * 40);
+        }
+        Thread.sleep(stable.getSoftLimit());
+        assertTrue(stable.isSoftLimitReached());
+        assertFalse(unstable.isSoftLimitReached());
+
+        stable.setRootMoves(1);
+        stable.restart();
+        assertTrue(stable.isSoftLimitReached());
+    }
+}
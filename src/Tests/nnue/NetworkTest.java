@@ -0,0 +1,173 @@
+package nnue;
+
+import GameFiles.Board;
+import engine.Evaluator;
+import engine.MoveGenerator;
+import engine.Search;
+import engine.SearchLimits;
+import engine.TranspositionTable;
+import junit.framework.TestCase;
+import utils.Constants;
+import utils.Move;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class NetworkTest extends TestCase {
+    private static final int HIDDEN_SIZE = 32;
+
+    private static Network createNetwork(long seed) {
+        Random random = new Random(seed);
+        short[] featureWeights = new short[Network.NUM_FEATURES * HIDDEN_SIZE];
+        short[] featureBiases = new short[HIDDEN_SIZE];
+        short[] outputWeights = new short[2 * HIDDEN_SIZE];
+        for(int i = 0; i < featureWeights.length; i++) {
+            featureWeights[i] = (short) (random.nextInt(81) - 40);
+        }
+        for(int i = 0; i < HIDDEN_SIZE; i++) {
+            featureBiases[i] = (short) random.nextInt(100);
+            outputWeights[i] = (short) (random.nextInt(129) - 64);
+            outputWeights[HIDDEN_SIZE + i] = (short) (random.nextInt(129) - 64);
+        }
+        return new Network(HIDDEN_SIZE, featureWeights, featureBiases, outputWeights, 1000);
+    }
+
+    /**
+     * Tests that the incremental accumulators match accumulators computed from scratch after every move and undo
+     */
+    public void testIncrementalUpdate() {
+        Network network = createNetwork(1);
+        Random random = new Random(2);
+        Board board = new Board();
+        Accumulator accumulator = new Accumulator(network);
+        board.setAccumulator(accumulator);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int played = 0;
+        for(int ply = 0; ply < 200; ply++) {
+            int count = MoveGenerator.generateMoves(board, moves);
+            if(count == 0) {
+                break;
+            }
+            board.makeMove(moves[random.nextInt(count)]);
+            played++;
+            assertSameAsRefresh(network, board, accumulator);
+            if(random.nextInt(3) == 0) {
+                board.undoLastMove();
+                played--;
+                assertSameAsRefresh(network, board, accumulator);
+            }
+        }
+        for(int i = 0; i < played; i++) {
+            board.undoLastMove();
+        }
+        assertSameAsRefresh(network, board, accumulator);
+        assertEquals(Board.START_FEN, board.toFen());
+    }
+
+    /**
+     * Tests undoing moves that were played before the accumulators were attached
+     */
+    public void testUndoBeforeAttach() {
+        Network network = createNetwork(3);
+        Board board = new Board();
+        board.makeMove(Move.parse("e2e4"));
+        board.makeMove(Move.parse("d7d5"));
+        Accumulator accumulator = new Accumulator(network);
+        board.setAccumulator(accumulator);
+        board.makeMove(Move.parse("e4d5"));
+        board.undoLastMove();
+        board.undoLastMove();
+        assertSameAsRefresh(network, board, accumulator);
+    }
+
+    /**
+     * Tests that the network evaluates positions through the Evaluator from the side to move's point of view
+     */
+    public void testEvaluate() {
+        Network network = createNetwork(4);
+        Board board = new Board("4k3/pppp4/8/8/8/8/4PPPP/4K3 w - - 0 1");
+        board.setAccumulator(new Accumulator(network));
+        assertEquals(board.getAccumulator().evaluate(Constants.Color.WHITE), Evaluator.evaluate(board));
+
+        // The start position looks the same to both sides
+        Board start = new Board();
+        start.setAccumulator(new Accumulator(network));
+        Board startBlack = new Board("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b - - 0 1");
+        startBlack.setAccumulator(new Accumulator(network));
+        assertEquals(Evaluator.evaluate(start), Evaluator.evaluate(startBlack));
+
+        start.setAccumulator(null);
+        assertEquals(0, Evaluator.evaluate(start));
+    }
+
+    /**
+     * Tests that a saved network is loaded with the same weights and that a search can use it
+     */
+    public void testLoad() throws IOException {
+        Network network = createNetwork(5);
+        Path file = Files.createTempFile("network", ".nnue");
+        try {
+            network.save(file);
+            Network loaded = Network.load(file);
+            assertEquals(HIDDEN_SIZE, loaded.getHiddenSize());
+            assertTrue(Arrays.equals(network.getFeatureWeights(), loaded.getFeatureWeights()));
+            Board board = new Board("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3");
+            board.setAccumulator(new Accumulator(network));
+            int score = Evaluator.evaluate(board);
+            board.setAccumulator(new Accumulator(loaded));
+            assertEquals(score, Evaluator.evaluate(board));
+
+            Search search = new Search(new TranspositionTable(1));
+            search.setNetwork(loaded);
+            SearchLimits limits = new SearchLimits();
+            limits.setDepth(3);
+            assertTrue(search.search(board, limits, null).getBestMove() != Move.NONE);
+
+            Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+            try {
+                Network.load(file);
+                fail();
+            }
+            catch(IOException e) {
+                // Expected
+            }
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertSameAsRefresh(Network network, Board board, Accumulator accumulator) {
+        Accumulator fresh = new Accumulator(network);
+        fresh.refresh(board);
+        for(Constants.Color color : Constants.Color.values()) {
+            assertTrue(Arrays.equals(fresh.getValues(color), accumulator.getValues(color)));
+        }
+        assertEquals(fresh.evaluate(board.getSideToMove()), accumulator.evaluate(board.getSideToMove()));
+    }
+
+    /**
+     * Tests that extreme weights neither overflow the output layer nor reach the mate scores of the search
+     */
+    public void testEvaluateClamped() {
+        int hiddenSize = 1024;
+        short[] featureWeights = new short[Network.NUM_FEATURES * hiddenSize];
+        short[] featureBiases = new short[hiddenSize];
+        short[] outputWeights = new short[2 * hiddenSize];
+        Arrays.fill(featureBiases, Short.MAX_VALUE);
+        Arrays.fill(outputWeights, 0, hiddenSize, Short.MAX_VALUE);
+        Network network = new Network(hiddenSize, featureWeights, featureBiases, outputWeights, 0);
+        Board board = new Board();
+        board.setAccumulator(new Accumulator(network));
+        int score = Evaluator.evaluate(board);
+        assertEquals(Network.MAX_SCORE, score);
+        assertFalse(Search.isMateScore(score));
+
+        Arrays.fill(outputWeights, 0, hiddenSize, Short.MIN_VALUE);
+        board.setAccumulator(new Accumulator(new Network(hiddenSize, featureWeights, featureBiases, outputWeights, 0)));
+        assertEquals(-Network.MAX_SCORE, Evaluator.evaluate(board));
+    }
+}
@@ -0,0 +1,91 @@
+package profiling;
+
+import GameFiles.Board;
+import GameFiles.Game;
+import engine.Search;
+import engine.SearchLimits;
+import engine.TranspositionTable;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+import utils.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ProfilingEventsTest extends TestCase {
+
+    /**
+     * Tests that no event is recorded unless a recording enables it
+     */
+    public void testDisabledByDefault() {
+        assertFalse(new SearchIterationEvent().isEnabled());
+        assertFalse(new TranspositionTableEvent().isEnabled());
+        assertFalse(new MoveValidationEvent().isEnabled());
+        assertFalse(new GameStateEvent().isEnabled());
+    }
+
+    /**
+     * Tests the events recorded while searching a position and checking the state of a game
+     */
+    public void testRecording() throws IOException {
+        Path file = Files.createTempFile("chess", ".jfr");
+        try(Recording recording = new Recording()) {
+            recording.enable("chess.SearchIteration");
+            recording.enable("chess.TranspositionTable");
+            recording.enable("chess.GameState");
+            recording.enable("chess.MoveValidation").withoutThreshold();
+            recording.start();
+
+            TranspositionTable table = new TranspositionTable(1);
+            table.clear();
+            SearchLimits limits = new SearchLimits();
+            limits.setDepth(3);
+            new Search(table).search(new Board(), limits, null);
+            Game game = new Game();
+            game.getGameState();
+            // Played through the legal moves of the board, one legal and one illegal move
+            game.makeMove(Utils.convertFromSquareName("e2"), Utils.convertFromSquareName("e4"));
+            game.makeMove(Utils.convertFromSquareName("e7"), Utils.convertFromSquareName("e4"));
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(3, count(events, "chess.SearchIteration"));
+            assertEquals(2, count(events, "chess.TranspositionTable"));
+            assertEquals(1, count(events, "chess.GameState"));
+            assertEquals(2, count(events, "chess.MoveValidation"));
+            for(RecordedEvent event : events) {
+                if(event.getEventType().getName().equals("chess.GameState")) {
+                    assertEquals("ONGOING", event.getString("state"));
+                    assertEquals("WHITE", event.getString("sideToMove"));
+                }
+                if(event.getEventType().getName().equals("chess.MoveValidation") && event.getString("from").equals("e2")) {
+                    assertEquals("WHITE PAWN", event.getString("piece"));
+                    assertTrue(event.getBoolean("valid"));
+                }
+                if(event.getEventType().getName().equals("chess.SearchIteration") && event.getInt("depth") == 3) {
+                    assertTrue(event.getLong("nodes") > 0);
+                    assertEquals(4, event.getString("bestMove").length());
+                }
+            }
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int count(List<RecordedEvent> events, String name) {
+        int count = 0;
+        for(RecordedEvent event : events) {
+            if(event.getEventType().getName().equals(name)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,55 @@
+package server;
+
+import junit.framework.TestCase;
+import utils.Constants;
+import utils.Move;
+
+public class GameServerTest extends TestCase {
+
+    /**
+     * Tests whether moves are validated against the board and the turn of the session
+     */
+    public void testMoves() throws Exception {
+        try(GameServer server = new GameServer(4)) {
+            long id = server.createGame(60_000, 0);
+            assertEquals(MoveResult.NOT_YOUR_TURN, server.submitMove(id, Constants.Color.BLACK, Move.parse("e7e5")).get());
+            assertEquals(MoveResult.ILLEGAL, server.submitMove(id, Constants.Color.WHITE, Move.parse("e2e5")).get());
+            assertEquals(MoveResult.ACCEPTED, server.submitMove(id, Constants.Color.WHITE, Move.parse("e2e4")).get());
+            assertEquals(MoveResult.ACCEPTED, server.submitMove(id, Constants.Color.BLACK, Move.parse("e7e5")).get());
+            assertEquals(2, server.getSession(id).getMoveCount());
+            assertEquals(MoveResult.UNKNOWN_GAME, server.submitMove(id + 1, Constants.Color.WHITE, Move.parse("g1f3")).get());
+
+            server.closeGame(id);
+            assertNull(server.getSession(id));
+        }
+    }
+
+    /**
+     * Tests whether a player who doesn't move in time loses the game
+     */
+    public void testTimeout() throws Exception {
+        try(GameServer server = new GameServer(4)) {
+            long id = server.createGame(100, 0);
+            GameSession session = server.getSession(id);
+            for(int i = 0; i < 100 && session.getStatus() == GameSession.Status.ONGOING; i++) {
+                Thread.sleep(20);
+            }
+            assertEquals(GameSession.Status.TIMEOUT, session.getStatus());
+            assertEquals(Constants.Color.BLACK, session.getWinner());
+            assertEquals(MoveResult.GAME_OVER, server.submitMove(id, Constants.Color.WHITE, Move.parse("e2e4")).get());
+        }
+    }
+
+    /**
+     * Tests the percentiles of the latency histogram
+     */
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for(int i = 1; i <= 1000; i++) {
+            histogram.record(i * 10);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(5000, histogram.getPercentile(50), 50);
+        assertEquals(9900, histogram.getPercentile(99), 99);
+    }
+}
@@ -0,0 +1,174 @@
+package spectator;
+
+import GameFiles.Board;
+import GameFiles.Game;
+import junit.framework.TestCase;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+public class GameBroadcastTest extends TestCase {
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final String[] SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    /**
+     * Spectator that keeps every frame and applies the moves to a board of its own
+     */
+    private static final class Recorder implements Flow.Subscriber<SpectatorFrame> {
+        private final long initialDemand;
+        private final List<SpectatorFrame> frames = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private Board board;
+        private int sequence;
+        private boolean complete;
+
+        Recorder(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public synchronized void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if(initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(SpectatorFrame frame) {
+            frames.add(frame);
+            if(frame.getType() == SpectatorFrame.SNAPSHOT) {
+                board = frame.getPosition().toBoard();
+                sequence = frame.getSequence();
+            }
+            else {
+                assertEquals(sequence, frame.getSequence());
+                for(int i = 0; i < frame.getMoveCount(); i++) {
+                    long delta = frame.getMove(i);
+                    assertEquals(MoveDelta.getCaptured(delta), board.getPieceCode(MoveDelta.getNewPosition(delta)));
+                    board.makeMove(MoveDelta.getOldPosition(delta), MoveDelta.getNewPosition(delta));
+                    sequence++;
+                }
+            }
+            notifyAll();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            fail(throwable.toString());
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            complete = true;
+            notifyAll();
+        }
+
+        synchronized void awaitSequence(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while((board == null || sequence < expected) && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertEquals(expected, sequence);
+        }
+
+        synchronized void awaitComplete() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while(!complete && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertTrue(complete);
+        }
+    }
+
+    private static void play(Game game, String move) {
+        assertTrue(game.makeMove(Move.getOldPosition(Move.parse(move)), Move.getNewPosition(Move.parse(move))));
+    }
+
+    /**
+     * Tests that live spectators share the frames and follow the game move by move
+     */
+    public void testLiveSpectators() throws InterruptedException {
+        try(SpectatorHub hub = new SpectatorHub(2)) {
+            Game game = new Game();
+            GameBroadcast broadcast = hub.open(7, game.getGameBoard());
+            Recorder first = new Recorder(Long.MAX_VALUE);
+            Recorder second = new Recorder(Long.MAX_VALUE);
+            broadcast.subscribe(first);
+            broadcast.subscribe(second);
+            first.awaitSequence(0);
+            second.awaitSequence(0);
+
+            String[] moves = {"e2e4", "d7d5", "e4d5", "d8d5"};
+            for(int i = 0; i < moves.length; i++) {
+                play(game, moves[i]);
+                first.awaitSequence(i + 1);
+                second.awaitSequence(i + 1);
+            }
+            assertEquals(game.getGameBoard().toFen(), first.board.toFen());
+            assertEquals(5, first.frames.size());
+            // Both subscribed separately, the moves after that are sent to both in the same frames
+            for(int i = 1; i < first.frames.size(); i++) {
+                assertSame(first.frames.get(i), second.frames.get(i));
+            }
+            long capture = first.frames.get(3).getMove(0);
+            assertEquals(PieceCode.encode(Constants.Color.BLACK, Constants.PieceType.PAWN), MoveDelta.getCaptured(capture));
+            assertEquals(4, broadcast.getNumMoves());
+
+            broadcast.close();
+            first.awaitComplete();
+            second.awaitComplete();
+            assertEquals(0, broadcast.getNumSpectators());
+        }
+    }
+
+    /**
+     * Tests that slow spectators get the missed moves in one batch, or a snapshot if they missed too many
+     */
+    public void testSlowSpectators() throws InterruptedException {
+        try(SpectatorHub hub = new SpectatorHub(1)) {
+            Game game = new Game();
+            GameBroadcast broadcast = hub.open(1, game.getGameBoard());
+            Recorder slow = new Recorder(1);
+            broadcast.subscribe(slow);
+            slow.awaitSequence(0);
+
+            for(int i = 0; i < 3; i++) {
+                play(game, SHUFFLE[i]);
+            }
+            slow.subscription.request(1);
+            slow.awaitSequence(3);
+            assertEquals(2, slow.frames.size());
+            assertEquals(3, slow.frames.get(1).getMoveCount());
+
+            for(int i = 3; i < 3 + GameBroadcast.MAX_CATCH_UP + 1; i++) {
+                play(game, SHUFFLE[i % SHUFFLE.length]);
+            }
+            slow.subscription.request(1);
+            int end = 4 + GameBroadcast.MAX_CATCH_UP;
+            slow.awaitSequence(end);
+            SpectatorFrame last = slow.frames.get(2);
+            assertEquals(SpectatorFrame.SNAPSHOT, last.getType());
+            assertEquals(end, last.getSequence());
+            assertEquals(game.getGameBoard().toFen(), slow.board.toFen());
+
+            // Every frame is a view of the same bytes
+            assertNotSame(last.getBuffer(), last.getBuffer());
+            assertTrue(last.getBuffer().isReadOnly());
+            assertEquals(last.getSize(), last.getBuffer().remaining());
+
+            slow.subscription.cancel();
+            play(game, SHUFFLE[end % SHUFFLE.length]);
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while(broadcast.getNumSpectators() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, broadcast.getNumSpectators());
+            assertEquals(3, slow.frames.size());
+        }
+    }
+}
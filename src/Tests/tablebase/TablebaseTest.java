@@ -0,0 +1,88 @@
+package tablebase;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class TablebaseTest extends TestCase {
+
+    private Path directory;
+
+    /**
+     * Tests whether the generated tables have the known longest distances to mate
+     * KQK is won in at most 10 moves and KRK in at most 16 moves
+     */
+    public void testGenerate() throws Exception {
+        assertEquals(19, getLongestWin("KQK"));
+        assertEquals(31, getLongestWin("KRK"));
+    }
+
+    /**
+     * Tests whether positions on a board are found in the tables, including positions where black has the extra piece
+     */
+    public void testProbe() {
+        TablebaseResult result = Tablebases.probe(new Board("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"));
+        assertTrue(result.isCheckmate());
+
+        result = Tablebases.probe(new Board("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"));
+        assertTrue(result.isStalemate());
+        assertEquals(TablebaseResult.Wdl.DRAW, result.getWdl());
+
+        result = Tablebases.probe(new Board("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1"));
+        assertEquals(TablebaseResult.Wdl.WIN, result.getWdl());
+        assertEquals(1, result.getPlies());
+
+        result = Tablebases.probe(new Board("8/8/8/8/8/1k6/8/K6q w - - 0 1"));
+        assertTrue(result.isCheckmate());
+
+        // Not covered by the generated tables
+        assertNull(Tablebases.probe(new Board()));
+        assertNull(Tablebases.probe(new Board("7k/8/6K1/8/8/8/8/4BN2 w - - 0 1")));
+    }
+
+    /**
+     * Tests whether checkmate and stalemate are answered by the tablebase
+     */
+    public void testAdjudication() {
+        Board board = new Board("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1");
+        assertTrue(board.getPlayer(Constants.Color.BLACK).isCheckmate(board));
+
+        board = new Board("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertTrue(board.getPlayer(Constants.Color.BLACK).isStalemate(board));
+        assertFalse(board.getPlayer(Constants.Color.BLACK).isCheckmate(board));
+    }
+
+    private int getLongestWin(String name) throws IOException {
+        byte[] values = Tablebase.open(directory, Material.fromName(name)).readValues();
+        int longest = 0;
+        for(int index = 0; index < values.length / 2; index++) {
+            if(Tablebase.isWin(values[index] & 0xFF)) {
+                longest = Math.max(longest, Tablebase.getPlies(values[index] & 0xFF));
+            }
+        }
+        return longest;
+    }
+
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("tablebase-test");
+        TablebaseGenerator generator = new TablebaseGenerator(directory, 2);
+        generator.generate(Material.fromName("KQK"));
+        generator.generate(Material.fromName("KRK"));
+        Tablebases.setDirectory(directory);
+    }
+
+    public void tearDown() throws IOException {
+        Tablebases.setDirectory(null);
+        try(Stream<Path> files = Files.list(directory)) {
+            for(Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,80 @@
+package tournament;
+
+import GameFiles.Board;
+import engine.MoveGenerator;
+import engine.SearchLimits;
+import junit.framework.TestCase;
+import utils.Move;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class SelfPlayTest extends TestCase {
+
+    /**
+     * Tests the log-likelihood ratio and the Elo estimate
+     */
+    public void testSprt() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), sprt.getLowerBound(), 1e-9);
+        assertEquals(Math.log(0.95 / 0.05), sprt.getUpperBound(), 1e-9);
+        assertEquals(Sprt.Decision.CONTINUE, sprt.getDecision(10, 10, 8));
+        assertEquals(Sprt.Decision.ACCEPT_H1, sprt.getDecision(1500, 1000, 1000));
+        assertEquals(Sprt.Decision.ACCEPT_H0, sprt.getDecision(10000, 10000, 10000));
+        assertTrue(sprt.getLlr(1100, 1000, 1000) > sprt.getLlr(1000, 1000, 1100));
+
+        assertEquals(0, Sprt.getElo(5, 10, 5), 1e-9);
+        assertEquals(190.85, Sprt.getElo(3, 0, 1), 0.01);
+        assertTrue(Sprt.getEloError(300, 400, 300) < Sprt.getEloError(30, 40, 30));
+    }
+
+    /**
+     * Tests that a searching engine beats an engine playing its first legal move and that the match stops early
+     */
+    public void testMatch() throws InterruptedException {
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(2);
+        SelfPlay selfPlay = new SelfPlay(() -> new SearchEngine("search", 1), FirstMoveEngine::new, List.of(), limits,
+                new Sprt(0, 200, 0.05, 0.05));
+        selfPlay.setMaxPlies(200);
+        assertEquals(Sprt.Decision.ACCEPT_H1, selfPlay.run(100, 2));
+        long games = selfPlay.getWins() + selfPlay.getDraws() + selfPlay.getLosses();
+        assertTrue(games < 100);
+        assertEquals(0, games % 2);
+        assertEquals(0, selfPlay.getLosses());
+
+        // White mates in one
+        assertEquals(2, selfPlay.playGame("7k/8/6K1/8/8/8/8/5Q2 w - - 0 1", new SearchEngine("white", 1), new FirstMoveEngine()));
+    }
+
+    /**
+     * Tests that a move time is used in full, without the overhead kept for lag of a GUI
+     */
+    public void testMoveTime() {
+        SearchLimits limits = new SearchLimits();
+        limits.setMoveTime(100);
+        SearchEngine engine = new SearchEngine("search", 1);
+        long start = System.nanoTime();
+        assertTrue(engine.selectMove(new Board(), limits) != Move.NONE);
+        // Stable best moves may end the search at 70% of the move time, the default overhead would leave 50 ms
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(65));
+    }
+
+    private static class FirstMoveEngine implements Engine {
+        private int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+        @Override
+        public String getName() {
+            return "first move";
+        }
+
+        @Override
+        public void newGame() {
+        }
+
+        @Override
+        public int selectMove(Board board, SearchLimits limits) {
+            return MoveGenerator.generateMoves(board, moves) > 0 ? moves[0] : Move.NONE;
+        }
+    }
+}
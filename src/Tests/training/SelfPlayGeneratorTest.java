@@ -0,0 +1,60 @@
+package training;
+
+import GameFiles.Board;
+import junit.framework.TestCase;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SelfPlayGeneratorTest extends TestCase {
+
+    /**
+     * Tests that a position is read back as it was written
+     */
+    public void testRoundTrip() {
+        String fen = "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 b - - 5 8";
+        ByteBuffer buffer = ByteBuffer.allocate(TrainingPosition.BYTES).order(TrainingPosition.ORDER);
+        TrainingPosition.write(new Board(fen), -40000, 1, buffer);
+        assertEquals(TrainingPosition.BYTES, buffer.position());
+        buffer.flip();
+        TrainingPosition position = TrainingPosition.read(buffer);
+        assertEquals(fen, position.toFen());
+        assertEquals(Short.MIN_VALUE, position.getScore());
+        assertEquals(1, position.getResult());
+        assertEquals(Constants.Color.BLACK, position.getSideToMove());
+    }
+
+    /**
+     * Tests that the generator writes exactly the number of positions asked for, all of them quiet
+     */
+    public void testGenerate() throws IOException, InterruptedException {
+        Path file = Files.createTempFile("selfplay", ".bin");
+        try {
+            SelfPlayGenerator generator = new SelfPlayGenerator(300, 2, 150);
+            generator.setSeed(1);
+            assertEquals(150, generator.run(file));
+            assertTrue(generator.getGames() > 0);
+            assertEquals(150L * TrainingPosition.BYTES, Files.size(file));
+
+            List<TrainingPosition> positions = new ArrayList<>();
+            assertEquals(150, TrainingPosition.readAll(file, positions::add));
+            for(TrainingPosition position : positions) {
+                Board board = position.toBoard();
+                assertFalse(board.isInCheck(board.getSideToMove()));
+                assertTrue(position.getResult() >= 0 && position.getResult() <= 2);
+            }
+
+            // Runs append to the file
+            new SelfPlayGenerator(300, 1, 10).run(file);
+            assertEquals(160L * TrainingPosition.BYTES, Files.size(file));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package tuning;
+
+import GameFiles.Board;
+import engine.Evaluator;
+import junit.framework.TestCase;
+import utils.Constants;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class TexelTunerTest extends TestCase {
+    private static final String[] LINES = {
+            "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1 [0.5]",
+            "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3 c9 \"1/2-1/2\";",
+            "4k3/8/8/8/8/8/PPP5/3QK3 w - - 0 40 1-0",
+            "3qk3/ppp5/8/8/8/8/8/4K3 b - - 0 40 0-1",
+            "4k3/8/8/8/8/8/8/R3K3 w - - [1.0]",
+            "4k3/8/8/8/8/8/8/4K3 w - - 0 1; 1/2-1/2"
+    };
+
+    /**
+     * Tests reading the results and positions of the supported line formats
+     */
+    public void testLoad() {
+        TuningData data = new TuningData();
+        for(String line : LINES) {
+            assertTrue(line, data.addLine(line));
+        }
+        assertFalse(data.addLine("4k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        assertFalse(data.addLine("not a position 1-0"));
+        assertFalse(data.addLine("# comment"));
+        assertEquals(6, data.getNumPositions());
+        assertEquals(2, data.getSkipped());
+        assertEquals(1, TuningData.parseResult(LINES[1]));
+        assertEquals(2, TuningData.parseResult(LINES[2]));
+        assertEquals(0, TuningData.parseResult(LINES[3]));
+    }
+
+    /**
+     * Tests that the tuner starts with the evaluation of the evaluator
+     */
+    public void testEvaluate() {
+        TuningData data = new TuningData();
+        for(String line : LINES) {
+            data.addLine(line);
+        }
+        TexelTuner tuner = new TexelTuner(data, 1);
+        for(int i = 0; i < LINES.length; i++) {
+            Board board = new Board(LINES[i].split(" \\[|\"|;| 1-0| 0-1")[0].replace(" c9 ", ""));
+            int score = Evaluator.evaluate(board);
+            if(board.getSideToMove() == Constants.Color.BLACK) {
+                score = -score;
+            }
+            assertEquals(score, (int) tuner.evaluate(i));
+        }
+        tuner.close();
+    }
+
+    /**
+     * Tests that tuning lowers the error and that the tables are written in the layout of the evaluator
+     */
+    public void testTune() {
+        TuningData data = new TuningData();
+        for(int i = 0; i < 5000; i++) {
+            data.addLine(LINES[i % LINES.length]);
+        }
+        TexelTuner tuner = new TexelTuner(data, 2);
+        double scaling = tuner.fitScaling();
+        assertTrue(scaling > 0);
+        double error = tuner.computeError();
+        assertTrue(tuner.tune(50, null) < error);
+        assertEquals(0, tuner.getPieceValues()[5]);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        tuner.writeTables(new PrintStream(bytes));
+        String tables = bytes.toString();
+        assertTrue(tables.startsWith("public static final int[] PIECE_VALUES = {"));
+        assertTrue(tables.contains("private static final int[] KING_SQUARES = {"));
+        assertEquals(2 + 6 * 10, tables.trim().split("\n").length);
+        tuner.close();
+    }
+}
@@ -0,0 +1,108 @@
+package uci;
+
+import GameFiles.Board;
+import engine.MoveGenerator;
+import junit.framework.TestCase;
+import utils.Move;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+public class UciEngineTest extends TestCase {
+
+    /**
+     * Tests whether an infinite search only reports its best move after stop
+     */
+    public void testInfiniteSearch() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        engine.handleCommand("position fen 7k/8/6K1/8/8/8/8/5Q2 w - - 0 1");
+        engine.handleCommand("go infinite");
+        Thread.sleep(200);
+        assertFalse(output.toString().contains("bestmove"));
+
+        engine.handleCommand("stop");
+        assertTrue(output.toString().contains("score mate 1"));
+        assertTrue(output.toString().contains("bestmove f1f8"));
+    }
+
+    /**
+     * Tests whether a stop sent right after go isn't lost when it arrives before the search thread runs
+     */
+    public void testImmediateStop() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        for(int i = 0; i < 20; i++) {
+            engine.handleCommand("go infinite");
+            engine.handleCommand("stop");
+        }
+        assertEquals(20, output.toString().split("bestmove", -1).length - 1);
+        assertFalse(output.toString().contains("bestmove 0000"));
+    }
+
+    /**
+     * Tests whether a search stopped before its first iteration still reports a legal move
+     */
+    public void testStopBeforeFirstIteration() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        engine.handleCommand("position startpos");
+        engine.handleCommand("go infinite");
+        engine.handleCommand("stop");
+        String text = output.toString();
+        String bestMove = text.substring(text.indexOf("bestmove ") + 9).trim().split("\\s+")[0];
+        int move = Move.parse(bestMove);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(new Board(), moves);
+        boolean legal = false;
+        for(int i = 0; i < count; i++) {
+            legal |= moves[i] == move;
+        }
+        assertTrue(bestMove, legal);
+    }
+
+    /**
+     * Tests whether malformed commands are answered with a message instead of ending the engine
+     */
+    public void testInvalidCommands() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        assertTrue(engine.handleCommand("position fen 8/8/8 w - - 0 1"));
+        assertTrue(engine.handleCommand("go depth abc"));
+        assertTrue(engine.handleCommand("go wtime"));
+        assertTrue(engine.handleCommand("bench x"));
+        assertEquals(4, output.toString().split("info string invalid command", -1).length - 1);
+
+        engine.handleCommand("go depth 1");
+        engine.waitForSearch();
+        assertTrue(output.toString().contains("bestmove"));
+    }
+
+    /**
+     * Tests whether a ponderhit before any search is ignored and one right after go ponder turns it into a normal search
+     */
+    public void testPonderhit() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        assertTrue(engine.handleCommand("ponderhit"));
+        engine.handleCommand("go ponder movetime 50");
+        engine.handleCommand("ponderhit");
+        engine.waitForSearch();
+        assertTrue(output.toString().contains("bestmove"));
+    }
+
+    /**
+     * Tests whether the moves after the position are played and a search with a depth reports the right side's move
+     */
+    public void testPositionWithMoves() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new PrintStream(output, true));
+        engine.handleCommand("position startpos moves e2e4 e7e5");
+        engine.handleCommand("go depth 2");
+        engine.waitForSearch();
+        String text = output.toString();
+        String bestMove = text.substring(text.indexOf("bestmove ") + 9).trim().substring(0, 4);
+        // White is to move again, so the move starts on one of the first two ranks
+        assertTrue(bestMove.charAt(1) == '1' || bestMove.charAt(1) == '2');
+    }
+}
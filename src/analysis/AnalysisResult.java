@@ -0,0 +1,80 @@
+package analysis;
+
+import utils.Move;
+
+/**
+ * Outcome of analysing one position of a suite
+ */
+public class AnalysisResult {
+    private long index;
+    private String id;
+    private String fen;
+    private int bestMove;
+    private int score;
+    private int depth;
+    private long nodes;
+    private long millis;
+
+    AnalysisResult(long index, String id, String fen, int bestMove, int score, int depth, long nodes, long millis) {
+        this.index = index;
+        this.id = id;
+        this.fen = fen;
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    /**
+     * @return - Number of the position in its file, starting at 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return - Value of the id operation of the position or an empty string
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return - Position in Forsyth-Edwards Notation
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * @return - Encoded best move or Move.NONE if the side to move has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return - Score in centipawns from the point of view of the side to move
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return index + " " + Move.toString(bestMove) + " score " + score + " depth " + depth + " nodes " + nodes + " time " + millis;
+    }
+}
@@ -0,0 +1,269 @@
+package analysis;
+
+import GameFiles.Board;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Analyses every position of an EPD suite with a pool of search workers
+ * The file is read by the calling thread and handed to the workers through a bounded queue, so it is never read much
+ * faster than it is analysed. Workers search on boards of their own and pass their results through a second bounded
+ * queue to a writer thread, which writes them in the order they finish
+ * Positions whose results are already in the output are skipped, so a crashed run continues where it stopped
+ */
+public class BatchAnalyzer {
+    // Marks the end of the positions for a worker and the end of the results for the writer
+    private static final EpdPosition END_OF_POSITIONS = new EpdPosition(-1, null, Collections.emptyMap());
+    private static final AnalysisResult END_OF_RESULTS = new AnalysisResult(-1, null, null, 0, 0, 0, 0, 0);
+
+    private SearchLimits limits;
+    private int threads;
+    private int hashMb;
+    private boolean sharedHash;
+    private AtomicLong analysed;
+    private AtomicLong skipped;
+    private AtomicLong invalid;
+
+    /**
+     * @param limits - Conditions under which the search of every position stops, must not be infinite
+     * @param threads - Number of positions analysed at the same time
+     * @param hashMb - Size of each transposition table in megabytes
+     * @param sharedHash - True to share one transposition table between all workers, false to give each worker its own
+     */
+    public BatchAnalyzer(SearchLimits limits, int threads, int hashMb, boolean sharedHash) {
+        this.limits = limits;
+        this.threads = Math.max(1, threads);
+        this.hashMb = hashMb;
+        this.sharedHash = sharedHash;
+        analysed = new AtomicLong();
+        skipped = new AtomicLong();
+        invalid = new AtomicLong();
+    }
+
+    /**
+     * Analyses the positions of the EPD file that aren't in the output yet
+     * @param epdFile - Suite of positions
+     * @param writer - Output of the results
+     * @return - Number of positions analysed
+     * @throws IOException - If reading the suite or writing a result fails
+     * @throws InterruptedException - If the thread is interrupted while waiting for the workers
+     */
+    public long run(Path epdFile, ResultWriter writer) throws IOException, InterruptedException {
+        analysed.set(0);
+        skipped.set(0);
+        invalid.set(0);
+        BitSet completed = writer.getCompleted();
+        BlockingQueue<EpdPosition> positions = new ArrayBlockingQueue<>(threads * 2);
+        BlockingQueue<AnalysisResult> results = new ArrayBlockingQueue<>(threads * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        TranspositionTable sharedTable = sharedHash ? new TranspositionTable(hashMb) : null;
+        Thread[] workers = new Thread[threads];
+        for(int i = 0; i < threads; i++) {
+            Search search = new Search(sharedTable != null ? sharedTable : new TranspositionTable(hashMb));
+            workers[i] = new Thread(() -> analyse(search, positions, results, failure), "epd-worker-" + i);
+            workers[i].start();
+        }
+        Thread writerThread = new Thread(() -> writeResults(writer, results, failure), "epd-writer");
+        writerThread.start();
+
+        try(EpdReader reader = new EpdReader(Files.newBufferedReader(epdFile, StandardCharsets.UTF_8))) {
+            EpdPosition position;
+            while(failure.get() == null && (position = reader.readPosition()) != null) {
+                if(completed.get((int) position.getIndex())) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                positions.put(position);
+            }
+        }
+        finally {
+            for(int i = 0; i < threads; i++) {
+                positions.put(END_OF_POSITIONS);
+            }
+            for(Thread worker : workers) {
+                worker.join();
+            }
+            results.put(END_OF_RESULTS);
+            writerThread.join();
+        }
+        rethrow(failure.get());
+        return analysed.get();
+    }
+
+    /**
+     * Searches positions until the end of the positions is reached
+     * After a failure the remaining positions are taken off the queue without searching them
+     */
+    private void analyse(Search search, BlockingQueue<EpdPosition> positions, BlockingQueue<AnalysisResult> results,
+                         AtomicReference<Throwable> failure) {
+        try {
+            EpdPosition position;
+            while((position = positions.take()) != END_OF_POSITIONS) {
+                if(failure.get() != null) {
+                    continue;
+                }
+                Board board;
+                try {
+                    board = new Board(position.getFen());
+                }
+                catch(IllegalArgumentException e) {
+                    invalid.incrementAndGet();
+                    continue;
+                }
+                try {
+                    SearchResult result = search.search(board, limits, null);
+                    results.put(new AnalysisResult(position.getIndex(), position.getId(), position.getFen(), result.getBestMove(),
+                            result.getScore(), result.getDepth(), result.getNodes(), result.getMillis()));
+                }
+                catch(InterruptedException e) {
+                    throw e;
+                }
+                catch(Throwable throwable) {
+                    failure.compareAndSet(null, throwable);
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Writes results until the end of the results is reached
+     * After a failure the remaining results are discarded so that no worker blocks on a full queue
+     */
+    private void writeResults(ResultWriter writer, BlockingQueue<AnalysisResult> results, AtomicReference<Throwable> failure) {
+        try {
+            AnalysisResult result;
+            while((result = results.take()) != END_OF_RESULTS) {
+                if(failure.get() != null) {
+                    continue;
+                }
+                try {
+                    writer.write(result);
+                    analysed.incrementAndGet();
+                }
+                catch(Throwable throwable) {
+                    // The writer has to keep draining the queue, else the workers block on a full one
+                    failure.compareAndSet(null, throwable);
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * @return - Number of positions skipped by the last run since their results were already in the output
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * @return - Number of positions of the last run that couldn't be set up on a board
+     */
+    public long getInvalid() {
+        return invalid.get();
+    }
+
+    private static void rethrow(Throwable throwable) throws IOException, InterruptedException {
+        if(throwable == null) {
+            return;
+        }
+        if(throwable instanceof IOException) {
+            throw (IOException) throwable;
+        }
+        if(throwable instanceof InterruptedException) {
+            throw (InterruptedException) throwable;
+        }
+        if(throwable instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) throwable).getCause();
+        }
+        if(throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new IOException(throwable);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path output = Paths.get("results.csv");
+        SearchLimits limits = new SearchLimits();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int hashMb = TranspositionTable.DEFAULT_SIZE_MB;
+        boolean sharedHash = false;
+        boolean binary = false;
+        boolean resume = false;
+        Path epdFile = null;
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-o":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "-depth":
+                    limits.setDepth(Integer.parseInt(args[++i]));
+                    break;
+                case "-nodes":
+                    limits.setNodes(Long.parseLong(args[++i]));
+                    break;
+                case "-movetime":
+                    limits.setMoveTime(Long.parseLong(args[++i]));
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-hash":
+                    hashMb = Integer.parseInt(args[++i]);
+                    break;
+                case "-sharedHash":
+                    sharedHash = true;
+                    break;
+                case "-binary":
+                    binary = true;
+                    break;
+                case "-resume":
+                    resume = true;
+                    break;
+                default:
+                    epdFile = Paths.get(args[i]);
+            }
+        }
+        if(epdFile == null || (limits.getDepth() == 0 && limits.getNodes() == 0 && limits.getMoveTime() == 0)) {
+            System.err.println("Usage: BatchAnalyzer [-o results.csv] (-depth n | -nodes n | -movetime ms) [-threads n] [-hash mb] "
+                    + "[-sharedHash] [-binary] [-resume] suite.epd");
+            System.exit(1);
+        }
+
+        BatchAnalyzer analyzer = new BatchAnalyzer(limits, threads, hashMb, sharedHash);
+        long start = System.nanoTime();
+        long analysed;
+        try(ResultWriter writer = binary ? new BinaryResultWriter(output, resume) : new CsvResultWriter(output, resume)) {
+            analysed = analyzer.run(epdFile, writer);
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Analysed: " + analysed + ", skipped: " + analyzer.getSkipped() + ", invalid: " + analyzer.getInvalid()
+                + ", time: " + millis + " ms");
+    }
+}
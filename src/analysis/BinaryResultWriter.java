@@ -0,0 +1,69 @@
+package analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Writes fixed size records of big endian values per result:
+ * index (long), best move (int), score (int), depth (int), nodes (long) and time in milliseconds (long)
+ * The position itself is identified by its index in the EPD file
+ */
+public class BinaryResultWriter implements ResultWriter {
+    public static final int RECORD_SIZE = 3 * Long.BYTES + 3 * Integer.BYTES;
+
+    private DataOutputStream output;
+    private BitSet completed;
+
+    /**
+     * @param path - Path of the result file
+     * @param resume - True to keep the results already in the file and append to them, false to start a new file
+     * @throws IOException - If the file can't be read or opened
+     */
+    public BinaryResultWriter(Path path, boolean resume) throws IOException {
+        completed = new BitSet();
+        long numRecords = 0;
+        if(resume && Files.exists(path)) {
+            numRecords = Files.size(path) / RECORD_SIZE;
+            try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(numRecords * RECORD_SIZE);
+            }
+            try(DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                for(long i = 0; i < numRecords; i++) {
+                    completed.set((int) input.readLong());
+                    input.skipBytes(RECORD_SIZE - Long.BYTES);
+                }
+            }
+        }
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, numRecords > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)));
+    }
+
+    @Override
+    public synchronized void write(AnalysisResult result) throws IOException {
+        output.writeLong(result.getIndex());
+        output.writeInt(result.getBestMove());
+        output.writeInt(result.getScore());
+        output.writeInt(result.getDepth());
+        output.writeLong(result.getNodes());
+        output.writeLong(result.getMillis());
+        output.flush();
+    }
+
+    @Override
+    public BitSet getCompleted() {
+        return completed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
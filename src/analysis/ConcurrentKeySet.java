@@ -0,0 +1,55 @@
+package analysis;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Set of position keys shared by every thread without locking
+ * Keys are stored in an open addressing table of longs and claimed with compare-and-set, so no key is ever boxed
+ * The table doesn't grow. Once the probe limit is reached a key is reported as new, so a full set lets
+ * duplicates through instead of blocking or losing positions
+ */
+class ConcurrentKeySet {
+    private static final int MAX_PROBES = 16;
+    // Stands in for the key 0, which marks an empty slot
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray keys;
+    private final int mask;
+
+    /**
+     * @param capacity - Number of keys the set should hold, rounded up to a power of two
+     */
+    ConcurrentKeySet(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, Math.min(1 << 30, capacity) * 2 - 1));
+        keys = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    /**
+     * @param key - Key of a position
+     * @return - True if the key wasn't in the set yet, false if another thread or an earlier call added it
+     */
+    boolean add(long key) {
+        if(key == 0) {
+            key = ZERO_KEY;
+        }
+        int index = (int) (key ^ key >>> 32) & mask;
+        for(int probe = 0; probe < MAX_PROBES; probe++) {
+            long current = keys.get(index);
+            if(current == key) {
+                return false;
+            }
+            if(current == 0) {
+                if(keys.compareAndSet(index, 0, key)) {
+                    return true;
+                }
+                // Another thread took the slot, it may have stored the same key
+                if(keys.get(index) == key) {
+                    return false;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,93 @@
+package analysis;
+
+import utils.Move;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Writes one line of comma separated values per result: index, id, fen, best move, score, depth, nodes and time
+ */
+public class CsvResultWriter implements ResultWriter {
+    public static final String HEADER = "index,id,fen,bestmove,score,depth,nodes,millis";
+
+    private BufferedWriter writer;
+    private BitSet completed;
+
+    /**
+     * @param output - Path of the CSV file
+     * @param resume - True to keep the results already in the file and append to them, false to start a new file
+     * @throws IOException - If the file can't be read or opened
+     */
+    public CsvResultWriter(Path output, boolean resume) throws IOException {
+        completed = new BitSet();
+        long length = 0;
+        if(resume && Files.exists(output)) {
+            length = recover(output);
+            try(FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+        writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                length > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        if(length == 0) {
+            writer.write(HEADER);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    /**
+     * Reads the indices of the complete lines
+     * @return - Length of the file up to the end of the last complete line
+     */
+    private long recover(Path output) throws IOException {
+        long length = 0;
+        long position = 0;
+        StringBuilder line = new StringBuilder();
+        try(InputStream input = new BufferedInputStream(Files.newInputStream(output))) {
+            int b;
+            while((b = input.read()) != -1) {
+                position++;
+                if(b != '\n') {
+                    line.append((char) b);
+                    continue;
+                }
+                length = position;
+                int comma = line.indexOf(",");
+                if(comma > 0 && !line.toString().startsWith(HEADER)) {
+                    completed.set(Integer.parseInt(line.substring(0, comma)));
+                }
+                line.setLength(0);
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public synchronized void write(AnalysisResult result) throws IOException {
+        writer.write(result.getIndex() + ",\"" + result.getId().replace("\"", "\"\"") + "\"," + result.getFen() + ","
+                + Move.toString(result.getBestMove()) + "," + result.getScore() + "," + result.getDepth() + ","
+                + result.getNodes() + "," + result.getMillis());
+        writer.write('\n');
+        writer.flush();
+    }
+
+    @Override
+    public BitSet getCompleted() {
+        return completed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
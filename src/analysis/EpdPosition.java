@@ -0,0 +1,56 @@
+package analysis;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Position read from an EPD file together with its operations, e.g. bm (best moves) or id
+ */
+public class EpdPosition {
+    private long index;
+    private String fen;
+    private Map<String, String> operations;
+
+    EpdPosition(long index, String fen, Map<String, String> operations) {
+        this.index = index;
+        this.fen = fen;
+        this.operations = operations;
+    }
+
+    /**
+     * @return - Number of the position in its file, starting at 0
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return - Position in Forsyth-Edwards Notation
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * @param opcode - Name of the operation, e.g. bm
+     * @return - Operands of the operation without quotes or null if the position doesn't have the operation
+     */
+    public String getOperation(String opcode) {
+        return operations.get(opcode);
+    }
+
+    /**
+     * @return - Value of the id operation or an empty string
+     */
+    public String getId() {
+        String id = operations.get("id");
+        return id == null ? "" : id;
+    }
+
+    /**
+     * @return - Every operation of the position by opcode
+     */
+    public Map<String, String> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+}
@@ -0,0 +1,102 @@
+package analysis;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Reads positions one at a time from an EPD file so that suites of any size can be processed
+ * Every line holds the first four fields of a FEN followed by operations separated by semicolons
+ * Empty lines and lines starting with # are skipped
+ */
+public class EpdReader implements Closeable {
+    private static final int FEN_FIELDS = 4;
+
+    private BufferedReader reader;
+    private long numPositions;
+
+    /**
+     * @param reader - Source of the EPD text
+     */
+    public EpdReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+        numPositions = 0;
+    }
+
+    /**
+     * Reads the next position
+     * @return - The next position or null if there are no more positions
+     * @throws IOException - If the underlying reader fails
+     */
+    public EpdPosition readPosition() throws IOException {
+        String line;
+        while((line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            return parse(numPositions++, line);
+        }
+        return null;
+    }
+
+    /**
+     * Splits a line into the position and its operations
+     * The halfmove clock and fullmove number are taken from the hmvc and fmvn operations if present
+     * @param index - Number of the position in its file
+     * @param line - Line of an EPD file
+     * @return - The position of the line
+     */
+    static EpdPosition parse(long index, String line) {
+        String[] fields = line.split("\\s+", FEN_FIELDS + 1);
+        StringBuilder fen = new StringBuilder();
+        for(int i = 0; i < Math.min(FEN_FIELDS, fields.length); i++) {
+            fen.append(i > 0 ? " " : "").append(fields[i]);
+        }
+
+        LinkedHashMap<String, String> operations = new LinkedHashMap<>();
+        if(fields.length > FEN_FIELDS) {
+            for(String operation : splitOperations(fields[FEN_FIELDS])) {
+                String[] parts = operation.trim().split("\\s+", 2);
+                if(!parts[0].isEmpty()) {
+                    operations.put(parts[0], parts.length > 1 ? parts[1].replace("\"", "").trim() : "");
+                }
+            }
+        }
+        String halfmoves = operations.get("hmvc");
+        String fullmoves = operations.get("fmvn");
+        fen.append(' ').append(halfmoves == null ? "0" : halfmoves).append(' ').append(fullmoves == null ? "1" : fullmoves);
+        return new EpdPosition(index, fen.toString(), operations);
+    }
+
+    /**
+     * Splits at semicolons that aren't inside a quoted string
+     */
+    private static String[] splitOperations(String text) {
+        ArrayList<String> operations = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if(c == '"') {
+                quoted = !quoted;
+            }
+            else if(c == ';' && !quoted) {
+                operations.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if(start < text.length()) {
+            operations.add(text.substring(start));
+        }
+        return operations.toArray(new String[0]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,25 @@
+package analysis;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Appends analysis results to an output file as they finish
+ * Every result is flushed right away, so the output doubles as the checkpoint of a run: opening an existing
+ * output to resume reads which positions are done and cuts off a record left incomplete by a crash
+ */
+public interface ResultWriter extends Closeable {
+
+    /**
+     * Writes and flushes one result
+     * @param result - Result of a position
+     * @throws IOException - If writing fails
+     */
+    void write(AnalysisResult result) throws IOException;
+
+    /**
+     * @return - Indices of the positions whose results were already in the output when it was opened
+     */
+    BitSet getCompleted();
+}
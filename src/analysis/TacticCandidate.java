@@ -0,0 +1,100 @@
+package analysis;
+
+import utils.Move;
+
+/**
+ * Position of an archive game in which a short search found a forced mate or a large gain for the side to move
+ */
+public class TacticCandidate {
+    private long game;
+    private int ply;
+    private String fen;
+    private int bestMove;
+    private int score;
+    private int swing;
+    private int mateMoves;
+
+    TacticCandidate(long game, int ply, String fen, int bestMove, int score, int swing, int mateMoves) {
+        this.game = game;
+        this.ply = ply;
+        this.fen = fen;
+        this.bestMove = bestMove;
+        this.score = score;
+        this.swing = swing;
+        this.mateMoves = mateMoves;
+    }
+
+    /**
+     * @return - Number of the game in its archive, starting at 0
+     */
+    public long getGame() {
+        return game;
+    }
+
+    /**
+     * @return - Number of half moves played in the game before the position
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * @return - Position in Forsyth-Edwards Notation
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * @return - Encoded first move of the tactic
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return - Score of the search in centipawns from the point of view of the side to move
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return - Centipawns gained by searching deeper than one ply
+     */
+    public int getSwing() {
+        return swing;
+    }
+
+    /**
+     * @return - Number of moves of the forced mate or 0 if the tactic wins material
+     */
+    public int getMateMoves() {
+        return mateMoves;
+    }
+
+    /**
+     * Writes the candidate as a line of an EPD file, so that it can be read back by EpdReader
+     * @return - The position followed by the operations bm, ce or dm, hmvc, fmvn and id
+     */
+    public String toEpd() {
+        String[] fields = fen.split(" ");
+        StringBuilder epd = new StringBuilder();
+        epd.append(fields[0]).append(' ').append(fields[1]).append(' ').append(fields[2]).append(' ').append(fields[3]);
+        epd.append(" bm ").append(Move.toString(bestMove)).append(';');
+        if(mateMoves > 0) {
+            epd.append(" dm ").append(mateMoves).append(';');
+        }
+        else {
+            epd.append(" ce ").append(score).append(';');
+        }
+        epd.append(" hmvc ").append(fields[4]).append("; fmvn ").append(fields[5]).append(';');
+        epd.append(" id \"game ").append(game).append(" ply ").append(ply).append("\";");
+        return epd.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toEpd();
+    }
+}
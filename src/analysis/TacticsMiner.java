@@ -0,0 +1,405 @@
+package analysis;
+
+import GameFiles.Board;
+import GameFiles.Notation;
+import book.PgnGame;
+import book.PgnReader;
+import engine.MateSolver;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchListener;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import utils.Move;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Replays archive games and looks for tactics in their positions with a pool of workers
+ * Every position is first looked up in a set of keys shared by all workers, so a position reached in many games
+ * is only examined once. New positions are given to the mate solver and then to a short search. A position is a
+ * candidate if the side to move has a forced mate, or if the search scores it much higher than its first iteration
+ * Games are read by the calling thread and handed to the workers in batches through a bounded queue
+ */
+public class TacticsMiner {
+    public static final int DEFAULT_DEPTH = 4;
+    public static final int DEFAULT_MIN_SWING = 200;
+    public static final int DEFAULT_MATE_MOVES = 3;
+    public static final int DEFAULT_MIN_PLY = 8;
+    public static final int DEFAULT_MAX_POSITIONS = 1 << 24;
+    private static final int GAMES_PER_BATCH = 64;
+    private static final int TABLE_SIZE_MB = 1;
+    // Marks the end of the games for a worker
+    private static final Batch END_OF_GAMES = new Batch(-1, new ArrayList<>());
+
+    private int depth;
+    private int minSwing;
+    private int mateMoves;
+    private int minPly;
+    private int threads;
+    private ConcurrentKeySet seen;
+    private AtomicLong games;
+    private AtomicLong positions;
+    private AtomicLong duplicates;
+    private AtomicLong candidates;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    /**
+     * Games handed to a worker, numbered from the first one
+     */
+    private static final class Batch {
+        final long firstGame;
+        final List<PgnGame> games;
+
+        Batch(long firstGame, List<PgnGame> games) {
+            this.firstGame = firstGame;
+            this.games = games;
+        }
+    }
+
+    /**
+     * @param depth - Depth of the search of every position
+     * @param minSwing - Centipawns the search must gain over its first iteration for a position to be a candidate
+     * @param mateMoves - Maximum number of moves of the forced mates looked for, 0 to skip the mate solver
+     * @param threads - Number of positions examined at the same time
+     * @param maxPositions - Number of distinct positions remembered, positions beyond it may be examined twice
+     */
+    public TacticsMiner(int depth, int minSwing, int mateMoves, int threads, int maxPositions) {
+        this.depth = Math.max(1, depth);
+        this.minSwing = minSwing;
+        this.mateMoves = mateMoves;
+        this.threads = Math.max(1, threads);
+        minPly = DEFAULT_MIN_PLY;
+        seen = new ConcurrentKeySet(maxPositions);
+        games = new AtomicLong();
+        positions = new AtomicLong();
+        duplicates = new AtomicLong();
+        candidates = new AtomicLong();
+    }
+
+    /**
+     * @param minPly - Number of half moves of every game skipped before positions are examined
+     */
+    public void setMinPly(int minPly) {
+        this.minPly = Math.max(0, minPly);
+    }
+
+    /**
+     * Examines the positions of every game of the archives
+     * Positions examined by an earlier run of this miner are skipped as duplicates
+     * @param pgnFiles - Archives of games
+     * @param sink - Receives the candidates as soon as they are found, never by two threads at the same time
+     * @return - Number of candidates found
+     * @throws IOException - If reading an archive fails
+     * @throws InterruptedException - If the thread is interrupted while waiting for the workers
+     */
+    public long run(List<Path> pgnFiles, Consumer<TacticCandidate> sink) throws IOException, InterruptedException {
+        games.set(0);
+        positions.set(0);
+        duplicates.set(0);
+        candidates.set(0);
+        startTime = System.nanoTime();
+        endTime = 0;
+        BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(threads * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread[] workers = new Thread[threads];
+        for(int i = 0; i < threads; i++) {
+            workers[i] = new Thread(new Worker(batches, sink, failure), "tactics-worker-" + i);
+            workers[i].start();
+        }
+        try {
+            for(Path pgnFile : pgnFiles) {
+                try(PgnReader reader = new PgnReader(Files.newBufferedReader(pgnFile, StandardCharsets.ISO_8859_1))) {
+                    ArrayList<PgnGame> batch = new ArrayList<>();
+                    long firstGame = games.get();
+                    PgnGame game;
+                    while(failure.get() == null && (game = reader.readGame()) != null) {
+                        games.incrementAndGet();
+                        batch.add(game);
+                        if(batch.size() == GAMES_PER_BATCH) {
+                            batches.put(new Batch(firstGame, batch));
+                            batch = new ArrayList<>();
+                            firstGame = games.get();
+                        }
+                    }
+                    if(!batch.isEmpty()) {
+                        batches.put(new Batch(firstGame, batch));
+                    }
+                }
+            }
+        }
+        finally {
+            for(int i = 0; i < threads; i++) {
+                batches.put(END_OF_GAMES);
+            }
+            for(Thread worker : workers) {
+                worker.join();
+            }
+            endTime = System.nanoTime();
+        }
+
+        Throwable throwable = failure.get();
+        if(throwable instanceof InterruptedException) {
+            throw (InterruptedException) throwable;
+        }
+        if(throwable instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) throwable).getCause();
+        }
+        if(throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        return candidates.get();
+    }
+
+    /**
+     * One worker with its own search and mate solver
+     * The listener keeps the score of the first iteration of the last search
+     */
+    private class Worker implements Runnable, SearchListener {
+        private BlockingQueue<Batch> batches;
+        private Consumer<TacticCandidate> sink;
+        private AtomicReference<Throwable> failure;
+        private TranspositionTable table;
+        private Search search;
+        private MateSolver solver;
+        private SearchLimits limits;
+        private int firstScore;
+
+        Worker(BlockingQueue<Batch> batches, Consumer<TacticCandidate> sink, AtomicReference<Throwable> failure) {
+            this.batches = batches;
+            this.sink = sink;
+            this.failure = failure;
+            table = new TranspositionTable(TABLE_SIZE_MB);
+            search = new Search(table);
+            solver = new MateSolver(TABLE_SIZE_MB);
+            limits = new SearchLimits();
+            limits.setDepth(depth);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Batch batch;
+                while((batch = batches.take()) != END_OF_GAMES) {
+                    if(failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        for(int i = 0; i < batch.games.size(); i++) {
+                            replay(batch.firstGame + i, batch.games.get(i));
+                        }
+                    }
+                    catch(Throwable throwable) {
+                        failure.compareAndSet(null, throwable);
+                    }
+                }
+            }
+            catch(InterruptedException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+
+        @Override
+        public void iterationFinished(int depth, int score, long nodes, long millis, int[] pv) {
+            if(depth == 1) {
+                firstScore = score;
+            }
+        }
+
+        /**
+         * Replays a game and examines its positions until the first move the board can't play
+         */
+        private void replay(long game, PgnGame pgnGame) {
+            Board board = new Board();
+            List<String> moves = pgnGame.getMoves();
+            for(int ply = 0; ply < moves.size(); ply++) {
+                if(ply >= minPly) {
+                    examine(game, ply, board);
+                }
+                if(Notation.playSan(board, moves.get(ply)) == Move.NONE) {
+                    return;
+                }
+            }
+        }
+
+        private void examine(long game, int ply, Board board) {
+            positions.incrementAndGet();
+            if(!seen.add(board.getKey())) {
+                duplicates.incrementAndGet();
+                return;
+            }
+
+            if(mateMoves > 0) {
+                int mate = solver.solve(board, mateMoves);
+                if(mate > 0) {
+                    emit(new TacticCandidate(game, ply, board.toFen(), solver.getBestMove(), Search.MATE - (2 * mate - 1), 0, mate));
+                    return;
+                }
+            }
+
+            // Entries of earlier positions would let the first iteration see deeper than one ply
+            table.clear();
+            firstScore = 0;
+            SearchResult result = search.search(board, limits, this);
+            int score = result.getScore();
+            if(result.getBestMove() == Move.NONE || Search.isMateScore(firstScore)) {
+                return;
+            }
+            if(Search.isMateScore(score) && score > 0) {
+                emit(new TacticCandidate(game, ply, board.toFen(), result.getBestMove(), score, score - firstScore, Search.getMateMoves(score)));
+            }
+            else if(!Search.isMateScore(score) && score - firstScore >= minSwing) {
+                emit(new TacticCandidate(game, ply, board.toFen(), result.getBestMove(), score, score - firstScore, 0));
+            }
+        }
+
+        private void emit(TacticCandidate candidate) {
+            candidates.incrementAndGet();
+            synchronized(sink) {
+                sink.accept(candidate);
+            }
+        }
+    }
+
+    /**
+     * @return - Number of games read by the current or last run
+     */
+    public long getGames() {
+        return games.get();
+    }
+
+    /**
+     * @return - Number of positions reached by the current or last run, duplicates included
+     */
+    public long getPositions() {
+        return positions.get();
+    }
+
+    /**
+     * @return - Number of positions skipped by the current or last run since they were examined already
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return - Number of candidates found by the current or last run
+     */
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    /**
+     * @return - Positions reached per second by the current or last run
+     */
+    public double getPositionsPerSecond() {
+        long end = endTime != 0 ? endTime : System.nanoTime();
+        double seconds = (end - startTime) / 1e9;
+        return seconds > 0 ? positions.get() / seconds : 0;
+    }
+
+    /**
+     * @return - Summary of the current or last run
+     */
+    public String getReport() {
+        return String.format(Locale.ROOT, "Games: %d, positions: %d, duplicates: %d, candidates: %d, positions/s: %.0f",
+                getGames(), getPositions(), getDuplicates(), getCandidates(), getPositionsPerSecond());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int depth = DEFAULT_DEPTH;
+        int minSwing = DEFAULT_MIN_SWING;
+        int mateMoves = DEFAULT_MATE_MOVES;
+        int minPly = DEFAULT_MIN_PLY;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxPositions = DEFAULT_MAX_POSITIONS;
+        Path output = null;
+        ArrayList<Path> pgnFiles = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-o":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "-depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "-swing":
+                    minSwing = Integer.parseInt(args[++i]);
+                    break;
+                case "-mate":
+                    mateMoves = Integer.parseInt(args[++i]);
+                    break;
+                case "-minPly":
+                    minPly = Integer.parseInt(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-positions":
+                    maxPositions = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    pgnFiles.add(Paths.get(args[i]));
+            }
+        }
+        if(pgnFiles.isEmpty()) {
+            System.err.println("Usage: TacticsMiner [-o puzzles.epd] [-depth n] [-swing cp] [-mate n] [-minPly n] [-threads n] "
+                    + "[-positions n] games.pgn...");
+            System.exit(1);
+        }
+
+        TacticsMiner miner = new TacticsMiner(depth, minSwing, mateMoves, threads, maxPositions);
+        miner.setMinPly(minPly);
+        Thread progress = new Thread(() -> {
+            try {
+                while(true) {
+                    TimeUnit.SECONDS.sleep(10);
+                    System.err.println(miner.getReport());
+                }
+            }
+            catch(InterruptedException e) {
+                // Run finished
+            }
+        }, "tactics-progress");
+        progress.setDaemon(true);
+        progress.start();
+
+        try(Writer writer = new BufferedWriter(output != null ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            miner.run(pgnFiles, candidate -> {
+                try {
+                    writer.write(candidate.toEpd());
+                    writer.write('\n');
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        progress.interrupt();
+        System.err.println(miner.getReport());
+    }
+}
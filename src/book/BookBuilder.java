@@ -0,0 +1,390 @@
+package book;
+
+import GameFiles.Board;
+import GameFiles.Notation;
+import utils.Move;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Builds an opening book out of PGN game collections
+ * Map phase: games are replayed on a Board by one worker per core and the (position, move) statistics are
+ * aggregated in sharded primitive hash maps. Shards spill sorted runs to disk when they get full
+ * Reduce phase: the runs of every shard are merged in parallel, pruned and concatenated into the sorted book file
+ * Shards split the key space by the top bits of the key, so concatenating the shards in order keeps the book sorted
+ */
+public class BookBuilder {
+    private static final int SHARD_BITS = 6;
+    private static final int NUM_SHARDS = 1 << SHARD_BITS;
+    private static final int GAMES_PER_BATCH = 256;
+
+    private int minGames;
+    private double minScore;
+    private int maxPly;
+    private long maxEntriesInMemory;
+    private int threads;
+    private Path tempDirectory;
+    private AtomicLong gamesRead;
+    private AtomicLong positionsAdded;
+
+    /**
+     * @param minGames - Moves played in fewer games than this are left out of the book
+     * @param minScore - Moves scoring less than this (between 0 and 1) for the side playing them are left out of the book
+     * @param maxPly - Number of half moves of every game added to the book
+     * @param maxEntriesInMemory - Number of (position, move) entries kept in memory before spilling to disk
+     * @param threads - Number of worker threads
+     * @param tempDirectory - Directory used for the run files
+     */
+    public BookBuilder(int minGames, double minScore, int maxPly, long maxEntriesInMemory, int threads, Path tempDirectory) {
+        this.minGames = minGames;
+        this.minScore = minScore;
+        this.maxPly = maxPly;
+        this.maxEntriesInMemory = maxEntriesInMemory;
+        this.threads = threads;
+        this.tempDirectory = tempDirectory;
+        gamesRead = new AtomicLong();
+        positionsAdded = new AtomicLong();
+    }
+
+    /**
+     * Builds the book
+     * @param pgnFiles - PGN files to read the games from
+     * @param output - Path of the book file
+     * @return - Number of entries written to the book
+     * @throws IOException - If reading a PGN file or writing to disk fails
+     * @throws InterruptedException - If the thread is interrupted while waiting for the workers
+     */
+    public long build(List<Path> pgnFiles, Path output) throws IOException, InterruptedException {
+        Path spillDirectory = Files.createTempDirectory(tempDirectory, "book-");
+        try {
+            MoveStatsShard[] shards = new MoveStatsShard[NUM_SHARDS];
+            int entriesPerShard = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 4, maxEntriesInMemory / NUM_SHARDS));
+            for(int i = 0; i < NUM_SHARDS; i++) {
+                shards[i] = new MoveStatsShard(entriesPerShard, spillDirectory, "shard" + i);
+            }
+
+            map(pgnFiles, shards);
+            return reduce(shards, spillDirectory, output);
+        }
+        finally {
+            deleteDirectory(spillDirectory);
+        }
+    }
+
+    /**
+     * @return - Number of games read by the last build
+     */
+    public long getGamesRead() {
+        return gamesRead.get();
+    }
+
+    /**
+     * @return - Number of (position, move) pairs added by the last build
+     */
+    public long getPositionsAdded() {
+        return positionsAdded.get();
+    }
+
+    /**
+     * Reads the games and hands them to the workers in batches
+     * The work queue is bounded and the reading thread replays batches itself when it is full,
+     * so games are never read much faster than they are processed
+     */
+    private void map(List<Path> pgnFiles, MoveStatsShard[] shards) throws IOException, InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            for(Path pgnFile : pgnFiles) {
+                try(PgnReader reader = new PgnReader(Files.newBufferedReader(pgnFile, StandardCharsets.ISO_8859_1))) {
+                    ArrayList<PgnGame> batch = new ArrayList<>();
+                    PgnGame game;
+                    while((game = reader.readGame()) != null && failure.get() == null) {
+                        gamesRead.incrementAndGet();
+                        if(game.getResult() == PgnGame.Result.UNKNOWN) {
+                            continue;
+                        }
+                        batch.add(game);
+                        if(batch.size() == GAMES_PER_BATCH) {
+                            submit(executor, batch, shards, failure);
+                            batch = new ArrayList<>();
+                        }
+                    }
+                    submit(executor, batch, shards, failure);
+                }
+            }
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        rethrow(failure.get());
+    }
+
+    private void submit(ExecutorService executor, ArrayList<PgnGame> batch, MoveStatsShard[] shards, AtomicReference<Throwable> failure) {
+        if(batch.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                for(PgnGame game : batch) {
+                    replay(game, shards);
+                }
+            }
+            catch(Throwable throwable) {
+                failure.compareAndSet(null, throwable);
+            }
+        });
+    }
+
+    /**
+     * Replays a game on a new board and records every move up to the maximum ply
+     * Replaying stops at the first move the board can't play (castling, promotion or a broken game)
+     */
+    private void replay(PgnGame game, MoveStatsShard[] shards) throws IOException {
+        Board board = new Board();
+        List<String> moves = game.getMoves();
+        for(int ply = 0; ply < maxPly && ply < moves.size(); ply++) {
+            long key = board.getKey();
+            int points = game.getHalfPoints(board.getSideToMove());
+            int move = Notation.playSan(board, moves.get(ply));
+            if(move == Move.NONE) {
+                return;
+            }
+            shards[(int) (key >>> (Long.SIZE - SHARD_BITS))].add(key, move, points);
+            positionsAdded.incrementAndGet();
+        }
+    }
+
+    /**
+     * Merges the runs of every shard in parallel and concatenates the results into the book
+     */
+    private long reduce(MoveStatsShard[] shards, Path spillDirectory, Path output) throws IOException, InterruptedException {
+        ExecutorService executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(NUM_SHARDS));
+        ArrayList<Future<Long>> results = new ArrayList<>();
+        Path[] parts = new Path[NUM_SHARDS];
+        try {
+            for(int i = 0; i < NUM_SHARDS; i++) {
+                ArrayList<Path> runs = shards[i].finish();
+                parts[i] = spillDirectory.resolve("part" + i + ".book");
+                Path part = parts[i];
+                results.add(executor.submit(() -> merge(runs, part)));
+            }
+            long entries = 0;
+            for(Future<Long> result : results) {
+                try {
+                    entries += result.get();
+                }
+                catch(ExecutionException e) {
+                    rethrow(e.getCause());
+                }
+            }
+
+            try(OutputStream out = Files.newOutputStream(output)) {
+                for(Path part : parts) {
+                    Files.copy(part, out);
+                }
+            }
+            return entries;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * K-way merge of sorted run files. Equal (key, move) pairs are summed up and then pruned
+     * @param runs - Sorted run files
+     * @param part - File the merged book entries are written to
+     * @return - Number of book entries written
+     */
+    private long merge(List<Path> runs, Path part) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, runs.size()),
+                (a, b) -> MoveStatsShard.compare(a.key, a.move, b.key, b.move));
+        long entries = 0;
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part), 1 << 16))) {
+            for(Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if(reader.next()) {
+                    queue.add(reader);
+                }
+            }
+
+            while(!queue.isEmpty()) {
+                RunReader first = queue.poll();
+                long key = first.key;
+                int move = first.move;
+                long games = first.games;
+                long halfPoints = first.halfPoints;
+                advance(queue, first);
+                while(!queue.isEmpty() && queue.peek().key == key && queue.peek().move == move) {
+                    RunReader reader = queue.poll();
+                    games += reader.games;
+                    halfPoints += reader.halfPoints;
+                    advance(queue, reader);
+                }
+
+                double score = halfPoints / (2.0 * games);
+                if(games >= minGames && score >= minScore) {
+                    OpeningBook.writeEntry(out, key, move, score, games);
+                    entries++;
+                }
+            }
+        }
+        finally {
+            for(RunReader reader : queue) {
+                reader.close();
+            }
+            for(Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        return entries;
+    }
+
+    private static void advance(PriorityQueue<RunReader> queue, RunReader reader) throws IOException {
+        if(reader.next()) {
+            queue.add(reader);
+        }
+    }
+
+    private static void rethrow(Throwable throwable) throws IOException {
+        if(throwable == null) {
+            return;
+        }
+        if(throwable instanceof IOException) {
+            throw (IOException) throwable;
+        }
+        if(throwable instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) throwable).getCause();
+        }
+        if(throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        throw new IOException(throwable);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try(Stream<Path> files = Files.list(directory)) {
+            for(Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Sequential reader of a run file written by MoveStatsShard
+     */
+    private static class RunReader {
+        private DataInputStream in;
+        long key;
+        int move;
+        int games;
+        int halfPoints;
+
+        RunReader(Path run) throws IOException {
+            InputStream stream = Files.newInputStream(run);
+            in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        }
+
+        /**
+         * Reads the next entry
+         * @return - True if an entry was read, False at the end of the run (the file is closed)
+         */
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+                move = in.readUnsignedShort();
+                games = in.readInt();
+                halfPoints = in.readInt();
+                return true;
+            }
+            catch(EOFException e) {
+                close();
+                return false;
+            }
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * Usage: BookBuilder [-o book.bin] [-minGames n] [-minScore s] [-maxPly n] [-memory entries] [-threads n] games.pgn...
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path output = Paths.get("book.bin");
+        int minGames = 5;
+        double minScore = 0.3;
+        int maxPly = 24;
+        long memory = 16_000_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ArrayList<Path> pgnFiles = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-o":
+                    output = Paths.get(args[++i]);
+                    break;
+                case "-minGames":
+                    minGames = Integer.parseInt(args[++i]);
+                    break;
+                case "-minScore":
+                    minScore = Double.parseDouble(args[++i]);
+                    break;
+                case "-maxPly":
+                    maxPly = Integer.parseInt(args[++i]);
+                    break;
+                case "-memory":
+                    memory = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    pgnFiles.add(Paths.get(args[i]));
+            }
+        }
+        if(pgnFiles.isEmpty()) {
+            System.err.println("Usage: BookBuilder [-o book.bin] [-minGames n] [-minScore s] [-maxPly n] [-memory entries] [-threads n] games.pgn...");
+            System.exit(1);
+        }
+
+        Path tempDirectory = output.toAbsolutePath().getParent();
+        BookBuilder builder = new BookBuilder(minGames, minScore, maxPly, memory, threads, tempDirectory);
+        long start = System.nanoTime();
+        long entries = builder.build(pgnFiles, output);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("Games: " + builder.getGamesRead() + ", positions: " + builder.getPositionsAdded()
+                + ", book entries: " + entries + ", time: " + millis + " ms");
+    }
+}
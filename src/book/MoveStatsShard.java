@@ -0,0 +1,190 @@
+package book;
+
+import utils.Move;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from (position key, move) to the number of games and half points scored with that move
+ * Entries are kept in primitive arrays. Once the map holds more entries than allowed it is sorted and
+ * written to a run file on disk and emptied, so memory usage never grows past the configured limit
+ * All public methods are synchronized since every worker thread adds to the same shards
+ */
+class MoveStatsShard {
+    // Size of one entry in a run file: key, move, games, half points
+    static final int RUN_RECORD_SIZE = Long.BYTES + Short.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private long[] keys;
+    private int[] moves;
+    private int[] games;
+    private int[] halfPoints;
+    private int size;
+    private int maxSize;
+    private int mask;
+    private Path spillDirectory;
+    private String name;
+    private ArrayList<Path> runs;
+
+    /**
+     * @param maxSize - Number of entries after which the shard is spilled to disk
+     * @param spillDirectory - Directory in which the run files are created
+     * @param name - Prefix of the run files of this shard
+     */
+    MoveStatsShard(int maxSize, Path spillDirectory, String name) {
+        int capacity = Integer.highestOneBit(Math.max(2, maxSize) * 2 - 1) * 2;
+        keys = new long[capacity];
+        moves = new int[capacity];
+        games = new int[capacity];
+        halfPoints = new int[capacity];
+        size = 0;
+        this.maxSize = Math.max(1, maxSize);
+        mask = capacity - 1;
+        this.spillDirectory = spillDirectory;
+        this.name = name;
+        runs = new ArrayList<>();
+    }
+
+    /**
+     * Records one game in which the move was played in the position
+     * @param key - Key of the position
+     * @param move - Move played in the position
+     * @param points - Half points scored by the side that played the move
+     * @throws IOException - If the shard had to be spilled and writing the run file failed
+     */
+    synchronized void add(long key, int move, int points) throws IOException {
+        int index = hash(key, move) & mask;
+        // Move.NONE marks an empty slot
+        while(moves[index] != Move.NONE) {
+            if(keys[index] == key && moves[index] == move) {
+                games[index]++;
+                halfPoints[index] += points;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        moves[index] = move;
+        games[index] = 1;
+        halfPoints[index] = points;
+        size++;
+
+        if(size >= maxSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Writes all entries that are still in memory to disk and returns every run file of the shard
+     * Each run file is sorted by key and move
+     * @return - Run files of the shard
+     * @throws IOException - If writing the run file failed
+     */
+    synchronized ArrayList<Path> finish() throws IOException {
+        if(size > 0) {
+            spill();
+        }
+        return runs;
+    }
+
+    /**
+     * Sorts the entries, writes them to a new run file and empties the shard
+     */
+    private void spill() throws IOException {
+        // Move all entries to the front of the arrays so they can be sorted
+        int count = 0;
+        for(int i = 0; i < moves.length; i++) {
+            if(moves[i] != Move.NONE) {
+                swap(i, count);
+                count++;
+            }
+        }
+        sort(0, count - 1);
+
+        Path run = Files.createTempFile(spillDirectory, name + "-", ".run");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for(int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+                out.writeShort(moves[i]);
+                out.writeInt(games[i]);
+                out.writeInt(halfPoints[i]);
+            }
+        }
+        runs.add(run);
+
+        Arrays.fill(moves, Move.NONE);
+        size = 0;
+    }
+
+    /**
+     * Quicksort on the parallel arrays ordered by unsigned key and then move
+     */
+    private void sort(int low, int high) {
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            long pivotKey = keys[middle];
+            int pivotMove = moves[middle];
+            int i = low;
+            int j = high;
+            while(i <= j) {
+                while(compare(keys[i], moves[i], pivotKey, pivotMove) < 0) {
+                    i++;
+                }
+                while(compare(keys[j], moves[j], pivotKey, pivotMove) > 0) {
+                    j--;
+                }
+                if(i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recurse into the smaller half to keep the stack shallow
+            if(j - low < high - i) {
+                sort(low, j);
+                low = i;
+            }
+            else {
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        int count = games[i];
+        games[i] = games[j];
+        games[j] = count;
+        int points = halfPoints[i];
+        halfPoints[i] = halfPoints[j];
+        halfPoints[j] = points;
+    }
+
+    /**
+     * Order used by run files and the opening book
+     */
+    static int compare(long key1, int move1, long key2, int move2) {
+        int result = Long.compareUnsigned(key1, key2);
+        if(result != 0) {
+            return result;
+        }
+        return Integer.compare(move1, move2);
+    }
+
+    private static int hash(long key, int move) {
+        long h = key ^ (move * 0x9E3779B97F4A7C15L);
+        h ^= h >>> 29;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,144 @@
+package book;
+
+import GameFiles.Board;
+import utils.Move;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Read only view of a book file written by BookBuilder
+ * The file is a list of fixed size entries sorted by unsigned position key and move:
+ * key (8 bytes), move (2 bytes), score in hundredths of a percent (2 bytes), games (4 bytes)
+ * The file is memory mapped and searched with a binary search, so opening a book is cheap
+ */
+public class OpeningBook {
+    static final int ENTRY_SIZE = Long.BYTES + Short.BYTES + Short.BYTES + Integer.BYTES;
+    private static final int SCORE_SCALE = 10000;
+
+    private MappedByteBuffer buffer;
+    private int numEntries;
+
+    public static class BookEntry {
+        private int move;
+        private double score;
+        private int games;
+
+        BookEntry(int move, double score, int games) {
+            this.move = move;
+            this.score = score;
+            this.games = games;
+        }
+
+        /**
+         * @return - Encoded move
+         */
+        public int getMove() {
+            return move;
+        }
+
+        /**
+         * @return - Score between 0 and 1 of the side playing the move
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return - Number of games the move was played in
+         */
+        public int getGames() {
+            return games;
+        }
+    }
+
+    /**
+     * Opens a book file
+     * @param path - Path of the book file
+     * @throws IOException - If the file can't be mapped
+     */
+    public OpeningBook(Path path) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            numEntries = (int) (channel.size() / ENTRY_SIZE);
+        }
+    }
+
+    /**
+     * @return - Number of entries in the book
+     */
+    public int size() {
+        return numEntries;
+    }
+
+    /**
+     * Returns every book move of a position
+     * @param key - Key of the position
+     * @return - Book entries of the position, empty if the position isn't in the book
+     */
+    public ArrayList<BookEntry> getEntries(long key) {
+        ArrayList<BookEntry> entries = new ArrayList<>();
+        // Find the first entry with the key
+        int low = 0;
+        int high = numEntries;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(Long.compareUnsigned(getKey(middle), key) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        for(int i = low; i < numEntries && getKey(i) == key; i++) {
+            int offset = i * ENTRY_SIZE + Long.BYTES;
+            int move = buffer.getShort(offset) & 0xFFFF;
+            int score = buffer.getShort(offset + Short.BYTES) & 0xFFFF;
+            int games = buffer.getInt(offset + 2 * Short.BYTES);
+            entries.add(new BookEntry(move, (double) score / SCORE_SCALE, games));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the book move played in the most games in the current position of the board
+     * @param board - The board on which the current game is being played
+     * @return - Encoded move or Move.NONE if the position isn't in the book
+     */
+    public int getBestMove(Board board) {
+        int bestMove = Move.NONE;
+        int bestGames = 0;
+        for(BookEntry entry : getEntries(board.getKey())) {
+            if(entry.getGames() > bestGames) {
+                bestGames = entry.getGames();
+                bestMove = entry.getMove();
+            }
+        }
+        return bestMove;
+    }
+
+    private long getKey(int index) {
+        return buffer.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * Writes one book entry
+     * @param out - Stream of the book file
+     * @param key - Key of the position
+     * @param move - Encoded move
+     * @param score - Score between 0 and 1 of the side playing the move
+     * @param games - Number of games the move was played in
+     * @throws IOException - If writing fails
+     */
+    static void writeEntry(DataOutputStream out, long key, int move, double score, long games) throws IOException {
+        out.writeLong(key);
+        out.writeShort(move);
+        out.writeShort((int) Math.round(score * SCORE_SCALE));
+        out.writeInt((int) Math.min(Integer.MAX_VALUE, games));
+    }
+}
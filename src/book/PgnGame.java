@@ -0,0 +1,51 @@
+package book;
+
+import utils.Constants;
+
+import java.util.ArrayList;
+
+public class PgnGame {
+
+    public enum Result {
+        WHITE_WIN, BLACK_WIN, DRAW, UNKNOWN
+    }
+
+    private ArrayList<String> moves;
+    private Result result;
+
+    /**
+     * Creates a game read from a PGN file
+     * @param moves - Moves of the game in standard algebraic notation
+     * @param result - Result of the game
+     */
+    public PgnGame(ArrayList<String> moves, Result result) {
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /**
+     * @return - Moves of the game in standard algebraic notation
+     */
+    public ArrayList<String> getMoves() {
+        return moves;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the score of the game from the point of view of one of the players in half points
+     * @param color - Color of the player
+     * @return - 2 for a win, 1 for a draw and 0 for a loss
+     */
+    public int getHalfPoints(Constants.Color color) {
+        if(result == Result.DRAW) {
+            return 1;
+        }
+        if((result == Result.WHITE_WIN && color == Constants.Color.WHITE) || (result == Result.BLACK_WIN && color == Constants.Color.BLACK)) {
+            return 2;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,169 @@
+package book;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * Reads games one at a time from a PGN file so that collections of any size can be processed
+ * Only the Result tag and the main line of the movetext are kept
+ * Comments, variations and numeric annotations are skipped
+ */
+public class PgnReader implements Closeable {
+    private BufferedReader reader;
+    private String pendingLine;
+
+    /**
+     * @param reader - Source of the PGN text
+     */
+    public PgnReader(Reader reader) {
+        this.reader = new BufferedReader(reader);
+        pendingLine = null;
+    }
+
+    /**
+     * Reads the next game
+     * @return - The next game or null if there are no more games
+     * @throws IOException - If the underlying reader fails
+     */
+    public PgnGame readGame() throws IOException {
+        ArrayList<String> moves = new ArrayList<>();
+        PgnGame.Result tagResult = PgnGame.Result.UNKNOWN;
+        boolean inMovetext = false;
+        boolean readAnything = false;
+        int commentDepth = 0;
+        int variationDepth = 0;
+
+        String line;
+        while((line = nextLine()) != null) {
+            String trimmed = line.trim();
+            if(commentDepth == 0 && trimmed.startsWith("[")) {
+                if(inMovetext) {
+                    // Game without a result token. The tag belongs to the next game
+                    pendingLine = line;
+                    return new PgnGame(moves, tagResult);
+                }
+                readAnything = true;
+                if(trimmed.startsWith("[Result ")) {
+                    tagResult = parseResult(trimmed.substring("[Result ".length()).replace("\"", "").replace("]", "").trim());
+                }
+                continue;
+            }
+            if(commentDepth == 0 && trimmed.startsWith("%")) {
+                // Escaped line
+                continue;
+            }
+            if(trimmed.isEmpty()) {
+                continue;
+            }
+            inMovetext = true;
+            readAnything = true;
+
+            StringBuilder token = new StringBuilder();
+            for(int i = 0; i <= trimmed.length(); i++) {
+                char c = i < trimmed.length() ? trimmed.charAt(i) : ' ';
+                if(commentDepth > 0) {
+                    if(c == '}') {
+                        commentDepth--;
+                    }
+                    continue;
+                }
+                if(!Character.isWhitespace(c) && "{;()".indexOf(c) == -1) {
+                    token.append(c);
+                    continue;
+                }
+
+                // Reached the end of a token
+                if(token.length() > 0) {
+                    String text = token.toString();
+                    token.setLength(0);
+                    PgnGame.Result result = parseResult(text);
+                    if(result != PgnGame.Result.UNKNOWN || text.equals("*")) {
+                        if(variationDepth == 0) {
+                            // Result token ends the game. Rest of the line can only be a comment
+                            return new PgnGame(moves, result);
+                        }
+                    }
+                    else if(variationDepth == 0) {
+                        String move = stripMoveNumber(text);
+                        if(!move.isEmpty() && move.charAt(0) != '$') {
+                            moves.add(move);
+                        }
+                    }
+                }
+
+                if(c == '{') {
+                    commentDepth++;
+                }
+                else if(c == ';') {
+                    // Comment until the end of the line
+                    break;
+                }
+                else if(c == '(') {
+                    variationDepth++;
+                }
+                else if(c == ')') {
+                    variationDepth = Math.max(0, variationDepth - 1);
+                }
+            }
+        }
+
+        if(readAnything) {
+            return new PgnGame(moves, tagResult);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextLine() throws IOException {
+        if(pendingLine != null) {
+            String line = pendingLine;
+            pendingLine = null;
+            return line;
+        }
+        return reader.readLine();
+    }
+
+    /**
+     * Removes a move number in front of a move, e.g. "12." or "12..." in "12...Nf6"
+     * @param token - Token from the movetext
+     * @return - Token without the move number
+     */
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while(i < token.length() && Character.isDigit(token.charAt(i))) {
+            i++;
+        }
+        if(i == 0) {
+            return token;
+        }
+        int dots = i;
+        while(dots < token.length() && token.charAt(dots) == '.') {
+            dots++;
+        }
+        if(dots == i) {
+            // Not a move number
+            return token;
+        }
+        return token.substring(dots);
+    }
+
+    private static PgnGame.Result parseResult(String text) {
+        switch(text) {
+            case "1-0":
+                return PgnGame.Result.WHITE_WIN;
+            case "0-1":
+                return PgnGame.Result.BLACK_WIN;
+            case "1/2-1/2":
+                return PgnGame.Result.DRAW;
+            default:
+                return PgnGame.Result.UNKNOWN;
+        }
+    }
+}
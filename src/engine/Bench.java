@@ -0,0 +1,92 @@
+package engine;
+
+import GameFiles.Board;
+import utils.Move;
+
+import java.io.PrintStream;
+
+/**
+ * Searches a fixed set of positions to a fixed depth on one thread with an empty transposition table
+ * The total number of nodes is a signature of the search: it only changes when the search or the evaluation
+ * behaves differently, never through speed optimisations. The nodes per second measure the speed
+ */
+public class Bench {
+    public static final int DEFAULT_DEPTH = 5;
+    private static final int HASH_MB = 16;
+
+    static final String[] POSITIONS = {
+            Board.START_FEN,
+            "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3",
+            "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R1BQ1RK1 w - - 0 8",
+            "r2q1rk1/pp1nbppp/2p1pn2/3p4/2PP1B2/2N1PN2/PPQ2PPP/R3KB1R w - - 0 9",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1b1k2r/ppppnppp/2n2q2/2b5/3NP3/2P1B3/PP3PPP/RN1QKB1R w - - 0 7",
+            "4rrk1/pp1n3p/3q2pQ/2p1pb2/2PP4/2P3N1/P2B2PP/4RRK1 b - - 7 19",
+            "2r3k1/pp2rppp/2n5/3p4/3P4/2N1R3/PP3PPP/4R1K1 w - - 0 20",
+            "3r2k1/p4pp1/1p5p/8/8/1P4P1/P4P1P/3R2K1 w - - 0 30",
+            "8/5pk1/6p1/3R4/7P/6P1/r4PK1/8 w - - 0 40",
+            "6k1/6p1/6Pp/ppp5/3pn2P/1P3K2/1PP2P2/3N4 b - - 0 1",
+            "8/8/1p2k1p1/3p3p/1p1P1P1P/1P2K3/8/8 w - - 0 1"
+    };
+
+    private long nodes;
+    private long millis;
+
+    /**
+     * Searches every position of the bench
+     * @param depth - Depth of every search
+     * @param out - Receives a line per position, may be null
+     * @return - Total number of nodes, the signature of the bench
+     */
+    public long run(int depth, PrintStream out) {
+        TranspositionTable table = new TranspositionTable(HASH_MB);
+        Search search = new Search(table);
+        SearchLimits limits = new SearchLimits();
+        limits.setDepth(depth);
+        nodes = 0;
+        millis = 0;
+        for(int i = 0; i < POSITIONS.length; i++) {
+            table.clear();
+            long start = System.nanoTime();
+            SearchResult result = search.search(new Board(POSITIONS[i]), limits, null);
+            millis += (System.nanoTime() - start) / 1_000_000;
+            nodes += result.getNodes();
+            if(out != null) {
+                out.println("Position " + (i + 1) + "/" + POSITIONS.length + ": " + Move.toString(result.getBestMove())
+                        + " " + result.getNodes() + " nodes");
+            }
+        }
+        if(out != null) {
+            out.println("Total time (ms) : " + millis);
+            out.println("Nodes searched  : " + nodes);
+            out.println("Nodes/second    : " + getNodesPerSecond());
+        }
+        return nodes;
+    }
+
+    /**
+     * @return - Total number of nodes of the last run
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return - Time spent searching in the last run in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return - Nodes per second of the last run
+     */
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, millis);
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        new Bench().run(depth, System.out);
+    }
+}
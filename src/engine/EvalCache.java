@@ -0,0 +1,70 @@
+package engine;
+
+import GameFiles.Board;
+
+/**
+ * Small lossy cache of static evaluations in front of the Evaluator, owned by one search thread
+ * Every entry is a single long: the upper 48 bits of the position key and the score in the lower 16 bits,
+ * so a lookup reads one long and an entry can't be torn. The slot is chosen by the lower bits of the key,
+ * which makes the stored key bits independent of the slot. New scores always replace the old one
+ */
+public class EvalCache {
+    public static final int DEFAULT_ENTRIES = 1 << 16;
+    private static final long KEY_MASK = 0xFFFFFFFFFFFF0000L;
+
+    private final long[] entries;
+    private final int mask;
+    private long probes;
+    private long hits;
+
+    /**
+     * @param numEntries - Number of entries, rounded down to a power of two
+     */
+    public EvalCache(int numEntries) {
+        int size = Integer.highestOneBit(Math.max(1, numEntries));
+        entries = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Evaluates the position of the board, looking in the cache first
+     * @param board - The board on which the current game is being played
+     * @return - Score in centipawns from the point of view of the side to move, see Evaluator.evaluate()
+     */
+    public int evaluate(Board board) {
+        long key = board.getKey();
+        int index = (int) key & mask;
+        long entry = entries[index];
+        probes++;
+        if((entry & KEY_MASK) == (key & KEY_MASK) && entry != 0) {
+            hits++;
+            return (short) entry;
+        }
+        int score = Evaluator.evaluate(board);
+        entries[index] = (key & KEY_MASK) | (score & 0xFFFF);
+        return score;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return - Share of the lookups answered by the cache
+     */
+    public double getHitRate() {
+        return probes > 0 ? (double) hits / probes : 0;
+    }
+
+    /**
+     * Sets the counters back to 0, the entries are kept
+     */
+    public void resetCounters() {
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,121 @@
+package engine;
+
+import GameFiles.Board;
+import nnue.Accumulator;
+import utils.PieceCode;
+import utils.Constants;
+import utils.Utils;
+
+/**
+ * Static evaluation of a position: material plus a bonus for pieces standing on good squares
+ * Boards with network accumulators attached are evaluated by the network instead
+ */
+public class Evaluator {
+    public static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    // Bonus for each square from white's point of view, row 0 is black's back rank
+    private static final int[] PAWN_SQUARES = {
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+    };
+    private static final int[] KNIGHT_SQUARES = {
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+    };
+    private static final int[] BISHOP_SQUARES = {
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+    };
+    private static final int[] ROOK_SQUARES = {
+             0,  0,  0,  0,  0,  0,  0,  0,
+             5, 10, 10, 10, 10, 10, 10,  5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+             0,  0,  0,  5,  5,  0,  0,  0
+    };
+    private static final int[] QUEEN_SQUARES = {
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+              0,  0,  5,  5,  5,  5,  0, -5,
+            -10,  5,  5,  5,  5,  5,  0,-10,
+            -10,  0,  5,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+    };
+    private static final int[] KING_SQUARES = {
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             20, 20,  0,  0,  0,  0, 20, 20,
+             20, 30, 10,  0,  0, 10, 30, 20
+    };
+    private static final int[][] PIECE_SQUARES = {PAWN_SQUARES, KNIGHT_SQUARES, BISHOP_SQUARES, ROOK_SQUARES, QUEEN_SQUARES, KING_SQUARES};
+
+    /**
+     * Evaluates the position from the point of view of the side to move
+     * @param board - The board on which the current game is being played
+     * @return - Score in centipawns, positive if the side to move is better
+     */
+    public static int evaluate(Board board) {
+        Accumulator accumulator = board.getAccumulator();
+        if(accumulator != null) {
+            return accumulator.evaluate(board.getSideToMove());
+        }
+        int score = evaluate(board, Constants.Color.WHITE) - evaluate(board, Constants.Color.BLACK);
+        return board.getSideToMove() == Constants.Color.WHITE ? score : -score;
+    }
+
+    private static int evaluate(Board board, Constants.Color color) {
+        int score = 0;
+        for(int i = 0; i < board.getNumPieces(color); i++) {
+            int position = board.getPieceSquare(color, i);
+            int type = PieceCode.getTypeIndex(board.getPieceCode(position));
+            score += PIECE_VALUES[type] + PIECE_SQUARES[type][getWhiteSquare(position, color)];
+        }
+        return score;
+    }
+
+    /**
+     * @param type - Index of the piece type
+     * @return - Copy of the bonus for each square from white's point of view
+     */
+    public static int[] getPieceSquares(int type) {
+        return PIECE_SQUARES[type].clone();
+    }
+
+    /**
+     * Mirrors the position of a black piece so that the white square tables can be used
+     */
+    static int getWhiteSquare(int position, Constants.Color color) {
+        if(color == Constants.Color.WHITE) {
+            return position;
+        }
+        int[] coordinates = Utils.convertToCoordinates(position);
+        return Utils.convertToPosition(Constants.NUM_ROWS - 1 - coordinates[Constants.ROW], coordinates[Constants.COLUMN]);
+    }
+}
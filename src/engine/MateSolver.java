@@ -0,0 +1,270 @@
+package engine;
+
+import GameFiles.Board;
+import utils.Move;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Proves or disproves forced mates in a given number of moves
+ * The attacker only plays checks and the defender plays every evasion, so the tree stays small enough for
+ * mates in five or more moves. The depth grows one move at a time, so the first mate found is the shortest one
+ * Results of attacker positions are kept in a table of their own: either a proven mate with its distance and move,
+ * or the number of moves for which no mate exists. Draws by repetition and the fifty-move rule are ignored
+ * Data layout: move (bits 0-11), moves (bits 12-19), proven (bit 20)
+ */
+public class MateSolver {
+    public static final int DEFAULT_SIZE_MB = 16;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    private static final long PROVEN = 1L << 20;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private int[][] moves;
+    private int[][] order;
+    private long nodes;
+    private int bestMove;
+
+    public MateSolver() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param sizeMb - Size of the table in megabytes
+     */
+    public MateSolver(int sizeMb) {
+        long entries = Math.max(1, (long) sizeMb * 1024 * 1024 / ENTRY_SIZE);
+        int size = Integer.highestOneBit((int) Math.min(1 << 30, entries));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+        moves = new int[0][];
+        order = new int[0][];
+    }
+
+    /**
+     * Looks for a mate of the side to move
+     * The table is kept between calls, so solving the next position of the same line is cheap
+     * @param board - Board with the position, it is the same again when the method returns
+     * @param maxMoves - Maximum number of moves of the side to move until mate
+     * @return - Number of moves of the shortest mate or 0 if there is no mate within maxMoves
+     */
+    public int solve(Board board, int maxMoves) {
+        nodes = 0;
+        bestMove = Move.NONE;
+        int plies = 2 * maxMoves + 1;
+        if(moves.length < plies) {
+            moves = new int[plies][MoveGenerator.MAX_MOVES];
+            order = new int[plies][MoveGenerator.MAX_MOVES];
+        }
+        for(int n = 1; n <= maxMoves; n++) {
+            if(attack(board, n, 0)) {
+                bestMove = Move.NONE;
+                long entry = probe(board.getKey());
+                if(entry != 0) {
+                    bestMove = (int) (entry & 0xFFF);
+                }
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return - First move of the mate found by the last call of solve or Move.NONE
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return - Number of positions visited by the last call of solve
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Follows the table from the position to the mate. The defender picks the evasion delaying the mate the longest
+     * @param board - Board with the position that was solved, it is the same again when the method returns
+     * @return - Moves of the mating line
+     */
+    public List<Integer> getPv(Board board) {
+        ArrayList<Integer> pv = new ArrayList<>();
+        int[] buffer = new int[MoveGenerator.MAX_MOVES];
+        while(true) {
+            long entry = probe(board.getKey());
+            if((entry & PROVEN) == 0) {
+                break;
+            }
+            int move = (int) (entry & 0xFFF);
+            board.makeMove(move);
+            pv.add(move);
+            int count = MoveGenerator.generateEvasions(board, buffer);
+            int longest = -1;
+            int defence = Move.NONE;
+            for(int i = 0; i < count; i++) {
+                board.makeMove(buffer[i]);
+                long reply = probe(board.getKey());
+                board.undoLastMove();
+                int distance = (reply & PROVEN) != 0 ? getMoves(reply) : Integer.MAX_VALUE;
+                if(distance > longest) {
+                    longest = distance;
+                    defence = buffer[i];
+                }
+            }
+            if(defence == Move.NONE || longest == Integer.MAX_VALUE) {
+                break;
+            }
+            board.makeMove(defence);
+            pv.add(defence);
+        }
+        for(int i = 0; i < pv.size(); i++) {
+            board.undoLastMove();
+        }
+        return pv;
+    }
+
+    /**
+     * Removes every entry of the table
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+    }
+
+    /**
+     * @param board - Board with the attacker to move
+     * @param n - Number of attacker moves left
+     * @param ply - Distance from the position being solved
+     * @return - True if every defence is mated within n moves
+     */
+    private boolean attack(Board board, int n, int ply) {
+        nodes++;
+        long key = board.getKey();
+        long entry = probe(key);
+        if(entry != 0) {
+            if((entry & PROVEN) != 0 && getMoves(entry) <= n) {
+                return true;
+            }
+            if((entry & PROVEN) == 0 && getMoves(entry) >= n) {
+                return false;
+            }
+        }
+
+        int[] checks = moves[ply];
+        int[] replies = order[ply];
+        int count = MoveGenerator.generateChecks(board, checks);
+        // Checks leaving the fewest evasions are tried first, a check without evasions is mate
+        int[] evasions = moves[ply + 1];
+        for(int i = 0; i < count; i++) {
+            board.makeMove(checks[i]);
+            replies[i] = MoveGenerator.generateEvasions(board, evasions);
+            board.undoLastMove();
+            if(replies[i] == 0) {
+                store(key, checks[i], 1, true);
+                return true;
+            }
+        }
+        if(n > 1) {
+            sort(checks, replies, count);
+            for(int i = 0; i < count; i++) {
+                board.makeMove(checks[i]);
+                boolean mate = defend(board, n - 1, ply + 1);
+                board.undoLastMove();
+                if(mate) {
+                    store(key, checks[i], n, true);
+                    return true;
+                }
+            }
+        }
+        // A mate proven for more moves is worth more than knowing there is none within fewer
+        if((probe(key) & PROVEN) == 0) {
+            store(key, Move.NONE, n, false);
+        }
+        return false;
+    }
+
+    /**
+     * @param board - Board with the defender to move and in check
+     * @param n - Number of attacker moves left after the defence
+     * @param ply - Distance from the position being solved
+     * @return - True if every evasion is answered by a mate within n moves
+     */
+    private boolean defend(Board board, int n, int ply) {
+        nodes++;
+        int[] evasions = moves[ply];
+        int count = MoveGenerator.generateEvasions(board, evasions);
+        for(int i = 0; i < count; i++) {
+            board.makeMove(evasions[i]);
+            boolean mate = attack(board, n, ply + 1);
+            board.undoLastMove();
+            if(!mate) {
+                return false;
+            }
+        }
+        return count > 0;
+    }
+
+    /**
+     * Insertion sort of the moves by ascending number of replies
+     */
+    private static void sort(int[] moves, int[] replies, int count) {
+        for(int i = 1; i < count; i++) {
+            int move = moves[i];
+            int numReplies = replies[i];
+            int j = i - 1;
+            while(j >= 0 && replies[j] > numReplies) {
+                moves[j + 1] = moves[j];
+                replies[j + 1] = replies[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            replies[j + 1] = numReplies;
+        }
+    }
+
+    private long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        if((keys[index] ^ entry) == key) {
+            return entry;
+        }
+        return 0;
+    }
+
+    private void store(long key, int move, int n, boolean proven) {
+        int index = (int) key & mask;
+        long entry = (move & 0xFFFL) | ((long) (n & 0xFF) << 12) | (proven ? PROVEN : 0);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    private static int getMoves(long entry) {
+        return (int) (entry >>> 12) & 0xFF;
+    }
+
+    public static void main(String[] args) {
+        if(args.length < 2) {
+            System.err.println("Usage: MateSolver \"fen\" moves");
+            System.exit(1);
+        }
+        Board board = new Board(args[0]);
+        MateSolver solver = new MateSolver();
+        long start = System.nanoTime();
+        int mate = solver.solve(board, Integer.parseInt(args[1]));
+        long micros = (System.nanoTime() - start) / 1000;
+        if(mate == 0) {
+            System.out.println("No mate in " + args[1] + " (" + solver.getNodes() + " nodes, " + micros + " us)");
+            return;
+        }
+        StringBuilder pv = new StringBuilder();
+        for(int move : solver.getPv(board)) {
+            pv.append(' ').append(Move.toString(move));
+        }
+        System.out.println("Mate in " + mate + ":" + pv + " (" + solver.getNodes() + " nodes, " + micros + " us)");
+    }
+}
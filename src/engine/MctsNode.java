@@ -0,0 +1,140 @@
+package engine;
+
+import GameFiles.Board;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Node of the Monte-Carlo search tree, shared by every search thread
+ * Statistics are updated with atomic adds and the tree grows with compare-and-set, so no thread ever takes a lock
+ * The score is kept from the point of view of the player who made the move leading to the node, in thousandths
+ * of a point per playout. Children are only created once they are selected
+ */
+class MctsNode {
+    static final int WIN = 1000;
+    static final int DRAW = WIN / 2;
+
+    private static final VarHandle VISITS;
+    private static final VarHandle SCORE;
+    private static final VarHandle EDGES;
+    private static final VarHandle CHILD = MethodHandles.arrayElementVarHandle(MctsNode[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VISITS = lookup.findVarHandle(MctsNode.class, "visits", int.class);
+            SCORE = lookup.findVarHandle(MctsNode.class, "score", long.class);
+            EDGES = lookup.findVarHandle(MctsNode.class, "edges", Edges.class);
+        }
+        catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Legal moves of the position and the nodes of the moves selected so far
+     */
+    static final class Edges {
+        final int[] moves;
+        final MctsNode[] children;
+
+        Edges(int[] moves) {
+            this.moves = moves;
+            children = new MctsNode[moves.length];
+        }
+    }
+
+    private final int move;
+    private volatile long key;
+    private volatile int visits;
+    private volatile long score;
+    private volatile Edges edges;
+
+    MctsNode(int move) {
+        this.move = move;
+    }
+
+    int getMove() {
+        return move;
+    }
+
+    long getKey() {
+        return key;
+    }
+
+    void setKey(long key) {
+        this.key = key;
+    }
+
+    int getVisits() {
+        return visits;
+    }
+
+    long getScore() {
+        return score;
+    }
+
+    /**
+     * Counts a visit before the result of the playout is known. Until the result arrives the visit counts as a
+     * loss, which steers the other threads towards different moves (virtual loss)
+     */
+    void addVisit() {
+        VISITS.getAndAdd(this, 1);
+    }
+
+    /**
+     * @param result - Result of the playout for the player who made the move leading to this node
+     */
+    void addResult(int result) {
+        SCORE.getAndAdd(this, (long) result);
+    }
+
+    /**
+     * @return - Edges of the node or null if it hasn't been expanded yet
+     */
+    Edges getEdges() {
+        return edges;
+    }
+
+    /**
+     * Generates the legal moves of the position, unless another thread did it already
+     * @param board - Board with the position of the node
+     * @param moves - Buffer for the moves
+     * @return - Edges of the node
+     */
+    Edges expand(Board board, int[] moves) {
+        Edges current = edges;
+        if(current != null) {
+            return current;
+        }
+        int count = MoveGenerator.generateMoves(board, moves);
+        int[] legalMoves = new int[count];
+        System.arraycopy(moves, 0, legalMoves, 0, count);
+        Edges expanded = new Edges(legalMoves);
+        return EDGES.compareAndSet(this, null, expanded) ? expanded : edges;
+    }
+
+    /**
+     * @param edges - Edges of a node
+     * @param index - Index of the move
+     * @return - Node of the move or null if it hasn't been selected yet
+     */
+    static MctsNode peekChild(Edges edges, int index) {
+        return (MctsNode) CHILD.getVolatile(edges.children, index);
+    }
+
+    /**
+     * @param edges - Edges of a node
+     * @param index - Index of the move
+     * @return - Node of the move, created if it doesn't exist yet
+     */
+    static MctsNode getChild(Edges edges, int index) {
+        MctsNode child = (MctsNode) CHILD.getVolatile(edges.children, index);
+        if(child != null) {
+            return child;
+        }
+        MctsNode created = new MctsNode(edges.moves[index]);
+        return CHILD.compareAndSet(edges.children, index, null, created) ? created : (MctsNode) CHILD.getVolatile(edges.children, index);
+    }
+}
@@ -0,0 +1,443 @@
+package engine;
+
+import GameFiles.Board;
+import GameFiles.PositionSnapshot;
+import utils.Constants;
+import utils.Move;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte-Carlo tree search, an alternative to the alpha-beta search
+ * Every thread repeatedly walks down the shared tree choosing moves by UCT, grows the tree by one node and finishes
+ * the game with random moves for a few plies before the position is evaluated. Random moves are picked from the
+ * pseudo legal moves and only the picked move is checked for leaving the own king in check
+ * The tree is kept between searches, so after the expected moves the next search starts with the earlier playouts
+ */
+public class MctsSearch {
+    public static final int DEFAULT_PLAYOUTS = 100_000;
+    // The tree stops growing once this many moves have been expanded, the playouts go on from the leaves
+    public static final long MAX_NODES = 8_000_000;
+    private static final double EXPLORATION = 1.4;
+    // Nodes are expanded on their second visit, which keeps single playouts from allocating
+    private static final int EXPAND_VISITS = 2;
+    private static final int MAX_PLAYOUT_PLIES = 24;
+    // Playouts of the main thread between two looks at the clock
+    private static final int CHECK_INTERVAL = 64;
+    private static final long REPORT_INTERVAL = 1000;
+    // Scores of won playouts are capped so they aren't mistaken for mate scores
+    private static final int MAX_SCORE = 3000;
+
+    private int threads;
+    private long moveOverhead;
+    private volatile boolean stopped;
+    // Set by stop() and only cleared by prepare(), so a stop sent before the search starts isn't lost
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    // A ponderhit that came before search() had set up its clock
+    private volatile boolean ponderhitPending;
+    private volatile TimeManager timeManager;
+    private MctsNode root;
+    private AtomicLong playouts;
+    private AtomicLong numNodes;
+    private long playoutLimit;
+    private long startTime;
+
+    public MctsSearch() {
+        threads = 1;
+        moveOverhead = TimeManager.DEFAULT_MOVE_OVERHEAD;
+        playouts = new AtomicLong();
+        numNodes = new AtomicLong();
+    }
+
+    /**
+     * @param threads - Number of threads running playouts
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param moveOverhead - Time in milliseconds lost per move to communication and lag
+     */
+    public void setMoveOverhead(long moveOverhead) {
+        this.moveOverhead = Math.max(0, moveOverhead);
+    }
+
+    /**
+     * Forgets the tree, e.g. when a new game starts
+     */
+    public void clear() {
+        root = null;
+        numNodes.set(0);
+    }
+
+    /**
+     * Forgets earlier calls to stop() and ponderhit(). Has to be called before the thread running search() is started
+     */
+    public void prepare() {
+        stopRequested = false;
+        ponderhitPending = false;
+    }
+
+    /**
+     * Runs playouts from the position of the board until one of the limits is reached or stop() is called
+     * The node limit counts playouts. Without node or time limits DEFAULT_PLAYOUTS playouts are run
+     * The board itself isn't changed. Every thread plays on a board of its own
+     * @param board - The board on which the current game is being played
+     * @param limits - Conditions under which the search stops
+     * @param listener - Receives a report about once a second and at the end, may be null
+     * @return - Most visited move and its expected score
+     */
+    public SearchResult search(Board board, SearchLimits limits, SearchListener listener) {
+        startTime = System.nanoTime();
+        stopped = stopRequested;
+        timeManager = new TimeManager(limits, board.getSideToMove(), moveOverhead);
+        pondering = limits.isPonder();
+        if(pondering && ponderhitPending) {
+            ponderhit();
+        }
+        if(limits.getNodes() > 0) {
+            playoutLimit = limits.getNodes();
+        }
+        else if(timeManager.isTimed() || limits.isInfinite() || limits.isPonder()) {
+            playoutLimit = Long.MAX_VALUE;
+        }
+        else {
+            playoutLimit = DEFAULT_PLAYOUTS;
+        }
+        playouts.set(0);
+
+        root = findRoot(board);
+        MctsNode.Edges edges = root.expand(board, new int[MoveGenerator.MAX_MOVES]);
+        if(edges.moves.length == 0) {
+            return new SearchResult(Move.NONE, Move.NONE, board.isInCheck(board.getSideToMove()) ? -Search.MATE : 0, 0, 0, getElapsedMillis());
+        }
+        timeManager.setRootMoves(edges.moves.length);
+
+        PositionSnapshot position = board.snapshot();
+        Thread[] helpers = new Thread[threads - 1];
+        for(int i = 1; i < threads; i++) {
+            Board helperBoard = position.toBoard();
+            long seed = i;
+            helpers[i - 1] = new Thread(() -> run(helperBoard, seed, null), "mcts-helper-" + i);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+        run(position.toBoard(), 0, listener);
+        stopped = true;
+        for(Thread helper : helpers) {
+            try {
+                helper.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int[] pv = getPv();
+        report(listener, pv);
+        MctsNode best = getMostVisited(root);
+        if(best == null) {
+            // Stopped before the first playout
+            return new SearchResult(edges.moves[0], Move.NONE, 0, 0, 0, getElapsedMillis());
+        }
+        return new SearchResult(best.getMove(), pv.length > 1 ? pv[1] : Move.NONE, getScore(best), pv.length, playouts.get(),
+                getElapsedMillis());
+    }
+
+    /**
+     * Stops the search as soon as possible
+     */
+    public void stop() {
+        stopRequested = true;
+        stopped = true;
+    }
+
+    /**
+     * The opponent played the expected move, so the ponder search turns into a normal search on our own clock
+     * Without a ponder search nothing happens, unless one is about to start after prepare()
+     */
+    public void ponderhit() {
+        ponderhitPending = true;
+        TimeManager manager = timeManager;
+        if(pondering && manager != null) {
+            manager.restart();
+            pondering = false;
+        }
+    }
+
+    /**
+     * @return - True if the search has been stopped or has reached a limit
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @return - Number of playouts through the root of the tree, including the ones of earlier searches
+     */
+    int getRootVisits() {
+        return root == null ? 0 : root.getVisits();
+    }
+
+    /**
+     * @return - Number of nodes in the tree, which is limited to MAX_NODES
+     */
+    long getNumNodes() {
+        return numNodes.get();
+    }
+
+    /**
+     * Looks for the position in the tree of the last search, among the root and the two plies below it
+     */
+    private MctsNode findRoot(Board board) {
+        long key = board.getKey();
+        if(root != null) {
+            if(root.getKey() == key) {
+                return root;
+            }
+            MctsNode.Edges edges = root.getEdges();
+            for(int i = 0; edges != null && i < edges.moves.length; i++) {
+                MctsNode child = MctsNode.peekChild(edges, i);
+                if(child == null) {
+                    continue;
+                }
+                if(child.getKey() == key) {
+                    return reuse(child);
+                }
+                MctsNode.Edges childEdges = child.getEdges();
+                for(int j = 0; childEdges != null && j < childEdges.moves.length; j++) {
+                    MctsNode grandchild = MctsNode.peekChild(childEdges, j);
+                    if(grandchild != null && grandchild.getKey() == key) {
+                        return reuse(grandchild);
+                    }
+                }
+            }
+        }
+        numNodes.set(0);
+        MctsNode node = new MctsNode(Move.NONE);
+        node.setKey(key);
+        return node;
+    }
+
+    /**
+     * Makes a node below the root the new root. The rest of the tree is dropped, so its nodes no longer count
+     */
+    private MctsNode reuse(MctsNode node) {
+        numNodes.set(countNodes(node));
+        return node;
+    }
+
+    /**
+     * @return - Number of nodes below the node, counted like iterate() counts them when expanding
+     */
+    private static long countNodes(MctsNode node) {
+        MctsNode.Edges edges = node.getEdges();
+        if(edges == null) {
+            return 0;
+        }
+        long count = edges.moves.length;
+        for(int i = 0; i < edges.moves.length; i++) {
+            MctsNode child = MctsNode.peekChild(edges, i);
+            if(child != null) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs playouts until the search is stopped. The thread with a listener also watches the clock and reports
+     */
+    private void run(Board board, long seed, SearchListener listener) {
+        SplittableRandom random = new SplittableRandom(seed ^ startTime);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        MctsNode[] path = new MctsNode[Search.MAX_PLY + 1];
+        boolean main = seed == 0;
+        long lastReport = startTime;
+        int checkCountdown = CHECK_INTERVAL;
+        while(!stopped) {
+            iterate(board, path, moves, random);
+            if(playouts.incrementAndGet() >= playoutLimit) {
+                stopped = true;
+            }
+            if(main && --checkCountdown == 0) {
+                checkCountdown = CHECK_INTERVAL;
+                if(stopRequested || (!pondering && timeManager.isSoftLimitReached())) {
+                    stopped = true;
+                }
+                long now = System.nanoTime();
+                if(listener != null && now - lastReport >= TimeUnit.MILLISECONDS.toNanos(REPORT_INTERVAL)) {
+                    lastReport = now;
+                    report(listener, getPv());
+                }
+            }
+        }
+    }
+
+    /**
+     * One playout: select a path through the tree, expand its last node, finish the game randomly and add the result
+     * to every node of the path
+     */
+    private void iterate(Board board, MctsNode[] path, int[] moves, SplittableRandom random) {
+        MctsNode node = root;
+        node.addVisit();
+        path[0] = node;
+        int depth = 0;
+        // Result for the side to move in the last position of the path
+        int result;
+        while(true) {
+            if(depth > 0 && (board.getHalfmoveClock() >= Board.FIFTY_MOVE_PLIES || board.isRepetition() || board.hasInsufficientMaterial())) {
+                result = MctsNode.DRAW;
+                break;
+            }
+            MctsNode.Edges edges = node.getEdges();
+            if(edges == null) {
+                if(node.getVisits() < EXPAND_VISITS || numNodes.get() >= MAX_NODES || depth == Search.MAX_PLY) {
+                    result = playout(board, moves, random);
+                    break;
+                }
+                edges = node.expand(board, moves);
+                numNodes.addAndGet(edges.moves.length);
+            }
+            if(edges.moves.length == 0) {
+                result = board.isInCheck(board.getSideToMove()) ? 0 : MctsNode.DRAW;
+                break;
+            }
+            MctsNode child = MctsNode.getChild(edges, select(node, edges));
+            child.addVisit();
+            board.makeMove(child.getMove());
+            if(child.getKey() == 0) {
+                child.setKey(board.getKey());
+            }
+            path[++depth] = child;
+            node = child;
+        }
+
+        // Every node is scored for the player who moved into it, the opponent of the side to move there
+        for(int i = depth; i >= 0; i--) {
+            result = MctsNode.WIN - result;
+            path[i].addResult(result);
+        }
+        for(int i = 0; i < depth; i++) {
+            board.undoLastMove();
+        }
+    }
+
+    /**
+     * Chooses the move with the highest upper confidence bound. Moves that were never selected come first
+     * @return - Index of the move
+     */
+    private static int select(MctsNode node, MctsNode.Edges edges) {
+        double logVisits = Math.log(Math.max(1, node.getVisits()));
+        int best = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for(int i = 0; i < edges.moves.length; i++) {
+            MctsNode child = MctsNode.peekChild(edges, i);
+            if(child == null || child.getVisits() == 0) {
+                return i;
+            }
+            int visits = child.getVisits();
+            double value = (double) child.getScore() / ((long) MctsNode.WIN * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if(value > bestValue) {
+                bestValue = value;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays random legal moves for a few plies and evaluates the position reached
+     * @return - Result for the side to move in the position of the board, between 0 and MctsNode.WIN
+     */
+    private static int playout(Board board, int[] moves, SplittableRandom random) {
+        Constants.Color color = board.getSideToMove();
+        int plies = 0;
+        int result = -1;
+        while(plies < MAX_PLAYOUT_PLIES) {
+            if(board.getHalfmoveClock() >= Board.FIFTY_MOVE_PLIES || board.hasInsufficientMaterial()) {
+                result = MctsNode.DRAW;
+                break;
+            }
+            Constants.Color mover = board.getSideToMove();
+            int count = board.generatePseudoLegalMoves(moves, false);
+            boolean moved = false;
+            while(count > 0) {
+                int index = random.nextInt(count);
+                board.makeMove(moves[index]);
+                if(!board.isInCheck(mover)) {
+                    moved = true;
+                    break;
+                }
+                board.undoLastMove();
+                moves[index] = moves[--count];
+            }
+            if(!moved) {
+                int moverResult = board.isInCheck(mover) ? 0 : MctsNode.DRAW;
+                result = mover == color ? moverResult : MctsNode.WIN - moverResult;
+                break;
+            }
+            plies++;
+        }
+        if(result < 0) {
+            int sideResult = (int) Math.round(MctsNode.WIN / (1 + Math.pow(10, -Evaluator.evaluate(board) / 400.0)));
+            result = board.getSideToMove() == color ? sideResult : MctsNode.WIN - sideResult;
+        }
+        for(; plies > 0; plies--) {
+            board.undoLastMove();
+        }
+        return result;
+    }
+
+    private static MctsNode getMostVisited(MctsNode node) {
+        MctsNode.Edges edges = node.getEdges();
+        MctsNode best = null;
+        for(int i = 0; edges != null && i < edges.moves.length; i++) {
+            MctsNode child = MctsNode.peekChild(edges, i);
+            if(child != null && child.getVisits() > 0 && (best == null || child.getVisits() > best.getVisits())) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return - Line of the most visited moves
+     */
+    private int[] getPv() {
+        int[] pv = new int[Search.MAX_PLY];
+        int length = 0;
+        MctsNode node = getMostVisited(root);
+        while(node != null && length < pv.length) {
+            pv[length++] = node.getMove();
+            node = getMostVisited(node);
+        }
+        return Arrays.copyOf(pv, length);
+    }
+
+    /**
+     * Turns the average result of the playouts through a node into centipawns
+     * @return - Score for the player who made the move leading to the node
+     */
+    private static int getScore(MctsNode node) {
+        double result = (double) node.getScore() / ((long) MctsNode.WIN * Math.max(1, node.getVisits()));
+        result = Math.min(1 - 1e-6, Math.max(1e-6, result));
+        int score = (int) Math.round(-400 * Math.log10(1 / result - 1));
+        return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+
+    private void report(SearchListener listener, int[] pv) {
+        if(listener != null && pv.length > 0) {
+            listener.iterationFinished(pv.length, getScore(getMostVisited(root)), playouts.get(), getElapsedMillis(), pv);
+        }
+    }
+
+    private long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+}
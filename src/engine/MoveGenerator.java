@@ -0,0 +1,203 @@
+package engine;
+
+import GameFiles.Board;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+import utils.Rays;
+import utils.Utils;
+
+/**
+ * Generates the legal moves of the side to move as encoded moves
+ * Every candidate move of the board is played and taken back if it leaves the own king in check
+ * Checks and check evasions are selected before that by looking at the lines around the kings, so only the
+ * candidates that give check or answer a check are played
+ */
+public class MoveGenerator {
+    public static final int MAX_MOVES = Board.MAX_MOVES;
+
+    /**
+     * Generates every legal move of the side to move
+     * @param board - The board on which the current game is being played
+     * @param moves - Array that receives the encoded moves
+     * @return - Number of legal moves
+     */
+    public static int generateMoves(Board board, int[] moves) {
+        return generate(board, moves, false);
+    }
+
+    /**
+     * Generates the legal moves of the side to move that capture a piece
+     * @param board - The board on which the current game is being played
+     * @param moves - Array that receives the encoded moves
+     * @return - Number of legal captures
+     */
+    public static int generateCaptures(Board board, int[] moves) {
+        return generate(board, moves, true);
+    }
+
+    /**
+     * Generates the legal moves of the side to move that give check, directly or by uncovering a line
+     * @param board - The board on which the current game is being played
+     * @param moves - Array that receives the encoded moves
+     * @return - Number of legal checking moves
+     */
+    public static int generateChecks(Board board, int[] moves) {
+        Constants.Color color = board.getSideToMove();
+        int king = board.getKingPosition(Utils.getOpposingColor(color));
+
+        // Squares from which each type of piece would attack the king
+        long[] checkSquares = new long[Constants.PieceType.values().length];
+        for(int square : Rays.PAWN_ATTACKS[Utils.getOpposingColor(color).ordinal()][king]) {
+            checkSquares[Constants.PieceType.PAWN.ordinal()] |= 1L << square;
+        }
+        for(int[] ray : Rays.RAYS[Constants.PieceType.KNIGHT.ordinal()][king]) {
+            checkSquares[Constants.PieceType.KNIGHT.ordinal()] |= 1L << ray[0];
+        }
+        // Own pieces standing between the king and an own slider, with the line they block
+        long blockers = 0;
+        long[] blockedLines = new long[Rays.NUM_SQUARES];
+        for(Constants.PieceType slider : new Constants.PieceType[] {Constants.PieceType.BISHOP, Constants.PieceType.ROOK}) {
+            int attacker = PieceCode.encode(color, slider);
+            int queen = PieceCode.encode(color, Constants.PieceType.QUEEN);
+            for(int[] ray : Rays.RAYS[slider.ordinal()][king]) {
+                long line = 0;
+                int blocker = -1;
+                for(int square : ray) {
+                    line |= 1L << square;
+                    int code = board.getPieceCode(square);
+                    if(code == PieceCode.EMPTY) {
+                        if(blocker == -1) {
+                            checkSquares[slider.ordinal()] |= 1L << square;
+                        }
+                        continue;
+                    }
+                    if(blocker != -1) {
+                        if(code == attacker || code == queen) {
+                            blockers |= 1L << blocker;
+                            blockedLines[blocker] = line;
+                        }
+                        break;
+                    }
+                    checkSquares[slider.ordinal()] |= 1L << square;
+                    if(PieceCode.getColor(code) != color) {
+                        break;
+                    }
+                    blocker = square;
+                }
+            }
+        }
+        checkSquares[Constants.PieceType.QUEEN.ordinal()] = checkSquares[Constants.PieceType.BISHOP.ordinal()]
+                | checkSquares[Constants.PieceType.ROOK.ordinal()];
+
+        int numMoves = board.generatePseudoLegalMoves(moves, false);
+        int count = 0;
+        for(int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            int from = Move.getOldPosition(move);
+            long to = 1L << Move.getNewPosition(move);
+            int type = PieceCode.getTypeIndex(board.getPieceCode(from));
+            boolean direct = (checkSquares[type] & to) != 0;
+            boolean discovered = (blockers & (1L << from)) != 0 && (blockedLines[from] & to) == 0;
+            if((direct || discovered) && isLegal(board, move, color)) {
+                moves[count++] = move;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Generates the legal moves of the side to move when it is in check: king moves, captures of the checking piece
+     * and moves onto the line between the king and a checking slider. Against two checking pieces only the king
+     * can move. When the side to move isn't in check every legal move is generated
+     * @param board - The board on which the current game is being played
+     * @param moves - Array that receives the encoded moves
+     * @return - Number of legal moves
+     */
+    public static int generateEvasions(Board board, int[] moves) {
+        Constants.Color color = board.getSideToMove();
+        Constants.Color enemy = Utils.getOpposingColor(color);
+        int king = board.getKingPosition(color);
+
+        // Squares on which a move stops the check, including the square of the checking piece
+        long targets = 0;
+        int numCheckers = 0;
+        int pawn = PieceCode.encode(enemy, Constants.PieceType.PAWN);
+        for(int square : Rays.PAWN_ATTACKS[color.ordinal()][king]) {
+            if(board.getPieceCode(square) == pawn) {
+                targets |= 1L << square;
+                numCheckers++;
+            }
+        }
+        int knight = PieceCode.encode(enemy, Constants.PieceType.KNIGHT);
+        for(int[] ray : Rays.RAYS[Constants.PieceType.KNIGHT.ordinal()][king]) {
+            if(board.getPieceCode(ray[0]) == knight) {
+                targets |= 1L << ray[0];
+                numCheckers++;
+            }
+        }
+        int queen = PieceCode.encode(enemy, Constants.PieceType.QUEEN);
+        for(Constants.PieceType slider : new Constants.PieceType[] {Constants.PieceType.BISHOP, Constants.PieceType.ROOK}) {
+            int attacker = PieceCode.encode(enemy, slider);
+            for(int[] ray : Rays.RAYS[slider.ordinal()][king]) {
+                long line = 0;
+                for(int square : ray) {
+                    line |= 1L << square;
+                    int code = board.getPieceCode(square);
+                    if(code == PieceCode.EMPTY) {
+                        continue;
+                    }
+                    if(code == attacker || code == queen) {
+                        targets |= line;
+                        numCheckers++;
+                    }
+                    break;
+                }
+            }
+        }
+
+        int numMoves = board.generatePseudoLegalMoves(moves, false);
+        int count = 0;
+        for(int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            boolean kingMove = Move.getOldPosition(move) == king;
+            boolean blocks = numCheckers == 0 || (numCheckers == 1 && (targets & (1L << Move.getNewPosition(move))) != 0);
+            if((kingMove || blocks) && isLegal(board, move, color)) {
+                moves[count++] = move;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isLegal(Board board, int move, Constants.Color color) {
+        board.makeMove(move);
+        boolean legal = !board.isInCheck(color);
+        board.undoLastMove();
+        return legal;
+    }
+
+    private static int generate(Board board, int[] moves, boolean capturesOnly) {
+        Constants.Color color = board.getSideToMove();
+        int numMoves = board.generatePseudoLegalMoves(moves, capturesOnly);
+        int count = 0;
+        for(int i = 0; i < numMoves; i++) {
+            int move = moves[i];
+            board.makeMove(move);
+            if(!board.isInCheck(color)) {
+                moves[count++] = move;
+            }
+            board.undoLastMove();
+        }
+        return count;
+    }
+
+    /**
+     * Plays an encoded move on the board. The move is assumed to be legal
+     * @param board - The board on which the current game is being played
+     * @param move - Encoded move
+     * @return - Code of the captured piece, see utils.PieceCode, or PieceCode.EMPTY
+     */
+    public static int makeMove(Board board, int move) {
+        return board.makeMove(move);
+    }
+}
@@ -0,0 +1,151 @@
+package engine;
+
+import GameFiles.Board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the move tree to a fixed depth, used to verify move generation
+ * The parallel count splits the subtrees of the first two plies into fork/join tasks. Every task plays its moves
+ * on a board of its own, so the counts match the serial count exactly
+ */
+public class Perft {
+    // Plies whose moves are split into separate tasks
+    public static final int SPLIT_PLIES = 2;
+    // Subtrees smaller than this are counted by the task that finds them
+    private static final int MIN_SPLIT_DEPTH = 3;
+    // Counts of shallower subtrees are cheaper to recompute than to look up
+    private static final int MIN_TABLE_DEPTH = 2;
+
+    private final ForkJoinPool pool;
+    private final PerftTable table;
+
+    /**
+     * @param threads - Number of threads counting at the same time
+     * @param hashMb - Size of the shared table of counts in megabytes, 0 to count without it
+     */
+    public Perft(int threads, int hashMb) {
+        pool = new ForkJoinPool(threads);
+        table = hashMb > 0 ? new PerftTable(hashMb) : null;
+    }
+
+    /**
+     * Counts the leaf nodes using every thread. The board itself isn't changed
+     * @param board - Position to count from
+     * @param depth - Number of plies
+     * @return - Number of leaf nodes
+     */
+    public long count(Board board, int depth) {
+        return pool.invoke(new PerftTask(board.snapshot().toBoard(), depth, 0, table));
+    }
+
+    /**
+     * Shuts down the threads
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Counts the leaf nodes on the calling thread
+     * @param board - Position to count from, unchanged when done
+     * @param depth - Number of plies
+     * @param table - Table of counts or null
+     * @return - Number of leaf nodes
+     */
+    public static long count(Board board, int depth, PerftTable table) {
+        if(depth == 0) {
+            return 1;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateMoves(board, moves);
+        if(depth == 1) {
+            return count;
+        }
+        boolean useTable = table != null && depth >= MIN_TABLE_DEPTH;
+        if(useTable) {
+            long nodes = table.probe(board.getKey(), depth);
+            if(nodes >= 0) {
+                return nodes;
+            }
+        }
+        long nodes = 0;
+        for(int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += count(board, depth - 1, table);
+            board.undoLastMove();
+        }
+        if(useTable) {
+            table.store(board.getKey(), depth, nodes);
+        }
+        return nodes;
+    }
+
+    private static class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final int ply;
+        private final PerftTable table;
+
+        PerftTask(Board board, int depth, int ply, PerftTable table) {
+            this.board = board;
+            this.depth = depth;
+            this.ply = ply;
+            this.table = table;
+        }
+
+        @Override
+        protected Long compute() {
+            if(ply >= SPLIT_PLIES || depth < MIN_SPLIT_DEPTH) {
+                return count(board, depth, table);
+            }
+            if(table != null) {
+                long nodes = table.probe(board.getKey(), depth);
+                if(nodes >= 0) {
+                    return nodes;
+                }
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int count = MoveGenerator.generateMoves(board, moves);
+            ArrayList<PerftTask> tasks = new ArrayList<>(count);
+            for(int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                tasks.add(new PerftTask(board.snapshot().toBoard(), depth - 1, ply + 1, table));
+                board.undoLastMove();
+            }
+            long nodes = 0;
+            for(PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            if(table != null) {
+                table.store(board.getKey(), depth, nodes);
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Counts the leaf nodes of a position and prints how long it took
+     * Arguments: depth, number of threads (default all processors), table size in megabytes (default 0)
+     * and optionally the position in Forsyth-Edwards Notation
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        String fen = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : Board.START_FEN;
+
+        Perft perft = new Perft(threads, hashMb);
+        long start = System.nanoTime();
+        long nodes = perft.count(new Board(fen), depth);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        perft.close();
+        System.out.println("perft " + depth + ": " + nodes + " nodes in " + millis + " ms (" + nodes * 1000 / millis + " nps, "
+                + threads + " threads)");
+    }
+}
@@ -0,0 +1,58 @@
+package engine;
+
+/**
+ * Hash table of perft counts shared by every perft thread
+ * Entries are keyed by the position and the remaining depth. Like the transposition table each entry is the key
+ * xor'ed with the data plus the data itself, so entries torn by simultaneous writes are never returned
+ * Data layout: depth (bits 0-7), number of leaf nodes (bits 8-63)
+ */
+public class PerftTable {
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+    // Spreads the entries of one position at different depths over the table
+    private static final long DEPTH_MIX = 0x9E3779B97F4A7C15L;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param sizeMb - Size of the table in megabytes
+     */
+    public PerftTable(int sizeMb) {
+        long entries = Math.max(1, (long) sizeMb * 1024 * 1024 / ENTRY_SIZE);
+        int size = Integer.highestOneBit((int) Math.min(1 << 30, entries));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param key - Key of the position
+     * @param depth - Remaining depth
+     * @return - Number of leaf nodes or -1 if the position isn't in the table
+     */
+    public long probe(long key, int depth) {
+        int index = getIndex(key, depth);
+        long entry = data[index];
+        if((keys[index] ^ entry) == key && (entry & 0xFF) == depth) {
+            return entry >>> 8;
+        }
+        return -1;
+    }
+
+    /**
+     * @param key - Key of the position
+     * @param depth - Remaining depth
+     * @param nodes - Number of leaf nodes
+     */
+    public void store(long key, int depth, long nodes) {
+        int index = getIndex(key, depth);
+        long entry = nodes << 8 | depth;
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    private int getIndex(long key, int depth) {
+        return (int) ((key ^ depth * DEPTH_MIX) >>> 32) & mask;
+    }
+}
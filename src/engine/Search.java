@@ -0,0 +1,607 @@
+package engine;
+
+import GameFiles.Board;
+import GameFiles.PositionSnapshot;
+import nnue.Accumulator;
+import nnue.Network;
+import profiling.SearchIterationEvent;
+import tablebase.Tablebase;
+import tablebase.TablebaseGenerator;
+import tablebase.TablebaseResult;
+import tablebase.Tablebases;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterative deepening alpha-beta search with a quiescence search on captures
+ * Several threads can search the same position, each on its own board, sharing the transposition table.
+ * Only the main thread reports progress and decides when to stop
+ */
+public class Search {
+    public static final int INFINITY = 1_000_000;
+    public static final int MATE = 100_000;
+    public static final int MAX_PLY = 100;
+    // Longest distance to mate a score can announce: a tablebase mate found at the deepest ply of the search
+    public static final int MAX_MATE_PLY = MAX_PLY + Tablebase.MAX_PLIES;
+    public static final int MAX_DEPTH = 64;
+    // Nodes between two looks at the clock
+    private static final int CHECK_INTERVAL = 1024;
+
+    private TranspositionTable table;
+    private int threads;
+    private Worker[] workers;
+    private volatile boolean stopped;
+    // Set by stop() and only cleared by prepare(), so a stop sent before the search starts isn't lost
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    // A ponderhit that came before search() had set up its clock
+    private volatile boolean ponderhitPending;
+    private volatile TimeManager timeManager;
+    private long moveOverhead;
+    private long nodeLimit;
+    private int checkInterval;
+    private long startTime;
+    private SearchMonitor monitor;
+    // Evaluation cache of each thread, kept between searches
+    private EvalCache[] evalCaches;
+    private Network network;
+
+    /**
+     * @param table - Transposition table used by every search thread
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        threads = 1;
+        stopped = false;
+        moveOverhead = TimeManager.DEFAULT_MOVE_OVERHEAD;
+        monitor = new SearchMonitor();
+    }
+
+    /**
+     * @param threads - Number of threads searching each position
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * @param network - Network evaluating the positions, null for the classical evaluation
+     */
+    public void setNetwork(Network network) {
+        this.network = network;
+        // Cached scores belong to the old evaluation
+        evalCaches = null;
+    }
+
+    /**
+     * @param moveOverhead - Time in milliseconds lost per move to communication and lag
+     */
+    public void setMoveOverhead(long moveOverhead) {
+        this.moveOverhead = Math.max(0, moveOverhead);
+    }
+
+    /**
+     * Forgets earlier calls to stop() and ponderhit(). Has to be called before the thread running search() is started
+     */
+    public void prepare() {
+        stopRequested = false;
+        ponderhitPending = false;
+    }
+
+    /**
+     * Searches the position of the board until one of the limits is reached or stop() is called
+     * The board itself isn't changed. Every thread searches a board of its own
+     * @param board - The board on which the current game is being played
+     * @param limits - Conditions under which the search stops
+     * @param listener - Receives a report after every iteration, may be null
+     * @return - Result of the last completed iteration
+     */
+    public SearchResult search(Board board, SearchLimits limits, SearchListener listener) {
+        startTime = System.nanoTime();
+        stopped = stopRequested;
+        nodeLimit = limits.getNodes();
+        checkInterval = nodeLimit > 0 ? (int) Math.max(1, Math.min(CHECK_INTERVAL, nodeLimit / 100)) : CHECK_INTERVAL;
+        timeManager = new TimeManager(limits, board.getSideToMove(), moveOverhead);
+        pondering = limits.isPonder();
+        if(pondering && ponderhitPending) {
+            ponderhit();
+        }
+        int maxDepth = limits.getDepth() > 0 ? Math.min(limits.getDepth(), MAX_DEPTH) : MAX_DEPTH;
+
+        // The snapshot keeps the earlier positions of the game, they count for repetitions too
+        PositionSnapshot position = board.snapshot();
+        workers = new Worker[threads];
+        if(evalCaches == null || evalCaches.length != threads) {
+            evalCaches = new EvalCache[threads];
+            for(int i = 0; i < threads; i++) {
+                evalCaches[i] = new EvalCache(EvalCache.DEFAULT_ENTRIES);
+            }
+        }
+        for(int i = 0; i < threads; i++) {
+            evalCaches[i].resetCounters();
+            workers[i] = new Worker(i, position.toBoard(), maxDepth, i == 0 ? listener : null, evalCaches[i]);
+        }
+        Thread[] helpers = new Thread[threads - 1];
+        for(int i = 1; i < threads; i++) {
+            helpers[i - 1] = new Thread(workers[i], "search-helper-" + i);
+            helpers[i - 1].setDaemon(true);
+            helpers[i - 1].start();
+        }
+
+        Worker main = workers[0];
+        main.run();
+        stopped = true;
+        for(Thread helper : helpers) {
+            try {
+                helper.join();
+            }
+            catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        monitor.add(collectStatistics());
+        int ponderMove = main.bestPv.length > 1 ? main.bestPv[1] : Move.NONE;
+        return new SearchResult(main.bestMove, ponderMove, main.bestScore, main.completedDepth, getTotalNodes(), getElapsedMillis());
+    }
+
+    /**
+     * Stops the search as soon as possible. The best move of the last completed iteration is returned
+     */
+    public void stop() {
+        stopRequested = true;
+        stopped = true;
+    }
+
+    /**
+     * The opponent played the expected move, so the ponder search turns into a normal search on our own clock
+     * Without a ponder search nothing happens, unless one is about to start after prepare()
+     */
+    public void ponderhit() {
+        ponderhitPending = true;
+        TimeManager manager = timeManager;
+        if(pondering && manager != null) {
+            manager.restart();
+            pondering = false;
+        }
+    }
+
+    /**
+     * @return - True if the search has been stopped or has reached a limit
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * @param score - Score returned by the search
+     * @return - True if the score announces a mate
+     */
+    public static boolean isMateScore(int score) {
+        return Math.abs(score) >= MATE - MAX_MATE_PLY;
+    }
+
+    /**
+     * @param score - Mate score
+     * @return - Number of moves until mate, negative if the side to move gets mated
+     */
+    public static int getMateMoves(int score) {
+        if(score > 0) {
+            return (MATE - score + 1) / 2;
+        }
+        return -(MATE + score) / 2;
+    }
+
+    /**
+     * @return - Statistics of the last search
+     */
+    public SearchStatistics getStatistics() {
+        return monitor.getLast();
+    }
+
+    /**
+     * @return - Statistics of every search, also published through JMX once registered
+     */
+    public SearchMonitor getMonitor() {
+        return monitor;
+    }
+
+    /**
+     * Adds up the counters of every thread. Only called after the helper threads have finished
+     */
+    private SearchStatistics collectStatistics() {
+        long quiescenceNodes = 0;
+        long betaCutoffs = 0;
+        long firstMoveCutoffs = 0;
+        long tableProbes = 0;
+        long tableHits = 0;
+        long tableCutoffs = 0;
+        long evalProbes = 0;
+        long evalHits = 0;
+        for(Worker worker : workers) {
+            evalProbes += worker.evalCache.getProbes();
+            evalHits += worker.evalCache.getHits();
+            quiescenceNodes += worker.quiescenceNodes;
+            betaCutoffs += worker.betaCutoffs;
+            firstMoveCutoffs += worker.firstMoveCutoffs;
+            tableProbes += worker.tableProbes;
+            tableHits += worker.tableHits;
+            tableCutoffs += worker.tableCutoffs;
+        }
+        Worker main = workers[0];
+        int depth = main.completedDepth;
+        double branchingFactor = 0;
+        if(depth >= 2 && main.iterationNodes[depth - 1] > 0) {
+            branchingFactor = (double) main.iterationNodes[depth] / main.iterationNodes[depth - 1];
+        }
+        return new SearchStatistics(getTotalNodes(), quiescenceNodes, betaCutoffs, firstMoveCutoffs, tableProbes, tableHits,
+                tableCutoffs, evalProbes, evalHits, depth, branchingFactor);
+    }
+
+    private long getTotalNodes() {
+        long nodes = 0;
+        for(Worker worker : workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    private long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * One search thread with its own board and move buffers
+     */
+    private class Worker implements Runnable {
+        private int id;
+        private Board board;
+        private int maxDepth;
+        private SearchListener listener;
+        private EvalCache evalCache;
+        // Not volatile, other threads only read it for reports
+        private long nodes;
+        // Statistics, read by the other threads once the search is over
+        private long quiescenceNodes;
+        private long betaCutoffs;
+        private long firstMoveCutoffs;
+        private long tableProbes;
+        private long tableHits;
+        private long tableCutoffs;
+        // Nodes searched by each completed iteration
+        private long[] iterationNodes;
+        private int checkCountdown;
+        private int[][] moves;
+        private int[][] moveScores;
+        private int[][] pv;
+        private int[] pvLength;
+
+        private int completedDepth;
+        private int bestMove;
+        private int bestScore;
+        private int[] bestPv;
+        private int rootBestMove;
+
+        Worker(int id, Board board, int maxDepth, SearchListener listener, EvalCache evalCache) {
+            this.id = id;
+            if(network != null) {
+                board.setAccumulator(new Accumulator(network));
+            }
+            this.evalCache = evalCache;
+            this.board = board;
+            this.maxDepth = maxDepth;
+            this.listener = listener;
+            moves = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+            moveScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+            pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+            pvLength = new int[MAX_PLY + 1];
+            bestMove = Move.NONE;
+            bestPv = new int[0];
+            iterationNodes = new long[MAX_DEPTH + 1];
+        }
+
+        @Override
+        public void run() {
+            if(id == 0) {
+                checkCountdown = checkInterval;
+                timeManager.setRootMoves(MoveGenerator.generateMoves(board, moves[0]));
+            }
+            // Helper threads start at different depths so they don't all search the same tree
+            for(int depth = 1 + id % 2; depth <= maxDepth; depth++) {
+                rootBestMove = Move.NONE;
+                long iterationStart = nodes;
+                SearchIterationEvent event = new SearchIterationEvent();
+                event.begin();
+                int score = search(depth, -INFINITY, INFINITY, 0);
+                if(stopped) {
+                    if(bestMove == Move.NONE) {
+                        bestMove = rootBestMove;
+                    }
+                    if(bestMove == Move.NONE && MoveGenerator.generateMoves(board, moves[0]) > 0) {
+                        // Stopped before a single root move was searched, any legal move beats no move
+                        bestMove = moves[0][0];
+                    }
+                    break;
+                }
+
+                completedDepth = depth;
+                iterationNodes[depth] = nodes - iterationStart;
+                bestScore = score;
+                bestPv = Arrays.copyOf(pv[0], pvLength[0]);
+                bestMove = bestPv.length > 0 ? bestPv[0] : Move.NONE;
+                event.end();
+                if(event.shouldCommit()) {
+                    event.set(id, depth, score, getTotalNodes(), Move.toString(bestMove));
+                    event.commit();
+                }
+                if(listener != null) {
+                    listener.iterationFinished(depth, score, getTotalNodes(), getElapsedMillis(), bestPv);
+                }
+                if(bestMove == Move.NONE || (isMateScore(score) && MATE - Math.abs(score) <= depth)) {
+                    // No legal moves or the mate can't be improved by searching deeper
+                    break;
+                }
+                if(id == 0) {
+                    timeManager.iterationFinished(bestMove, score);
+                    if(!pondering && timeManager.isSoftLimitReached()) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        private int search(int depth, int alpha, int beta, int ply) {
+            if(checkStop()) {
+                return 0;
+            }
+            pvLength[ply] = ply;
+            Constants.Color color = board.getSideToMove();
+
+            if(ply > 0) {
+                if(isDraw()) {
+                    return 0;
+                }
+                int tablebaseScore = probeTablebase(ply);
+                if(tablebaseScore != INFINITY) {
+                    return tablebaseScore;
+                }
+                if(ply >= MAX_PLY) {
+                    return evalCache.evaluate(board);
+                }
+            }
+
+            boolean inCheck = board.isInCheck(color);
+            if(inCheck) {
+                depth++;
+            }
+            if(depth <= 0) {
+                return quiesce(alpha, beta, ply);
+            }
+
+            long key = board.getKey();
+            long entry = table.probe(key);
+            tableProbes++;
+            int tableMove = Move.NONE;
+            if(entry != 0) {
+                tableHits++;
+                tableMove = TranspositionTable.getMove(entry);
+                if(ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+                    int score = fromTableScore(TranspositionTable.getScore(entry), ply);
+                    int bound = TranspositionTable.getBound(entry);
+                    if(bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        tableCutoffs++;
+                        return score;
+                    }
+                }
+            }
+
+            int[] plyMoves = moves[ply];
+            int count = MoveGenerator.generateMoves(board, plyMoves);
+            if(count == 0) {
+                return inCheck ? -MATE + ply : 0;
+            }
+            scoreMoves(ply, count, tableMove);
+
+            int originalAlpha = alpha;
+            int bestScore = -INFINITY;
+            int bestMove = Move.NONE;
+            for(int i = 0; i < count; i++) {
+                int move = pickMove(ply, i, count);
+                MoveGenerator.makeMove(board, move);
+                int score = -search(depth - 1, -beta, -alpha, ply + 1);
+                board.undoLastMove();
+                if(stopped) {
+                    return 0;
+                }
+
+                if(score > bestScore) {
+                    bestScore = score;
+                    bestMove = move;
+                    if(ply == 0) {
+                        rootBestMove = move;
+                    }
+                    if(score > alpha) {
+                        alpha = score;
+                        updatePv(ply, move);
+                        if(alpha >= beta) {
+                            betaCutoffs++;
+                            if(i == 0) {
+                                firstMoveCutoffs++;
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int bound = bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                    : bestScore > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+            table.store(key, bestMove, toTableScore(bestScore, ply), depth, bound);
+            return bestScore;
+        }
+
+        /**
+         * Searches captures only until the position is quiet, so the evaluation isn't done in the middle of an exchange
+         */
+        private int quiesce(int alpha, int beta, int ply) {
+            if(checkStop()) {
+                return 0;
+            }
+            pvLength[ply] = ply;
+            quiescenceNodes++;
+            int standPat = evalCache.evaluate(board);
+            if(standPat >= beta || ply >= MAX_PLY) {
+                return standPat;
+            }
+            if(standPat > alpha) {
+                alpha = standPat;
+            }
+
+            int count = MoveGenerator.generateCaptures(board, moves[ply]);
+            scoreMoves(ply, count, Move.NONE);
+            for(int i = 0; i < count; i++) {
+                int move = pickMove(ply, i, count);
+                MoveGenerator.makeMove(board, move);
+                int score = -quiesce(-beta, -alpha, ply + 1);
+                board.undoLastMove();
+                if(stopped) {
+                    return 0;
+                }
+                if(score > alpha) {
+                    alpha = score;
+                    if(alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+            return alpha;
+        }
+
+        /**
+         * Counts the node and checks whether the search has to stop
+         * The main thread only looks at the clock and the node limit every few nodes
+         * @return - True if the search has been stopped
+         */
+        private boolean checkStop() {
+            nodes++;
+            if(stopped) {
+                return true;
+            }
+            if(id == 0 && --checkCountdown <= 0) {
+                checkCountdown = checkInterval;
+                if(stopRequested || (nodeLimit > 0 && getTotalNodes() >= nodeLimit) || (!pondering && timeManager.isHardLimitReached())) {
+                    stopped = true;
+                }
+            }
+            return stopped;
+        }
+
+        /**
+         * A single repetition is enough inside the search, the side that could avoid it would have done so already
+         * @return - True if the position is drawn by repetition, fifty moves or insufficient material
+         */
+        private boolean isDraw() {
+            return board.getHalfmoveClock() >= Board.FIFTY_MOVE_PLIES || board.isRepetition() || board.hasInsufficientMaterial();
+        }
+
+        /**
+         * @return - Score of the position if it is in a tablebase else INFINITY
+         */
+        private int probeTablebase(int ply) {
+            int pieces = board.getNumPieces(Constants.Color.WHITE) + board.getNumPieces(Constants.Color.BLACK);
+            if(pieces > TablebaseGenerator.MAX_PIECES) {
+                return INFINITY;
+            }
+            TablebaseResult result = Tablebases.probe(board);
+            if(result == null) {
+                return INFINITY;
+            }
+            switch(result.getWdl()) {
+                case WIN:
+                    return MATE - ply - result.getPlies();
+                case LOSS:
+                    return -MATE + ply + result.getPlies();
+                default:
+                    return 0;
+            }
+        }
+
+        /**
+         * Orders the moves: the move from the transposition table first, then captures of the most valuable
+         * pieces by the least valuable pieces, then everything else
+         */
+        private void scoreMoves(int ply, int count, int tableMove) {
+            for(int i = 0; i < count; i++) {
+                int move = moves[ply][i];
+                int score = 0;
+                if(move == tableMove) {
+                    score = INFINITY;
+                }
+                else if(board.getPieceCode(Move.getNewPosition(move)) != PieceCode.EMPTY) {
+                    int victim = Evaluator.PIECE_VALUES[PieceCode.getTypeIndex(board.getPieceCode(Move.getNewPosition(move)))];
+                    int attacker = Evaluator.PIECE_VALUES[PieceCode.getTypeIndex(board.getPieceCode(Move.getOldPosition(move)))];
+                    score = MATE + victim * 10 - attacker / 10;
+                }
+                moveScores[ply][i] = score;
+            }
+        }
+
+        /**
+         * Moves the best scored of the remaining moves to position i
+         */
+        private int pickMove(int ply, int i, int count) {
+            int[] plyMoves = moves[ply];
+            int[] scores = moveScores[ply];
+            int best = i;
+            for(int j = i + 1; j < count; j++) {
+                if(scores[j] > scores[best]) {
+                    best = j;
+                }
+            }
+            int move = plyMoves[best];
+            plyMoves[best] = plyMoves[i];
+            plyMoves[i] = move;
+            int score = scores[best];
+            scores[best] = scores[i];
+            scores[i] = score;
+            return move;
+        }
+
+        private void updatePv(int ply, int move) {
+            pv[ply][ply] = move;
+            for(int i = ply + 1; i < pvLength[ply + 1]; i++) {
+                pv[ply][i] = pv[ply + 1][i];
+            }
+            pvLength[ply] = Math.max(ply + 1, pvLength[ply + 1]);
+        }
+    }
+
+    /**
+     * Mate scores are stored relative to the position instead of the root
+     */
+    private static int toTableScore(int score, int ply) {
+        if(score >= MATE - MAX_MATE_PLY) {
+            return score + ply;
+        }
+        if(score <= -MATE + MAX_MATE_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if(score >= MATE - MAX_MATE_PLY) {
+            return score - ply;
+        }
+        if(score <= -MATE + MAX_MATE_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,113 @@
+package engine;
+
+import utils.Constants;
+
+/**
+ * Conditions under which a search stops. Limits that are not set are 0
+ */
+public class SearchLimits {
+    private int depth;
+    private long nodes;
+    private long moveTime;
+    private long whiteTime;
+    private long blackTime;
+    private long whiteIncrement;
+    private long blackIncrement;
+    private int movesToGo;
+    private boolean infinite;
+    private boolean ponder;
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(long nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return - Exact time in milliseconds to search for
+     */
+    public long getMoveTime() {
+        return moveTime;
+    }
+
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * @param color - Color of the player
+     * @return - Time in milliseconds left on the players clock
+     */
+    public long getTime(Constants.Color color) {
+        return color == Constants.Color.WHITE ? whiteTime : blackTime;
+    }
+
+    public void setTime(Constants.Color color, long time) {
+        if(color == Constants.Color.WHITE) {
+            whiteTime = time;
+        }
+        else {
+            blackTime = time;
+        }
+    }
+
+    /**
+     * @param color - Color of the player
+     * @return - Time in milliseconds added to the players clock after each move
+     */
+    public long getIncrement(Constants.Color color) {
+        return color == Constants.Color.WHITE ? whiteIncrement : blackIncrement;
+    }
+
+    public void setIncrement(Constants.Color color, long increment) {
+        if(color == Constants.Color.WHITE) {
+            whiteIncrement = increment;
+        }
+        else {
+            blackIncrement = increment;
+        }
+    }
+
+    /**
+     * @return - Number of moves until the next time control or 0 if the rest of the game has to be played in the time left
+     */
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public void setMovesToGo(int movesToGo) {
+        this.movesToGo = movesToGo;
+    }
+
+    /**
+     * @return - True if the search only stops when told to
+     */
+    public boolean isInfinite() {
+        return infinite;
+    }
+
+    public void setInfinite(boolean infinite) {
+        this.infinite = infinite;
+    }
+
+    /**
+     * @return - True if the search runs on the opponents time until the opponent plays the expected move
+     */
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+}
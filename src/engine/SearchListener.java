@@ -0,0 +1,17 @@
+package engine;
+
+/**
+ * Receives progress reports of a running search
+ */
+public interface SearchListener {
+
+    /**
+     * Called by the main search thread whenever an iteration has been completed
+     * @param depth - Depth of the iteration
+     * @param score - Score in centipawns from the point of view of the side to move, see Search.isMateScore()
+     * @param nodes - Number of positions searched by all threads so far
+     * @param millis - Time since the search started
+     * @param pv - Expected line of play, starting with the best move
+     */
+    void iterationFinished(int depth, int score, long nodes, long millis, int[] pv);
+}
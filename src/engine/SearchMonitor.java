@@ -0,0 +1,109 @@
+package engine;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Collects the statistics of every search of one Search and publishes them as an MBean
+ */
+public class SearchMonitor implements SearchMonitorMXBean {
+    private static final SearchStatistics EMPTY = new SearchStatistics(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private volatile SearchStatistics last;
+    private long searches;
+    private long totalNodes;
+    private long totalQuiescenceNodes;
+
+    SearchMonitor() {
+        last = EMPTY;
+    }
+
+    /**
+     * @param statistics - Statistics of a finished search
+     */
+    synchronized void add(SearchStatistics statistics) {
+        last = statistics;
+        searches++;
+        totalNodes += statistics.getNodes();
+        totalQuiescenceNodes += statistics.getQuiescenceNodes();
+    }
+
+    /**
+     * @return - Statistics of the last search
+     */
+    public SearchStatistics getLast() {
+        return last;
+    }
+
+    /**
+     * Registers the monitor with the platform MBean server
+     * @param name - Name of the MBean, e.g. chess:type=Search
+     * @throws JMException - If the name is invalid or already taken
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    @Override
+    public synchronized long getSearches() {
+        return searches;
+    }
+
+    @Override
+    public synchronized long getTotalNodes() {
+        return totalNodes;
+    }
+
+    @Override
+    public synchronized long getTotalQuiescenceNodes() {
+        return totalQuiescenceNodes;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return last.getDepth();
+    }
+
+    @Override
+    public long getLastNodes() {
+        return last.getNodes();
+    }
+
+    @Override
+    public double getLastEffectiveBranchingFactor() {
+        return last.getEffectiveBranchingFactor();
+    }
+
+    @Override
+    public double getLastFirstMoveCutoffRate() {
+        return last.getFirstMoveCutoffRate();
+    }
+
+    @Override
+    public double getLastTableHitRate() {
+        return last.getTableHitRate();
+    }
+
+    @Override
+    public double getLastTableCutoffRate() {
+        return last.getTableCutoffRate();
+    }
+
+    @Override
+    public double getLastEvalHitRate() {
+        return last.getEvalHitRate();
+    }
+
+    @Override
+    public String getLastReport() {
+        return last.toString();
+    }
+
+    @Override
+    public synchronized void reset() {
+        searches = 0;
+        totalNodes = 0;
+        totalQuiescenceNodes = 0;
+    }
+}
@@ -0,0 +1,38 @@
+package engine;
+
+/**
+ * Statistics of the searches of one Search, readable through JMX
+ * The rates describe the last search, the totals every search since the last reset
+ */
+public interface SearchMonitorMXBean {
+
+    long getSearches();
+
+    long getTotalNodes();
+
+    long getTotalQuiescenceNodes();
+
+    int getLastDepth();
+
+    long getLastNodes();
+
+    double getLastEffectiveBranchingFactor();
+
+    double getLastFirstMoveCutoffRate();
+
+    double getLastTableHitRate();
+
+    double getLastTableCutoffRate();
+
+    double getLastEvalHitRate();
+
+    /**
+     * @return - Statistics of the last search as text
+     */
+    String getLastReport();
+
+    /**
+     * Sets the totals back to 0
+     */
+    void reset();
+}
@@ -0,0 +1,62 @@
+package engine;
+
+import utils.Move;
+
+/**
+ * Outcome of a finished search
+ */
+public class SearchResult {
+    private int bestMove;
+    private int ponderMove;
+    private int score;
+    private int depth;
+    private long nodes;
+    private long millis;
+
+    SearchResult(int bestMove, int ponderMove, int score, int depth, long nodes, long millis) {
+        this.bestMove = bestMove;
+        this.ponderMove = ponderMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    /**
+     * @return - Encoded best move or Move.NONE if the side to move has no legal move
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * @return - Expected reply to the best move or Move.NONE
+     */
+    public int getPonderMove() {
+        return ponderMove;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return - Depth of the last completed iteration
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return Move.toString(bestMove) + " score " + score + " depth " + depth + " nodes " + nodes + " time " + millis;
+    }
+}
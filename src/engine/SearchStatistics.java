@@ -0,0 +1,140 @@
+package engine;
+
+import java.util.Locale;
+
+/**
+ * Counters of one search, summed over every search thread
+ * Each thread counts in fields of its own while searching and the counters are added up when the search ends,
+ * so counting never makes two threads write to the same memory
+ */
+public class SearchStatistics {
+    private long nodes;
+    private long quiescenceNodes;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private long tableProbes;
+    private long tableHits;
+    private long tableCutoffs;
+    private long evalProbes;
+    private long evalHits;
+    private int depth;
+    private double branchingFactor;
+
+    SearchStatistics(long nodes, long quiescenceNodes, long betaCutoffs, long firstMoveCutoffs, long tableProbes, long tableHits,
+                     long tableCutoffs, long evalProbes, long evalHits, int depth, double branchingFactor) {
+        this.nodes = nodes;
+        this.quiescenceNodes = quiescenceNodes;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+        this.tableProbes = tableProbes;
+        this.tableHits = tableHits;
+        this.tableCutoffs = tableCutoffs;
+        this.evalProbes = evalProbes;
+        this.evalHits = evalHits;
+        this.depth = depth;
+        this.branchingFactor = branchingFactor;
+    }
+
+    /**
+     * @return - Number of positions searched, quiescence positions included
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return - Number of positions searched by the quiescence search
+     */
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * @return - Number of positions of the main search left early because a move reached beta
+     */
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    /**
+     * @return - Number of beta cutoffs caused by the first move searched
+     */
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    /**
+     * @return - Share of the beta cutoffs caused by the first move, a measure of the move ordering
+     */
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs > 0 ? (double) firstMoveCutoffs / betaCutoffs : 0;
+    }
+
+    public long getTableProbes() {
+        return tableProbes;
+    }
+
+    public long getTableHits() {
+        return tableHits;
+    }
+
+    /**
+     * @return - Number of positions whose score was taken from the transposition table without searching them
+     */
+    public long getTableCutoffs() {
+        return tableCutoffs;
+    }
+
+    /**
+     * @return - Share of the transposition table probes that found the position
+     */
+    public double getTableHitRate() {
+        return tableProbes > 0 ? (double) tableHits / tableProbes : 0;
+    }
+
+    /**
+     * @return - Share of the transposition table probes that ended the search of the position
+     */
+    public double getTableCutoffRate() {
+        return tableProbes > 0 ? (double) tableCutoffs / tableProbes : 0;
+    }
+
+    /**
+     * @return - Number of static evaluations asked from the evaluation caches
+     */
+    public long getEvalProbes() {
+        return evalProbes;
+    }
+
+    public long getEvalHits() {
+        return evalHits;
+    }
+
+    /**
+     * @return - Share of the static evaluations answered by the evaluation caches
+     */
+    public double getEvalHitRate() {
+        return evalProbes > 0 ? (double) evalHits / evalProbes : 0;
+    }
+
+    /**
+     * @return - Depth of the last iteration completed by the main thread
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return - Nodes of the last completed iteration of the main thread divided by the nodes of the one before,
+     * 0 if fewer than two iterations were completed
+     */
+    public double getEffectiveBranchingFactor() {
+        return branchingFactor;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "depth %d nodes %d qnodes %d ebf %.2f firstcutoff %.3f tthit %.3f ttcutoff %.3f evalhit %.3f",
+                depth, nodes, quiescenceNodes, branchingFactor, getFirstMoveCutoffRate(), getTableHitRate(), getTableCutoffRate(), getEvalHitRate());
+    }
+}
@@ -0,0 +1,159 @@
+package engine;
+
+import utils.Constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns the clock of the side to move into a soft and a hard deadline
+ * The soft deadline decides whether another iteration is started. It grows when the best move keeps changing or the
+ * score drops and shrinks when the best move stays the same. The hard deadline stops the search in the middle of an
+ * iteration so the engine never loses on time
+ */
+public class TimeManager {
+    public static final long DEFAULT_MOVE_OVERHEAD = 50;
+    // Moves assumed to be left in the game when the clock doesn't say
+    private static final int DEFAULT_MOVES_TO_GO = 40;
+    private static final int MAX_MOVES_TO_GO = 50;
+    // The hard deadline is at most this many times the soft deadline
+    private static final int MAX_TIME_FACTOR = 5;
+    // Soft deadline factor by number of iterations with the same best move
+    private static final double[] STABILITY_FACTORS = {1.3, 1.1, 0.95, 0.8, 0.7};
+    // Score drop in centipawns at which the soft deadline is extended the most
+    private static final int MAX_SCORE_DROP = 150;
+
+    private long softLimit;
+    private long hardLimit;
+    private volatile long startTime;
+
+    private int previousBestMove;
+    private int previousScore;
+    private int stability;
+    private double factor;
+    private boolean singleReply;
+
+    /**
+     * @param limits - Limits of the search
+     * @param color - Side to move
+     * @param moveOverhead - Time in milliseconds lost per move to communication and lag
+     */
+    public TimeManager(SearchLimits limits, Constants.Color color, long moveOverhead) {
+        startTime = System.nanoTime();
+        factor = 1.0;
+        stability = 0;
+        previousBestMove = 0;
+        if(limits.isInfinite()) {
+            return;
+        }
+        if(limits.getMoveTime() > 0) {
+            softLimit = Math.max(1, limits.getMoveTime() - moveOverhead);
+            hardLimit = softLimit;
+            return;
+        }
+
+        long time = limits.getTime(color);
+        if(time <= 0) {
+            return;
+        }
+        long increment = limits.getIncrement(color);
+        int movesToGo = limits.getMovesToGo() > 0 ? Math.min(limits.getMovesToGo(), MAX_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long usable = Math.max(1, time - moveOverhead);
+        if(movesToGo == 1) {
+            // The clock is refilled after this move
+            softLimit = usable;
+            hardLimit = usable;
+            return;
+        }
+        // Time that can be spent on the remaining moves, counting the increments still to come
+        long budget = Math.max(1, time + increment * (movesToGo - 1) - moveOverhead);
+        softLimit = Math.max(1, Math.min(budget / movesToGo, usable));
+        hardLimit = Math.max(1, Math.min(softLimit * MAX_TIME_FACTOR, Math.min(usable, time / 3 + increment)));
+        softLimit = Math.min(softLimit, hardLimit);
+    }
+
+    /**
+     * @return - True if the search is limited by a clock
+     */
+    public boolean isTimed() {
+        return hardLimit > 0;
+    }
+
+    /**
+     * @return - Time in milliseconds after which no new iteration should be started, before adjustments
+     */
+    public long getSoftLimit() {
+        return softLimit;
+    }
+
+    /**
+     * @return - Time in milliseconds after which the search is stopped
+     */
+    public long getHardLimit() {
+        return hardLimit;
+    }
+
+    /**
+     * @return - Milliseconds since the search or the last ponderhit started
+     */
+    public long getElapsed() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Starts the clock again, the time spent pondering is not counted
+     */
+    public void restart() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * @param count - Number of legal moves in the root position. With one reply there is nothing to think about
+     */
+    public void setRootMoves(int count) {
+        singleReply = count == 1;
+    }
+
+    /**
+     * Adjusts the soft deadline after an iteration
+     * @param bestMove - Best move of the iteration
+     * @param score - Score of the iteration
+     */
+    public void iterationFinished(int bestMove, int score) {
+        if(bestMove == previousBestMove) {
+            stability = Math.min(stability + 1, STABILITY_FACTORS.length - 1);
+        }
+        else {
+            stability = 0;
+        }
+        factor = STABILITY_FACTORS[stability];
+
+        if(previousBestMove != 0 && !Search.isMateScore(score) && !Search.isMateScore(previousScore)) {
+            int drop = Math.min(previousScore - score, MAX_SCORE_DROP);
+            if(drop > 0) {
+                factor *= 1.0 + (double) drop / (2 * MAX_SCORE_DROP);
+            }
+        }
+        previousBestMove = bestMove;
+        previousScore = score;
+    }
+
+    /**
+     * @return - True if no new iteration should be started
+     */
+    public boolean isSoftLimitReached() {
+        if(!isTimed()) {
+            return false;
+        }
+        if(singleReply) {
+            return true;
+        }
+        return getElapsed() >= Math.min(hardLimit, (long) (softLimit * factor));
+    }
+
+    /**
+     * @return - True if the search has to be stopped right now
+     */
+    public boolean isHardLimitReached() {
+        return isTimed() && getElapsed() >= hardLimit;
+    }
+}
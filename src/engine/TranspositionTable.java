@@ -0,0 +1,110 @@
+package engine;
+
+import profiling.TranspositionTableEvent;
+
+import java.util.Arrays;
+
+/**
+ * Hash table of search results shared by every search thread
+ * Each entry is two longs: the position key xor'ed with the data and the data itself.
+ * Threads write without locking, so an entry torn by two simultaneous writes fails the key check
+ * instead of returning data that belongs to a different position
+ * Data layout: move (bits 0-11), depth (bits 12-19), bound (bits 20-21), score (bits 32-63)
+ */
+public class TranspositionTable {
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+    public static final int DEFAULT_SIZE_MB = 16;
+    private static final int ENTRY_SIZE = 2 * Long.BYTES;
+
+    private long[] keys;
+    private long[] data;
+    private int mask;
+
+    /**
+     * @param sizeMb - Size of the table in megabytes
+     */
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Changes the size of the table. Every entry is lost
+     * @param sizeMb - Size of the table in megabytes
+     */
+    public void resize(int sizeMb) {
+        TranspositionTableEvent event = new TranspositionTableEvent();
+        event.begin();
+        long entries = Math.max(1, (long) sizeMb * 1024 * 1024 / ENTRY_SIZE);
+        int size = Integer.highestOneBit((int) Math.min(1 << 30, entries));
+        keys = new long[size];
+        data = new long[size];
+        mask = size - 1;
+        commit(event, TranspositionTableEvent.RESIZE);
+    }
+
+    /**
+     * Removes every entry
+     */
+    public void clear() {
+        TranspositionTableEvent event = new TranspositionTableEvent();
+        event.begin();
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        commit(event, TranspositionTableEvent.CLEAR);
+    }
+
+    private void commit(TranspositionTableEvent event, String operation) {
+        event.end();
+        if(event.shouldCommit()) {
+            event.set(operation, (long) keys.length * ENTRY_SIZE, keys.length);
+            event.commit();
+        }
+    }
+
+    /**
+     * Looks up a position
+     * @param key - Key of the position
+     * @return - Data of the entry or 0 if the position isn't in the table
+     */
+    public long probe(long key) {
+        int index = (int) key & mask;
+        long entry = data[index];
+        if((keys[index] ^ entry) == key) {
+            return entry;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position, replacing whatever was stored in its slot
+     * @param key - Key of the position
+     * @param move - Best move found or Move.NONE
+     * @param score - Score of the position
+     * @param depth - Depth the position was searched to
+     * @param bound - EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        long entry = (move & 0xFFFL) | ((long) (depth & 0xFF) << 12) | ((long) bound << 20) | ((long) score << 32);
+        data[index] = entry;
+        keys[index] = key ^ entry;
+    }
+
+    public static int getMove(long entry) {
+        return (int) (entry & 0xFFF);
+    }
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 12) & 0xFF);
+    }
+
+    public static int getBound(long entry) {
+        return (int) ((entry >>> 20) & 0x3);
+    }
+
+    public static int getScore(long entry) {
+        return (int) (entry >> 32);
+    }
+}
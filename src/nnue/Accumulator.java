@@ -0,0 +1,181 @@
+package nnue;
+
+import GameFiles.Board;
+import utils.Constants;
+import utils.PieceCode;
+
+import java.util.Arrays;
+
+/**
+ * Feature transformer output of the positions of one board, kept up to date move by move
+ * Attached to a board, it gets told of every move played and undone, see Board.setAccumulator(). Every move pushes
+ * a new pair of accumulators computed from the one below by adding and subtracting the weights of the changed
+ * features, undoing a move pops it again, so the stack follows the undo stack of the board
+ * Pushing only records the move. The accumulators are computed when a position is evaluated, so the many moves
+ * that are played just to test their legality cost next to nothing
+ * Each stack entry holds the white perspective followed by the black perspective
+ */
+public class Accumulator {
+    private static final int INITIAL_DEPTH = 128;
+    private static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+    private static final int PLANE_SIZE = Constants.PieceType.values().length * NUM_SQUARES;
+
+    private final Network network;
+    private final int hiddenSize;
+    private short[][] stack;
+    // Move that led to each entry: piece code, old position, new position and captured code, 6 bits apiece
+    private int[] moves;
+    private boolean[] computed;
+    private int top;
+
+    /**
+     * @param network - Network whose feature transformer is used
+     */
+    public Accumulator(Network network) {
+        this.network = network;
+        hiddenSize = network.getHiddenSize();
+        stack = new short[INITIAL_DEPTH][];
+        stack[0] = new short[2 * hiddenSize];
+        moves = new int[INITIAL_DEPTH];
+        computed = new boolean[INITIAL_DEPTH];
+        top = 0;
+    }
+
+    /**
+     * Computes the accumulators of the position of the board from scratch and empties the stack
+     * @param board - Board with the position
+     */
+    public void refresh(Board board) {
+        top = 0;
+        computed[0] = true;
+        short[] accumulator = stack[0];
+        short[] biases = network.getFeatureBiases();
+        System.arraycopy(biases, 0, accumulator, 0, hiddenSize);
+        System.arraycopy(biases, 0, accumulator, hiddenSize, hiddenSize);
+        for(Constants.Color color : Constants.Color.values()) {
+            for(int i = 0; i < board.getNumPieces(color); i++) {
+                int square = board.getPieceSquare(color, i);
+                int code = board.getPieceCode(square);
+                add(accumulator, 0, getFeature(code, square, Constants.Color.WHITE));
+                add(accumulator, hiddenSize, getFeature(code, square, Constants.Color.BLACK));
+            }
+        }
+    }
+
+    /**
+     * Pushes the accumulators of the position after a move
+     * @param code - Code of the moving piece, see utils.PieceCode
+     * @param oldPosition - Square the piece leaves
+     * @param newPosition - Square the piece moves to
+     * @param captured - Code of the captured piece or PieceCode.EMPTY
+     */
+    public void push(int code, int oldPosition, int newPosition, int captured) {
+        if(top + 1 == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+            moves = Arrays.copyOf(moves, stack.length);
+            computed = Arrays.copyOf(computed, stack.length);
+        }
+        top++;
+        moves[top] = code | oldPosition << 6 | newPosition << 12 | captured << 18;
+        computed[top] = false;
+    }
+
+    /**
+     * Returns to the accumulators of the position before the last move
+     * @return - False if the stack was empty, i.e. the move was played before the accumulator was refreshed
+     */
+    public boolean pop() {
+        if(top == 0) {
+            return false;
+        }
+        top--;
+        return true;
+    }
+
+    /**
+     * @param sideToMove - Color of the side to move
+     * @return - Score of the current position in centipawns from the point of view of the side to move
+     */
+    public int evaluate(Constants.Color sideToMove) {
+        short[] accumulator = update();
+        int us = sideToMove == Constants.Color.WHITE ? 0 : hiddenSize;
+        return network.evaluate(accumulator, us, accumulator, hiddenSize - us);
+    }
+
+    /**
+     * @param perspective - Color whose accumulator is wanted
+     * @return - Copy of the accumulator of the current position
+     */
+    public short[] getValues(Constants.Color perspective) {
+        int offset = perspective == Constants.Color.WHITE ? 0 : hiddenSize;
+        return Arrays.copyOfRange(update(), offset, offset + hiddenSize);
+    }
+
+    /**
+     * @param code - Code of a piece
+     * @param square - Square of the piece
+     * @param perspective - Color from whose side the board is seen
+     * @return - Index of the input feature, the board is mirrored for black so that both see their pieces at the bottom
+     */
+    static int getFeature(int code, int square, Constants.Color perspective) {
+        int relativeColor = PieceCode.getColor(code) == perspective ? 0 : 1;
+        int relativeSquare = perspective == Constants.Color.WHITE ? square : square ^ (NUM_SQUARES - Constants.NUM_COLS);
+        return relativeColor * PLANE_SIZE + PieceCode.getTypeIndex(code) * NUM_SQUARES + relativeSquare;
+    }
+
+    /**
+     * Computes the accumulators of the moves pushed since the last computed entry
+     * @return - Accumulators of the current position
+     */
+    private short[] update() {
+        int computedTop = top;
+        while(!computed[computedTop]) {
+            computedTop--;
+        }
+        for(int i = computedTop + 1; i <= top; i++) {
+            if(stack[i] == null) {
+                stack[i] = new short[2 * hiddenSize];
+            }
+            int move = moves[i];
+            int code = move & 0x3F;
+            int oldPosition = (move >>> 6) & 0x3F;
+            int newPosition = (move >>> 12) & 0x3F;
+            int captured = move >>> 18;
+            for(Constants.Color perspective : Constants.Color.values()) {
+                int offset = perspective == Constants.Color.WHITE ? 0 : hiddenSize;
+                int removed = getFeature(code, oldPosition, perspective) * hiddenSize;
+                int added = getFeature(code, newPosition, perspective) * hiddenSize;
+                if(captured == PieceCode.EMPTY) {
+                    update(stack[i - 1], stack[i], offset, added, removed);
+                }
+                else {
+                    update(stack[i - 1], stack[i], offset, added, removed, getFeature(captured, newPosition, perspective) * hiddenSize);
+                }
+            }
+            computed[i] = true;
+        }
+        return stack[top];
+    }
+
+    private void add(short[] accumulator, int offset, int feature) {
+        short[] weights = network.getFeatureWeights();
+        int row = feature * hiddenSize;
+        for(int i = 0; i < hiddenSize; i++) {
+            accumulator[offset + i] += weights[row + i];
+        }
+    }
+
+    private void update(short[] previous, short[] next, int offset, int added, int removed) {
+        short[] weights = network.getFeatureWeights();
+        for(int i = 0; i < hiddenSize; i++) {
+            next[offset + i] = (short) (previous[offset + i] + weights[added + i] - weights[removed + i]);
+        }
+    }
+
+    private void update(short[] previous, short[] next, int offset, int added, int removed, int capturedRemoved) {
+        short[] weights = network.getFeatureWeights();
+        for(int i = 0; i < hiddenSize; i++) {
+            next[offset + i] = (short) (previous[offset + i] + weights[added + i] - weights[removed + i] - weights[capturedRemoved + i]);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package nnue;
+
+import engine.Search;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Weights of an efficiently updatable neural network evaluation with one hidden layer
+ * The input features are (piece color relative to the perspective, piece type, square) for both perspectives.
+ * The feature transformer turns them into one accumulator of int16 values per perspective, which is kept up to date
+ * move by move, see Accumulator. The output layer takes both accumulators, side to move first, through a clipped ReLU
+ * File layout, little endian: magic "NNUE", hidden size (int32), feature weights (int16, feature-major),
+ * feature biases (int16), output weights (int16, side to move first), output bias (int32)
+ */
+public class Network {
+    public static final int NUM_FEATURES = 2 * Constants.PieceType.values().length * Constants.NUM_ROWS * Constants.NUM_COLS;
+    public static final int MAGIC = 0x45554E4E;
+    // Accumulator values are clipped to [0, QA], output weights are scaled by QB
+    static final int QA = 255;
+    static final int QB = 64;
+    // Centipawns of an output of 1.0
+    static final int SCALE = 400;
+    // Scores fit the int16 entries of the evaluation cache and stay below the mate scores of the search
+    static final int MAX_SCORE = Math.min(Short.MAX_VALUE, Search.MATE - Search.MAX_MATE_PLY - 1);
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final int hiddenSize;
+    private final short[] featureWeights;
+    private final short[] featureBiases;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    /**
+     * @param hiddenSize - Number of values of each accumulator
+     * @param featureWeights - NUM_FEATURES rows of hiddenSize weights
+     * @param featureBiases - Starting values of the accumulators
+     * @param outputWeights - Weights of the side to move followed by the weights of the other side
+     * @param outputBias - Bias of the output
+     */
+    public Network(int hiddenSize, short[] featureWeights, short[] featureBiases, short[] outputWeights, int outputBias) {
+        if(featureWeights.length != NUM_FEATURES * hiddenSize || featureBiases.length != hiddenSize || outputWeights.length != 2 * hiddenSize) {
+            throw new IllegalArgumentException("Weights don't match hidden size " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Reads the weights of a network file by mapping it into memory
+     * The weights are copied out of the mapping once so the evaluation runs over plain arrays
+     * @param file - Network file
+     * @return - The network of the file
+     * @throws IOException - If the file can't be read or isn't a network file
+     */
+    public static Network load(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if(size < HEADER_SIZE) {
+                throw new IOException("Not a network file: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int magic = buffer.getInt();
+            int hiddenSize = buffer.getInt();
+            if(magic != MAGIC || hiddenSize <= 0 || size != getFileSize(hiddenSize)) {
+                throw new IOException("Not a network file: " + file);
+            }
+            short[] featureWeights = new short[NUM_FEATURES * hiddenSize];
+            short[] featureBiases = new short[hiddenSize];
+            short[] outputWeights = new short[2 * hiddenSize];
+            buffer.asShortBuffer().get(featureWeights).get(featureBiases).get(outputWeights);
+            buffer.position(buffer.position() + 2 * (featureWeights.length + featureBiases.length + outputWeights.length));
+            return new Network(hiddenSize, featureWeights, featureBiases, outputWeights, buffer.getInt());
+        }
+    }
+
+    /**
+     * Writes the weights in the format read by load()
+     * @param file - Network file, replaced if it exists
+     * @throws IOException - If writing fails
+     */
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) getFileSize(hiddenSize)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(hiddenSize);
+        for(short[] weights : new short[][] {featureWeights, featureBiases, outputWeights}) {
+            for(short weight : weights) {
+                buffer.putShort(weight);
+            }
+        }
+        buffer.putInt(outputBias);
+        buffer.flip();
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while(buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static long getFileSize(int hiddenSize) {
+        return HEADER_SIZE + 2L * ((long) NUM_FEATURES * hiddenSize + 3L * hiddenSize) + Integer.BYTES;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    short[] getFeatureWeights() {
+        return featureWeights;
+    }
+
+    short[] getFeatureBiases() {
+        return featureBiases;
+    }
+
+    /**
+     * Runs the output layer
+     * @param us - Accumulator of the side to move
+     * @param usOffset - Index of its first value
+     * @param them - Accumulator of the other side
+     * @param themOffset - Index of its first value
+     * @return - Score in centipawns from the point of view of the side to move, clamped to MAX_SCORE
+     */
+    int evaluate(short[] us, int usOffset, short[] them, int themOffset) {
+        // Plain loops over int16 arrays, which the JIT compiles to vector instructions
+        // A product fits 24 bits, so large hidden layers with extreme weights would overflow an int sum
+        long sum = 0;
+        for(int i = 0; i < hiddenSize; i++) {
+            sum += Math.min(Math.max(us[usOffset + i], 0), QA) * outputWeights[i];
+        }
+        for(int i = 0; i < hiddenSize; i++) {
+            sum += Math.min(Math.max(them[themOffset + i], 0), QA) * outputWeights[hiddenSize + i];
+        }
+        long score = (sum + outputBias) * SCALE / (QA * QB);
+        return (int) Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+    }
+}
@@ -107,7 +107,8 @@ public class Bishop extends Piece {
         int row = convertToCoordinates(currentPosition)[Constants.ROW];
         int col = convertToCoordinates(currentPosition)[Constants.COLUMN];
 
-        int maxMovement = Math.max(Math.min(Constants.NUM_ROWS - row, Constants.NUM_COLS - col), Math.min(row - 0, col - 0));
+        // A diagonal can be as long as the board. Positions that fall off the board are rejected while adding them
+        int maxMovement = Math.max(Constants.NUM_ROWS, Constants.NUM_COLS) - 1;
 
         for(int i = 1; i < maxMovement + 1; i++) {
             possibleDirections.add(new Integer[]{row + i, col + i});
@@ -122,4 +123,9 @@ public class Bishop extends Piece {
     public String toString() {
         return "BISHOP";
     }
+
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.BISHOP;
+    }
 }
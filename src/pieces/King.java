@@ -62,6 +62,11 @@ public class King extends Piece {
         return "KING";
     }
 
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.KING;
+    }
+
     /**
      * Return a list of all possible positions the piece can move to given the current state of the game
      * @param board - The board on which the current game is being played
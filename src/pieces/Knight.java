@@ -85,4 +85,9 @@ public class Knight extends Piece {
         return "KNIGHT";
     }
 
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.KNIGHT;
+    }
+
 }
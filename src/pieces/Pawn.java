@@ -150,4 +150,9 @@ public class Pawn extends Piece {
     public String toString() {
         return "PAWN";
     }
+
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.PAWN;
+    }
 }
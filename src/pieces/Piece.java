@@ -2,14 +2,12 @@ package pieces;
 
 
 import GameFiles.Board;
-import GameFiles.Game;
-import GameFiles.Player;
+import profiling.MoveValidationEvent;
 import utils.Constants;
 import utils.Utils;
 
 import java.util.ArrayList;
 
-import static utils.ErrorMessages.NO_PLAYER;
 import static utils.Utils.convertToCoordinates;
 import static utils.Utils.convertToPosition;
 import static utils.Utils.getOpposingColor;
@@ -28,9 +26,6 @@ public abstract class Piece {
         this.color = color;
         this.position = position;
         firstMove = true;
-        Player player = Game.getPlayer(color);
-        if(player != null)
-            player.addPiece(this);
     }
 
     /**
@@ -41,65 +36,50 @@ public abstract class Piece {
      * @return - True if the piece is moved else False
      */
     public boolean movePiece(Board board, int newPosition) {
-        if(isValidMove(board, newPosition)) {
-            // Move piece and update position on board
-            firstMove = false;
-            Piece capturedPiece = board.movePiece(this, newPosition);
-            try {
-                Game.getPlayer(this.color).addCapturedPiece(capturedPiece);
-            }
-            catch (NullPointerException npe) {
-                System.err.println(NO_PLAYER);
-            }
-            // If moving piece is causing the current player to get checked
-            // or player is already checked and current move doesn't block it
-            // undo the move
-            if(isGettingChecked(board)) {
-                board.undoLastMove();
-                return false;
-            }
-            // Player isn't getting checked
-            // If the player was previously checked, moving this piece has blocked the check
-            // Set the checked property of the player to false
-            else {
-                Game.getPlayer(color).setChecked(false);
-            }
-            if(isChecking(board)) {
-                Constants.Color opposingColor = getOpposingColor(color);
-                Game.getPlayer(opposingColor).setChecked(true);
-            }
-            return true;
+        MoveValidationEvent event = new MoveValidationEvent();
+        event.begin();
+        int oldPosition = position;
+        boolean moved = validateAndMove(board, newPosition);
+        event.end();
+        if(event.shouldCommit()) {
+            event.set(color + " " + getType(), Utils.convertToSquareName(oldPosition), Utils.convertToSquareName(newPosition), moved);
+            event.commit();
         }
-        return false;
+        return moved;
     }
 
-    public boolean movePiece(Board board, int newRow, int newCol) {
-        return movePiece(board, Utils.convertToPosition(newRow, newCol));
+    private boolean validateAndMove(Board board, int newPosition) {
+        if(!isValidMove(board, newPosition)) {
+            return false;
+        }
+        // Try the move on the board first, moves that leave the own king in check are never played
+        board.makeMove(position, newPosition);
+        boolean gettingChecked = isGettingChecked(board);
+        board.undoLastMove();
+        if(gettingChecked) {
+            return false;
+        }
+        playLegalMove(board, newPosition);
+        return true;
     }
 
     /**
-     * Checks if moving the piece causes the opposing player to get checked
+     * Moves the piece without validating the move, which must be legal, e.g. one of the legal moves of the board
      * @param board - The board on which the current game is being played
-     * @return - True if the opposing player is getting checked else False
+     * @param newPosition - The position to which the player moves the piece
      */
-    private boolean isChecking(Board board) {
-
+    public void playLegalMove(Board board, int newPosition) {
+        Piece capturedPiece = board.movePiece(this, newPosition);
+        board.getPlayer(color).addCapturedPiece(capturedPiece);
+        board.getPlayer(color).setChecked(false);
         Constants.Color opposingColor = getOpposingColor(color);
-
-        // Check if king position can be attacked by current piece in next turn
-        // If yes, set checked value of opposing player
-        int oppKingPosition = board.getKingPosition(opposingColor);
-        boolean causingCheck = isValidMove(board, oppKingPosition);
-        if(!causingCheck) {
-            // If the current piece isn't causing a check, check if any other piece is
-            for(Piece piece : Game.getPlayer(color).getPieces()) {
-                if(piece.isValidMove(board, oppKingPosition)) {
-                    return true;
-                }
-            }
-            return false;
+        if(board.isInCheck(opposingColor)) {
+            board.getPlayer(opposingColor).setChecked(true);
         }
-        return true;
+    }
+
+    public boolean movePiece(Board board, int newRow, int newCol) {
+        return movePiece(board, Utils.convertToPosition(newRow, newCol));
     }
 
     /**
@@ -109,15 +89,17 @@ public abstract class Piece {
      * @return - True if the current player is getting checked given the pieces on the board, else False
      */
     protected boolean isGettingChecked(Board board) {
-        // Check every opponent piece and see if they can possibly attack the king
-        Constants.Color opposingColor = getOpposingColor(color);
-        ArrayList<Piece> opposingPieces = Game.getPlayer(opposingColor).getPieces();
-        for(Piece piece : opposingPieces) {
-            if(piece.isChecking(board)) {
-                return true;
-            }
-        }
-        return false;
+        return board.isInCheck(color);
+    }
+
+    /**
+     * Checks if the piece attacks an occupied position, i.e. could capture the piece standing on it
+     * @param board - The board on which the current game is being played
+     * @param position - Position of the piece that may be attacked
+     * @return - True if the piece attacks the position else False
+     */
+    public boolean isAttacking(Board board, int position) {
+        return isValidMove(board, position);
     }
 
     protected int getRow() {
@@ -181,6 +163,27 @@ public abstract class Piece {
         return position;
     }
 
+    /**
+     * @return - True if the piece hasn't been moved yet else False
+     */
+    public boolean isFirstMove() {
+        return firstMove;
+    }
+
+    /**
+     * Set whether the piece is yet to make its first move
+     * Used by the board while moving pieces and undoing moves
+     * @param firstMove - Value of firstMove
+     */
+    public void setFirstMove(boolean firstMove) {
+        this.firstMove = firstMove;
+    }
+
+    /**
+     * @return - Type of the piece
+     */
+    public abstract Constants.PieceType getType();
+
     /**
      * Return a list of all possible positions the piece can move to given the current state of the game
      * @param board - The board on which the current game is being played
@@ -103,4 +103,9 @@ public class Queen extends Piece {
     public String toString() {
         return "QUEEN";
     }
+
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.QUEEN;
+    }
 }
@@ -128,4 +128,9 @@ public class Rook extends Piece {
     public String toString() {
         return "ROOK";
     }
+
+    @Override
+    public Constants.PieceType getType() {
+        return Constants.PieceType.ROOK;
+    }
 }
@@ -0,0 +1,34 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a check of the state of a game, lasting as long as the check
+ */
+@Name("chess.GameState")
+@Label("Game State")
+@Category({"Chess", "Game"})
+@Description("Check for check, checkmate, stalemate and draws by Game.getGameState")
+@Enabled(false)
+@StackTrace(false)
+public class GameStateEvent extends jdk.jfr.Event {
+    @Label("Side To Move")
+    private String sideToMove;
+
+    @Label("State")
+    private String state;
+
+    /**
+     * @param sideToMove - Color of the player whose turn it is
+     * @param state - State of the game
+     */
+    public void set(String sideToMove, String state) {
+        this.sideToMove = sideToMove;
+        this.state = state;
+    }
+}
@@ -0,0 +1,45 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a move of a piece that took longer than the threshold to validate and play
+ */
+@Name("chess.MoveValidation")
+@Label("Move Validation")
+@Category({"Chess", "Game"})
+@Description("Validation and playing of a move by Player.movePiece or Piece.movePiece")
+@Enabled(false)
+@Threshold("1 ms")
+public class MoveValidationEvent extends jdk.jfr.Event {
+    @Label("Piece")
+    private String piece;
+
+    @Label("From")
+    private String from;
+
+    @Label("To")
+    private String to;
+
+    @Label("Valid")
+    @Description("True if the move was played")
+    private boolean valid;
+
+    /**
+     * @param piece - Color and type of the piece
+     * @param from - Square the piece stood on
+     * @param to - Square the piece should move to
+     * @param valid - True if the move was played
+     */
+    public void set(String piece, String from, String to, boolean valid) {
+        this.piece = piece;
+        this.from = from;
+        this.to = to;
+        this.valid = valid;
+    }
+}
@@ -0,0 +1,52 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of one completed iteration of a search thread, lasting as long as the iteration
+ */
+@Name("chess.SearchIteration")
+@Label("Search Iteration")
+@Category({"Chess", "Search"})
+@Description("Iteration of the iterative deepening search of one thread")
+@Enabled(false)
+@StackTrace(false)
+public class SearchIterationEvent extends jdk.jfr.Event {
+    @Label("Worker")
+    @Description("Number of the search thread, 0 for the main thread")
+    private int worker;
+
+    @Label("Depth")
+    private int depth;
+
+    @Label("Score")
+    @Description("Score in centipawns from the point of view of the side to move")
+    private int score;
+
+    @Label("Nodes")
+    @Description("Positions searched by all threads since the search started")
+    private long nodes;
+
+    @Label("Best Move")
+    private String bestMove;
+
+    /**
+     * @param worker - Number of the search thread
+     * @param depth - Depth of the iteration
+     * @param score - Score of the iteration
+     * @param nodes - Positions searched so far
+     * @param bestMove - Best move of the iteration in coordinate notation
+     */
+    public void set(int worker, int depth, int score, long nodes, String bestMove) {
+        this.worker = worker;
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.bestMove = bestMove;
+    }
+}
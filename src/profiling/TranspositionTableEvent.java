@@ -0,0 +1,42 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a resize or clear of a transposition table, lasting as long as the operation
+ */
+@Name("chess.TranspositionTable")
+@Label("Transposition Table")
+@Category({"Chess", "Search"})
+@Description("Resize or clear of a transposition table")
+@Enabled(false)
+public class TranspositionTableEvent extends jdk.jfr.Event {
+    public static final String RESIZE = "resize";
+    public static final String CLEAR = "clear";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Size")
+    @DataAmount
+    private long size;
+
+    @Label("Entries")
+    private int entries;
+
+    /**
+     * @param operation - RESIZE or CLEAR
+     * @param size - Size of the table in bytes
+     * @param entries - Number of entries of the table
+     */
+    public void set(String operation, long size, int entries) {
+        this.operation = operation;
+        this.size = size;
+        this.entries = entries;
+    }
+}
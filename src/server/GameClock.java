@@ -0,0 +1,88 @@
+package server;
+
+import utils.Constants;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chess clock of one game. The clock of white starts running when the game is created
+ */
+public class GameClock {
+    private long whiteRemaining;
+    private long blackRemaining;
+    private long increment;
+    private Constants.Color running;
+    private long turnStart;
+
+    /**
+     * @param initialMillis - Time each player starts with
+     * @param incrementMillis - Time added after every move
+     * @param now - Current time from System.nanoTime()
+     */
+    public GameClock(long initialMillis, long incrementMillis, long now) {
+        whiteRemaining = TimeUnit.MILLISECONDS.toNanos(initialMillis);
+        blackRemaining = whiteRemaining;
+        increment = TimeUnit.MILLISECONDS.toNanos(incrementMillis);
+        running = Constants.Color.WHITE;
+        turnStart = now;
+    }
+
+    /**
+     * @param color - Color of the player
+     * @param now - Current time from System.nanoTime()
+     * @return - Time left on the clock of the player in milliseconds
+     */
+    public synchronized long getRemaining(Constants.Color color, long now) {
+        long remaining = color == Constants.Color.WHITE ? whiteRemaining : blackRemaining;
+        if(color == running) {
+            remaining -= now - turnStart;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(remaining);
+    }
+
+    /**
+     * @param now - Current time from System.nanoTime()
+     * @return - True if the player to move has run out of time
+     */
+    public synchronized boolean isFlagged(long now) {
+        return running != null && getRemaining(running, now) <= 0;
+    }
+
+    /**
+     * Stops the clock of the player who just moved and starts the clock of the opponent
+     * @param color - Color of the player who moved
+     * @param now - Current time from System.nanoTime()
+     * @return - False if the player had already run out of time
+     */
+    public synchronized boolean press(Constants.Color color, long now) {
+        long remaining = (color == Constants.Color.WHITE ? whiteRemaining : blackRemaining) - (now - turnStart);
+        if(remaining <= 0) {
+            return false;
+        }
+        remaining += increment;
+        if(color == Constants.Color.WHITE) {
+            whiteRemaining = remaining;
+            running = Constants.Color.BLACK;
+        }
+        else {
+            blackRemaining = remaining;
+            running = Constants.Color.WHITE;
+        }
+        turnStart = now;
+        return true;
+    }
+
+    /**
+     * Stops both clocks when the game is over
+     * @param now - Current time from System.nanoTime()
+     */
+    public synchronized void stop(long now) {
+        if(running == Constants.Color.WHITE) {
+            whiteRemaining -= now - turnStart;
+        }
+        else if(running == Constants.Color.BLACK) {
+            blackRemaining -= now - turnStart;
+        }
+        running = null;
+    }
+}
@@ -0,0 +1,139 @@
+package server;
+
+import utils.Constants;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts many games at once
+ * The requests of every session run on virtual threads where the runtime has them, otherwise on a pool with one
+ * thread per processor. A timer sweeps the registry for players who ran out of time without moving
+ */
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_SHARDS = 64;
+    private static final long SWEEP_INTERVAL_MILLIS = 100;
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final SessionRegistry registry;
+    private final AtomicLong nextId;
+
+    public GameServer() {
+        this(DEFAULT_SHARDS);
+    }
+
+    /**
+     * @param numShards - Number of shards of the session registry
+     */
+    public GameServer(int numShards) {
+        executor = createExecutor();
+        registry = new SessionRegistry(numShards);
+        nextId = new AtomicLong(1);
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "clock-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::sweepClocks, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts a new game in the starting position
+     * @param initialMillis - Time each player starts with
+     * @param incrementMillis - Time added after every move
+     * @return - Id of the new session
+     */
+    public long createGame(long initialMillis, long incrementMillis) {
+        GameSession session = new GameSession(nextId.getAndIncrement(), initialMillis, incrementMillis, executor);
+        registry.add(session);
+        return session.getId();
+    }
+
+    /**
+     * @param id - Id of the session
+     * @return - Session or null if there is no session with the id
+     */
+    public GameSession getSession(long id) {
+        return registry.get(id);
+    }
+
+    /**
+     * Passes a move on to its session
+     * @param id - Id of the session
+     * @param color - Color of the player making the move
+     * @param move - Encoded move
+     * @return - Completed with the answer once the move has been validated
+     */
+    public CompletableFuture<MoveResult> submitMove(long id, Constants.Color color, int move) {
+        GameSession session = registry.get(id);
+        if(session == null) {
+            return CompletableFuture.completedFuture(MoveResult.UNKNOWN_GAME);
+        }
+        return session.submitMove(color, move);
+    }
+
+    /**
+     * Removes a session from the server, aborting the game if it is still ongoing
+     * @param id - Id of the session
+     */
+    public void closeGame(long id) {
+        GameSession session = registry.remove(id);
+        if(session != null) {
+            session.abort();
+        }
+    }
+
+    /**
+     * @return - Number of sessions hosted
+     */
+    public int getNumGames() {
+        return registry.size();
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sweepClocks() {
+        long now = System.nanoTime();
+        for(int shard = 0; shard < registry.getNumShards(); shard++) {
+            registry.forEachInShard(shard, session -> {
+                if(session.isFlagged(now)) {
+                    session.checkClock();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return - Executor starting a virtual thread per task if the runtime supports it
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        }
+        catch(ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "game-session");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package server;
+
+import GameFiles.Game;
+import utils.Constants;
+import utils.Move;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static utils.Utils.getOpposingColor;
+
+/**
+ * One game hosted by the server
+ * Requests are queued in a mailbox and handled one after the other by a task on the server executor, so the game
+ * itself is never touched by two threads at once and an idle game doesn't hold a thread
+ */
+public class GameSession {
+
+    public enum Status {
+        ONGOING, CHECKMATE, STALEMATE, DRAW, TIMEOUT, ABORTED
+    }
+
+    private final long id;
+    private final Game game;
+    private final GameClock clock;
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<Runnable> mailbox;
+    private final AtomicBoolean scheduled;
+    private volatile Status status;
+    private volatile Constants.Color winner;
+    private volatile int moveCount;
+
+    /**
+     * @param id - Id of the session
+     * @param initialMillis - Time each player starts with
+     * @param incrementMillis - Time added after every move
+     * @param executor - Executor running the requests of the session
+     */
+    GameSession(long id, long initialMillis, long incrementMillis, Executor executor) {
+        this.id = id;
+        this.executor = executor;
+        game = new Game();
+        clock = new GameClock(initialMillis, incrementMillis, System.nanoTime());
+        mailbox = new ConcurrentLinkedQueue<>();
+        scheduled = new AtomicBoolean(false);
+        status = Status.ONGOING;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return - Color of the winner or null if the game is ongoing or drawn
+     */
+    public Constants.Color getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return - Number of half moves played
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @param color - Color of the player
+     * @return - Time left on the clock of the player in milliseconds
+     */
+    public long getRemaining(Constants.Color color) {
+        return clock.getRemaining(color, System.nanoTime());
+    }
+
+    /**
+     * Queues a move of a player
+     * @param color - Color of the player making the move
+     * @param move - Encoded move
+     * @return - Completed with the answer once the move has been validated
+     */
+    public CompletableFuture<MoveResult> submitMove(Constants.Color color, int move) {
+        CompletableFuture<MoveResult> result = new CompletableFuture<>();
+        post(() -> {
+            try {
+                result.complete(applyMove(color, move));
+            }
+            catch(RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Queues a check whether the player to move has run out of time
+     */
+    void checkClock() {
+        post(() -> {
+            long now = System.nanoTime();
+            if(status == Status.ONGOING && clock.isFlagged(now)) {
+                finish(Status.TIMEOUT, getOpposingColor(game.getCurrentColor()), now);
+            }
+        });
+    }
+
+    /**
+     * Ends the game without a result
+     */
+    void abort() {
+        post(() -> {
+            if(status == Status.ONGOING) {
+                finish(Status.ABORTED, null, System.nanoTime());
+            }
+        });
+    }
+
+    /**
+     * @param now - Current time from System.nanoTime()
+     * @return - True if the game is ongoing and the player to move has run out of time
+     */
+    boolean isFlagged(long now) {
+        return status == Status.ONGOING && clock.isFlagged(now);
+    }
+
+    private MoveResult applyMove(Constants.Color color, int move) {
+        if(status != Status.ONGOING) {
+            return MoveResult.GAME_OVER;
+        }
+        if(color != game.getCurrentColor()) {
+            return MoveResult.NOT_YOUR_TURN;
+        }
+        long now = System.nanoTime();
+        if(clock.isFlagged(now)) {
+            finish(Status.TIMEOUT, getOpposingColor(color), now);
+            return MoveResult.FLAGGED;
+        }
+        if(!game.makeMove(Move.getOldPosition(move), Move.getNewPosition(move))) {
+            return MoveResult.ILLEGAL;
+        }
+        clock.press(color, now);
+        moveCount++;
+
+        Game.GameState state = game.getGameState();
+        if(state == Game.GameState.CHECKMATE) {
+            finish(Status.CHECKMATE, color, now);
+        }
+        else if(state == Game.GameState.STALEMATE) {
+            finish(Status.STALEMATE, null, now);
+        }
+        else if(state != Game.GameState.ONGOING && state != Game.GameState.CHECK) {
+            // Repetition, fifty moves or insufficient material
+            finish(Status.DRAW, null, now);
+        }
+        return MoveResult.ACCEPTED;
+    }
+
+    private void finish(Status newStatus, Constants.Color newWinner, long now) {
+        clock.stop(now);
+        winner = newWinner;
+        status = newStatus;
+    }
+
+    private void post(Runnable request) {
+        mailbox.add(request);
+        if(scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Handles every queued request. Only one drain of a session runs at a time
+     */
+    private void drain() {
+        Runnable request;
+        while((request = mailbox.poll()) != null) {
+            request.run();
+        }
+        scheduled.set(false);
+        // A request may have been queued after the last poll but before the flag was cleared
+        if(!mailbox.isEmpty() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package server;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of latencies in microseconds
+ * Values below 256 are counted exactly, larger values in buckets that are at most 1% wide
+ */
+public class LatencyHistogram {
+    private static final int EXACT = 256;
+    private static final int SUB_BUCKETS = 128;
+    private static final int MAX_SHIFT = 48;
+
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(EXACT + MAX_SHIFT * SUB_BUCKETS);
+    }
+
+    /**
+     * @param micros - Latency in microseconds
+     */
+    public void record(long micros) {
+        counts.incrementAndGet(getIndex(Math.max(0, micros)));
+    }
+
+    /**
+     * @return - Number of recorded values
+     */
+    public long getCount() {
+        long count = 0;
+        for(int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param percentile - Percentile between 0 and 100
+     * @return - Smallest value such that the percentile of the recorded values is at most as large, 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        long count = getCount();
+        if(count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for(int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if(seen >= target) {
+                return getUpperValue(i);
+            }
+        }
+        return getUpperValue(counts.length() - 1);
+    }
+
+    private static int getIndex(long value) {
+        if(value < EXACT) {
+            return (int) value;
+        }
+        // Shift the value so that it falls between SUB_BUCKETS and 2 * SUB_BUCKETS
+        int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - 7, MAX_SHIFT);
+        long mantissa = Math.min(value >>> shift, 2 * SUB_BUCKETS - 1);
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (mantissa - SUB_BUCKETS);
+    }
+
+    private static long getUpperValue(int index) {
+        if(index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long mantissa = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
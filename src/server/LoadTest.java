@@ -0,0 +1,169 @@
+package server;
+
+import GameFiles.Board;
+import engine.MoveGenerator;
+import utils.Constants;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many random games against the server at the same time and reports how long move validation takes
+ * Every simulated client keeps its own board and sends the next move as soon as the previous one was accepted
+ */
+public class LoadTest {
+
+    private final GameServer server;
+    private final ExecutorService clients;
+    private final LatencyHistogram latencies;
+    private final AtomicLong accepted;
+    private final AtomicLong rejected;
+    private final int plies;
+    private CountDownLatch finished;
+
+    /**
+     * @param server - Server under test
+     * @param clientThreads - Threads choosing the moves of the simulated clients
+     * @param plies - Number of half moves played per game at most
+     */
+    public LoadTest(GameServer server, int clientThreads, int plies) {
+        this.server = server;
+        this.plies = plies;
+        clients = Executors.newFixedThreadPool(clientThreads);
+        latencies = new LatencyHistogram();
+        accepted = new AtomicLong();
+        rejected = new AtomicLong();
+    }
+
+    /**
+     * Starts all games at once and waits until every game has ended
+     * @param games - Number of simultaneous games
+     * @param initialMillis - Clock of each player
+     * @param seed - Seed of the random moves
+     */
+    public void run(int games, long initialMillis, long seed) throws InterruptedException {
+        finished = new CountDownLatch(games);
+        Random seeds = new Random(seed);
+        long[] ids = new long[games];
+        for(int i = 0; i < games; i++) {
+            ids[i] = server.createGame(initialMillis, 0);
+        }
+        for(int i = 0; i < games; i++) {
+            Client client = new Client(ids[i], new Random(seeds.nextLong()));
+            clients.execute(client::sendMove);
+        }
+        finished.await();
+        for(long id : ids) {
+            server.closeGame(id);
+        }
+        clients.shutdown();
+    }
+
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Simulated player for both sides of one game
+     */
+    private class Client {
+        private final long id;
+        private final Random random;
+        private final Board board;
+        private final int[] moves;
+        private int played;
+
+        Client(long id, Random random) {
+            this.id = id;
+            this.random = random;
+            board = new Board();
+            moves = new int[MoveGenerator.MAX_MOVES];
+        }
+
+        void sendMove() {
+            int count = MoveGenerator.generateMoves(board, moves);
+            if(count == 0 || played >= plies) {
+                finished.countDown();
+                return;
+            }
+            int move = moves[random.nextInt(count)];
+            Constants.Color color = board.getSideToMove();
+            long start = System.nanoTime();
+            CompletableFuture<MoveResult> answer = server.submitMove(id, color, move);
+            // Measured where the session completes the answer, before the client thinks about its next move
+            answer.whenComplete((result, error) -> latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start)));
+            answer.whenCompleteAsync((result, error) -> {
+                if(error == null && result == MoveResult.ACCEPTED) {
+                    accepted.incrementAndGet();
+                    MoveGenerator.makeMove(board, move);
+                    played++;
+                    sendMove();
+                }
+                else {
+                    rejected.incrementAndGet();
+                    finished.countDown();
+                }
+            }, clients);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int games = 10_000;
+        int plies = 40;
+        long initialMillis = 600_000;
+        int shards = GameServer.DEFAULT_SHARDS;
+        int clientThreads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "-plies":
+                    plies = Integer.parseInt(args[++i]);
+                    break;
+                case "-time":
+                    initialMillis = Long.parseLong(args[++i]);
+                    break;
+                case "-shards":
+                    shards = Integer.parseInt(args[++i]);
+                    break;
+                case "-clients":
+                    clientThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    System.err.println("Usage: LoadTest [-games n] [-plies n] [-time ms] [-shards n] [-clients n] [-seed n]");
+                    return;
+            }
+        }
+
+        try(GameServer server = new GameServer(shards)) {
+            LoadTest test = new LoadTest(server, clientThreads, plies);
+            long start = System.nanoTime();
+            test.run(games, initialMillis, seed);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LatencyHistogram latencies = test.getLatencies();
+            System.out.println("Games: " + games + ", moves accepted: " + test.getAccepted() + ", rejected: " + test.getRejected()
+                    + ", time: " + millis + " ms, moves/s: " + (millis > 0 ? test.getAccepted() * 1000 / millis : 0));
+            System.out.println("Move validation latency p50: " + latencies.getPercentile(50) + " us, p99: "
+                    + latencies.getPercentile(99) + " us, max: " + latencies.getPercentile(100) + " us");
+        }
+    }
+}
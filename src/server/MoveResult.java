@@ -0,0 +1,8 @@
+package server;
+
+/**
+ * Answer of the server to a submitted move
+ */
+public enum MoveResult {
+    ACCEPTED, ILLEGAL, NOT_YOUR_TURN, FLAGGED, GAME_OVER, UNKNOWN_GAME
+}
@@ -0,0 +1,77 @@
+package server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sessions of the server, spread over several maps by id
+ * Every shard can be swept on its own, so the clock sweep doesn't walk one huge map
+ */
+public class SessionRegistry {
+    private final ConcurrentHashMap<Long, GameSession>[] shards;
+    private final int mask;
+
+    /**
+     * @param numShards - Number of shards, rounded up to a power of two
+     */
+    public SessionRegistry(int numShards) {
+        int size = Integer.highestOneBit(Math.max(1, numShards - 1) << 1);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentHashMap<Long, GameSession>[] shards = new ConcurrentHashMap[size];
+        this.shards = shards;
+        for(int i = 0; i < size; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+        mask = size - 1;
+    }
+
+    public void add(GameSession session) {
+        getShard(session.getId()).put(session.getId(), session);
+    }
+
+    /**
+     * @param id - Id of the session
+     * @return - Session or null if there is no session with the id
+     */
+    public GameSession get(long id) {
+        return getShard(id).get(id);
+    }
+
+    /**
+     * @param id - Id of the session
+     * @return - Removed session or null if there is no session with the id
+     */
+    public GameSession remove(long id) {
+        return getShard(id).remove(id);
+    }
+
+    /**
+     * @return - Number of sessions in all shards
+     */
+    public int size() {
+        int size = 0;
+        for(ConcurrentHashMap<Long, GameSession> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    public int getNumShards() {
+        return shards.length;
+    }
+
+    /**
+     * Calls the action for every session of one shard
+     * @param shard - Index of the shard
+     * @param action - Action called for every session
+     */
+    public void forEachInShard(int shard, Consumer<GameSession> action) {
+        shards[shard].values().forEach(action);
+    }
+
+    private ConcurrentHashMap<Long, GameSession> getShard(long id) {
+        // Spread the bits so consecutive ids land in different shards
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return shards[(int) (hash >>> 32) & mask];
+    }
+}
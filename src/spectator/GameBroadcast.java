@@ -0,0 +1,248 @@
+package spectator;
+
+import GameFiles.Board;
+import GameFiles.MoveListener;
+import GameFiles.PackedPosition;
+import utils.Constants;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Publishes the moves of one game to its spectators
+ * The moves are appended to a log by the thread playing the game. Everything sent to spectators is sent by the
+ * writer thread of the shard of the game, which serializes every frame once and hands the same frame to every
+ * spectator that needs it. A spectator is only a position in the log and its demand, so spectators cost the same
+ * however far behind they are: a spectator that asks for a frame gets all moves it missed in one batch, and one that
+ * missed more than MAX_CATCH_UP moves, or just subscribed, gets a snapshot of the position instead
+ */
+public class GameBroadcast implements Flow.Publisher<SpectatorFrame>, MoveListener {
+    public static final int MAX_CATCH_UP = 64;
+    private static final int INITIAL_MOVES = 256;
+
+    private final long gameId;
+    private final SpectatorShard shard;
+    private final Queue<Spectator> spectators;
+    private final AtomicBoolean scheduled;
+    private final long startTime;
+    private volatile ToLongFunction<Constants.Color> clock;
+    private volatile boolean closed;
+    // Guarded by this, written by the thread playing the game
+    private long[] moves;
+    private int numMoves;
+    private PackedPosition position;
+
+    GameBroadcast(long gameId, Board board, SpectatorShard shard) {
+        this.gameId = gameId;
+        this.shard = shard;
+        spectators = new ConcurrentLinkedQueue<>();
+        scheduled = new AtomicBoolean();
+        startTime = System.nanoTime();
+        moves = new long[INITIAL_MOVES];
+        position = PackedPosition.encode(board);
+    }
+
+    /**
+     * @param clock - Gives the clock of a player in milliseconds after the player moved,
+     *                by default the milliseconds since the broadcast started
+     */
+    public void setClock(ToLongFunction<Constants.Color> clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void moveMade(Board board, int oldPosition, int newPosition, int captured) {
+        ToLongFunction<Constants.Color> clock = this.clock;
+        long millis = clock != null ? clock.applyAsLong(Constants.Color.values()[1 - board.getSideToMove().ordinal()])
+                : (System.nanoTime() - startTime) / 1_000_000;
+        long delta = MoveDelta.encode(oldPosition, newPosition, captured, millis);
+        PackedPosition packed = PackedPosition.encode(board);
+        synchronized(this) {
+            if(numMoves == moves.length) {
+                moves = Arrays.copyOf(moves, numMoves * 2);
+            }
+            moves[numMoves++] = delta;
+            position = packed;
+        }
+        schedule();
+    }
+
+    /**
+     * Adds a spectator. The first frame it receives is a snapshot of the current position
+     * @param subscriber - The spectator
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super SpectatorFrame> subscriber) {
+        Spectator spectator = new Spectator(subscriber);
+        // Frames are only sent on demand, which can't come before onSubscribe
+        spectators.add(spectator);
+        subscriber.onSubscribe(spectator);
+    }
+
+    /**
+     * Ends the broadcast. Spectators are completed as soon as they have received every move
+     */
+    public void close() {
+        closed = true;
+        schedule();
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * @return - Number of moves broadcast so far
+     */
+    public synchronized int getNumMoves() {
+        return numMoves;
+    }
+
+    /**
+     * @return - Number of spectators that haven't cancelled or been completed
+     */
+    public int getNumSpectators() {
+        return spectators.size();
+    }
+
+    /**
+     * Asks the writer thread of the shard to send what spectators are waiting for
+     */
+    private void schedule() {
+        if(scheduled.compareAndSet(false, true)) {
+            shard.schedule(this);
+        }
+    }
+
+    /**
+     * Sends pending frames to every spectator with demand, only called by the writer thread of the shard
+     */
+    void publish() {
+        scheduled.set(false);
+        long[] log;
+        int end;
+        PackedPosition current;
+        synchronized(this) {
+            log = moves;
+            end = numMoves;
+            current = position;
+        }
+        boolean finished = closed;
+        SpectatorFrame snapshot = null;
+        // Spectators that are equally far behind share the batch
+        HashMap<Integer, SpectatorFrame> batches = new HashMap<>();
+        Iterator<Spectator> iterator = spectators.iterator();
+        while(iterator.hasNext()) {
+            Spectator spectator = iterator.next();
+            if(spectator.cancelled) {
+                iterator.remove();
+                continue;
+            }
+            if(spectator.invalidRequest) {
+                spectator.cancelled = true;
+                iterator.remove();
+                spectator.fail(new IllegalArgumentException("Spectators must request a positive number of frames"));
+                continue;
+            }
+            while(spectator.next != end && spectator.demand.get() > 0 && !spectator.cancelled) {
+                SpectatorFrame frame;
+                if(spectator.next < 0 || end - spectator.next > MAX_CATCH_UP) {
+                    if(snapshot == null) {
+                        snapshot = SpectatorFrame.snapshot(end, current);
+                    }
+                    frame = snapshot;
+                }
+                else {
+                    final int from = spectator.next;
+                    frame = batches.computeIfAbsent(from, key -> SpectatorFrame.moves(log, from, end));
+                }
+                spectator.next = end;
+                spectator.demand.decrementAndGet();
+                spectator.deliver(frame);
+            }
+            if(finished && spectator.next == end && !spectator.cancelled) {
+                spectator.cancelled = true;
+                iterator.remove();
+                spectator.complete();
+            }
+        }
+    }
+
+    /**
+     * Subscription of one spectator. Its position in the log is only touched by the writer thread
+     */
+    private final class Spectator implements Flow.Subscription {
+        private final Flow.Subscriber<? super SpectatorFrame> subscriber;
+        private final AtomicLong demand;
+        private volatile boolean cancelled;
+        private volatile boolean invalidRequest;
+        // Sequence of the next move to send, -1 until the first snapshot
+        private int next;
+
+        Spectator(Flow.Subscriber<? super SpectatorFrame> subscriber) {
+            this.subscriber = subscriber;
+            demand = new AtomicLong();
+            next = -1;
+        }
+
+        @Override
+        public void request(long n) {
+            if(n <= 0) {
+                invalidRequest = true;
+            }
+            else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Spectators that throw are dropped, they can't be sent anything else
+         */
+        private void deliver(SpectatorFrame frame) {
+            try {
+                subscriber.onNext(frame);
+            }
+            catch(Throwable throwable) {
+                cancelled = true;
+            }
+        }
+
+        /**
+         * Ends the subscription with an error. The spectator is already dropped, so a throwing one is ignored
+         */
+        private void fail(Throwable error) {
+            try {
+                subscriber.onError(error);
+            }
+            catch(Throwable throwable) {
+                // Nothing else is sent to it
+            }
+        }
+
+        /**
+         * Ends the subscription normally. The spectator is already dropped, so a throwing one is ignored
+         */
+        private void complete() {
+            try {
+                subscriber.onComplete();
+            }
+            catch(Throwable throwable) {
+                // Nothing else is sent to it
+            }
+        }
+    }
+}
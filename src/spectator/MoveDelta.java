@@ -0,0 +1,47 @@
+package spectator;
+
+/**
+ * Move of a broadcast game encoded in a long
+ * Bits 0-5 hold the old position, bits 6-11 the new position, bits 12-15 the code of the captured piece
+ * (see utils.PieceCode) and bits 16-47 the clock in milliseconds
+ */
+public class MoveDelta {
+    public static final int BYTES = Long.BYTES;
+    private static final int TO_SHIFT = 6;
+    private static final int CAPTURED_SHIFT = 12;
+    private static final int CLOCK_SHIFT = 16;
+    private static final long CLOCK_MASK = 0xFFFFFFFFL;
+
+    /**
+     * @param oldPosition - Position the piece moved from
+     * @param newPosition - Position the piece moved to
+     * @param captured - Code of the captured piece or PieceCode.EMPTY
+     * @param clock - Clock in milliseconds, kept modulo 2^32
+     * @return - Encoded move
+     */
+    public static long encode(int oldPosition, int newPosition, int captured, long clock) {
+        return oldPosition | (long) newPosition << TO_SHIFT | (long) captured << CAPTURED_SHIFT | (clock & CLOCK_MASK) << CLOCK_SHIFT;
+    }
+
+    public static int getOldPosition(long delta) {
+        return (int) delta & 0x3F;
+    }
+
+    public static int getNewPosition(long delta) {
+        return (int) (delta >>> TO_SHIFT) & 0x3F;
+    }
+
+    /**
+     * @return - Code of the captured piece or PieceCode.EMPTY
+     */
+    public static int getCaptured(long delta) {
+        return (int) (delta >>> CAPTURED_SHIFT) & 0xF;
+    }
+
+    /**
+     * @return - Clock in milliseconds
+     */
+    public static long getClock(long delta) {
+        return (delta >>> CLOCK_SHIFT) & CLOCK_MASK;
+    }
+}
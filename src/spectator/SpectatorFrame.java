@@ -0,0 +1,105 @@
+package spectator;
+
+import GameFiles.PackedPosition;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Message sent to spectators, serialized once and shared by every spectator it is sent to
+ * A frame starts with its type (byte) and sequence (int), the number of moves played before it. A snapshot then
+ * holds the position as a PackedPosition, a batch of moves the number of moves (short) and the moves as MoveDelta
+ * longs. All numbers are little endian
+ */
+public final class SpectatorFrame {
+    public static final byte SNAPSHOT = 0;
+    public static final byte MOVES = 1;
+    public static final ByteOrder ORDER = PackedPosition.ORDER;
+    private static final int HEADER_BYTES = Byte.BYTES + Integer.BYTES;
+    private static final int COUNT_OFFSET = HEADER_BYTES;
+    private static final int MOVES_OFFSET = HEADER_BYTES + Short.BYTES;
+
+    // Read-only, handed out as views so that nothing is copied per spectator
+    private final ByteBuffer buffer;
+
+    private SpectatorFrame(ByteBuffer buffer) {
+        this.buffer = buffer.asReadOnlyBuffer().order(ORDER);
+    }
+
+    /**
+     * @param sequence - Number of moves played before the position
+     * @param position - The position
+     * @return - Frame with the position
+     */
+    static SpectatorFrame snapshot(int sequence, PackedPosition position) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + PackedPosition.BYTES).order(ORDER);
+        buffer.put(SNAPSHOT).putInt(sequence);
+        position.write(buffer);
+        return new SpectatorFrame(buffer.flip());
+    }
+
+    /**
+     * @param moves - Moves of the game, the move with sequence i at index i
+     * @param from - Sequence of the first move of the batch
+     * @param to - Sequence after the last move of the batch
+     * @return - Frame with the moves
+     */
+    static SpectatorFrame moves(long[] moves, int from, int to) {
+        ByteBuffer buffer = ByteBuffer.allocate(MOVES_OFFSET + (to - from) * MoveDelta.BYTES).order(ORDER);
+        buffer.put(MOVES).putInt(from).putShort((short) (to - from));
+        for(int i = from; i < to; i++) {
+            buffer.putLong(moves[i]);
+        }
+        return new SpectatorFrame(buffer.flip());
+    }
+
+    /**
+     * @return - View of the serialized frame with its own position and limit, the bytes themselves are shared
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.duplicate().order(ORDER);
+    }
+
+    /**
+     * @return - Number of bytes of the serialized frame
+     */
+    public int getSize() {
+        return buffer.limit();
+    }
+
+    /**
+     * @return - SNAPSHOT or MOVES
+     */
+    public byte getType() {
+        return buffer.get(0);
+    }
+
+    /**
+     * @return - Number of moves played before the frame
+     */
+    public int getSequence() {
+        return buffer.getInt(Byte.BYTES);
+    }
+
+    /**
+     * @return - Position of a snapshot
+     */
+    public PackedPosition getPosition() {
+        return PackedPosition.read(getBuffer().position(HEADER_BYTES));
+    }
+
+    /**
+     * @return - Number of moves of a batch, 0 for a snapshot
+     */
+    public int getMoveCount() {
+        return getType() == MOVES ? buffer.getShort(COUNT_OFFSET) & 0xFFFF : 0;
+    }
+
+    /**
+     * @param index - Index of the move within the batch
+     * @return - The move as MoveDelta
+     */
+    public long getMove(int index) {
+        return buffer.getLong(MOVES_OFFSET + index * MoveDelta.BYTES);
+    }
+}
@@ -0,0 +1,48 @@
+package spectator;
+
+import GameFiles.Board;
+
+/**
+ * Broadcasts games to spectators. Games are spread over a fixed number of shards, each with a single writer thread
+ * that sends the frames of all its games, so the number of threads doesn't grow with games or spectators
+ */
+public class SpectatorHub implements AutoCloseable {
+    private final SpectatorShard[] shards;
+
+    /**
+     * @param shards - Number of writer threads
+     */
+    public SpectatorHub(int shards) {
+        this.shards = new SpectatorShard[Math.max(1, shards)];
+        for(int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new SpectatorShard(i);
+        }
+    }
+
+    /**
+     * Starts broadcasting the moves played on a board with Board.movePiece()
+     * @param gameId - Identifier of the game, chooses the shard
+     * @param board - Board of the game, its move listener is set to the broadcast
+     * @return - Publisher that spectators subscribe to
+     */
+    public GameBroadcast open(long gameId, Board board) {
+        int shard = (int) Math.floorMod(gameId ^ (gameId >>> 32), (long) shards.length);
+        GameBroadcast broadcast = new GameBroadcast(gameId, board, shards[shard]);
+        board.setMoveListener(broadcast);
+        return broadcast;
+    }
+
+    public int getNumShards() {
+        return shards.length;
+    }
+
+    /**
+     * Stops the writer threads, frames not sent yet are dropped
+     */
+    @Override
+    public void close() {
+        for(SpectatorShard shard : shards) {
+            shard.shutdown();
+        }
+    }
+}
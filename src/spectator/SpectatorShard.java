@@ -0,0 +1,48 @@
+package spectator;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Writer thread of a group of games, the only thread that sends frames to the spectators of those games
+ */
+class SpectatorShard implements Runnable {
+    private final BlockingQueue<GameBroadcast> pending;
+    private final Thread thread;
+
+    SpectatorShard(int index) {
+        pending = new LinkedBlockingQueue<>();
+        thread = new Thread(this, "spectator-shard-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @param broadcast - Game whose spectators are waiting for frames, queued once until it is published
+     */
+    void schedule(GameBroadcast broadcast) {
+        pending.add(broadcast);
+    }
+
+    void shutdown() {
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while(true) {
+                GameBroadcast broadcast = pending.take();
+                try {
+                    broadcast.publish();
+                }
+                catch(RuntimeException e) {
+                    // One broken game must not stop the broadcasts of the other games of the shard
+                }
+            }
+        }
+        catch(InterruptedException e) {
+            // Hub closed
+        }
+    }
+}
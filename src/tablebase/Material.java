@@ -0,0 +1,195 @@
+package tablebase;
+
+import utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Pieces of an endgame, e.g. KQKR is a king and queen against a king and rook
+ * Besides the kings, the pieces of each side are kept sorted strongest first
+ * A tablebase is generated only for the canonical material where the stronger side is white,
+ * the other material is probed by swapping the colors
+ */
+public class Material {
+    private static final String PIECE_LETTERS = "PNBRQK";
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 0};
+
+    private Constants.PieceType[] whitePieces;
+    private Constants.PieceType[] blackPieces;
+
+    /**
+     * @param whitePieces - White pieces besides the king
+     * @param blackPieces - Black pieces besides the king
+     */
+    public Material(Constants.PieceType[] whitePieces, Constants.PieceType[] blackPieces) {
+        this.whitePieces = sorted(whitePieces);
+        this.blackPieces = sorted(blackPieces);
+    }
+
+    /**
+     * Parses the name of an endgame
+     * @param name - Name of the endgame, e.g. KRBKR
+     * @return - Material of the endgame
+     * @throws IllegalArgumentException - If the name doesn't describe two kings with other pieces
+     */
+    public static Material fromName(String name) {
+        String upper = name.toUpperCase();
+        int blackKing = upper.indexOf('K', 1);
+        if(upper.isEmpty() || upper.charAt(0) != 'K' || blackKing == -1) {
+            throw new IllegalArgumentException("Invalid endgame: " + name);
+        }
+        return new Material(parsePieces(upper.substring(1, blackKing), name), parsePieces(upper.substring(blackKing + 1), name));
+    }
+
+    private static Constants.PieceType[] parsePieces(String letters, String name) {
+        Constants.PieceType[] pieces = new Constants.PieceType[letters.length()];
+        for(int i = 0; i < letters.length(); i++) {
+            int type = PIECE_LETTERS.indexOf(letters.charAt(i));
+            if(type == -1 || type == Constants.PieceType.KING.ordinal()) {
+                throw new IllegalArgumentException("Invalid endgame: " + name);
+            }
+            pieces[i] = Constants.PieceType.values()[type];
+        }
+        return pieces;
+    }
+
+    /**
+     * @param color - Color of the side
+     * @return - Pieces of the side besides the king, strongest first
+     */
+    public Constants.PieceType[] getPieces(Constants.Color color) {
+        return color == Constants.Color.WHITE ? whitePieces : blackPieces;
+    }
+
+    /**
+     * @return - Number of pieces including both kings
+     */
+    public int getNumPieces() {
+        return 2 + whitePieces.length + blackPieces.length;
+    }
+
+    /**
+     * @return - True if either side has a pawn
+     */
+    public boolean hasPawns() {
+        for(Constants.PieceType type : whitePieces) {
+            if(type == Constants.PieceType.PAWN) {
+                return true;
+            }
+        }
+        for(Constants.PieceType type : blackPieces) {
+            if(type == Constants.PieceType.PAWN) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return - True if the stronger side (or either side if they are equal) is white
+     */
+    public boolean isCanonical() {
+        return compareSides(whitePieces, blackPieces) >= 0;
+    }
+
+    /**
+     * @return - Material with the colors swapped
+     */
+    public Material flip() {
+        return new Material(blackPieces, whitePieces);
+    }
+
+    /**
+     * @return - This material if it is canonical else the material with the colors swapped
+     */
+    public Material canonical() {
+        return isCanonical() ? this : flip();
+    }
+
+    /**
+     * Returns every material that can be reached by capturing one piece
+     * @return - Canonical materials reachable by a single capture, without duplicates
+     */
+    public ArrayList<Material> getCaptures() {
+        ArrayList<Material> captures = new ArrayList<>();
+        for(Constants.Color color : Constants.Color.values()) {
+            Constants.PieceType[] pieces = getPieces(color);
+            for(int i = 0; i < pieces.length; i++) {
+                Constants.PieceType[] remaining = new Constants.PieceType[pieces.length - 1];
+                for(int j = 0, k = 0; j < pieces.length; j++) {
+                    if(j != i) {
+                        remaining[k++] = pieces[j];
+                    }
+                }
+                Material capture = color == Constants.Color.WHITE
+                        ? new Material(remaining, blackPieces) : new Material(whitePieces, remaining);
+                capture = capture.canonical();
+                if(!captures.contains(capture)) {
+                    captures.add(capture);
+                }
+            }
+        }
+        return captures;
+    }
+
+    /**
+     * @return - Name of the endgame, e.g. KQKR
+     */
+    public String getName() {
+        StringBuilder name = new StringBuilder("K");
+        for(Constants.PieceType type : whitePieces) {
+            name.append(PIECE_LETTERS.charAt(type.ordinal()));
+        }
+        name.append('K');
+        for(Constants.PieceType type : blackPieces) {
+            name.append(PIECE_LETTERS.charAt(type.ordinal()));
+        }
+        return name.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Material && getName().equals(((Material) other).getName());
+    }
+
+    @Override
+    public int hashCode() {
+        return getName().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    private static Constants.PieceType[] sorted(Constants.PieceType[] pieces) {
+        Constants.PieceType[] copy = pieces.clone();
+        // Strongest first. Piece types are declared weakest first
+        Arrays.sort(copy, (a, b) -> b.ordinal() - a.ordinal());
+        return copy;
+    }
+
+    /**
+     * Compares the strength of two sides, first by piece values, then by number of pieces and then by the pieces themselves
+     */
+    private static int compareSides(Constants.PieceType[] side1, Constants.PieceType[] side2) {
+        int result = Integer.compare(getValue(side1), getValue(side2));
+        if(result != 0) {
+            return result;
+        }
+        result = Integer.compare(side1.length, side2.length);
+        for(int i = 0; result == 0 && i < side1.length; i++) {
+            result = Integer.compare(side1[i].ordinal(), side2[i].ordinal());
+        }
+        return result;
+    }
+
+    private static int getValue(Constants.PieceType[] pieces) {
+        int value = 0;
+        for(Constants.PieceType type : pieces) {
+            value += PIECE_VALUES[type.ordinal()];
+        }
+        return value;
+    }
+}
@@ -0,0 +1,35 @@
+package tablebase;
+
+import utils.Constants;
+import utils.Rays;
+
+/**
+ * Movement of the pieces on plain square indices, see utils.Rays
+ * The generator visits hundreds of millions of positions, so it can't create Piece objects for each of them
+ */
+class MoveRules {
+    static final int EMPTY = -1;
+    static final int[][][][] RAYS = Rays.RAYS;
+
+    /**
+     * Checks if a piece attacks a square
+     * @param type - Type of the attacking piece
+     * @param from - Square of the attacking piece
+     * @param target - Square that may be attacked
+     * @param slotAt - Slot standing on every square or EMPTY
+     * @return - True if the piece attacks the square
+     */
+    static boolean attacks(Constants.PieceType type, int from, int target, int[] slotAt) {
+        for(int[] ray : RAYS[type.ordinal()][from]) {
+            for(int square : ray) {
+                if(square == target) {
+                    return true;
+                }
+                if(slotAt[square] != EMPTY) {
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package tablebase;
+
+import utils.Constants;
+
+/**
+ * Maps the positions of an endgame to consecutive indices and back
+ * Pieces are kept in slots: white king, black king, the other white pieces and then the other black pieces
+ * Without pawns every position can be mirrored and rotated so that the white king stands in the
+ * triangle a8-d8-d5 (row <= col <= 3), which leaves 10 instead of 64 squares for the first slot
+ * Index = ((side * 10 + king triangle square) * 64 + square of slot 1) * 64 + ... for every other slot
+ * Indices whose position maps to a different index (e.g. transpositions of positions with the white king on
+ * the diagonal) are duplicates and are never used
+ */
+class PositionIndexer {
+    static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+    static final int WHITE_TO_MOVE = 0;
+    static final int BLACK_TO_MOVE = 1;
+    private static final int NUM_TRIANGLE_SQUARES = 10;
+    private static final int[] TRIANGLE_INDEX = new int[NUM_SQUARES];
+    private static final int[] TRIANGLE_SQUARES = new int[NUM_TRIANGLE_SQUARES];
+
+    private static final int MIRROR_COLS = 1;
+    private static final int MIRROR_ROWS = 2;
+    private static final int TRANSPOSE = 4;
+
+    static {
+        int count = 0;
+        for(int square = 0; square < NUM_SQUARES; square++) {
+            int row = square / Constants.NUM_COLS;
+            int col = square % Constants.NUM_COLS;
+            if(row <= col && col <= 3) {
+                TRIANGLE_INDEX[square] = count;
+                TRIANGLE_SQUARES[count] = square;
+                count++;
+            }
+            else {
+                TRIANGLE_INDEX[square] = -1;
+            }
+        }
+    }
+
+    private int numPieces;
+    private Constants.Color[] slotColors;
+    private Constants.PieceType[] slotTypes;
+    private int size;
+
+    /**
+     * @param material - Canonical material of the endgame
+     */
+    PositionIndexer(Material material) {
+        numPieces = material.getNumPieces();
+        slotColors = new Constants.Color[numPieces];
+        slotTypes = new Constants.PieceType[numPieces];
+        slotColors[0] = Constants.Color.WHITE;
+        slotTypes[0] = Constants.PieceType.KING;
+        slotColors[1] = Constants.Color.BLACK;
+        slotTypes[1] = Constants.PieceType.KING;
+        int slot = 2;
+        for(Constants.Color color : new Constants.Color[]{Constants.Color.WHITE, Constants.Color.BLACK}) {
+            for(Constants.PieceType type : material.getPieces(color)) {
+                slotColors[slot] = color;
+                slotTypes[slot] = type;
+                slot++;
+            }
+        }
+
+        long positions = 2L * NUM_TRIANGLE_SQUARES;
+        for(int i = 1; i < numPieces; i++) {
+            positions *= NUM_SQUARES;
+        }
+        if(positions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many pieces: " + material);
+        }
+        size = (int) positions;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getNumPieces() {
+        return numPieces;
+    }
+
+    Constants.Color getColor(int slot) {
+        return slotColors[slot];
+    }
+
+    Constants.PieceType getType(int slot) {
+        return slotTypes[slot];
+    }
+
+    /**
+     * Computes the index of a position. The squares may be in any orientation
+     * @param squares - Square of every slot
+     * @param side - WHITE_TO_MOVE or BLACK_TO_MOVE
+     * @return - Index of the position
+     */
+    int getIndex(int[] squares, int side) {
+        int transform = getTransform(squares[0]);
+        int kingSquare = transform(squares[0], transform);
+        if(kingSquare / Constants.NUM_COLS == kingSquare % Constants.NUM_COLS) {
+            // The king stands on the diagonal, so the position and its transposition both keep it in the triangle.
+            // Choose the one where the first piece off the diagonal is above it, so both get the same index
+            for(int slot = 1; slot < numPieces; slot++) {
+                int square = transform(squares[slot], transform);
+                int row = square / Constants.NUM_COLS;
+                int col = square % Constants.NUM_COLS;
+                if(row != col) {
+                    if(row > col) {
+                        transform |= TRANSPOSE;
+                    }
+                    break;
+                }
+            }
+        }
+        int index = side * NUM_TRIANGLE_SQUARES + TRIANGLE_INDEX[transform(squares[0], transform)];
+        for(int slot = 1; slot < numPieces; slot++) {
+            index = index * NUM_SQUARES + transform(squares[slot], transform);
+        }
+        return index;
+    }
+
+    /**
+     * Computes the squares of the position with the given index
+     * @param index - Index of the position
+     * @param squares - Array that receives the square of every slot
+     * @return - WHITE_TO_MOVE or BLACK_TO_MOVE
+     */
+    int getPosition(int index, int[] squares) {
+        for(int slot = numPieces - 1; slot > 0; slot--) {
+            squares[slot] = index % NUM_SQUARES;
+            index /= NUM_SQUARES;
+        }
+        squares[0] = TRIANGLE_SQUARES[index % NUM_TRIANGLE_SQUARES];
+        return index / NUM_TRIANGLE_SQUARES;
+    }
+
+    /**
+     * Finds the mirroring and rotation that moves the white king into the triangle
+     */
+    private static int getTransform(int kingSquare) {
+        int row = kingSquare / Constants.NUM_COLS;
+        int col = kingSquare % Constants.NUM_COLS;
+        int transform = 0;
+        if(col > 3) {
+            transform |= MIRROR_COLS;
+            col = Constants.NUM_COLS - 1 - col;
+        }
+        if(row > 3) {
+            transform |= MIRROR_ROWS;
+            row = Constants.NUM_ROWS - 1 - row;
+        }
+        if(row > col) {
+            transform |= TRANSPOSE;
+        }
+        return transform;
+    }
+
+    private static int transform(int square, int transform) {
+        int row = square / Constants.NUM_COLS;
+        int col = square % Constants.NUM_COLS;
+        if((transform & MIRROR_COLS) != 0) {
+            col = Constants.NUM_COLS - 1 - col;
+        }
+        if((transform & MIRROR_ROWS) != 0) {
+            row = Constants.NUM_ROWS - 1 - row;
+        }
+        if((transform & TRANSPOSE) != 0) {
+            int temp = row;
+            row = col;
+            col = temp;
+        }
+        return row * Constants.NUM_COLS + col;
+    }
+}
@@ -0,0 +1,268 @@
+package tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Generated tablebase of one endgame, read through memory mapped files
+ * Two files are stored for every endgame:
+ * - NAME.wdl holds win/draw/loss of every position packed into 2 bits
+ * - NAME.dtm holds the value of every position (see the constants below) in blocks compressed with deflate
+ * Values are always from the point of view of the side to move. Distances are counted in half moves,
+ * so an even distance to mate is a loss and an odd distance is a win
+ */
+public class Tablebase {
+    public static final int UNKNOWN = 0;
+    public static final int INVALID = 1;
+    public static final int STALEMATE = 2;
+    public static final int DRAW = 3;
+    public static final int MATE = 4;
+    public static final int MAX_PLIES = 255 - MATE;
+
+    static final int WDL_DRAW = 0;
+    static final int WDL_WIN = 1;
+    static final int WDL_LOSS = 2;
+    static final int WDL_INVALID = 3;
+
+    private static final int WDL_MAGIC = 0x54425744;
+    private static final int DTM_MAGIC = 0x5442444D;
+    private static final int WDL_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int DTM_HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int BLOCK_SIZE = 1 << 16;
+
+    private Material material;
+    private PositionIndexer indexer;
+    private MappedByteBuffer wdl;
+    private MappedByteBuffer dtm;
+    private int numBlocks;
+    private ThreadLocal<BlockCache> blockCache;
+
+    /**
+     * Most recently inflated block of every thread, since searches probe nearby positions over and over
+     */
+    private static class BlockCache {
+        int block = -1;
+        byte[] values = new byte[BLOCK_SIZE];
+        Inflater inflater = new Inflater();
+    }
+
+    private Tablebase(Material material, MappedByteBuffer wdl, MappedByteBuffer dtm) throws IOException {
+        this.material = material;
+        indexer = new PositionIndexer(material);
+        this.wdl = wdl;
+        this.dtm = dtm;
+        if(wdl.getInt(0) != WDL_MAGIC || dtm.getInt(0) != DTM_MAGIC || dtm.getInt(Integer.BYTES) != indexer.getSize()) {
+            throw new IOException("Corrupt tablebase: " + material);
+        }
+        numBlocks = dtm.getInt(3 * Integer.BYTES);
+        blockCache = ThreadLocal.withInitial(BlockCache::new);
+    }
+
+    /**
+     * Opens the tablebase of an endgame
+     * @param directory - Directory containing the tablebase files
+     * @param material - Canonical material of the endgame
+     * @return - The tablebase or null if its files don't exist
+     * @throws IOException - If the files can't be mapped
+     */
+    public static Tablebase open(Path directory, Material material) throws IOException {
+        Path wdlFile = getWdlFile(directory, material);
+        Path dtmFile = getDtmFile(directory, material);
+        if(!Files.exists(wdlFile) || !Files.exists(dtmFile)) {
+            return null;
+        }
+        return new Tablebase(material, map(wdlFile), map(dtmFile));
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public Material getMaterial() {
+        return material;
+    }
+
+    PositionIndexer getIndexer() {
+        return indexer;
+    }
+
+    /**
+     * Looks up win/draw/loss of a position without inflating anything
+     * @param index - Index of the position
+     * @return - WDL_DRAW, WDL_WIN, WDL_LOSS or WDL_INVALID
+     */
+    int getWdl(int index) {
+        int packed = wdl.get(WDL_HEADER_SIZE + (index >>> 2));
+        return (packed >>> ((index & 3) * 2)) & 3;
+    }
+
+    /**
+     * Looks up the full value of a position
+     * @param index - Index of the position
+     * @return - Value of the position
+     */
+    int getValue(int index) {
+        BlockCache cache = blockCache.get();
+        int block = index / BLOCK_SIZE;
+        if(cache.block != block) {
+            inflateBlock(block, cache.values, cache.inflater);
+            cache.block = block;
+        }
+        return cache.values[index % BLOCK_SIZE] & 0xFF;
+    }
+
+    /**
+     * Reads the values of every position. Used while generating endgames that can be reached by a capture
+     * @return - Value of every position
+     */
+    byte[] readValues() {
+        byte[] values = new byte[indexer.getSize()];
+        Inflater inflater = new Inflater();
+        byte[] block = new byte[BLOCK_SIZE];
+        for(int i = 0; i < numBlocks; i++) {
+            inflateBlock(i, block, inflater);
+            System.arraycopy(block, 0, values, i * BLOCK_SIZE, Math.min(BLOCK_SIZE, values.length - i * BLOCK_SIZE));
+        }
+        inflater.end();
+        return values;
+    }
+
+    private void inflateBlock(int block, byte[] values, Inflater inflater) {
+        int offsetTable = DTM_HEADER_SIZE;
+        int dataStart = offsetTable + (numBlocks + 1) * Long.BYTES;
+        long start = dtm.getLong(offsetTable + block * Long.BYTES);
+        long end = dtm.getLong(offsetTable + (block + 1) * Long.BYTES);
+        byte[] compressed = new byte[(int) (end - start)];
+        dtm.get((int) (dataStart + start), compressed);
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            inflater.inflate(values);
+        }
+        catch(DataFormatException e) {
+            throw new IllegalStateException("Corrupt tablebase: " + material, e);
+        }
+    }
+
+    /**
+     * Writes the files of a generated endgame
+     * @param directory - Directory of the tablebase files
+     * @param material - Canonical material of the endgame
+     * @param values - Value of every position
+     * @param pool - Pool used to compress the blocks in parallel
+     * @throws IOException - If writing fails
+     */
+    static void write(Path directory, Material material, byte[] values, ForkJoinPool pool) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(getWdlFile(directory, material)), 1 << 16))) {
+            out.writeInt(WDL_MAGIC);
+            out.writeInt(values.length);
+            for(int i = 0; i < values.length; i += 4) {
+                int packed = 0;
+                for(int j = 0; j < 4 && i + j < values.length; j++) {
+                    packed |= toWdl(values[i + j] & 0xFF) << (j * 2);
+                }
+                out.writeByte(packed);
+            }
+        }
+
+        int numBlocks = (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        byte[][] blocks = new byte[numBlocks][];
+        try {
+            pool.submit(() -> IntStream.range(0, numBlocks).parallel().forEach(i -> {
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                int start = i * BLOCK_SIZE;
+                deflater.setInput(values, start, Math.min(BLOCK_SIZE, values.length - start));
+                deflater.finish();
+                byte[] buffer = new byte[BLOCK_SIZE + 64];
+                int length = 0;
+                while(!deflater.finished()) {
+                    if(length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    length += deflater.deflate(buffer, length, buffer.length - length);
+                }
+                deflater.end();
+                blocks[i] = Arrays.copyOf(buffer, length);
+            })).get();
+        }
+        catch(Exception e) {
+            throw new IOException("Compressing " + material + " failed", e);
+        }
+
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(getDtmFile(directory, material)), 1 << 16))) {
+            out.writeInt(DTM_MAGIC);
+            out.writeInt(values.length);
+            out.writeInt(BLOCK_SIZE);
+            out.writeInt(numBlocks);
+            long offset = 0;
+            out.writeLong(offset);
+            for(byte[] block : blocks) {
+                offset += block.length;
+                out.writeLong(offset);
+            }
+            for(byte[] block : blocks) {
+                out.write(block);
+            }
+        }
+    }
+
+    static int toWdl(int value) {
+        if(value == INVALID) {
+            return WDL_INVALID;
+        }
+        if(value < MATE) {
+            return WDL_DRAW;
+        }
+        return isLoss(value) ? WDL_LOSS : WDL_WIN;
+    }
+
+    /**
+     * @param value - Value stored in the tablebase
+     * @return - True if the side to move gets mated
+     */
+    static boolean isLoss(int value) {
+        return value >= MATE && ((value - MATE) & 1) == 0;
+    }
+
+    /**
+     * @param value - Value stored in the tablebase
+     * @return - True if the side to move mates
+     */
+    static boolean isWin(int value) {
+        return value >= MATE && ((value - MATE) & 1) == 1;
+    }
+
+    /**
+     * @param value - Value stored in the tablebase
+     * @return - Number of half moves until mate
+     */
+    static int getPlies(int value) {
+        return value - MATE;
+    }
+
+    static boolean exists(Path directory, Material material) {
+        return Files.exists(getWdlFile(directory, material)) && Files.exists(getDtmFile(directory, material));
+    }
+
+    private static Path getWdlFile(Path directory, Material material) {
+        return directory.resolve(material.getName() + ".wdl");
+    }
+
+    private static Path getDtmFile(Path directory, Material material) {
+        return directory.resolve(material.getName() + ".dtm");
+    }
+}
@@ -0,0 +1,503 @@
+package tablebase;
+
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Generates endgame tablebases by retrograde analysis
+ * 1. Every position is checked once: illegal positions, mates and stalemates are resolved and captures
+ *    into smaller endgames (generated first) are looked up
+ * 2. Level n resolves the positions that are mated or mate in exactly n half moves. Seeds are the positions
+ *    resolved at level n - 1, whose predecessors are found by un-moving the pieces of the side that just moved.
+ *    Only those predecessors, and positions whose captures become decisive at level n, are examined
+ * 3. Positions that are never resolved are draws
+ * Every step runs in parallel over chunks of the index space
+ * Pawns aren't supported since the board doesn't promote them, so pawn endings can never be won
+ */
+public class TablebaseGenerator {
+    public static final int MAX_PIECES = 5;
+    private static final int CHUNK_SIZE = 1 << 14;
+    private static final int REMOVED = -1;
+    private static final int MAX_MOVES = 256;
+
+    private Path directory;
+    private ForkJoinPool pool;
+
+    // State of the endgame being generated
+    private Material material;
+    private PositionIndexer indexer;
+    private byte[] values;
+    private byte[] triggers;
+    private AtomicLongArray candidates;
+    private CaptureTable[] captureTables;
+    private ThreadLocal<Scratch> scratch;
+
+    /**
+     * Table reached by capturing the piece in one slot
+     */
+    private static class CaptureTable {
+        PositionIndexer indexer;
+        // Null when only the kings are left
+        byte[] values;
+        boolean flipped;
+        // Slot in the smaller endgame of every slot of this endgame
+        int[] slotMap;
+    }
+
+    /**
+     * Buffers of one worker thread
+     */
+    private class Scratch {
+        int[] squares = new int[MAX_PIECES];
+        int[] captureSquares = new int[MAX_PIECES];
+        int[] slotAt = new int[PositionIndexer.NUM_SQUARES];
+        int[] childValues = new int[MAX_MOVES];
+        boolean[] childCaptures = new boolean[MAX_MOVES];
+    }
+
+    /**
+     * @param directory - Directory the tablebase files are written to and read from
+     * @param threads - Number of worker threads
+     */
+    public TablebaseGenerator(Path directory, int threads) {
+        this.directory = directory;
+        pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Generates the tablebase of an endgame and of every smaller endgame it can reach by captures
+     * Endgames whose files already exist are skipped
+     * @param material - Material of the endgame
+     * @throws IOException - If reading or writing the files fails
+     */
+    public void generate(Material material) throws IOException {
+        material = material.canonical();
+        if(material.getNumPieces() > MAX_PIECES || material.hasPawns()) {
+            throw new IllegalArgumentException("Only endgames without pawns and with up to " + MAX_PIECES + " pieces are supported: " + material);
+        }
+        if(Tablebase.exists(directory, material)) {
+            return;
+        }
+        for(Material capture : material.getCaptures()) {
+            if(capture.getNumPieces() > 2) {
+                generate(capture);
+            }
+        }
+
+        this.material = material;
+        indexer = new PositionIndexer(material);
+        values = new byte[indexer.getSize()];
+        triggers = new byte[indexer.getSize()];
+        candidates = new AtomicLongArray(indexer.getSize() / Long.SIZE + 1);
+        captureTables = loadCaptureTables();
+        scratch = ThreadLocal.withInitial(Scratch::new);
+
+        AtomicInteger maxTrigger = new AtomicInteger();
+        forEachChunk((start, end) -> {
+            Scratch s = scratch.get();
+            int chunkMaxTrigger = 0;
+            for(int index = start; index < end; index++) {
+                values[index] = (byte) initialize(index, s);
+                chunkMaxTrigger = Math.max(chunkMaxTrigger, triggers[index] & 0xFF);
+            }
+            maxTrigger.accumulateAndGet(chunkMaxTrigger, Math::max);
+        });
+
+        for(int level = 1; ; level++) {
+            if(level > Tablebase.MAX_PLIES) {
+                throw new IllegalStateException("Distance to mate doesn't fit into the tablebase: " + material);
+            }
+            int resolved = resolveLevel(level);
+            if(resolved == 0 && level > maxTrigger.get()) {
+                break;
+            }
+        }
+
+        forEachChunk((start, end) -> {
+            for(int index = start; index < end; index++) {
+                if(values[index] == Tablebase.UNKNOWN) {
+                    values[index] = Tablebase.DRAW;
+                }
+            }
+        });
+
+        Tablebase.write(directory, material, values, pool);
+        values = null;
+        triggers = null;
+        candidates = null;
+        captureTables = null;
+    }
+
+    /**
+     * Marks the predecessors of the positions resolved at the previous level and then examines them
+     * @param level - Number of half moves to mate resolved at this level
+     * @return - Number of positions resolved
+     */
+    private int resolveLevel(int level) throws IOException {
+        int seed = Tablebase.MATE + level - 1;
+        forEachChunk((start, end) -> {
+            Scratch s = scratch.get();
+            for(int index = start; index < end; index++) {
+                if((values[index] & 0xFF) == seed) {
+                    markPredecessors(index, s);
+                }
+                if((triggers[index] & 0xFF) == level) {
+                    mark(index);
+                }
+            }
+        });
+
+        AtomicInteger resolved = new AtomicInteger();
+        forEachChunk((start, end) -> {
+            Scratch s = scratch.get();
+            int count = 0;
+            for(int index = start; index < end; index++) {
+                if(isMarked(index)) {
+                    if(values[index] == Tablebase.UNKNOWN) {
+                        int value = evaluate(index, level, s);
+                        if(value != Tablebase.UNKNOWN) {
+                            values[index] = (byte) value;
+                            count++;
+                        }
+                    }
+                }
+            }
+            // Every chunk clears its own words so the next level starts without marks
+            for(int word = start / Long.SIZE; word <= (end - 1) / Long.SIZE; word++) {
+                candidates.set(word, 0);
+            }
+            resolved.addAndGet(count);
+        });
+        return resolved.get();
+    }
+
+    /**
+     * First look at a position: finds illegal positions, mates, stalemates and the level at which captures into smaller
+     * endgames decide the position
+     * @return - Value of the position or UNKNOWN
+     */
+    private int initialize(int index, Scratch s) {
+        int side = indexer.getPosition(index, s.squares);
+        if(!setupSquares(s) || indexer.getIndex(s.squares, side) != index) {
+            return Tablebase.INVALID;
+        }
+        // The side that just moved can't be in check
+        int otherKing = side == PositionIndexer.WHITE_TO_MOVE ? 1 : 0;
+        if(isAttacked(s, s.squares[otherKing], getColor(side))) {
+            return Tablebase.INVALID;
+        }
+
+        int moves = generateChildValues(s, side);
+        if(moves == 0) {
+            int ownKing = 1 - otherKing;
+            return isAttacked(s, s.squares[ownKing], getColor(1 - side)) ? Tablebase.MATE : Tablebase.STALEMATE;
+        }
+
+        int bestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean captures = false;
+        boolean captureDraws = false;
+        for(int i = 0; i < moves; i++) {
+            if(!s.childCaptures[i]) {
+                continue;
+            }
+            captures = true;
+            int value = s.childValues[i];
+            if(Tablebase.isLoss(value)) {
+                bestWin = Math.min(bestWin, Tablebase.getPlies(value) + 1);
+            }
+            else if(Tablebase.isWin(value)) {
+                longestLoss = Math.max(longestLoss, Tablebase.getPlies(value) + 1);
+            }
+            else {
+                captureDraws = true;
+            }
+        }
+        if(bestWin != Integer.MAX_VALUE) {
+            triggers[index] = (byte) bestWin;
+        }
+        else if(captures && !captureDraws) {
+            triggers[index] = (byte) longestLoss;
+        }
+        return Tablebase.UNKNOWN;
+    }
+
+    /**
+     * Checks if the position mates or gets mated in exactly level half moves
+     * Wins are only possible at odd levels and losses at even levels
+     * @return - Value of the position or UNKNOWN
+     */
+    private int evaluate(int index, int level, Scratch s) {
+        int side = indexer.getPosition(index, s.squares);
+        setupSquares(s);
+        int moves = generateChildValues(s, side);
+        boolean allWins = true;
+        for(int i = 0; i < moves; i++) {
+            int value = s.childValues[i];
+            if(Tablebase.isLoss(value) && Tablebase.getPlies(value) == level - 1) {
+                return Tablebase.MATE + level;
+            }
+            if(!Tablebase.isWin(value) || Tablebase.getPlies(value) > level - 1) {
+                allWins = false;
+            }
+        }
+        if(allWins && level % 2 == 0) {
+            return Tablebase.MATE + level;
+        }
+        return Tablebase.UNKNOWN;
+    }
+
+    /**
+     * Generates every legal move of the side to move and looks up the value of the resulting positions
+     * @return - Number of legal moves
+     */
+    private int generateChildValues(Scratch s, int side) {
+        Constants.Color color = getColor(side);
+        Constants.Color opposingColor = getColor(1 - side);
+        int ownKing = side == PositionIndexer.WHITE_TO_MOVE ? 0 : 1;
+        int moves = 0;
+        for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+            int from = s.squares[slot];
+            if(indexer.getColor(slot) != color || from == REMOVED) {
+                continue;
+            }
+            for(int[] ray : MoveRules.RAYS[indexer.getType(slot).ordinal()][from]) {
+                for(int to : ray) {
+                    int captured = s.slotAt[to];
+                    if(captured != MoveRules.EMPTY && (indexer.getColor(captured) == color || indexer.getType(captured) == Constants.PieceType.KING)) {
+                        break;
+                    }
+
+                    s.slotAt[from] = MoveRules.EMPTY;
+                    s.slotAt[to] = slot;
+                    s.squares[slot] = to;
+                    if(captured != MoveRules.EMPTY) {
+                        s.squares[captured] = REMOVED;
+                    }
+
+                    if(!isAttacked(s, s.squares[ownKing], opposingColor)) {
+                        s.childCaptures[moves] = captured != MoveRules.EMPTY;
+                        s.childValues[moves] = captured == MoveRules.EMPTY
+                                ? values[indexer.getIndex(s.squares, 1 - side)] & 0xFF
+                                : getCaptureValue(s, captured, 1 - side);
+                        moves++;
+                    }
+
+                    s.squares[slot] = from;
+                    s.slotAt[from] = slot;
+                    s.slotAt[to] = captured;
+                    if(captured != MoveRules.EMPTY) {
+                        s.squares[captured] = to;
+                        break;
+                    }
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Marks every position from which the side that just moved could have reached this position without capturing
+     */
+    private void markPredecessors(int index, Scratch s) {
+        int side = indexer.getPosition(index, s.squares);
+        setupSquares(s);
+        int previousSide = 1 - side;
+        Constants.Color color = getColor(previousSide);
+        for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+            if(indexer.getColor(slot) != color) {
+                continue;
+            }
+            int from = s.squares[slot];
+            for(int[] ray : MoveRules.RAYS[indexer.getType(slot).ordinal()][from]) {
+                for(int to : ray) {
+                    if(s.slotAt[to] != MoveRules.EMPTY) {
+                        break;
+                    }
+                    s.squares[slot] = to;
+                    mark(indexer.getIndex(s.squares, previousSide));
+                }
+            }
+            s.squares[slot] = from;
+        }
+    }
+
+    /**
+     * Looks up a position reached by a capture in the smaller endgame
+     */
+    private int getCaptureValue(Scratch s, int captured, int side) {
+        CaptureTable table = captureTables[captured];
+        if(table.values == null) {
+            return Tablebase.DRAW;
+        }
+        for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+            if(slot != captured) {
+                s.captureSquares[table.slotMap[slot]] = s.squares[slot];
+            }
+        }
+        int captureSide = table.flipped ? 1 - side : side;
+        return table.values[table.indexer.getIndex(s.captureSquares, captureSide)] & 0xFF;
+    }
+
+    /**
+     * Fills slotAt from squares
+     * @return - False if two pieces stand on the same square
+     */
+    private boolean setupSquares(Scratch s) {
+        Arrays.fill(s.slotAt, MoveRules.EMPTY);
+        for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+            if(s.slotAt[s.squares[slot]] != MoveRules.EMPTY) {
+                return false;
+            }
+            s.slotAt[s.squares[slot]] = slot;
+        }
+        return true;
+    }
+
+    private boolean isAttacked(Scratch s, int square, Constants.Color byColor) {
+        for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+            if(indexer.getColor(slot) == byColor && s.squares[slot] != REMOVED
+                    && MoveRules.attacks(indexer.getType(slot), s.squares[slot], square, s.slotAt)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the smaller endgame reached by capturing each slot and maps the slots onto it
+     */
+    private CaptureTable[] loadCaptureTables() throws IOException {
+        CaptureTable[] tables = new CaptureTable[indexer.getNumPieces()];
+        for(int captured = 2; captured < indexer.getNumPieces(); captured++) {
+            ArrayList<Constants.PieceType> white = new ArrayList<>();
+            ArrayList<Constants.PieceType> black = new ArrayList<>();
+            for(int slot = 2; slot < indexer.getNumPieces(); slot++) {
+                if(slot != captured) {
+                    (indexer.getColor(slot) == Constants.Color.WHITE ? white : black).add(indexer.getType(slot));
+                }
+            }
+            Material capture = new Material(white.toArray(new Constants.PieceType[0]), black.toArray(new Constants.PieceType[0]));
+            CaptureTable table = new CaptureTable();
+            table.flipped = !capture.isCanonical();
+            capture = capture.canonical();
+            table.indexer = new PositionIndexer(capture);
+            table.slotMap = new int[indexer.getNumPieces()];
+            if(capture.getNumPieces() > 2) {
+                Tablebase tablebase = Tablebase.open(directory, capture);
+                if(tablebase == null) {
+                    throw new IOException("Missing tablebase: " + capture);
+                }
+                table.values = tablebase.readValues();
+            }
+
+            boolean[] used = new boolean[table.indexer.getNumPieces()];
+            for(int slot = 0; slot < indexer.getNumPieces(); slot++) {
+                if(slot == captured) {
+                    continue;
+                }
+                Constants.Color color = indexer.getColor(slot);
+                if(table.flipped) {
+                    color = color == Constants.Color.WHITE ? Constants.Color.BLACK : Constants.Color.WHITE;
+                }
+                for(int captureSlot = 0; captureSlot < used.length; captureSlot++) {
+                    if(!used[captureSlot] && table.indexer.getColor(captureSlot) == color && table.indexer.getType(captureSlot) == indexer.getType(slot)) {
+                        used[captureSlot] = true;
+                        table.slotMap[slot] = captureSlot;
+                        break;
+                    }
+                }
+            }
+            tables[captured] = table;
+        }
+        return tables;
+    }
+
+    private static Constants.Color getColor(int side) {
+        return side == PositionIndexer.WHITE_TO_MOVE ? Constants.Color.WHITE : Constants.Color.BLACK;
+    }
+
+    private void mark(int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << (index % Long.SIZE);
+        long old;
+        do {
+            old = candidates.get(word);
+            if((old & bit) != 0) {
+                return;
+            }
+        } while(!candidates.compareAndSet(word, old, old | bit));
+    }
+
+    private boolean isMarked(int index) {
+        return (candidates.get(index / Long.SIZE) & (1L << (index % Long.SIZE))) != 0;
+    }
+
+    private interface ChunkTask {
+        void run(int start, int end);
+    }
+
+    /**
+     * Runs the task on every chunk of the index space in parallel. Chunks are a multiple of 64 positions so that
+     * no two chunks share a word of the candidate bitset
+     */
+    private void forEachChunk(ChunkTask task) throws IOException {
+        int size = indexer.getSize();
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        try {
+            pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .forEach(chunk -> task.run(chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE)))).get();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Generating " + material + " was interrupted", e);
+        }
+        catch(ExecutionException e) {
+            throw new IOException("Generating " + material + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Usage: TablebaseGenerator [-d directory] [-threads n] KQK KRK KQKR...
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(".");
+        int threads = Runtime.getRuntime().availableProcessors();
+        ArrayList<Material> endgames = new ArrayList<>();
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-d":
+                    directory = Paths.get(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    endgames.add(Material.fromName(args[i]));
+            }
+        }
+        if(endgames.isEmpty()) {
+            System.err.println("Usage: TablebaseGenerator [-d directory] [-threads n] KQK KRK KQKR...");
+            System.exit(1);
+        }
+
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory, threads);
+        for(Material endgame : endgames) {
+            long start = System.nanoTime();
+            generator.generate(endgame);
+            System.out.println(endgame.canonical() + " done in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package tablebase;
+
+/**
+ * Outcome of a position found in a tablebase, from the point of view of the side to move
+ */
+public class TablebaseResult {
+
+    public enum Wdl {
+        WIN, DRAW, LOSS
+    }
+
+    private Wdl wdl;
+    private int plies;
+    private boolean stalemate;
+
+    /**
+     * @param wdl - Whether the side to move wins, draws or loses
+     * @param plies - Number of half moves until mate with best play, -1 for draws
+     * @param stalemate - True if the side to move is stalemated right now
+     */
+    TablebaseResult(Wdl wdl, int plies, boolean stalemate) {
+        this.wdl = wdl;
+        this.plies = plies;
+        this.stalemate = stalemate;
+    }
+
+    /**
+     * Converts a value stored in a tablebase into a result
+     * @param value - Value stored in the tablebase
+     * @return - Result or null if the value doesn't belong to a legal position
+     */
+    static TablebaseResult fromValue(int value) {
+        if(value == Tablebase.INVALID || value == Tablebase.UNKNOWN) {
+            return null;
+        }
+        if(value == Tablebase.STALEMATE) {
+            return new TablebaseResult(Wdl.DRAW, -1, true);
+        }
+        if(value == Tablebase.DRAW) {
+            return new TablebaseResult(Wdl.DRAW, -1, false);
+        }
+        int plies = Tablebase.getPlies(value);
+        return new TablebaseResult(Tablebase.isLoss(value) ? Wdl.LOSS : Wdl.WIN, plies, false);
+    }
+
+    public Wdl getWdl() {
+        return wdl;
+    }
+
+    /**
+     * @return - Number of half moves until mate with best play, -1 for draws
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * @return - True if the side to move is checkmated right now
+     */
+    public boolean isCheckmate() {
+        return wdl == Wdl.LOSS && plies == 0;
+    }
+
+    /**
+     * @return - True if the side to move is stalemated right now
+     */
+    public boolean isStalemate() {
+        return stalemate;
+    }
+
+    @Override
+    public String toString() {
+        if(wdl == Wdl.DRAW) {
+            return stalemate ? "STALEMATE" : "DRAW";
+        }
+        return wdl + " in " + plies + " plies";
+    }
+}
@@ -0,0 +1,104 @@
+package tablebase;
+
+import GameFiles.Board;
+import utils.Constants;
+import utils.PieceCode;
+import utils.Utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide access to the generated tablebases
+ * Tables are opened the first time a position of their endgame is probed and then shared by every thread
+ * Probing does nothing until a directory is set
+ */
+public class Tablebases {
+    private static volatile Path directory = null;
+    private static final ConcurrentHashMap<String, Optional<Tablebase>> tables = new ConcurrentHashMap<>();
+
+    /**
+     * Sets the directory the tablebase files are read from
+     * @param newDirectory - Directory of the tablebase files or null to disable probing
+     */
+    public static void setDirectory(Path newDirectory) {
+        tables.clear();
+        directory = newDirectory;
+    }
+
+    /**
+     * Looks up the current position of the board
+     * @param board - The board on which the current game is being played
+     * @return - Result for the side to move or null if the position isn't covered by the available tablebases
+     */
+    public static TablebaseResult probe(Board board) {
+        Path tableDirectory = directory;
+        if(tableDirectory == null) {
+            return null;
+        }
+        if(board.getNumPieces(Constants.Color.WHITE) + board.getNumPieces(Constants.Color.BLACK) > TablebaseGenerator.MAX_PIECES) {
+            return null;
+        }
+
+        Material material = new Material(getTypes(board, Constants.Color.WHITE), getTypes(board, Constants.Color.BLACK));
+        if(material.hasPawns() || material.getNumPieces() <= 2) {
+            return null;
+        }
+        boolean flipped = !material.isCanonical();
+        Tablebase table = getTable(tableDirectory, material.canonical());
+        if(table == null) {
+            return null;
+        }
+
+        // Put every piece into the slot of its color and type. With flipped colors black fills the white slots
+        PositionIndexer indexer = table.getIndexer();
+        int[] squares = new int[indexer.getNumPieces()];
+        boolean[] used = new boolean[squares.length];
+        for(Constants.Color color : Constants.Color.values()) {
+            Constants.Color slotColor = flipped ? Utils.getOpposingColor(color) : color;
+            for(int i = 0; i < board.getNumPieces(color); i++) {
+                int position = board.getPieceSquare(color, i);
+                assignSlot(indexer, squares, used, position, PieceCode.getType(board.getPieceCode(position)), slotColor);
+            }
+        }
+        boolean whiteToMove = (board.getSideToMove() == Constants.Color.WHITE) != flipped;
+        int side = whiteToMove ? PositionIndexer.WHITE_TO_MOVE : PositionIndexer.BLACK_TO_MOVE;
+        return TablebaseResult.fromValue(table.getValue(indexer.getIndex(squares, side)));
+    }
+
+    private static void assignSlot(PositionIndexer indexer, int[] squares, boolean[] used, int position, Constants.PieceType type, Constants.Color color) {
+        for(int slot = 0; slot < squares.length; slot++) {
+            if(!used[slot] && indexer.getColor(slot) == color && indexer.getType(slot) == type) {
+                used[slot] = true;
+                squares[slot] = position;
+                return;
+            }
+        }
+    }
+
+    private static Tablebase getTable(Path tableDirectory, Material material) {
+        return tables.computeIfAbsent(material.getName(), name -> {
+            try {
+                return Optional.ofNullable(Tablebase.open(tableDirectory, material));
+            }
+            catch(IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).orElse(null);
+    }
+
+    private static Constants.PieceType[] getTypes(Board board, Constants.Color color) {
+        ArrayList<Constants.PieceType> types = new ArrayList<>();
+        for(int i = 0; i < board.getNumPieces(color); i++) {
+            Constants.PieceType type = PieceCode.getType(board.getPieceCode(board.getPieceSquare(color, i)));
+            if(type != Constants.PieceType.KING) {
+                types.add(type);
+            }
+        }
+        return types.toArray(new Constants.PieceType[0]);
+    }
+}
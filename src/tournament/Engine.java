@@ -0,0 +1,28 @@
+package tournament;
+
+import GameFiles.Board;
+import engine.SearchLimits;
+
+/**
+ * Player of self-play games. Every game pair runs on one thread with its own two engines
+ */
+public interface Engine {
+
+    /**
+     * @return - Name used in reports
+     */
+    String getName();
+
+    /**
+     * Called before every game so that nothing learned in the previous game is used
+     */
+    void newGame();
+
+    /**
+     * Chooses the move to play. The board must be unchanged when done
+     * @param board - Position of the game, including the earlier positions of the game for repetitions
+     * @param limits - Time or nodes for the move
+     * @return - Encoded move or Move.NONE if there is no legal move
+     */
+    int selectMove(Board board, SearchLimits limits);
+}
@@ -0,0 +1,42 @@
+package tournament;
+
+import GameFiles.Board;
+import engine.Search;
+import engine.SearchLimits;
+import engine.TranspositionTable;
+
+/**
+ * Engine playing the moves found by a single threaded search
+ */
+public class SearchEngine implements Engine {
+    private String name;
+    private TranspositionTable table;
+    private Search search;
+
+    /**
+     * @param name - Name used in reports
+     * @param hashMb - Size of the transposition table in megabytes
+     */
+    public SearchEngine(String name, int hashMb) {
+        this.name = name;
+        table = new TranspositionTable(hashMb);
+        search = new Search(table);
+        // Games are played in the same process, there is no lag to keep time for
+        search.setMoveOverhead(0);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void newGame() {
+        table.clear();
+    }
+
+    @Override
+    public int selectMove(Board board, SearchLimits limits) {
+        return search.search(board, limits, null).getBestMove();
+    }
+}
@@ -0,0 +1,309 @@
+package tournament;
+
+import GameFiles.Board;
+import GameFiles.Game;
+import analysis.EpdPosition;
+import analysis.EpdReader;
+import engine.MoveGenerator;
+import engine.SearchLimits;
+import engine.TranspositionTable;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Plays games between a tested engine and a base engine until the SPRT is decided or the game limit is reached
+ * Every thread owns one pair of engines and plays game pairs: both engines play each opening once with either color
+ * Games are adjudicated by the rules of the board (checkmate, stalemate and draws) or drawn after a maximum length
+ */
+public class SelfPlay {
+    public static final int DEFAULT_MAX_PLIES = 400;
+
+    private Supplier<Engine> testEngine;
+    private Supplier<Engine> baseEngine;
+    private List<String> openings;
+    private SearchLimits limits;
+    private Sprt sprt;
+    private int maxPlies;
+    // Results from the point of view of the tested engine
+    private long wins;
+    private long draws;
+    private long losses;
+    private Sprt.Decision decision;
+    private volatile boolean stopped;
+    private SelfPlayListener listener;
+
+    /**
+     * @param testEngine - Creates the engine under test, called once per thread
+     * @param baseEngine - Creates the engine it is compared with, called once per thread
+     * @param openings - Positions in Forsyth-Edwards Notation the games start from
+     * @param limits - Time or nodes of every move
+     * @param sprt - Test deciding when to stop
+     */
+    public SelfPlay(Supplier<Engine> testEngine, Supplier<Engine> baseEngine, List<String> openings, SearchLimits limits, Sprt sprt) {
+        this.testEngine = testEngine;
+        this.baseEngine = baseEngine;
+        this.openings = openings.isEmpty() ? List.of(Board.START_FEN) : new ArrayList<>(openings);
+        this.limits = limits;
+        this.sprt = sprt;
+        maxPlies = DEFAULT_MAX_PLIES;
+        decision = Sprt.Decision.CONTINUE;
+    }
+
+    /**
+     * @param maxPlies - Number of half moves after which a game is drawn
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * @param listener - Receives the results after every game pair, may be null
+     */
+    public void setListener(SelfPlayListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Plays game pairs on every thread until the SPRT is decided or the maximum number of games is reached
+     * @param maxGames - Maximum number of games, rounded up to an even number
+     * @param threads - Number of game pairs played at the same time
+     * @return - Decision of the SPRT, CONTINUE if the games ran out first
+     * @throws InterruptedException - If the thread is interrupted while waiting for the games
+     */
+    public Sprt.Decision run(long maxGames, int threads) throws InterruptedException {
+        AtomicLong nextPair = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long numPairs = (maxGames + 1) / 2;
+        stopped = false;
+
+        Thread[] players = new Thread[Math.max(1, threads)];
+        for(int i = 0; i < players.length; i++) {
+            players[i] = new Thread(() -> {
+                try {
+                    Engine test = testEngine.get();
+                    Engine base = baseEngine.get();
+                    long pair;
+                    while(!stopped && (pair = nextPair.getAndIncrement()) < numPairs) {
+                        String opening = openings.get((int) (pair % openings.size()));
+                        int first = playGame(opening, test, base);
+                        int second = 2 - playGame(opening, base, test);
+                        record(first, second);
+                    }
+                }
+                catch(Throwable throwable) {
+                    failure.compareAndSet(null, throwable);
+                    stopped = true;
+                }
+            }, "selfplay-" + i);
+            players[i].start();
+        }
+        for(Thread player : players) {
+            player.join();
+        }
+        if(failure.get() != null) {
+            throw new IllegalStateException(failure.get());
+        }
+        return getDecision();
+    }
+
+    /**
+     * Stops starting new game pairs, the running ones are finished
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Plays one game
+     * @param fen - Opening position
+     * @param white - Engine playing white
+     * @param black - Engine playing black
+     * @return - Half points scored by white
+     */
+    int playGame(String fen, Engine white, Engine black) {
+        Board board = new Board(fen);
+        white.newGame();
+        black.newGame();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for(int ply = 0; ply < maxPlies; ply++) {
+            Constants.Color color = board.getSideToMove();
+            Game.GameState state = board.getGameState();
+            if(state == Game.GameState.CHECKMATE) {
+                return color == Constants.Color.WHITE ? 0 : 2;
+            }
+            if(state != Game.GameState.ONGOING && state != Game.GameState.CHECK) {
+                return 1;
+            }
+            int move = (color == Constants.Color.WHITE ? white : black).selectMove(board, limits);
+            if(!isLegal(board, moves, move)) {
+                // An illegal move loses the game
+                return color == Constants.Color.WHITE ? 0 : 2;
+            }
+            board.makeMove(move);
+        }
+        return 1;
+    }
+
+    private static boolean isLegal(Board board, int[] moves, int move) {
+        int count = MoveGenerator.generateMoves(board, moves);
+        for(int i = 0; i < count; i++) {
+            if(moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the results of a game pair and checks whether the SPRT is decided
+     */
+    private synchronized void record(int first, int second) {
+        for(int halfPoints : new int[] {first, second}) {
+            if(halfPoints == 2) {
+                wins++;
+            }
+            else if(halfPoints == 1) {
+                draws++;
+            }
+            else {
+                losses++;
+            }
+        }
+        if(decision == Sprt.Decision.CONTINUE) {
+            decision = sprt.getDecision(wins, draws, losses);
+            if(decision != Sprt.Decision.CONTINUE) {
+                stopped = true;
+            }
+        }
+        if(listener != null) {
+            listener.gamePairFinished(this);
+        }
+    }
+
+    public synchronized long getWins() {
+        return wins;
+    }
+
+    public synchronized long getDraws() {
+        return draws;
+    }
+
+    public synchronized long getLosses() {
+        return losses;
+    }
+
+    public synchronized Sprt.Decision getDecision() {
+        return decision;
+    }
+
+    /**
+     * @return - Log-likelihood ratio of the games so far
+     */
+    public synchronized double getLlr() {
+        return sprt.getLlr(wins, draws, losses);
+    }
+
+    /**
+     * @return - Summary of the games so far
+     */
+    public synchronized String getReport() {
+        return String.format(Locale.ROOT, "Games: %d, W/D/L: %d/%d/%d, Elo: %.1f +- %.1f, LLR: %.2f (%.2f, %.2f)",
+                wins + draws + losses, wins, draws, losses, Sprt.getElo(wins, draws, losses), Sprt.getEloError(wins, draws, losses),
+                getLlr(), sprt.getLowerBound(), sprt.getUpperBound());
+    }
+
+    /**
+     * Reads the openings of an EPD file
+     * @param epdFile - File of opening positions
+     * @return - Positions in Forsyth-Edwards Notation
+     * @throws IOException - If reading the file fails
+     */
+    public static List<String> readOpenings(Path epdFile) throws IOException {
+        ArrayList<String> openings = new ArrayList<>();
+        try(EpdReader reader = new EpdReader(Files.newBufferedReader(epdFile, StandardCharsets.UTF_8))) {
+            EpdPosition position;
+            while((position = reader.readPosition()) != null) {
+                openings.add(position.getFen());
+            }
+        }
+        return openings;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SearchLimits limits = new SearchLimits();
+        long maxGames = 20_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int testHash = TranspositionTable.DEFAULT_SIZE_MB;
+        int baseHash = TranspositionTable.DEFAULT_SIZE_MB;
+        double elo0 = 0;
+        double elo1 = 5;
+        double alpha = 0.05;
+        double beta = 0.05;
+        List<String> openings = new ArrayList<>();
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-games":
+                    maxGames = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-nodes":
+                    limits.setNodes(Long.parseLong(args[++i]));
+                    break;
+                case "-movetime":
+                    limits.setMoveTime(Long.parseLong(args[++i]));
+                    break;
+                case "-depth":
+                    limits.setDepth(Integer.parseInt(args[++i]));
+                    break;
+                case "-testHash":
+                    testHash = Integer.parseInt(args[++i]);
+                    break;
+                case "-baseHash":
+                    baseHash = Integer.parseInt(args[++i]);
+                    break;
+                case "-elo0":
+                    elo0 = Double.parseDouble(args[++i]);
+                    break;
+                case "-elo1":
+                    elo1 = Double.parseDouble(args[++i]);
+                    break;
+                case "-alpha":
+                    alpha = Double.parseDouble(args[++i]);
+                    break;
+                case "-beta":
+                    beta = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    openings.addAll(readOpenings(Paths.get(args[i])));
+            }
+        }
+        if(limits.getNodes() == 0 && limits.getMoveTime() == 0 && limits.getDepth() == 0) {
+            System.err.println("Usage: SelfPlay (-nodes n | -movetime ms | -depth n) [-games n] [-threads n] [-testHash mb] [-baseHash mb] "
+                    + "[-elo0 e] [-elo1 e] [-alpha a] [-beta b] [openings.epd...]");
+            System.exit(1);
+        }
+
+        int testHashMb = testHash;
+        int baseHashMb = baseHash;
+        SelfPlay selfPlay = new SelfPlay(() -> new SearchEngine("test", testHashMb), () -> new SearchEngine("base", baseHashMb),
+                openings, limits, new Sprt(elo0, elo1, alpha, beta));
+        selfPlay.setListener(games -> System.out.println(games.getReport()));
+        Sprt.Decision decision = selfPlay.run(maxGames, threads);
+        System.out.println(selfPlay.getReport());
+        System.out.println(decision == Sprt.Decision.ACCEPT_H1 ? "H1 accepted" : decision == Sprt.Decision.ACCEPT_H0 ? "H0 accepted" : "Inconclusive");
+    }
+}
@@ -0,0 +1,13 @@
+package tournament;
+
+/**
+ * Receives progress reports of a running self-play match
+ */
+public interface SelfPlayListener {
+
+    /**
+     * Called after the results of a game pair were added, no other results are added during the call
+     * @param selfPlay - The match, its counts include the finished pair
+     */
+    void gamePairFinished(SelfPlay selfPlay);
+}
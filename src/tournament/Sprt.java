@@ -0,0 +1,125 @@
+package tournament;
+
+/**
+ * Sequential probability ratio test between two Elo differences, H0: elo = elo0 and H1: elo = elo1
+ * The log-likelihood ratio is approximated from the mean and variance of the game scores (normal approximation
+ * of the trinomial win/draw/loss distribution). Half a game is added to each result for the variance, otherwise
+ * a match that so far has only wins or only draws would have no variance. The test stops once the ratio leaves the bounds given by the
+ * error probabilities alpha (accepting H1 although H0 holds) and beta (accepting H0 although H1 holds)
+ */
+public class Sprt {
+    public enum Decision {CONTINUE, ACCEPT_H0, ACCEPT_H1}
+    private static final double PRIOR_GAMES = 0.5;
+
+    private double elo0;
+    private double elo1;
+    private double lowerBound;
+    private double upperBound;
+
+    /**
+     * @param elo0 - Elo difference of the null hypothesis
+     * @param elo1 - Elo difference of the alternative hypothesis, greater than elo0
+     * @param alpha - Probability of accepting H1 when H0 is true
+     * @param beta - Probability of accepting H0 when H1 is true
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * @param wins - Games won by the tested engine
+     * @param draws - Games drawn
+     * @param losses - Games lost by the tested engine
+     * @return - Log-likelihood ratio of H1 against H0
+     */
+    public double getLlr(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if(games == 0) {
+            return 0;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double variance = getVariance(wins, draws, losses, score);
+        double score0 = getExpectedScore(elo0);
+        double score1 = getExpectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * @param wins - Games won by the tested engine
+     * @param draws - Games drawn
+     * @param losses - Games lost by the tested engine
+     * @return - Whether one of the hypotheses can be accepted
+     */
+    public Decision getDecision(long wins, long draws, long losses) {
+        double llr = getLlr(wins, draws, losses);
+        if(llr >= upperBound) {
+            return Decision.ACCEPT_H1;
+        }
+        if(llr <= lowerBound) {
+            return Decision.ACCEPT_H0;
+        }
+        return Decision.CONTINUE;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * @param elo - Elo difference
+     * @return - Expected score per game between 0 and 1
+     */
+    public static double getExpectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * @param wins - Games won
+     * @param draws - Games drawn
+     * @param losses - Games lost
+     * @return - Elo difference matching the score of the games, infinite if every game was won or lost
+     */
+    public static double getElo(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if(games == 0) {
+            return 0;
+        }
+        double score = (wins + draws / 2.0) / games;
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * @param wins - Games won
+     * @param draws - Games drawn
+     * @param losses - Games lost
+     * @return - Half the width of the 95% confidence interval of the Elo difference
+     */
+    public static double getEloError(long wins, long draws, long losses) {
+        long games = wins + draws + losses;
+        if(games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double margin = 1.96 * Math.sqrt(getVariance(wins, draws, losses, score) / games);
+        double low = Math.min(1 - 1e-9, Math.max(1e-9, score - margin));
+        double high = Math.min(1 - 1e-9, Math.max(1e-9, score + margin));
+        return (-400 * Math.log10(1 / high - 1) + 400 * Math.log10(1 / low - 1)) / 2;
+    }
+
+    /**
+     * Variance of the score of a single game around the given mean score
+     */
+    private static double getVariance(long wins, long draws, long losses, double score) {
+        double w = wins + PRIOR_GAMES;
+        double d = draws + PRIOR_GAMES;
+        double l = losses + PRIOR_GAMES;
+        return (w * Math.pow(1 - score, 2) + d * Math.pow(0.5 - score, 2) + l * Math.pow(score, 2)) / (w + d + l);
+    }
+}
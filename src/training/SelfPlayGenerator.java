@@ -0,0 +1,367 @@
+package training;
+
+import GameFiles.Board;
+import GameFiles.Game;
+import engine.MoveGenerator;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchResult;
+import engine.TranspositionTable;
+import utils.Constants;
+import utils.Move;
+import utils.PieceCode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plays self-play games with a fixed number of nodes per move on every thread and writes quiet positions of them
+ * with the score of their search and the result of their game, in the format of TrainingPosition
+ * Games start with a few random moves so that they differ. A position is quiet if the side to move isn't in check,
+ * the best move isn't a capture and the score isn't a mate. Games are adjudicated once both sides agree that one of
+ * them is winning and drawn after a maximum number of plies
+ * Every worker collects the positions of a game, fills in the result and appends them to a direct buffer of its own,
+ * which is written to the shared channel when it is full
+ */
+public class SelfPlayGenerator {
+    public static final int DEFAULT_NODES = 2000;
+    public static final int DEFAULT_RANDOM_PLIES = 8;
+    public static final int DEFAULT_MIN_PLY = 16;
+    public static final int MAX_PLIES = 400;
+    public static final int RESIGN_SCORE = 1000;
+    // Number of plies in a row both sides must score beyond RESIGN_SCORE
+    public static final int RESIGN_PLIES = 4;
+    private static final int TABLE_SIZE_MB = 4;
+    private static final int BUFFER_BYTES = TrainingPosition.BYTES << 13;
+
+    private long nodes;
+    private int threads;
+    private int randomPlies;
+    private int minPly;
+    private long maxPositions;
+    private long seed;
+    private AtomicLong games;
+    private AtomicLong positions;
+    private volatile long startTime;
+    private volatile long endTime;
+
+    /**
+     * @param nodes - Number of nodes searched per move
+     * @param threads - Number of games played at the same time
+     * @param maxPositions - Number of positions written before the run ends
+     */
+    public SelfPlayGenerator(long nodes, int threads, long maxPositions) {
+        this.nodes = Math.max(1, nodes);
+        this.threads = Math.max(1, threads);
+        this.maxPositions = maxPositions;
+        randomPlies = DEFAULT_RANDOM_PLIES;
+        minPly = DEFAULT_MIN_PLY;
+        seed = System.nanoTime();
+        games = new AtomicLong();
+        positions = new AtomicLong();
+    }
+
+    /**
+     * @param randomPlies - Number of random half moves every game starts with
+     */
+    public void setRandomPlies(int randomPlies) {
+        this.randomPlies = Math.max(0, randomPlies);
+    }
+
+    /**
+     * @param minPly - Number of half moves of every game, random ones included, played before positions are written
+     */
+    public void setMinPly(int minPly) {
+        this.minPly = Math.max(0, minPly);
+    }
+
+    /**
+     * @param seed - Seed of the random moves, worker i uses seed + i
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plays games until maxPositions positions have been written
+     * @param output - File the positions are appended to, created if it doesn't exist
+     * @return - Number of positions written
+     * @throws IOException - If writing the file fails
+     * @throws InterruptedException - If the thread is interrupted while waiting for the workers
+     */
+    public long run(Path output) throws IOException, InterruptedException {
+        games.set(0);
+        positions.set(0);
+        startTime = System.nanoTime();
+        endTime = 0;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try(FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            Thread[] workers = new Thread[threads];
+            for(int i = 0; i < threads; i++) {
+                workers[i] = new Thread(new Worker(seed + i, channel, failure), "selfplay-worker-" + i);
+                workers[i].start();
+            }
+            try {
+                for(Thread worker : workers) {
+                    worker.join();
+                }
+            }
+            finally {
+                endTime = System.nanoTime();
+            }
+        }
+
+        Throwable throwable = failure.get();
+        if(throwable instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) throwable).getCause();
+        }
+        if(throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if(throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        return getPositions();
+    }
+
+    /**
+     * One worker with its own search, random moves and output buffer
+     */
+    private class Worker implements Runnable {
+        private FileChannel channel;
+        private AtomicReference<Throwable> failure;
+        private SplittableRandom random;
+        private TranspositionTable table;
+        private Search search;
+        private SearchLimits limits;
+        private ByteBuffer game;
+        private ByteBuffer buffer;
+        private int[] moves;
+
+        Worker(long seed, FileChannel channel, AtomicReference<Throwable> failure) {
+            this.channel = channel;
+            this.failure = failure;
+            random = new SplittableRandom(seed);
+            table = new TranspositionTable(TABLE_SIZE_MB);
+            search = new Search(table);
+            limits = new SearchLimits();
+            limits.setNodes(nodes);
+            game = ByteBuffer.allocate(MAX_PLIES * TrainingPosition.BYTES).order(TrainingPosition.ORDER);
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(TrainingPosition.ORDER);
+            moves = new int[MoveGenerator.MAX_MOVES];
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(failure.get() == null && positions.get() < maxPositions) {
+                    play();
+                }
+                flush();
+            }
+            catch(Throwable throwable) {
+                failure.compareAndSet(null, throwable);
+            }
+        }
+
+        /**
+         * Plays a game and hands its quiet positions to the output buffer
+         * Games that end during the random moves are dropped
+         */
+        private void play() throws IOException {
+            Board board = new Board();
+            for(int i = 0; i < randomPlies; i++) {
+                int count = MoveGenerator.generateMoves(board, moves);
+                if(count == 0) {
+                    return;
+                }
+                board.makeMove(moves[random.nextInt(count)]);
+            }
+            table.clear();
+            game.clear();
+            int result = 1;
+            int resignCount = 0;
+            for(int ply = randomPlies; ply < MAX_PLIES; ply++) {
+                Game.GameState state = board.getGameState();
+                if(state == Game.GameState.CHECKMATE) {
+                    result = board.getSideToMove() == Constants.Color.WHITE ? 0 : 2;
+                    break;
+                }
+                if(state != Game.GameState.ONGOING && state != Game.GameState.CHECK) {
+                    break;
+                }
+                SearchResult searchResult = search.search(board, limits, null);
+                int move = searchResult.getBestMove();
+                if(move == Move.NONE) {
+                    break;
+                }
+                int score = searchResult.getScore();
+                int whiteScore = board.getSideToMove() == Constants.Color.WHITE ? score : -score;
+                // Plies in a row in which the same side is winning, positive for white and negative for black
+                if(whiteScore >= RESIGN_SCORE) {
+                    resignCount = resignCount > 0 ? resignCount + 1 : 1;
+                }
+                else if(whiteScore <= -RESIGN_SCORE) {
+                    resignCount = resignCount < 0 ? resignCount - 1 : -1;
+                }
+                else {
+                    resignCount = 0;
+                }
+                if(Math.abs(resignCount) >= RESIGN_PLIES) {
+                    result = resignCount > 0 ? 2 : 0;
+                    break;
+                }
+                if(ply >= minPly && isQuiet(board, move, score)) {
+                    TrainingPosition.write(board, whiteScore, 0, game);
+                }
+                board.makeMove(move);
+            }
+            games.incrementAndGet();
+            for(int offset = 0; offset < game.position(); offset += TrainingPosition.BYTES) {
+                game.put(offset + TrainingPosition.RESULT_OFFSET, (byte) result);
+            }
+            emit();
+        }
+
+        private boolean isQuiet(Board board, int move, int score) {
+            return !Search.isMateScore(score) && !board.isInCheck(board.getSideToMove())
+                    && board.getPieceCode(Move.getNewPosition(move)) == PieceCode.EMPTY;
+        }
+
+        /**
+         * Moves the positions of the game to the output buffer, leaving out the ones beyond maxPositions
+         */
+        private void emit() throws IOException {
+            int count = game.position() / TrainingPosition.BYTES;
+            long first = positions.getAndAdd(count);
+            int kept = (int) Math.max(0, Math.min(count, maxPositions - first));
+            if(kept == 0) {
+                return;
+            }
+            game.flip();
+            game.limit(kept * TrainingPosition.BYTES);
+            if(buffer.remaining() < game.remaining()) {
+                flush();
+            }
+            buffer.put(game);
+        }
+
+        /**
+         * Writes the output buffer in one piece, so that the positions of different workers don't interleave
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            synchronized(channel) {
+                while(buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * @return - Number of games played by the current or last run
+     */
+    public long getGames() {
+        return games.get();
+    }
+
+    /**
+     * @return - Number of positions written by the current or last run
+     */
+    public long getPositions() {
+        return Math.min(positions.get(), maxPositions);
+    }
+
+    /**
+     * @return - Positions written per second by the current or last run
+     */
+    public double getPositionsPerSecond() {
+        long end = endTime != 0 ? endTime : System.nanoTime();
+        double seconds = (end - startTime) / 1e9;
+        return seconds > 0 ? getPositions() / seconds : 0;
+    }
+
+    /**
+     * @return - Summary of the current or last run
+     */
+    public String getReport() {
+        return String.format(Locale.ROOT, "Games: %d, positions: %d, positions/s: %.0f", getGames(), getPositions(),
+                getPositionsPerSecond());
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long nodes = DEFAULT_NODES;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long maxPositions = 1_000_000;
+        int randomPlies = DEFAULT_RANDOM_PLIES;
+        int minPly = DEFAULT_MIN_PLY;
+        Long seed = null;
+        Path output = null;
+
+        for(int i = 0; i < args.length; i++) {
+            switch(args[i]) {
+                case "-nodes":
+                    nodes = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-positions":
+                    maxPositions = Long.parseLong(args[++i]);
+                    break;
+                case "-random":
+                    randomPlies = Integer.parseInt(args[++i]);
+                    break;
+                case "-minPly":
+                    minPly = Integer.parseInt(args[++i]);
+                    break;
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    output = Paths.get(args[i]);
+            }
+        }
+        if(output == null) {
+            System.err.println("Usage: SelfPlayGenerator [-nodes n] [-threads n] [-positions n] [-random plies] "
+                    + "[-minPly n] [-seed n] positions.bin");
+            System.exit(1);
+        }
+
+        SelfPlayGenerator generator = new SelfPlayGenerator(nodes, threads, maxPositions);
+        generator.setRandomPlies(randomPlies);
+        generator.setMinPly(minPly);
+        if(seed != null) {
+            generator.setSeed(seed);
+        }
+        Thread progress = new Thread(() -> {
+            try {
+                while(true) {
+                    TimeUnit.SECONDS.sleep(10);
+                    System.err.println(generator.getReport());
+                }
+            }
+            catch(InterruptedException e) {
+                // Run finished
+            }
+        }, "selfplay-progress");
+        progress.setDaemon(true);
+        progress.start();
+        generator.run(output);
+        progress.interrupt();
+        System.err.println(generator.getReport());
+    }
+}
@@ -0,0 +1,119 @@
+package training;
+
+import GameFiles.Board;
+import GameFiles.PackedPosition;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Position of a self-play game with the score of its search and the result of the game, stored in 32 bytes
+ * The position is a GameFiles.PackedPosition whose label holds the score as a short in bits 0-15 and the result
+ * in half points for white in bits 16-23
+ */
+public class TrainingPosition {
+    public static final int BYTES = PackedPosition.BYTES;
+    public static final ByteOrder ORDER = PackedPosition.ORDER;
+    private static final int RESULT_SHIFT = 16;
+    // Offset of the result byte within a position, the label is in the low bytes of the last long
+    static final int RESULT_OFFSET = BYTES - Long.BYTES + RESULT_SHIFT / Byte.SIZE;
+    private static final int READ_BUFFER_BYTES = BYTES << 12;
+
+    private PackedPosition position;
+
+    private TrainingPosition(PackedPosition position) {
+        this.position = position;
+    }
+
+    /**
+     * Writes a position at the current position of the buffer, which must use ORDER
+     * @param board - Board with the position
+     * @param score - Score of the search in centipawns from white's point of view, clamped to a short
+     * @param result - Result of the game in half points for white
+     * @param buffer - Receives BYTES bytes
+     */
+    public static void write(Board board, int score, int result, ByteBuffer buffer) {
+        int clamped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+        PackedPosition.encode(board).withLabel((clamped & 0xFFFF) | result << RESULT_SHIFT).write(buffer);
+    }
+
+    /**
+     * Reads a position at the current position of the buffer, which must use ORDER
+     * @param buffer - Holds at least BYTES bytes
+     * @return - The position
+     */
+    public static TrainingPosition read(ByteBuffer buffer) {
+        return new TrainingPosition(PackedPosition.read(buffer));
+    }
+
+    /**
+     * Reads every position of a file written by the self-play generator
+     * @param file - File of positions
+     * @param sink - Receives the positions in the order of the file
+     * @return - Number of positions read
+     * @throws IOException - If reading the file fails or its length isn't a multiple of BYTES
+     */
+    public static long readAll(Path file, Consumer<TrainingPosition> sink) throws IOException {
+        long count = 0;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if(channel.size() % BYTES != 0) {
+                throw new IOException("Truncated training file: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES).order(ORDER);
+            while(channel.read(buffer) >= 0) {
+                buffer.flip();
+                while(buffer.remaining() >= BYTES) {
+                    sink.accept(read(buffer));
+                    count++;
+                }
+                buffer.compact();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return - Position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        return toBoard().toFen();
+    }
+
+    /**
+     * @return - New board with the position
+     */
+    public Board toBoard() {
+        return position.toBoard();
+    }
+
+    /**
+     * @return - The packed position with the score and result as label
+     */
+    public PackedPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * @return - Score of the search in centipawns from white's point of view
+     */
+    public int getScore() {
+        return (short) position.getLabel();
+    }
+
+    /**
+     * @return - Result of the game in half points for white: 2 for a win, 1 for a draw and 0 for a loss
+     */
+    public int getResult() {
+        return position.getLabel() >>> RESULT_SHIFT;
+    }
+
+    public Constants.Color getSideToMove() {
+        return position.getSideToMove();
+    }
+}
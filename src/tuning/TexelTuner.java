@@ -0,0 +1,328 @@
+package tuning;
+
+import engine.Evaluator;
+import utils.Constants;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tunes the piece values and square tables of the evaluation on positions labeled with the result of their game
+ * The evaluation is mapped to an expected result by a sigmoid and the mean squared difference to the real results
+ * is minimised by gradient descent with Adam steps. The evaluation is linear in its parameters, so the gradient
+ * of a position is a sum over its pieces. Positions are split over a fork/join pool
+ */
+public class TexelTuner {
+    public static final int DEFAULT_ITERATIONS = 500;
+    public static final double DEFAULT_RATE = 1.0;
+    static final int NUM_TYPES = Constants.PieceType.values().length;
+    // Piece values first, then the square tables of every type
+    static final int NUM_PARAMETERS = NUM_TYPES + NUM_TYPES * TuningData.NUM_SQUARES;
+    // Ranges of positions smaller than this are handled by the task that finds them
+    private static final int MIN_SPLIT = 4096;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final double MIN_SCALING = 0.1;
+    private static final double MAX_SCALING = 4.0;
+    private static final int SCALING_STEPS = 40;
+
+    private final TuningData data;
+    private final ForkJoinPool pool;
+    private final double[] parameters = new double[NUM_PARAMETERS];
+    private final double[] firstMoments = new double[NUM_PARAMETERS];
+    private final double[] secondMoments = new double[NUM_PARAMETERS];
+    private double scaling = 1.0;
+    private double rate = DEFAULT_RATE;
+    private int steps;
+
+    /**
+     * Starts from the parameters the evaluator uses now
+     * @param data - Labeled positions
+     * @param threads - Number of threads computing the error at the same time
+     */
+    public TexelTuner(TuningData data, int threads) {
+        this.data = data;
+        pool = new ForkJoinPool(threads);
+        for(int type = 0; type < NUM_TYPES; type++) {
+            parameters[type] = Evaluator.PIECE_VALUES[type];
+            int[] squares = Evaluator.getPieceSquares(type);
+            for(int square = 0; square < TuningData.NUM_SQUARES; square++) {
+                parameters[getSquareIndex(type, square)] = squares[square];
+            }
+        }
+    }
+
+    /**
+     * @param rate - Largest change of a parameter in centipawns per step
+     */
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * @return - Factor applied to the evaluation before the sigmoid
+     */
+    public double getScaling() {
+        return scaling;
+    }
+
+    /**
+     * @param scaling - Factor applied to the evaluation before the sigmoid
+     */
+    public void setScaling(double scaling) {
+        this.scaling = scaling;
+    }
+
+    /**
+     * Chooses the scaling for which the current parameters predict the results best, by ternary search
+     * It should be fitted once before tuning, so that the parameters keep their scale of centipawns
+     * @return - The new scaling
+     */
+    public double fitScaling() {
+        double low = MIN_SCALING;
+        double high = MAX_SCALING;
+        for(int i = 0; i < SCALING_STEPS; i++) {
+            double lowThird = low + (high - low) / 3;
+            double highThird = high - (high - low) / 3;
+            scaling = lowThird;
+            double lowError = computeError();
+            scaling = highThird;
+            if(lowError < computeError()) {
+                high = highThird;
+            }
+            else {
+                low = lowThird;
+            }
+        }
+        scaling = (low + high) / 2;
+        return scaling;
+    }
+
+    /**
+     * @return - Mean squared difference between the expected and the real results
+     */
+    public double computeError() {
+        if(data.getNumPositions() == 0) {
+            return 0;
+        }
+        return pool.invoke(new ErrorTask(this, 0, data.getNumPositions(), false))[0] / data.getNumPositions();
+    }
+
+    /**
+     * Makes one step against the gradient of the error
+     * @return - Error of the parameters before the step
+     */
+    public double step() {
+        int numPositions = data.getNumPositions();
+        if(numPositions == 0) {
+            return 0;
+        }
+        double[] sums = pool.invoke(new ErrorTask(this, 0, numPositions, true));
+        steps++;
+        double firstCorrection = 1 - Math.pow(BETA1, steps);
+        double secondCorrection = 1 - Math.pow(BETA2, steps);
+        for(int i = 0; i < NUM_PARAMETERS; i++) {
+            double gradient = sums[i + 1] / numPositions;
+            firstMoments[i] = BETA1 * firstMoments[i] + (1 - BETA1) * gradient;
+            secondMoments[i] = BETA2 * secondMoments[i] + (1 - BETA2) * gradient * gradient;
+            parameters[i] -= rate * (firstMoments[i] / firstCorrection) / (Math.sqrt(secondMoments[i] / secondCorrection) + EPSILON);
+        }
+        return sums[0] / numPositions;
+    }
+
+    /**
+     * Makes a number of steps
+     * @param iterations - Number of steps
+     * @param out - Receives the error every 10 steps, may be null
+     * @return - Error after the last step
+     */
+    public double tune(int iterations, PrintStream out) {
+        for(int i = 0; i < iterations; i++) {
+            double error = step();
+            if(out != null && i % 10 == 0) {
+                out.println("Iteration " + i + ": error " + error);
+            }
+        }
+        return computeError();
+    }
+
+    /**
+     * Shuts down the threads
+     */
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return - Piece values rounded to centipawns, indexed by piece type
+     */
+    public int[] getPieceValues() {
+        int[] values = new int[NUM_TYPES];
+        for(int type = 0; type < NUM_TYPES; type++) {
+            values[type] = (int) Math.round(parameters[type]);
+        }
+        return values;
+    }
+
+    /**
+     * @param type - Index of the piece type
+     * @return - Square bonuses rounded to centipawns from white's point of view
+     */
+    public int[] getPieceSquares(int type) {
+        int[] squares = new int[TuningData.NUM_SQUARES];
+        for(int square = 0; square < squares.length; square++) {
+            squares[square] = (int) Math.round(parameters[getSquareIndex(type, square)]);
+        }
+        return squares;
+    }
+
+    /**
+     * Writes the parameters as the tables of the evaluator, so that they can be pasted into its source
+     * @param out - Receives the tables
+     */
+    public void writeTables(PrintStream out) {
+        int[] values = getPieceValues();
+        StringBuilder line = new StringBuilder("public static final int[] PIECE_VALUES = {");
+        for(int type = 0; type < NUM_TYPES; type++) {
+            line.append(type > 0 ? ", " : "").append(values[type]);
+        }
+        out.println(line.append("};"));
+        out.println();
+        for(Constants.PieceType type : Constants.PieceType.values()) {
+            int[] squares = getPieceSquares(type.ordinal());
+            out.println("private static final int[] " + type + "_SQUARES = {");
+            for(int row = 0; row < Constants.NUM_ROWS; row++) {
+                line = new StringBuilder("        ");
+                for(int col = 0; col < Constants.NUM_COLS; col++) {
+                    line.append(String.format("%3d", squares[row * Constants.NUM_COLS + col]));
+                    if(col < Constants.NUM_COLS - 1 || row < Constants.NUM_ROWS - 1) {
+                        line.append(',');
+                    }
+                }
+                out.println(line);
+            }
+            out.println("};");
+        }
+    }
+
+    /**
+     * Evaluates a position with the current parameters
+     * @param position - Index of the position
+     * @return - Score in centipawns from white's point of view
+     */
+    double evaluate(int position) {
+        short[] pieces = data.getPieces();
+        int end = data.getPieceStart()[position + 1];
+        double score = 0;
+        for(int i = data.getPieceStart()[position]; i < end; i++) {
+            int piece = pieces[i];
+            int feature = piece & (TuningData.BLACK_FLAG - 1);
+            double value = parameters[feature / TuningData.NUM_SQUARES] + parameters[NUM_TYPES + feature];
+            score += (piece & TuningData.BLACK_FLAG) == 0 ? value : -value;
+        }
+        return score;
+    }
+
+    private static int getSquareIndex(int type, int square) {
+        return NUM_TYPES + type * TuningData.NUM_SQUARES + square;
+    }
+
+    /**
+     * Sums the squared errors of a range of positions and, if asked for, their gradients
+     * The result holds the error first and then the gradient of every parameter
+     */
+    private static class ErrorTask extends RecursiveTask<double[]> {
+        private static final long serialVersionUID = 1L;
+        private static final double LOG_10 = Math.log(10);
+        private static final double SCALE = 400;
+
+        private final TexelTuner tuner;
+        private final int from;
+        private final int to;
+        private final boolean withGradient;
+
+        ErrorTask(TexelTuner tuner, int from, int to, boolean withGradient) {
+            this.tuner = tuner;
+            this.from = from;
+            this.to = to;
+            this.withGradient = withGradient;
+        }
+
+        @Override
+        protected double[] compute() {
+            if(to - from > MIN_SPLIT) {
+                int middle = (from + to) >>> 1;
+                ErrorTask second = new ErrorTask(tuner, middle, to, withGradient);
+                second.fork();
+                double[] sums = new ErrorTask(tuner, from, middle, withGradient).compute();
+                double[] secondSums = second.join();
+                for(int i = 0; i < sums.length; i++) {
+                    sums[i] += secondSums[i];
+                }
+                return sums;
+            }
+            double[] sums = new double[withGradient ? NUM_PARAMETERS + 1 : 1];
+            double factor = tuner.scaling * LOG_10 / SCALE;
+            short[] pieces = tuner.data.getPieces();
+            int[] pieceStart = tuner.data.getPieceStart();
+            byte[] results = tuner.data.getResults();
+            for(int position = from; position < to; position++) {
+                double expected = 1 / (1 + Math.exp(-factor * tuner.evaluate(position)));
+                double difference = results[position] / 2.0 - expected;
+                sums[0] += difference * difference;
+                if(!withGradient) {
+                    continue;
+                }
+                // Derivative of the squared error with respect to the evaluation
+                double derivative = -2 * difference * expected * (1 - expected) * factor;
+                for(int i = pieceStart[position]; i < pieceStart[position + 1]; i++) {
+                    int feature = pieces[i] & (TuningData.BLACK_FLAG - 1);
+                    double gradient = (pieces[i] & TuningData.BLACK_FLAG) == 0 ? derivative : -derivative;
+                    sums[1 + feature / TuningData.NUM_SQUARES] += gradient;
+                    sums[1 + NUM_TYPES + feature] += gradient;
+                }
+            }
+            return sums;
+        }
+    }
+
+    /**
+     * Tunes the evaluation on a file of labeled positions and prints the tuned tables
+     * Arguments: file, number of iterations (default 500), number of threads (default all processors)
+     * and optionally a file the tables are written to. Files with the extension .bin are read as positions of the
+     * self-play generator, other files as text lines
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length == 0) {
+            System.out.println("Usage: TexelTuner <positions> [iterations] [threads] [output]");
+            return;
+        }
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_ITERATIONS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        Path file = Paths.get(args[0]);
+        TuningData data = file.toString().endsWith(".bin") ? TuningData.loadTrainingPositions(file) : TuningData.load(file);
+        System.out.println("Loaded " + data.getNumPositions() + " positions (" + data.getSkipped() + " skipped) in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        TexelTuner tuner = new TexelTuner(data, threads);
+        System.out.println("Scaling " + tuner.fitScaling() + ", error " + tuner.computeError());
+        double error = tuner.tune(iterations, System.out);
+        tuner.close();
+        System.out.println("Final error " + error);
+        if(args.length > 3) {
+            try(PrintStream out = new PrintStream(Files.newOutputStream(Path.of(args[3])))) {
+                tuner.writeTables(out);
+            }
+        }
+        else {
+            tuner.writeTables(System.out);
+        }
+    }
+}
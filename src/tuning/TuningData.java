@@ -0,0 +1,179 @@
+package tuning;
+
+import GameFiles.Board;
+import training.TrainingPosition;
+import utils.Constants;
+import utils.PieceCode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Labeled positions for tuning, kept in primitive arrays
+ * Each position is stored as its pieces, one short per piece: piece type * 64 + square seen from the side of the
+ * piece's owner, plus BLACK_FLAG for black pieces. The pieces of position i are the entries pieceStart[i] to
+ * pieceStart[i + 1] - 1. Results are stored in half points for white
+ */
+public class TuningData {
+    static final int BLACK_FLAG = 512;
+    static final int SQUARE_MASK = 63;
+    static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+    private static final int INITIAL_POSITIONS = 1 << 16;
+
+    private short[] pieces;
+    private int[] pieceStart;
+    private byte[] results;
+    private int numPositions;
+    private int numPieces;
+    private long skipped;
+
+    public TuningData() {
+        pieces = new short[INITIAL_POSITIONS * 32];
+        pieceStart = new int[INITIAL_POSITIONS + 1];
+        results = new byte[INITIAL_POSITIONS];
+    }
+
+    /**
+     * Reads one position per line. The line holds a FEN (or the four EPD fields) and the result of the game,
+     * written as 1-0, 0-1 or 1/2-1/2, optionally quoted, or as 1.0, 0.5 or 0.0 in square brackets
+     * Lines without a result or a valid position are skipped
+     * @param file - File of labeled positions
+     * @return - The positions of the file
+     * @throws IOException - If reading the file fails
+     */
+    public static TuningData load(Path file) throws IOException {
+        TuningData data = new TuningData();
+        try(BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                data.addLine(line);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Reads the positions of a file written by the self-play generator, labeled with the results of their games
+     * @param file - File of training positions
+     * @return - The positions of the file
+     * @throws IOException - If reading the file fails
+     */
+    public static TuningData loadTrainingPositions(Path file) throws IOException {
+        TuningData data = new TuningData();
+        TrainingPosition.readAll(file, position -> data.add(position.toBoard(), position.getResult()));
+        return data;
+    }
+
+    /**
+     * Adds the position of a line in the format read by load()
+     * @param line - FEN and result
+     * @return - True if the line was added
+     */
+    public boolean addLine(String line) {
+        line = line.trim();
+        if(line.isEmpty() || line.startsWith("#")) {
+            return false;
+        }
+        int halfPoints = parseResult(line);
+        String[] fields = line.split("[\\s;\"\\[]+");
+        if(halfPoints < 0 || fields.length < 4) {
+            skipped++;
+            return false;
+        }
+        StringBuilder fen = new StringBuilder();
+        fen.append(fields[0]).append(' ').append(fields[1]).append(' ').append(fields[2]).append(' ').append(fields[3]);
+        if(fields.length > 5 && isNumber(fields[4]) && isNumber(fields[5])) {
+            fen.append(' ').append(fields[4]).append(' ').append(fields[5]);
+        }
+        try {
+            add(new Board(fen.toString()), halfPoints);
+            return true;
+        }
+        catch(IllegalArgumentException e) {
+            skipped++;
+            return false;
+        }
+    }
+
+    /**
+     * @param board - Board with the position
+     * @param halfPoints - Result of the game for white: 2 for a win, 1 for a draw and 0 for a loss
+     */
+    public void add(Board board, int halfPoints) {
+        if(numPositions == results.length) {
+            results = Arrays.copyOf(results, numPositions * 2);
+            pieceStart = Arrays.copyOf(pieceStart, numPositions * 2 + 1);
+        }
+        int count = board.getNumPieces(Constants.Color.WHITE) + board.getNumPieces(Constants.Color.BLACK);
+        if(numPieces + count > pieces.length) {
+            pieces = Arrays.copyOf(pieces, Math.max(pieces.length * 2, numPieces + count));
+        }
+        for(Constants.Color color : Constants.Color.values()) {
+            for(int i = 0; i < board.getNumPieces(color); i++) {
+                int square = board.getPieceSquare(color, i);
+                int type = PieceCode.getTypeIndex(board.getPieceCode(square));
+                if(color == Constants.Color.WHITE) {
+                    pieces[numPieces++] = (short) (type * NUM_SQUARES + square);
+                }
+                else {
+                    // Mirror the rows so that black uses the tables of white
+                    pieces[numPieces++] = (short) (BLACK_FLAG + type * NUM_SQUARES + (square ^ (NUM_SQUARES - Constants.NUM_COLS)));
+                }
+            }
+        }
+        results[numPositions++] = (byte) halfPoints;
+        pieceStart[numPositions] = numPieces;
+    }
+
+    public int getNumPositions() {
+        return numPositions;
+    }
+
+    /**
+     * @return - Number of lines that couldn't be read as a labeled position
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    short[] getPieces() {
+        return pieces;
+    }
+
+    int[] getPieceStart() {
+        return pieceStart;
+    }
+
+    byte[] getResults() {
+        return results;
+    }
+
+    /**
+     * @return - Result in half points for white or -1 if the line has none
+     */
+    static int parseResult(String line) {
+        if(line.contains("1/2-1/2") || line.contains("[0.5]")) {
+            return 1;
+        }
+        if(line.contains("1-0") || line.contains("[1.0]") || line.contains("[1]")) {
+            return 2;
+        }
+        if(line.contains("0-1") || line.contains("[0.0]") || line.contains("[0]")) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private static boolean isNumber(String text) {
+        for(int i = 0; i < text.length(); i++) {
+            if(!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return !text.isEmpty();
+    }
+}
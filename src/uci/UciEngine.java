@@ -0,0 +1,407 @@
+package uci;
+
+import GameFiles.Board;
+import engine.Bench;
+import engine.MoveGenerator;
+import engine.MctsSearch;
+import engine.Search;
+import engine.SearchLimits;
+import engine.SearchListener;
+import engine.SearchResult;
+import engine.TimeManager;
+import engine.TranspositionTable;
+import nnue.Network;
+import tablebase.Tablebases;
+import utils.Constants;
+import utils.Move;
+
+import javax.management.JMException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Front end speaking the UCI protocol on standard input and output
+ * Searches run on a background thread so stop, ponderhit and isready are answered while the engine is thinking
+ */
+public class UciEngine {
+    private static final String NAME = "Chess";
+    private static final String AUTHOR = "Daki-23";
+    private static final int MAX_HASH_MB = 1024;
+    private static final int MAX_THREADS = 64;
+
+    private PrintStream out;
+    private TranspositionTable table;
+    private Search search;
+    private MctsSearch mctsSearch;
+    private boolean useMcts;
+    private boolean debug;
+    private Board board;
+    private Thread searchThread;
+
+    // Infinite and ponder searches may only report their best move after stop or ponderhit
+    private final Object releaseLock = new Object();
+    private boolean waitForRelease;
+
+    /**
+     * @param out - Stream the responses are written to
+     */
+    public UciEngine(PrintStream out) {
+        this.out = out;
+        table = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+        search = new Search(table);
+        mctsSearch = new MctsSearch();
+        board = new Board(Board.START_FEN);
+    }
+
+    /**
+     * Reads commands until quit is received or the input ends
+     * @param in - Stream the commands are read from
+     */
+    public void run(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while((line = reader.readLine()) != null) {
+            if(!handleCommand(line.trim())) {
+                break;
+            }
+        }
+        stopSearch();
+    }
+
+    /**
+     * Executes one command
+     * @param line - Command line without the line break
+     * @return - False if the engine has to quit
+     */
+    public boolean handleCommand(String line) {
+        String[] tokens = line.split("\\s+");
+        try {
+            switch(tokens[0]) {
+                case "uci":
+                    send("id name " + NAME);
+                    send("id author " + AUTHOR);
+                    send("option name Hash type spin default " + TranspositionTable.DEFAULT_SIZE_MB + " min 1 max " + MAX_HASH_MB);
+                    send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    send("option name Move Overhead type spin default " + TimeManager.DEFAULT_MOVE_OVERHEAD + " min 0 max 5000");
+                    send("option name Ponder type check default false");
+                    send("option name TablebasePath type string default <empty>");
+                    send("option name UseMCTS type check default false");
+                    send("option name EvalFile type string default <empty>");
+                    send("uciok");
+                    break;
+                case "debug":
+                    debug = tokens.length > 1 && tokens[1].equals("on");
+                    break;
+                case "isready":
+                    send("readyok");
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    table.clear();
+                    mctsSearch.clear();
+                    break;
+                case "position":
+                    stopSearch();
+                    setPosition(tokens);
+                    break;
+                case "go":
+                    stopSearch();
+                    startSearch(parseLimits(tokens));
+                    break;
+                case "stop":
+                    stopSearch();
+                    break;
+                case "ponderhit":
+                    // Only a running search can be pondering
+                    if(searchThread == null) {
+                        break;
+                    }
+                    if(useMcts) {
+                        mctsSearch.ponderhit();
+                    }
+                    else {
+                        search.ponderhit();
+                    }
+                    release();
+                    break;
+                case "setoption":
+                    stopSearch();
+                    setOption(line);
+                    break;
+                case "bench":
+                    stopSearch();
+                    synchronized(out) {
+                        new Bench().run(tokens.length > 1 ? Integer.parseInt(tokens[1]) : Bench.DEFAULT_DEPTH, out);
+                    }
+                    break;
+                case "quit":
+                    return false;
+                default:
+                    break;
+            }
+        }
+        catch(IllegalArgumentException | IndexOutOfBoundsException e) {
+            // Covers malformed numbers and positions as well as missing values, the engine keeps running
+            send("info string invalid command " + line + (e.getMessage() == null ? "" : ": " + e.getMessage()));
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the current search has sent its best move
+     */
+    public void waitForSearch() {
+        Thread thread = searchThread;
+        if(thread == null) {
+            return;
+        }
+        try {
+            thread.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void setPosition(String[] tokens) {
+        int i = 1;
+        Board newBoard;
+        if(tokens.length > 1 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for(i = 2; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            newBoard = new Board(fen.toString().trim());
+        }
+        else {
+            newBoard = new Board(Board.START_FEN);
+            i = 2;
+        }
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for(i = i + 1; i < tokens.length; i++) {
+            int move = Move.parse(tokens[i]);
+            int count = MoveGenerator.generateMoves(newBoard, moves);
+            if(!contains(moves, count, move)) {
+                send("info string illegal move " + tokens[i]);
+                break;
+            }
+            MoveGenerator.makeMove(newBoard, move);
+        }
+        board = newBoard;
+    }
+
+    private static SearchLimits parseLimits(String[] tokens) {
+        SearchLimits limits = new SearchLimits();
+        for(int i = 1; i < tokens.length; i++) {
+            switch(tokens[i]) {
+                case "wtime":
+                    limits.setTime(Constants.Color.WHITE, Long.parseLong(tokens[++i]));
+                    break;
+                case "btime":
+                    limits.setTime(Constants.Color.BLACK, Long.parseLong(tokens[++i]));
+                    break;
+                case "winc":
+                    limits.setIncrement(Constants.Color.WHITE, Long.parseLong(tokens[++i]));
+                    break;
+                case "binc":
+                    limits.setIncrement(Constants.Color.BLACK, Long.parseLong(tokens[++i]));
+                    break;
+                case "movestogo":
+                    limits.setMovesToGo(Integer.parseInt(tokens[++i]));
+                    break;
+                case "depth":
+                    limits.setDepth(Integer.parseInt(tokens[++i]));
+                    break;
+                case "nodes":
+                    limits.setNodes(Long.parseLong(tokens[++i]));
+                    break;
+                case "movetime":
+                    limits.setMoveTime(Long.parseLong(tokens[++i]));
+                    break;
+                case "infinite":
+                    limits.setInfinite(true);
+                    break;
+                case "ponder":
+                    limits.setPonder(true);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return limits;
+    }
+
+    private void setOption(String line) {
+        int nameIndex = line.indexOf(" name ");
+        int valueIndex = line.indexOf(" value ");
+        if(nameIndex < 0) {
+            return;
+        }
+        String name = (valueIndex < 0 ? line.substring(nameIndex + 6) : line.substring(nameIndex + 6, valueIndex)).trim();
+        String value = valueIndex < 0 ? "" : line.substring(valueIndex + 7).trim();
+        try {
+            switch(name.toLowerCase()) {
+                case "hash":
+                    table.resize(Math.max(1, Math.min(MAX_HASH_MB, Integer.parseInt(value))));
+                    break;
+                case "threads":
+                    search.setThreads(Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value))));
+                    mctsSearch.setThreads(Math.max(1, Math.min(MAX_THREADS, Integer.parseInt(value))));
+                    break;
+                case "move overhead":
+                    search.setMoveOverhead(Long.parseLong(value));
+                    mctsSearch.setMoveOverhead(Long.parseLong(value));
+                    break;
+                case "usemcts":
+                    useMcts = Boolean.parseBoolean(value);
+                    break;
+                case "evalfile":
+                    if(value.isEmpty() || value.equals("<empty>")) {
+                        search.setNetwork(null);
+                    }
+                    else {
+                        try {
+                            search.setNetwork(Network.load(Paths.get(value)));
+                        }
+                        catch(IOException e) {
+                            send("info string cannot load network " + value + ": " + e.getMessage());
+                        }
+                    }
+                    break;
+                case "tablebasepath":
+                    if(!value.isEmpty() && !value.equals("<empty>")) {
+                        Tablebases.setDirectory(Paths.get(value));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        catch(NumberFormatException e) {
+            send("info string invalid value " + value + " for option " + name);
+        }
+    }
+
+    private void startSearch(SearchLimits limits) {
+        Board searchBoard = board;
+        synchronized(releaseLock) {
+            waitForRelease = limits.isInfinite() || limits.isPonder();
+        }
+        // Cleared here and not by the search thread, a stop may arrive before that thread runs
+        search.prepare();
+        mctsSearch.prepare();
+        SearchListener listener = (depth, score, nodes, millis, pv) -> send(formatInfo(depth, score, nodes, millis, pv));
+        searchThread = new Thread(() -> {
+            SearchResult result = null;
+            try {
+                result = useMcts ? mctsSearch.search(searchBoard, limits, listener) : search.search(searchBoard, limits, listener);
+            }
+            catch(RuntimeException e) {
+                send("info string search failed: " + e);
+            }
+            finally {
+                // The GUI waits for a best move whatever happened to the search
+                awaitRelease();
+                if(debug && !useMcts && result != null) {
+                    send("info string " + search.getStatistics());
+                }
+                String bestMove = result == null || result.getBestMove() == Move.NONE ? "0000" : Move.toString(result.getBestMove());
+                if(result != null && result.getPonderMove() != Move.NONE) {
+                    send("bestmove " + bestMove + " ponder " + Move.toString(result.getPonderMove()));
+                }
+                else {
+                    send("bestmove " + bestMove);
+                }
+            }
+        }, "search");
+        searchThread.start();
+    }
+
+    /**
+     * Stops the running search and waits for its best move
+     */
+    private void stopSearch() {
+        if(searchThread == null) {
+            return;
+        }
+        search.stop();
+        mctsSearch.stop();
+        release();
+        waitForSearch();
+        searchThread = null;
+    }
+
+    private void awaitRelease() {
+        synchronized(releaseLock) {
+            while(waitForRelease) {
+                try {
+                    releaseLock.wait();
+                }
+                catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void release() {
+        synchronized(releaseLock) {
+            waitForRelease = false;
+            releaseLock.notifyAll();
+        }
+    }
+
+    private static String formatInfo(int depth, int score, long nodes, long millis, int[] pv) {
+        StringBuilder info = new StringBuilder("info depth ").append(depth);
+        if(Search.isMateScore(score)) {
+            info.append(" score mate ").append(Search.getMateMoves(score));
+        }
+        else {
+            info.append(" score cp ").append(score);
+        }
+        info.append(" nodes ").append(nodes);
+        info.append(" nps ").append(millis > 0 ? nodes * 1000 / millis : nodes);
+        info.append(" time ").append(millis);
+        if(pv.length > 0) {
+            info.append(" pv");
+            for(int move : pv) {
+                info.append(' ').append(Move.toString(move));
+            }
+        }
+        return info.toString();
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for(int i = 0; i < count; i++) {
+            if(moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void send(String message) {
+        synchronized(out) {
+            out.println(message);
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        UciEngine engine = new UciEngine(System.out);
+        try {
+            engine.search.getMonitor().register("chess:type=Search");
+        }
+        catch(JMException e) {
+            // The engine works without monitoring
+        }
+        engine.run(System.in);
+    }
+}
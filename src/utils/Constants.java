@@ -11,4 +11,8 @@ public class Constants {
     public enum Color {
         BLACK, WHITE;
     }
+
+    public enum PieceType {
+        PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING;
+    }
 }
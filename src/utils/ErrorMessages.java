@@ -3,4 +3,6 @@ package utils;
 public class ErrorMessages {
     public static final String NO_PLAYER = "Player not initialized";
     public static final String INVALID_POS = "Position does not lie on the board";
+    public static final String INVALID_FEN = "Invalid FEN position";
+    public static final String INVALID_PACKED_POSITION = "Invalid packed position";
 }
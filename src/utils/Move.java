@@ -0,0 +1,62 @@
+package utils;
+
+/**
+ * Moves are stored as plain ints so that they can be kept in primitive arrays and files
+ * Bits 0-5 hold the new position and bits 6-11 hold the old position
+ */
+public class Move {
+    public static final int NONE = 0;
+
+    private static final int POSITION_BITS = 6;
+    private static final int POSITION_MASK = (1 << POSITION_BITS) - 1;
+
+    /**
+     * @param oldPosition - Position the piece is moving from
+     * @param newPosition - Position the piece is moving to
+     * @return - Encoded move
+     */
+    public static int encode(int oldPosition, int newPosition) {
+        return (oldPosition << POSITION_BITS) | newPosition;
+    }
+
+    /**
+     * @param move - Encoded move
+     * @return - Position the piece is moving from
+     */
+    public static int getOldPosition(int move) {
+        return (move >>> POSITION_BITS) & POSITION_MASK;
+    }
+
+    /**
+     * @param move - Encoded move
+     * @return - Position the piece is moving to
+     */
+    public static int getNewPosition(int move) {
+        return move & POSITION_MASK;
+    }
+
+    /**
+     * @param move - Encoded move
+     * @return - Move in coordinate notation, e.g. e2e4
+     */
+    public static String toString(int move) {
+        return Utils.convertToSquareName(getOldPosition(move)) + Utils.convertToSquareName(getNewPosition(move));
+    }
+
+    /**
+     * Parses a move in coordinate notation, e.g. e2e4
+     * @param text - Move in coordinate notation
+     * @return - Encoded move or NONE if the text isn't a move
+     */
+    public static int parse(String text) {
+        if(text == null || text.length() < 4) {
+            return NONE;
+        }
+        int oldPosition = Utils.convertFromSquareName(text.substring(0, 2));
+        int newPosition = Utils.convertFromSquareName(text.substring(2, 4));
+        if(oldPosition == -1 || newPosition == -1) {
+            return NONE;
+        }
+        return encode(oldPosition, newPosition);
+    }
+}
@@ -0,0 +1,45 @@
+package utils;
+
+/**
+ * Pieces encoded in a few bits, as stored in the mailbox of a board
+ * Bits 0-2 hold the type plus one so that 0 stays free for empty squares, bit 3 is set for black pieces
+ */
+public class PieceCode {
+    public static final int EMPTY = 0;
+    public static final int MASK = 0xF;
+    private static final int BLACK = 8;
+    private static final Constants.PieceType[] TYPES = Constants.PieceType.values();
+
+    /**
+     * @param color - Color of the piece
+     * @param type - Type of the piece
+     * @return - Code of the piece
+     */
+    public static int encode(Constants.Color color, Constants.PieceType type) {
+        return (type.ordinal() + 1) | (color == Constants.Color.BLACK ? BLACK : 0);
+    }
+
+    /**
+     * @param code - Code of a piece, not EMPTY
+     * @return - Type of the piece
+     */
+    public static Constants.PieceType getType(int code) {
+        return TYPES[(code & 7) - 1];
+    }
+
+    /**
+     * @param code - Code of a piece, not EMPTY
+     * @return - Ordinal of the type of the piece
+     */
+    public static int getTypeIndex(int code) {
+        return (code & 7) - 1;
+    }
+
+    /**
+     * @param code - Code of a piece, not EMPTY
+     * @return - Color of the piece
+     */
+    public static Constants.Color getColor(int code) {
+        return (code & BLACK) != 0 ? Constants.Color.BLACK : Constants.Color.WHITE;
+    }
+}
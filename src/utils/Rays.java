@@ -0,0 +1,76 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Movement of the pieces on plain square indices, following the same rules as the classes in the pieces package
+ * RAYS[type][square] lists, for every direction, the squares the piece passes through in order.
+ * Kings and knights have rays of length one. Pawns have no rays since their moves depend on the color,
+ * PAWN_ATTACKS[color][square] lists the squares a pawn standing on the square attacks
+ */
+public class Rays {
+    public static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+    public static final int[][][][] RAYS = new int[Constants.PieceType.values().length][NUM_SQUARES][][];
+    public static final int[][][] PAWN_ATTACKS = new int[Constants.Color.values().length][NUM_SQUARES][];
+
+    private static final int[][] KING_STEPS = {{1, 1}, {1, 0}, {1, -1}, {0, 1}, {0, -1}, {-1, 1}, {-1, 0}, {-1, -1}};
+    private static final int[][] KNIGHT_STEPS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] ROOK_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    // White pawns move towards row 0, black pawns towards the last row
+    private static final int[][] WHITE_PAWN_STEPS = {{-1, -1}, {-1, 1}};
+    private static final int[][] BLACK_PAWN_STEPS = {{1, -1}, {1, 1}};
+
+    static {
+        for(int square = 0; square < NUM_SQUARES; square++) {
+            RAYS[Constants.PieceType.PAWN.ordinal()][square] = new int[0][];
+            RAYS[Constants.PieceType.KING.ordinal()][square] = getRays(square, KING_STEPS, false);
+            RAYS[Constants.PieceType.KNIGHT.ordinal()][square] = getRays(square, KNIGHT_STEPS, false);
+            RAYS[Constants.PieceType.ROOK.ordinal()][square] = getRays(square, ROOK_STEPS, true);
+            RAYS[Constants.PieceType.BISHOP.ordinal()][square] = getRays(square, BISHOP_STEPS, true);
+            int[][] rookRays = RAYS[Constants.PieceType.ROOK.ordinal()][square];
+            int[][] bishopRays = RAYS[Constants.PieceType.BISHOP.ordinal()][square];
+            int[][] queenRays = new int[rookRays.length + bishopRays.length][];
+            System.arraycopy(rookRays, 0, queenRays, 0, rookRays.length);
+            System.arraycopy(bishopRays, 0, queenRays, rookRays.length, bishopRays.length);
+            RAYS[Constants.PieceType.QUEEN.ordinal()][square] = queenRays;
+
+            PAWN_ATTACKS[Constants.Color.WHITE.ordinal()][square] = getTargets(square, WHITE_PAWN_STEPS);
+            PAWN_ATTACKS[Constants.Color.BLACK.ordinal()][square] = getTargets(square, BLACK_PAWN_STEPS);
+        }
+    }
+
+    private static int[][] getRays(int square, int[][] steps, boolean sliding) {
+        int row = square / Constants.NUM_COLS;
+        int col = square % Constants.NUM_COLS;
+        int count = 0;
+        int[][] rays = new int[steps.length][];
+        for(int[] step : steps) {
+            int length = 0;
+            int[] ray = new int[Constants.NUM_ROWS];
+            int newRow = row + step[Constants.ROW];
+            int newCol = col + step[Constants.COLUMN];
+            while(0 <= newRow && newRow < Constants.NUM_ROWS && 0 <= newCol && newCol < Constants.NUM_COLS) {
+                ray[length++] = newRow * Constants.NUM_COLS + newCol;
+                if(!sliding) {
+                    break;
+                }
+                newRow += step[Constants.ROW];
+                newCol += step[Constants.COLUMN];
+            }
+            if(length > 0) {
+                rays[count++] = Arrays.copyOf(ray, length);
+            }
+        }
+        return Arrays.copyOf(rays, count);
+    }
+
+    private static int[] getTargets(int square, int[][] steps) {
+        int[][] rays = getRays(square, steps, false);
+        int[] targets = new int[rays.length];
+        for(int i = 0; i < rays.length; i++) {
+            targets[i] = rays[i][0];
+        }
+        return targets;
+    }
+}
@@ -88,4 +88,31 @@ public class Utils {
         return NEGATIVE;
     }
 
+    /**
+     * Converts position into the name of the square in algebraic notation
+     * Row 0 is the 8th rank (black's side) and column 0 is the a-file
+     * @param position - Position we want to convert
+     * @return - Name of the square, e.g. e4
+     */
+    public static String convertToSquareName(int position) {
+        int[] coordinates = convertToCoordinates(position);
+        char file = (char) ('a' + coordinates[COLUMN]);
+        char rank = (char) ('0' + (NUM_ROWS - coordinates[ROW]));
+        return "" + file + rank;
+    }
+
+    /**
+     * Converts the name of a square in algebraic notation into a position
+     * @param squareName - Name of the square, e.g. e4
+     * @return - Position or -1 if the name isn't a square on the board
+     */
+    public static int convertFromSquareName(String squareName) {
+        if(squareName == null || squareName.length() != 2) {
+            return -1;
+        }
+        int col = squareName.charAt(0) - 'a';
+        int row = NUM_ROWS - (squareName.charAt(1) - '0');
+        return convertToPosition(row, col);
+    }
+
 }
@@ -0,0 +1,61 @@
+package utils;
+
+import java.util.Random;
+
+public class Zobrist {
+    // Fixed seed so that keys stay the same between runs. Opening books and other files store these keys
+    private static final long SEED = 0x5DEECE66DL;
+    private static final int NUM_SQUARES = Constants.NUM_ROWS * Constants.NUM_COLS;
+
+    private static final long[][][] PIECE_KEYS;
+    // The same keys indexed by piece code and position
+    private static final long[] CODE_KEYS;
+    private static final long SIDE_KEY;
+
+    static {
+        Random random = new Random(SEED);
+        PIECE_KEYS = new long[Constants.Color.values().length][Constants.PieceType.values().length][NUM_SQUARES];
+        for(int color = 0; color < PIECE_KEYS.length; color++) {
+            for(int type = 0; type < PIECE_KEYS[color].length; type++) {
+                for(int position = 0; position < NUM_SQUARES; position++) {
+                    PIECE_KEYS[color][type][position] = random.nextLong();
+                }
+            }
+        }
+        SIDE_KEY = random.nextLong();
+        CODE_KEYS = new long[(PieceCode.MASK + 1) * NUM_SQUARES];
+        for(Constants.Color color : Constants.Color.values()) {
+            for(Constants.PieceType type : Constants.PieceType.values()) {
+                System.arraycopy(PIECE_KEYS[color.ordinal()][type.ordinal()], 0, CODE_KEYS,
+                        PieceCode.encode(color, type) * NUM_SQUARES, NUM_SQUARES);
+            }
+        }
+    }
+
+    /**
+     * Returns the key of a piece standing on a position
+     * @param color - Color of the piece
+     * @param type - Type of the piece
+     * @param position - Position of the piece on the board
+     * @return - Key to be xor'ed into the position key
+     */
+    public static long getPieceKey(Constants.Color color, Constants.PieceType type, int position) {
+        return PIECE_KEYS[color.ordinal()][type.ordinal()][position];
+    }
+
+    /**
+     * @param code - Code of the piece, see PieceCode
+     * @param position - Position of the piece on the board
+     * @return - Key to be xor'ed into the position key
+     */
+    public static long getPieceKey(int code, int position) {
+        return CODE_KEYS[code * NUM_SQUARES + position];
+    }
+
+    /**
+     * @return - Key to be xor'ed into the position key when black is to move
+     */
+    public static long getSideKey() {
+        return SIDE_KEY;
+    }
+}